@@ -1,7 +1,10 @@
 package com.feiwu.yikouai.ai;
 
 import com.feiwu.yikouai.model.entity.ChatHistory;
+import dev.langchain4j.service.Result;
 import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.V;
 
 import java.util.List;
 
@@ -21,4 +24,16 @@ public interface AiBaseGeneratorService {
 
     @SystemMessage(fromResource = "prompt/chat-history-summary-prompt.txt")
     String generateChatHistorySummary(List<ChatHistory> chatHistoryList);
+
+    /**
+     * 增量生成对话总结：在已有总结的基础上合并新增的对话
+     *
+     * @param previousSummary 已有总结，没有时传"无"
+     * @param newMessages     已有总结之后新增的对话
+     * @return 更新后的完整总结及本次调用的 token 用量
+     */
+    @SystemMessage(fromResource = "prompt/chat-history-incremental-summary-prompt.txt")
+    @UserMessage("已有摘要：\n{{previousSummary}}\n\n新增对话：\n{{newMessages}}")
+    Result<String> generateIncrementalChatHistorySummary(@V("previousSummary") String previousSummary,
+                                                         @V("newMessages") String newMessages);
 }
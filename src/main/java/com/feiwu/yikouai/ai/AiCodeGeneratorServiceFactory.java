@@ -5,23 +5,30 @@ import com.feiwu.yikouai.ai.guardrail.RetryOutputGuardrail;
 import com.feiwu.yikouai.ai.tools.*;
 import com.feiwu.yikouai.exception.BusinessException;
 import com.feiwu.yikouai.exception.ErrorCode;
+import com.feiwu.yikouai.manager.ChatMemoryWatermarkManager;
+import com.feiwu.yikouai.manager.ChatTurnSequenceManager;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import com.feiwu.yikouai.monitor.ChatMemoryStoreMetricsCollector;
 import com.feiwu.yikouai.service.ChatHistoryService;
 import com.feiwu.yikouai.utils.SpringContextUtil;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @Slf4j
@@ -31,7 +38,7 @@ public class AiCodeGeneratorServiceFactory {
     private ChatModel chatModel;
 
     @Resource
-    private RedisChatMemoryStore redisChatMemoryStore;
+    private ChatMemoryStore redisChatMemoryStore;
 
     @Resource
     private ChatHistoryService chatHistoryService;
@@ -39,61 +46,106 @@ public class AiCodeGeneratorServiceFactory {
     @Resource
     private ToolManager toolManager;
 
+    @Resource
+    private ChatTurnSequenceManager chatTurnSequenceManager;
+
+    @Resource
+    private ChatMemoryWatermarkManager chatMemoryWatermarkManager;
+
+    @Resource
+    private ChatMemoryStoreMetricsCollector chatMemoryStoreMetricsCollector;
+
+    /**
+     * 每种代码生成类型共享一个 AI 服务实例，对话记忆通过 @MemoryId（appId）获取
+     */
+    private final Map<CodeGenTypeEnum, AiCodeGeneratorService> serviceMap = new ConcurrentHashMap<>();
+
     /**
-     * AI 服务实例缓存
+     * 对话记忆实例缓存，移除时同时从各 AI 服务中移除，避免 AI 服务内部持有的记忆无限增长
+     * 记忆内容保存在 Redis 中，移除的只是本地对象
      */
-    private final Cache<String, AiCodeGeneratorService> serviceCache = Caffeine.newBuilder()
+    private final Cache<Long, MessageWindowChatMemory> chatMemoryCache = Caffeine.newBuilder()
             .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(30))
             .expireAfterAccess(Duration.ofMinutes(10))
-            .removalListener((key, value, cause) -> {
-                log.debug("AI 服务实例被移除，缓存键: {}, 原因: {}", key, cause);
+            .removalListener((Long appId, MessageWindowChatMemory chatMemory, RemovalCause cause) -> {
+                log.debug("对话记忆实例被移除，appId: {}, 原因: {}", appId, cause);
+                serviceMap.values().forEach(service -> ((ChatMemoryAccess) service).evictChatMemory(appId));
             })
             .build();
 
     /**
-     * 根据 appId 获取服务（带缓存）这个方法是为了兼容历史逻辑
+     * 根据代码生成类型获取共享的服务
      */
-    public AiCodeGeneratorService getAiCodeGeneratorService(long appId) {
-        return getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
+    public AiCodeGeneratorService getAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
+        return serviceMap.computeIfAbsent(codeGenType, this::createAiCodeGeneratorService);
     }
 
     /**
-     * 根据 appId 和代码生成类型获取服务（带缓存）
+     * 根据 appId 和代码生成类型获取服务，同时准备好该应用的对话记忆
      */
     public AiCodeGeneratorService getAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
-        String cacheKey = buildCacheKey(appId, codeGenType);
-        return serviceCache.get(cacheKey, key -> createAiCodeGeneratorService(appId, codeGenType));
+        getChatMemory(appId);
+        return getAiCodeGeneratorService(codeGenType);
     }
 
     /**
-     * 构建缓存键
+     * 获取应用的对话记忆（带缓存），首次获取时从 Redis 复用或从数据库重建
      */
-    private String buildCacheKey(long appId, CodeGenTypeEnum codeGenType) {
-        return appId + "_" + codeGenType.getValue();
+    private MessageWindowChatMemory getChatMemory(long appId) {
+        return chatMemoryCache.get(appId, key -> {
+            MessageWindowChatMemory chatMemory = MessageWindowChatMemory
+                    .builder()
+                    .id(appId)
+                    .chatMemoryStore(redisChatMemoryStore)
+                    .maxMessages(50)
+                    .build();
+            // Redis 中的记忆已是最新时直接复用，否则从数据库加载历史对话到记忆中
+            warmUpChatMemory(appId, chatMemory);
+            return chatMemory;
+        });
     }
 
     /**
-     * 创建新的 AI 服务实例
+     * 准备对话记忆：水位追上当前轮数且记忆不为空时直接复用 Redis 中的记忆，否则从数据库重建
      */
-    private AiCodeGeneratorService createAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
-        // 根据 appId 构建独立的对话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(50)
-                .build();
-        // 从数据库加载历史对话到记忆中
+    private void warmUpChatMemory(long appId, MessageWindowChatMemory chatMemory) {
+        String reason;
+        long currentTurn;
+        try {
+            currentTurn = chatTurnSequenceManager.currentTurn(appId);
+            if (!chatMemoryWatermarkManager.isFresh(appId, currentTurn)) {
+                reason = "stale";
+            } else if (chatMemory.messages().isEmpty()) {
+                reason = "empty";
+            } else {
+                chatMemoryStoreMetricsCollector.recordReuse();
+                log.debug("复用 Redis 中的对话记忆, appId: {}, turn: {}", appId, currentTurn);
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("读取对话记忆水位失败，从数据库重建, appId: {}, error: {}", appId, e.getMessage());
+            reason = "error";
+            currentTurn = -1;
+        }
+        long start = System.nanoTime();
         chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
+        chatMemoryStoreMetricsCollector.recordRebuild(reason, System.nanoTime() - start);
+        if (currentTurn >= 0) {
+            chatMemoryWatermarkManager.reset(appId, currentTurn);
+        }
+    }
+
+    /**
+     * 创建新的 AI 服务实例
+     */
+    private AiCodeGeneratorService createAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType) {
             case VUE_PROJECT -> {
-                // 使用多例模式的 StreamingChatModel 解决并发问题
                 StreamingChatModel reasoningStreamingChatModel = SpringContextUtil.getBean("reasoningStreamingChatModelPrototype", StreamingChatModel.class);
                 yield AiServices.builder(AiCodeGeneratorService.class)
                         .streamingChatModel(reasoningStreamingChatModel)
-                        .chatMemoryProvider(memoryId -> chatMemory)
+                        .chatMemoryProvider(memoryId -> getChatMemory((Long) memoryId))
                         .tools(toolManager.getAllTools())
                         .hallucinatedToolNameStrategy(toolExecutionRequest -> ToolExecutionResultMessage.from(
                                 toolExecutionRequest, "Error: there is no tool called " + toolExecutionRequest.name()
@@ -104,12 +156,11 @@ public class AiCodeGeneratorServiceFactory {
                         .build();
             }
             case HTML, MULTI_FILE -> {
-                // 使用多例模式的 StreamingChatModel 解决并发问题
                 StreamingChatModel openAiStreamingChatModel = SpringContextUtil.getBean("streamingChatModelPrototype", StreamingChatModel.class);
                 yield AiServices.builder(AiCodeGeneratorService.class)
                         .chatModel(chatModel)
                         .streamingChatModel(openAiStreamingChatModel)
-                        .chatMemory(chatMemory)
+                        .chatMemoryProvider(memoryId -> getChatMemory((Long) memoryId))
                         .inputGuardrails(new PromptSafetyInputGuardrail())
                         .maxSequentialToolsInvocations(20)
 //                        .outputGuardrails(new RetryOutputGuardrail())
@@ -126,8 +177,7 @@ public class AiCodeGeneratorServiceFactory {
      */
     @Bean
     public AiCodeGeneratorService aiCodeGeneratorService() {
-        return getAiCodeGeneratorService(0L);
+        return getAiCodeGeneratorService(CodeGenTypeEnum.HTML);
     }
 
 }
-
@@ -0,0 +1,121 @@
+package com.feiwu.yikouai.ai.http;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.exception.TimeoutException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static dev.langchain4j.http.client.sse.ServerSentEventListenerUtils.ignoringExceptions;
+
+/**
+ * 基于共享 OkHttpClient 的 LangChain4j HTTP 客户端
+ * 所有模型实例共用同一个连接池和调度器（keep-alive 复用连接，TLS 下通过 ALPN 协商 HTTP/2），
+ * 每个模型实例只持有自己的超时配置；每次请求的 SSE 监听器相互独立
+ */
+public class OkHttpAiHttpClient implements HttpClient {
+
+    private final OkHttpClient delegate;
+
+    OkHttpAiHttpClient(OkHttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) throws HttpException, RuntimeException {
+        try (Response response = delegate.newCall(toOkHttpRequest(request)).execute()) {
+            String body = readBody(response);
+            if (!response.isSuccessful()) {
+                throw new HttpException(response.code(), body);
+            }
+            return toSuccessfulResponse(response, body);
+        } catch (InterruptedIOException e) {
+            throw new TimeoutException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        // 由共享调度器的线程读取流，调度器的并发上限即全局流式请求上限，超出的请求排队等待
+        delegate.newCall(toOkHttpRequest(request)).enqueue(new Callback() {
+
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                Throwable error = e instanceof InterruptedIOException ? new TimeoutException(e) : e;
+                ignoringExceptions(() -> listener.onError(error));
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        HttpException error = new HttpException(response.code(), readBody(response));
+                        ignoringExceptions(() -> listener.onError(error));
+                        return;
+                    }
+                    ignoringExceptions(() -> listener.onOpen(toSuccessfulResponse(response, null)));
+                    ResponseBody body = response.body();
+                    if (body != null) {
+                        parser.parse(body.byteStream(), listener);
+                    }
+                    ignoringExceptions(listener::onClose);
+                } catch (Exception e) {
+                    Throwable error = e instanceof InterruptedIOException ? new TimeoutException(e) : e;
+                    ignoringExceptions(() -> listener.onError(error));
+                }
+            }
+        });
+    }
+
+    private static Request toOkHttpRequest(HttpRequest request) {
+        Headers.Builder headers = new Headers.Builder();
+        if (request.headers() != null) {
+            request.headers().forEach((name, values) -> {
+                if (values != null) {
+                    values.forEach(value -> headers.add(name, value));
+                }
+            });
+        }
+        // Content-Type 已包含在请求头中
+        RequestBody body = request.body() == null ? null
+                : RequestBody.create(request.body().getBytes(StandardCharsets.UTF_8), null);
+        return new Request.Builder()
+                .url(request.url())
+                .headers(headers.build())
+                .method(request.method().name(), body)
+                .build();
+    }
+
+    private static String readBody(Response response) throws IOException {
+        ResponseBody body = response.body();
+        return body == null ? null : body.string();
+    }
+
+    private static SuccessfulHttpResponse toSuccessfulResponse(Response response, String body) {
+        Map<String, List<String>> headers = response.headers().toMultimap();
+        return SuccessfulHttpResponse.builder()
+                .statusCode(response.code())
+                .headers(headers)
+                .body(body)
+                .build();
+    }
+}
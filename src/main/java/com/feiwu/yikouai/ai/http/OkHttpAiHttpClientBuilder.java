@@ -0,0 +1,59 @@
+package com.feiwu.yikouai.ai.http;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+
+/**
+ * 共享连接池的 HTTP 客户端构建器
+ * 每个模型实例使用一个新的构建器，build 时通过 OkHttpClient#newBuilder 派生客户端：
+ * 超时配置各自独立，连接池、调度器、事件监听器与共享客户端为同一实例
+ */
+public class OkHttpAiHttpClientBuilder implements HttpClientBuilder {
+
+    private final OkHttpClient sharedClient;
+
+    private Duration connectTimeout;
+
+    private Duration readTimeout;
+
+    public OkHttpAiHttpClientBuilder(OkHttpClient sharedClient) {
+        this.sharedClient = sharedClient;
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        OkHttpClient.Builder builder = sharedClient.newBuilder();
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout);
+        }
+        if (readTimeout != null) {
+            builder.readTimeout(readTimeout);
+        }
+        return new OkHttpAiHttpClient(builder.build());
+    }
+}
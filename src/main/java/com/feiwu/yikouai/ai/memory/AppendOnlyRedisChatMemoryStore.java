@@ -0,0 +1,311 @@
+package com.feiwu.yikouai.ai.memory;
+
+import com.feiwu.yikouai.monitor.ChatMemoryStoreMetricsCollector;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 只追加的 Redis 对话记忆存储
+ * RedisChatMemoryStore 把整个记忆窗口序列化成一个 JSON 写入，MessageWindowChatMemory 每 add 一条消息就整体重写一次，
+ * VUE_PROJECT 一轮中每次工具调用都会把包含全部文件内容的窗口重新写入 Redis。这里改为：
+ * 1. 非系统消息逐条编码后存放在 Redis 列表中，系统消息和版本号存放在单独的哈希中
+ * 2. 更新时与本节点上次读到 / 写入的消息按对象引用比较：窗口淘汰的旧消息在服务端 LTRIM，新消息 RPUSH，
+ *    同一个 Lua 脚本中完成并递增版本号，已有消息不再重复传输
+ * 3. 版本号与本节点记录的不一致（其他节点写过、本地记录过期）或消息不是"头部淘汰 + 尾部追加"时，整体重写
+ * 4. 本节点读到 / 写入的消息保存在 Caffeine 本地缓存（L1）中，读取时把本地版本号带给 Redis，
+ *    版本号未变时 Redis 只返回版本号，直接使用本地消息，不再传输和反序列化整个窗口；其他节点写入后版本号变化，本地缓存随之失效
+ * 5. 版本号只增不减：删除记忆时保留版本号并递增；版本号不存在（首次写入、哈希过期）时以随机纪元为起点，
+ *    避免从 1 重新计数后与其他节点本地缓存中的旧版本号相同（ABA）
+ * 读取时系统消息固定放在第一条
+ */
+@Slf4j
+public class AppendOnlyRedisChatMemoryStore implements ChatMemoryStore {
+
+    private static final String KEY_PREFIX = "chat_memory:";
+
+    private static final byte[] SYSTEM_KEEP = bytes("0");
+
+    private static final byte[] SYSTEM_SET = bytes("1");
+
+    private static final byte[] SYSTEM_DELETE = bytes("2");
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * ARGV[1] 本地缓存的版本号（没有时为空串），版本号相同时只返回 {版本号}，否则返回 {版本号, 系统消息, 消息列表}
+     */
+    private static final String READ_SCRIPT =
+            "local version = redis.call('hget', KEYS[2], 'version') " +
+            "if version and version == ARGV[1] then return {version} end " +
+            "return {version, redis.call('hget', KEYS[2], 'system'), redis.call('lrange', KEYS[1], 0, -1)}";
+
+    /**
+     * ARGV[1] 期望的版本号，ARGV[2] 淘汰条数，ARGV[3] 过期毫秒数，ARGV[4] 系统消息操作，ARGV[5] 系统消息，
+     * ARGV[6] 版本号不存在时的起点，ARGV[7..] 追加的消息
+     * 版本号不一致时返回 -1，否则返回新版本号
+     */
+    private static final String APPEND_SCRIPT =
+            "local version = redis.call('hget', KEYS[2], 'version') or '0' " +
+            "if version ~= ARGV[1] then return -1 end " +
+            "local trim = tonumber(ARGV[2]) " +
+            "if trim > 0 then redis.call('ltrim', KEYS[1], trim, -1) end " +
+            "for i = 7, #ARGV do redis.call('rpush', KEYS[1], ARGV[i]) end " +
+            "if ARGV[4] == '1' then redis.call('hset', KEYS[2], 'system', ARGV[5]) " +
+            "elseif ARGV[4] == '2' then redis.call('hdel', KEYS[2], 'system') end " +
+            "redis.call('hsetnx', KEYS[2], 'version', ARGV[6]) " +
+            "local newVersion = redis.call('hincrby', KEYS[2], 'version', 1) " +
+            "redis.call('pexpire', KEYS[1], ARGV[3]) " +
+            "redis.call('pexpire', KEYS[2], ARGV[3]) " +
+            "return newVersion";
+
+    /**
+     * ARGV[1] 过期毫秒数，ARGV[2] 系统消息操作，ARGV[3] 系统消息，ARGV[4] 版本号不存在时的起点，ARGV[5..] 全部消息，返回新版本号
+     */
+    private static final String REWRITE_SCRIPT =
+            "redis.call('del', KEYS[1]) " +
+            "for i = 5, #ARGV do redis.call('rpush', KEYS[1], ARGV[i]) end " +
+            "if ARGV[2] == '1' then redis.call('hset', KEYS[2], 'system', ARGV[3]) " +
+            "else redis.call('hdel', KEYS[2], 'system') end " +
+            "redis.call('hsetnx', KEYS[2], 'version', ARGV[4]) " +
+            "local newVersion = redis.call('hincrby', KEYS[2], 'version', 1) " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+            "redis.call('pexpire', KEYS[2], ARGV[1]) " +
+            "return newVersion";
+
+    /**
+     * ARGV[1] 过期毫秒数，ARGV[2] 版本号不存在时的起点
+     * 删除消息列表和系统消息，保留并递增版本号，其他节点的本地缓存随之失效
+     */
+    private static final String DELETE_SCRIPT =
+            "redis.call('del', KEYS[1]) " +
+            "redis.call('hdel', KEYS[2], 'system') " +
+            "redis.call('hsetnx', KEYS[2], 'version', ARGV[2]) " +
+            "local newVersion = redis.call('hincrby', KEYS[2], 'version', 1) " +
+            "redis.call('pexpire', KEYS[2], ARGV[1]) " +
+            "return newVersion";
+
+    /**
+     * 版本号起点的上界，留出足够的递增空间，不会超出 Redis 64 位整数
+     */
+    private static final long VERSION_EPOCH_BOUND = Long.MAX_VALUE >> 1;
+
+    private final RedissonClient redissonClient;
+
+    private final ChatMessageCompactCodec codec;
+
+    private final byte[] ttlMillis;
+
+    private final ChatMemoryStoreMetricsCollector metricsCollector;
+
+    /**
+     * 本地缓存（L1）：本节点最近一次读到或写入的状态（记忆 ID 即应用 ID -> 状态），用于计算增量和免去重复读取
+     */
+    private final Cache<Object, KnownState> knownStates;
+
+    /**
+     * @param messages 非系统消息，与 MessageWindowChatMemory 持有的是同一批对象
+     */
+    private record KnownState(long version, List<ChatMessage> messages, SystemMessage systemMessage) {
+    }
+
+    /**
+     * @param ttl                    Redis 中的过期时间
+     * @param compressThreshold      单条消息压缩阈值（字节），小于 0 表示不压缩
+     * @param localMaxSize           本地缓存最多保存的记忆数
+     * @param localExpireAfterAccess 本地缓存未访问后的过期时间
+     */
+    public AppendOnlyRedisChatMemoryStore(RedissonClient redissonClient, Duration ttl, int compressThreshold,
+                                          long localMaxSize, Duration localExpireAfterAccess,
+                                          ChatMemoryStoreMetricsCollector metricsCollector) {
+        this.redissonClient = redissonClient;
+        this.codec = new ChatMessageCompactCodec(compressThreshold);
+        this.ttlMillis = bytes(String.valueOf(ttl.toMillis()));
+        this.metricsCollector = metricsCollector;
+        this.knownStates = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterAccess(localExpireAfterAccess)
+                .build();
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        KnownState known = knownStates.getIfPresent(memoryId);
+        byte[] knownVersion = known == null ? EMPTY : bytes(String.valueOf(known.version()));
+        List<Object> result = script().eval(RScript.Mode.READ_ONLY, READ_SCRIPT, RScript.ReturnType.MULTI,
+                keys(memoryId), knownVersion);
+        if (known != null && result.size() == 1) {
+            metricsCollector.recordLocalCacheHit();
+            return withSystemMessage(known);
+        }
+        metricsCollector.recordLocalCacheMiss();
+        long version = result.get(0) == null ? 0 : Long.parseLong(new String((byte[]) result.get(0), StandardCharsets.UTF_8));
+        long start = System.nanoTime();
+        SystemMessage systemMessage = null;
+        long readBytes = 0;
+        if (result.size() > 1 && result.get(1) != null) {
+            byte[] encoded = (byte[]) result.get(1);
+            systemMessage = (SystemMessage) codec.decode(encoded);
+            readBytes += encoded.length;
+        }
+        List<ChatMessage> messages = new ArrayList<>();
+        if (result.size() > 2 && result.get(2) instanceof List<?> encodedMessages) {
+            for (Object encodedMessage : encodedMessages) {
+                byte[] encoded = (byte[]) encodedMessage;
+                messages.add(codec.decode(encoded));
+                readBytes += encoded.length;
+            }
+        }
+        metricsCollector.recordRead(readBytes, System.nanoTime() - start);
+        KnownState state = new KnownState(version, List.copyOf(messages), systemMessage);
+        knownStates.put(memoryId, state);
+        return withSystemMessage(state);
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        SystemMessage systemMessage = null;
+        List<ChatMessage> rest = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage system) {
+                systemMessage = system;
+            } else {
+                rest.add(message);
+            }
+        }
+        KnownState known = knownStates.getIfPresent(memoryId);
+        if (known != null) {
+            int trim = findTrim(known.messages(), rest);
+            if (trim >= 0 && append(memoryId, known, trim, rest, systemMessage)) {
+                return;
+            }
+        }
+        rewrite(memoryId, rest, systemMessage);
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        knownStates.invalidate(memoryId);
+        script().eval(RScript.Mode.READ_WRITE, DELETE_SCRIPT, RScript.ReturnType.INTEGER,
+                keys(memoryId), ttlMillis, versionEpoch());
+    }
+
+    private static List<ChatMessage> withSystemMessage(KnownState state) {
+        List<ChatMessage> messages = new ArrayList<>(state.messages().size() + 1);
+        if (state.systemMessage() != null) {
+            messages.add(state.systemMessage());
+        }
+        messages.addAll(state.messages());
+        return messages;
+    }
+
+    /**
+     * 已知消息去掉头部 trim 条后是否正好是新消息的前缀，返回最小的 trim，都不满足时返回 -1
+     */
+    private static int findTrim(List<ChatMessage> known, List<ChatMessage> current) {
+        for (int trim = 0; trim <= known.size(); trim++) {
+            int overlap = known.size() - trim;
+            if (overlap > current.size()) {
+                continue;
+            }
+            boolean matched = true;
+            for (int i = 0; i < overlap; i++) {
+                if (known.get(trim + i) != current.get(i)) {
+                    matched = false;
+                    break;
+                }
+            }
+            if (matched) {
+                return trim;
+            }
+        }
+        return -1;
+    }
+
+    private boolean append(Object memoryId, KnownState known, int trim, List<ChatMessage> rest, SystemMessage systemMessage) {
+        List<ChatMessage> appended = rest.subList(known.messages().size() - trim, rest.size());
+        byte[] systemOperation = SYSTEM_KEEP;
+        byte[] encodedSystem = EMPTY;
+        if (systemMessage == null && known.systemMessage() != null) {
+            systemOperation = SYSTEM_DELETE;
+        } else if (systemMessage != null && !systemMessage.equals(known.systemMessage())) {
+            systemOperation = SYSTEM_SET;
+            encodedSystem = codec.encode(systemMessage);
+        }
+        if (appended.isEmpty() && trim == 0 && systemOperation == SYSTEM_KEEP) {
+            return true;
+        }
+        List<Object> args = new ArrayList<>(appended.size() + 6);
+        args.add(bytes(String.valueOf(known.version())));
+        args.add(bytes(String.valueOf(trim)));
+        args.add(ttlMillis);
+        args.add(systemOperation);
+        args.add(encodedSystem);
+        args.add(versionEpoch());
+        long writtenBytes = encodedSystem.length;
+        for (ChatMessage message : appended) {
+            byte[] encoded = codec.encode(message);
+            args.add(encoded);
+            writtenBytes += encoded.length;
+        }
+        Long version = script().eval(RScript.Mode.READ_WRITE, APPEND_SCRIPT, RScript.ReturnType.INTEGER,
+                keys(memoryId), args.toArray());
+        if (version == null || version < 0) {
+            log.debug("对话记忆版本已变化，整体重写, memoryId: {}", memoryId);
+            return false;
+        }
+        metricsCollector.recordWrite("append", writtenBytes);
+        knownStates.put(memoryId, new KnownState(version, List.copyOf(rest), systemMessage));
+        return true;
+    }
+
+    private void rewrite(Object memoryId, List<ChatMessage> rest, SystemMessage systemMessage) {
+        List<Object> args = new ArrayList<>(rest.size() + 4);
+        args.add(ttlMillis);
+        byte[] encodedSystem = systemMessage == null ? EMPTY : codec.encode(systemMessage);
+        args.add(systemMessage == null ? SYSTEM_DELETE : SYSTEM_SET);
+        args.add(encodedSystem);
+        args.add(versionEpoch());
+        long writtenBytes = encodedSystem.length;
+        for (ChatMessage message : rest) {
+            byte[] encoded = codec.encode(message);
+            args.add(encoded);
+            writtenBytes += encoded.length;
+        }
+        Long version = script().eval(RScript.Mode.READ_WRITE, REWRITE_SCRIPT, RScript.ReturnType.INTEGER,
+                keys(memoryId), args.toArray());
+        metricsCollector.recordWrite("rewrite", writtenBytes);
+        knownStates.put(memoryId, new KnownState(version, List.copyOf(rest), systemMessage));
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(ByteArrayCodec.INSTANCE);
+    }
+
+    private static List<Object> keys(Object memoryId) {
+        return List.of(KEY_PREFIX + memoryId, KEY_PREFIX + memoryId + ":meta");
+    }
+
+    /**
+     * 随机的版本号起点，只在版本号不存在时使用
+     */
+    private static byte[] versionEpoch() {
+        return bytes(String.valueOf(ThreadLocalRandom.current().nextLong(VERSION_EPOCH_BOUND)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
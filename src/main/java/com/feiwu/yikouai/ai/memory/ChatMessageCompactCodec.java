@@ -0,0 +1,95 @@
+package com.feiwu.yikouai.ai.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 单条对话消息的紧凑编码
+ * 第一个字节为格式标记：0 表示 UTF-8 JSON 原文，1 表示 deflate 压缩后的 JSON；
+ * 只有 JSON 长度达到压缩阈值且压缩后确实更小时才压缩（工具调用中的文件内容压缩率很高，短消息压缩反而变大）
+ */
+public class ChatMessageCompactCodec {
+
+    private static final byte RAW = 0;
+
+    private static final byte DEFLATE = 1;
+
+    /**
+     * 压缩阈值（字节），小于 0 表示不压缩
+     */
+    private final int compressThreshold;
+
+    public ChatMessageCompactCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    public byte[] encode(ChatMessage message) {
+        byte[] json = ChatMessageSerializer.messageToJson(message).getBytes(StandardCharsets.UTF_8);
+        if (compressThreshold >= 0 && json.length >= compressThreshold) {
+            byte[] compressed = deflate(json);
+            if (compressed.length < json.length) {
+                return withFormat(DEFLATE, compressed);
+            }
+        }
+        return withFormat(RAW, json);
+    }
+
+    public ChatMessage decode(byte[] bytes) {
+        byte[] json = bytes[0] == DEFLATE
+                ? inflate(bytes)
+                : Arrays.copyOfRange(bytes, 1, bytes.length);
+        return ChatMessageDeserializer.messageFromJson(new String(json, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] withFormat(byte format, byte[] payload) {
+        byte[] bytes = new byte[payload.length + 1];
+        bytes[0] = format;
+        System.arraycopy(payload, 0, bytes, 1, payload.length);
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("对话消息压缩数据不完整");
+                }
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("对话消息压缩数据损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
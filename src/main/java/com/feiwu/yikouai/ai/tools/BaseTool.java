@@ -1,6 +1,10 @@
 package com.feiwu.yikouai.ai.tools;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
+
+import java.nio.file.Paths;
 
 /**
  * 工具基类
@@ -38,4 +42,41 @@ public abstract class BaseTool {
      * @return 格式化的工具执行结果
      */
     public abstract String generateToolExecutedResult(JSONObject arguments);
+
+    /**
+     * 生成保存到对话历史的工具执行结果，大段文件内容只保存引用，默认与展示给用户的结果相同
+     *
+     * @param arguments 工具执行参数
+     * @param appId     应用 ID
+     * @param blobStore 工具调用文件内容存储
+     * @return 格式化的工具执行结果
+     */
+    public String generateToolExecutedRecord(JSONObject arguments, long appId, ToolContentBlobStore blobStore) {
+        return generateToolExecutedResult(arguments);
+    }
+
+    /**
+     * 获取工具调用的冲突键（开启工具并行执行时使用）
+     * 冲突键相同的调用按请求顺序串行执行，冲突键不同的调用可以并行执行，
+     * 返回 null 表示该调用与其他所有调用都冲突，需等待之前的调用全部完成后单独执行
+     *
+     * @param arguments 工具执行参数
+     * @return 冲突键，默认 null
+     */
+    public String getConflictKey(JSONObject arguments) {
+        return null;
+    }
+
+    /**
+     * 以规范化后的文件路径作为冲突键，同一文件的读写串行执行
+     *
+     * @param relativeFilePath 文件相对路径
+     * @return 冲突键，路径为空时返回 null
+     */
+    protected static String fileConflictKey(String relativeFilePath) {
+        if (StrUtil.isBlank(relativeFilePath)) {
+            return null;
+        }
+        return "file:" + Paths.get(relativeFilePath).normalize().toString().replace('\\', '/');
+    }
 }
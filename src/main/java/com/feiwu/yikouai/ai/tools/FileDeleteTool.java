@@ -88,5 +88,9 @@ public class FileDeleteTool extends BaseTool{
         String relativeFilePath = arguments.getStr("relativeFilePath");
         return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
     }
-}
 
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return fileConflictKey(arguments.getStr("relativeFilePath"));
+    }
+}
@@ -2,6 +2,7 @@ package com.feiwu.yikouai.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.feiwu.yikouai.constant.AppConstant;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -72,9 +73,17 @@ public class FileModifyTool extends BaseTool{
 
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
-        String relativeFilePath = arguments.getStr("relativeFilePath");
-        String oldContent = arguments.getStr("oldContent");
-        String newContent = arguments.getStr("newContent");
+        return formatResult(arguments.getStr("relativeFilePath"),
+                arguments.getStr("oldContent"), arguments.getStr("newContent"));
+    }
+
+    @Override
+    public String generateToolExecutedRecord(JSONObject arguments, long appId, ToolContentBlobStore blobStore) {
+        return formatResult(arguments.getStr("relativeFilePath"),
+                blobStore.reference(appId, arguments.getStr("oldContent")), blobStore.reference(appId, arguments.getStr("newContent")));
+    }
+
+    private String formatResult(String relativeFilePath, String oldContent, String newContent) {
         // 显示对比内容
         return String.format("""
                 [工具调用] %s %s
@@ -90,5 +99,9 @@ public class FileModifyTool extends BaseTool{
                 ```
                 """, getDisplayName(), relativeFilePath, oldContent, newContent);
     }
-}
 
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return fileConflictKey(arguments.getStr("relativeFilePath"));
+    }
+}
@@ -60,4 +60,9 @@ public class FileReadTool extends BaseTool{
         String relativeFilePath = arguments.getStr("relativeFilePath");
         return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
     }
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return fileConflictKey(arguments.getStr("relativeFilePath"));
+    }
 }
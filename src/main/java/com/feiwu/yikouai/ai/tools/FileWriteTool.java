@@ -3,6 +3,7 @@ package com.feiwu.yikouai.ai.tools;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONObject;
 import com.feiwu.yikouai.constant.AppConstant;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -68,9 +69,16 @@ public class FileWriteTool extends BaseTool{
 
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
-        String relativeFilePath = arguments.getStr("relativeFilePath");
+        return formatResult(arguments.getStr("relativeFilePath"), arguments.getStr("content"));
+    }
+
+    @Override
+    public String generateToolExecutedRecord(JSONObject arguments, long appId, ToolContentBlobStore blobStore) {
+        return formatResult(arguments.getStr("relativeFilePath"), blobStore.reference(appId, arguments.getStr("content")));
+    }
+
+    private String formatResult(String relativeFilePath, String content) {
         String suffix = FileUtil.getSuffix(relativeFilePath);
-        String content = arguments.getStr("content");
         return String.format("""
                         [工具调用] %s %s
                         ```%s
@@ -78,4 +86,9 @@ public class FileWriteTool extends BaseTool{
                         ```
                         """, getDisplayName(), relativeFilePath, suffix, content);
     }
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return fileConflictKey(arguments.getStr("relativeFilePath"));
+    }
 }
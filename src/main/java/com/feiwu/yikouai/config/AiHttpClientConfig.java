@@ -0,0 +1,84 @@
+package com.feiwu.yikouai.config;
+
+import com.feiwu.yikouai.monitor.AiHttpClientMetricsCollector;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 模型共享 HTTP 客户端配置
+ * 多例模型（每个应用一个）共用同一个有界的 keep-alive 连接池，避免每个应用各自建连和 TLS 握手
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.http-client")
+@Data
+public class AiHttpClientConfig {
+
+    /**
+     * 最大空闲连接数
+     */
+    private int maxIdleConnections = 32;
+
+    /**
+     * 空闲连接保活时间
+     */
+    private Duration keepAlive = Duration.ofMinutes(5);
+
+    /**
+     * 全局最大并发请求数（超出后排队）
+     */
+    private int maxRequests = 256;
+
+    /**
+     * 单个主机最大并发请求数（模型请求基本都发往同一个主机）
+     */
+    private int maxRequestsPerHost = 256;
+
+    /**
+     * 默认连接超时，模型配置了 timeout 时以模型配置为准
+     */
+    private Duration connectTimeout = Duration.ofSeconds(15);
+
+    @Resource
+    private AiHttpClientMetricsCollector aiHttpClientMetricsCollector;
+
+    private OkHttpClient aiOkHttpClient;
+
+    @Bean
+    public OkHttpClient aiOkHttpClient() {
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        aiHttpClientMetricsCollector.bindPool(connectionPool, dispatcher);
+        aiOkHttpClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                // TLS 下通过 ALPN 协商，服务端支持时使用 HTTP/2 多路复用
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(aiHttpClientMetricsCollector.eventListenerFactory())
+                .build();
+        return aiOkHttpClient;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (aiOkHttpClient != null) {
+            aiOkHttpClient.dispatcher().executorService().shutdown();
+            aiOkHttpClient.connectionPool().evictAll();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.feiwu.yikouai.config;
+
+import com.feiwu.yikouai.core.affinity.AppAffinityFilter;
+import com.feiwu.yikouai.core.affinity.AppAffinityMembership;
+import com.feiwu.yikouai.monitor.AppAffinityMetricsCollector;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 应用亲和路由过滤器配置
+ * 只作用于依赖节点本地状态的接口：对话生成、部署、下载和预览
+ */
+@Configuration
+public class AppAffinityFilterConfig {
+
+    @Resource
+    private AppAffinityMembership appAffinityMembership;
+
+    @Resource
+    private AppAffinityMetricsCollector appAffinityMetricsCollector;
+
+    /**
+     * forward 由本节点转发，redirect 返回 307 由客户端请求所属节点
+     */
+    @Value("${app-affinity.mode:forward}")
+    private String mode;
+
+    @Value("${app-affinity.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Bean
+    public FilterRegistrationBean<AppAffinityFilter> appAffinityFilter() {
+        FilterRegistrationBean<AppAffinityFilter> registration = new FilterRegistrationBean<>(new AppAffinityFilter(
+                appAffinityMembership, appAffinityMetricsCollector, "redirect".equalsIgnoreCase(mode), connectTimeout));
+        registration.addUrlPatterns("/app/chat/*", "/app/deploy", "/app/deploy/cancel", "/app/download/*", "/static/*");
+        registration.setName("appAffinityFilter");
+        return registration;
+    }
+}
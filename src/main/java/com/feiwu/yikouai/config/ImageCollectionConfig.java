@@ -0,0 +1,71 @@
+package com.feiwu.yikouai.config;
+
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 并发图片收集配置
+ * 每个收集节点把计划中的任务拆开并发执行，每个外部服务各自限制同时执行的任务数（所有工作流共享），
+ * 任务从节点开始计时，超过该服务的任务超时时间后节点不再等待，只返回已完成任务的结果
+ */
+@Configuration
+@ConfigurationProperties(prefix = "workflow.image-collection")
+@Data
+public class ImageCollectionConfig {
+
+    /**
+     * Pexels 图片搜索
+     */
+    private ProviderLimit pexels = new ProviderLimit(8, Duration.ofSeconds(10));
+
+    /**
+     * unDraw 插画搜索
+     */
+    private ProviderLimit undraw = new ProviderLimit(8, Duration.ofSeconds(10));
+
+    /**
+     * DashScope 图片生成（Logo）
+     */
+    private ProviderLimit dashscope = new ProviderLimit(4, Duration.ofSeconds(40));
+
+    /**
+     * Mermaid CLI 渲染（每个任务启动一个浏览器进程）
+     */
+    private ProviderLimit mmdc = new ProviderLimit(2, Duration.ofSeconds(30));
+
+    /**
+     * 流水线工作流中图片的截止时间（从开始收集算起），代码生成完成后最多等到该时间，之后未完成的图片丢弃
+     */
+    private Duration pipelineDeadline = Duration.ofSeconds(60);
+
+    public ProviderLimit getLimit(ImageProviderEnum provider) {
+        return switch (provider) {
+            case PEXELS -> pexels;
+            case UNDRAW -> undraw;
+            case DASHSCOPE -> dashscope;
+            case MMDC -> mmdc;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProviderLimit {
+
+        /**
+         * 同时执行的最大任务数
+         */
+        private int permits;
+
+        /**
+         * 任务超时时间（包含等待并发许可的时间）
+         */
+        private Duration taskTimeout;
+    }
+}
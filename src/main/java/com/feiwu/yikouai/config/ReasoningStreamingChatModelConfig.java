@@ -1,11 +1,13 @@
 package com.feiwu.yikouai.config;
 
+import com.feiwu.yikouai.ai.http.OkHttpAiHttpClientBuilder;
 import com.feiwu.yikouai.monitor.AiModelMonitorListener;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.listener.ChatModelListener;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import jakarta.annotation.Resource;
 import lombok.Data;
+import okhttp3.OkHttpClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,10 +40,17 @@ public class ReasoningStreamingChatModelConfig {
     @Resource
     private AiModelMonitorListener aiModelMetricsListener;
 
+    /**
+     * 所有多例模型共享的 HTTP 客户端（连接池）
+     */
+    @Resource
+    private OkHttpClient aiOkHttpClient;
+
     @Bean
     @Scope("prototype")
     public StreamingChatModel reasoningStreamingChatModelPrototype() {
         return OpenAiStreamingChatModel.builder()
+                .httpClientBuilder(new OkHttpAiHttpClientBuilder(aiOkHttpClient))
                 .apiKey(apiKey)
                 .baseUrl(baseUrl)
                 .modelName(modelName)
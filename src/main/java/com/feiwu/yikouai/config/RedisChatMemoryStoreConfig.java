@@ -1,11 +1,18 @@
 package com.feiwu.yikouai.config;
 
+import com.feiwu.yikouai.ai.memory.AppendOnlyRedisChatMemoryStore;
+import com.feiwu.yikouai.monitor.ChatMemoryStoreMetricsCollector;
 import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import lombok.Data;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "spring.data.redis")
 @Data
@@ -19,8 +26,37 @@ public class RedisChatMemoryStoreConfig {
 
     private long ttl;
 
+    /**
+     * 是否使用只追加的对话记忆存储，关闭时退回整体 JSON 读写的 RedisChatMemoryStore
+     */
+    @Value("${chat.memory-store.append-only:true}")
+    private boolean appendOnly;
+
+    /**
+     * 单条消息 JSON 达到该字节数时压缩，小于 0 表示不压缩
+     */
+    @Value("${chat.memory-store.compress-threshold-bytes:1024}")
+    private int compressThreshold;
+
+    /**
+     * 本地缓存（L1）最多保存的对话记忆数
+     */
+    @Value("${chat.memory-store.local-cache.max-size:10000}")
+    private long localCacheMaxSize;
+
+    /**
+     * 本地缓存未访问后的过期时间
+     */
+    @Value("${chat.memory-store.local-cache.expire-after-access:30m}")
+    private Duration localCacheExpireAfterAccess;
+
     @Bean
-    public RedisChatMemoryStore redisChatMemoryStore() {
+    public ChatMemoryStore redisChatMemoryStore(RedissonClient redissonClient,
+                                                ChatMemoryStoreMetricsCollector chatMemoryStoreMetricsCollector) {
+        if (appendOnly) {
+            return new AppendOnlyRedisChatMemoryStore(redissonClient, Duration.ofSeconds(ttl), compressThreshold,
+                    localCacheMaxSize, localCacheExpireAfterAccess, chatMemoryStoreMetricsCollector);
+        }
         return RedisChatMemoryStore.builder()
                 .host(host)
                 .port(port)
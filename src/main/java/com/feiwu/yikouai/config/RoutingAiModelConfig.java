@@ -1,8 +1,11 @@
 package com.feiwu.yikouai.config;
 
+import com.feiwu.yikouai.ai.http.OkHttpAiHttpClientBuilder;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import jakarta.annotation.Resource;
 import lombok.Data;
+import okhttp3.OkHttpClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +30,12 @@ public class RoutingAiModelConfig {
 
     private Boolean logResponses = false;
 
+    /**
+     * 所有多例模型共享的 HTTP 客户端（连接池）
+     */
+    @Resource
+    private OkHttpClient aiOkHttpClient;
+
     /**
      * 创建用于路由判断的ChatModel
      */
@@ -34,6 +43,7 @@ public class RoutingAiModelConfig {
     @Scope("prototype")
     public ChatModel routingChatModelPrototype() {
         return OpenAiChatModel.builder()
+                .httpClientBuilder(new OkHttpAiHttpClientBuilder(aiOkHttpClient))
                 .apiKey(apiKey)
                 .modelName(modelName)
                 .baseUrl(baseUrl)
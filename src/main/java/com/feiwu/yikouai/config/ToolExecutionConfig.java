@@ -0,0 +1,48 @@
+package com.feiwu.yikouai.config;
+
+import cn.hutool.json.JSONUtil;
+import com.feiwu.yikouai.ai.tools.BaseTool;
+import com.feiwu.yikouai.ai.tools.ToolManager;
+import com.feiwu.yikouai.monitor.ToolExecutionMetricsCollector;
+import dev.langchain4j.service.ToolExecutionOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 工具调用执行配置
+ * 开启并行执行后，模型一轮返回的多个工具调用在虚拟线程上并发执行，结果仍按原请求顺序写入记忆并推送给前端；
+ * 是否可以并发由各工具的冲突键决定（见 BaseTool#getConflictKey），同一文件的读写始终串行；
+ * 开启提前执行后，每个工具调用的参数输出完毕即开始执行，与模型后续输出重叠，响应结束时再按顺序汇总结果
+ */
+@Slf4j
+@Configuration
+public class ToolExecutionConfig {
+
+    @Resource
+    private ToolManager toolManager;
+
+    @Resource
+    private ToolExecutionMetricsCollector toolExecutionMetricsCollector;
+
+    @Value("${ai.tool-execution.parallel:false}")
+    private boolean parallel;
+
+    @Value("${ai.tool-execution.eager:false}")
+    private boolean eager;
+
+    @PostConstruct
+    public void init() {
+        ToolExecutionOptions.conflictKeyResolver(toolExecutionRequest -> {
+            BaseTool tool = toolManager.getTool(toolExecutionRequest.name());
+            // 未知工具按独占处理
+            return tool == null ? null : tool.getConflictKey(JSONUtil.parseObj(toolExecutionRequest.arguments()));
+        });
+        ToolExecutionOptions.eagerExecutionListener(toolExecutionMetricsCollector::recordEagerSaved);
+        ToolExecutionOptions.parallel(parallel);
+        ToolExecutionOptions.eager(eager);
+        log.info("工具调用并行执行: {}，提前执行: {}", parallel ? "开启" : "关闭", eager ? "开启" : "关闭");
+    }
+}
@@ -0,0 +1,48 @@
+package com.feiwu.yikouai.config;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作流并行分支执行器配置
+ * 所有工作流执行共享一个有界线程池（并发图片收集等并行节点），随容器关闭；
+ * 队列已满时由提交任务的工作流线程自己执行，不丢弃分支
+ * 线程池指标以 executor 前缀注册（name=workflow_parallel）
+ */
+@Slf4j
+@Configuration
+public class WorkflowExecutorConfig {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${workflow.parallel.threads:16}")
+    private int threads;
+
+    @Value("${workflow.parallel.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService workflowParallelExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                ThreadFactoryBuilder.create().setNamePrefix("Parallel-Image-Collect-").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // 空闲时回收全部线程
+        executor.allowCoreThreadTimeOut(true);
+        log.info("工作流并行执行器已创建, 线程数: {}, 队列容量: {}", threads, queueCapacity);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "workflow_parallel");
+    }
+}
@@ -11,6 +11,9 @@ import com.feiwu.yikouai.common.DeleteRequest;
 import com.feiwu.yikouai.common.ResultUtils;
 import com.feiwu.yikouai.constant.AppConstant;
 import com.feiwu.yikouai.constant.UserConstant;
+import com.feiwu.yikouai.core.stream.GenerationSession;
+import com.feiwu.yikouai.core.stream.GenerationStreamManager;
+import com.feiwu.yikouai.core.stream.ReplayEntry;
 import com.feiwu.yikouai.exception.BusinessException;
 import com.feiwu.yikouai.exception.ErrorCode;
 import com.feiwu.yikouai.exception.ThrowUtils;
@@ -19,6 +22,7 @@ import com.feiwu.yikouai.model.dto.app.*;
 import com.feiwu.yikouai.model.entity.User;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
 import com.feiwu.yikouai.model.vo.app.AppVO;
+import com.feiwu.yikouai.monitor.SseMetricsCollector;
 import com.feiwu.yikouai.service.ProjectDownloadService;
 import com.feiwu.yikouai.service.UserService;
 import com.mybatisflex.core.paginate.Page;
@@ -32,7 +36,6 @@ import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import com.feiwu.yikouai.model.entity.App;
 import com.feiwu.yikouai.service.AppService;
-import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -40,7 +43,6 @@ import java.io.File;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 应用 控制层。
@@ -60,15 +62,22 @@ public class AppController {
     @Resource
     private ProjectDownloadService projectDownloadService;
 
-    // 使用 ConcurrentHashMap 类型能避免明显的并发问题
-    private final Map<Long, Disposable> disposableMap = new ConcurrentHashMap<>();
+    @Resource
+    private SseMetricsCollector sseMetricsCollector;
+
+    @Resource
+    private GenerationStreamManager generationStreamManager;
 
     /**
      * 应用聊天生成代码（流式 SSE）
+     * EventSource 自动重连时仍请求本接口并携带最后收到的事件 ID（请求头 Last-Event-ID 或参数 lastEventId），
+     * 此时不再重新生成，而是恢复原生成任务，从缺失的位置继续推送
      *
-     * @param appId   应用 ID
-     * @param message 用户消息
-     * @param request 请求对象
+     * @param appId             应用 ID
+     * @param message           用户消息
+     * @param lastEventIdHeader 最后收到的事件 ID（请求头）
+     * @param lastEventId       最后收到的事件 ID（查询参数，EventSource polyfill 重连时使用）
+     * @param request           请求对象
      * @return 生成结果流
      */
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -76,74 +85,81 @@ public class AppController {
     @AuthCheck(mustRole = UserConstant.USER_LOGIN_STATE)
     public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
                                                        @RequestParam String message,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                       @RequestParam(required = false) String lastEventId,
                                                        HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
         // 获取当前登录用户
         User loginUser = userService.getLoginUser(request);
-        // 调用服务生成代码（流式）
-        Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
-
-        // 使用Flux.create创建可控流(Spring WebFlux 会自动订阅流，所以避免直接调用subscribe())
-        return Flux.create(sink -> {
-            // 转换为 ServerSentEvent 格式并订阅
-            Disposable disposable = contentFlux
-                    .map(chunk -> {
-                        // 将内容包装成JSON对象
-                        Map<String, String> wrapper = Map.of("d", chunk);
-                        String jsonData = JSONUtil.toJsonStr(wrapper);
-                        return ServerSentEvent.<String>builder()
-                                .data(jsonData)
-                                .build();
-                    })
-                    .concatWith(Mono.just(
-                            // 发送结束事件
-                            ServerSentEvent.<String>builder()
-                                    .event("done")
-                                    .data("")
-                                    .build()
-                    ))
-                    .subscribe(
-                            // 正常处理
-                            sink::next,
-                            // 错误处理
-                            sink::error,
-                            // 完成处理
-                            sink::complete
-                    );
-
-            // 保存disposable，用于后续中断
-            disposableMap.put(appId, disposable);
-
-            // 当流取消或结束时从map中移除
-            sink.onCancel(() -> {
-                disposable.dispose();
-                disposableMap.remove(appId);
-            });
-
-            sink.onDispose(() -> {
-                disposableMap.remove(appId);
-            });
-        });
+        // 断线重连：恢复原生成任务
+        String resumeFrom = StrUtil.blankToDefault(lastEventIdHeader, lastEventId);
+        if (StrUtil.isNotBlank(resumeFrom)) {
+            checkAppOwner(appId, loginUser);
+            return toServerSentEvents(generationStreamManager.resume(appId, resumeFrom));
+        }
+        // 调用服务生成代码（流式），同一应用已有生成任务时直接拒绝
+        // 生成任务独立于当前连接执行，连接断开后可通过 /chat/gen/resume 恢复
+        GenerationSession session = generationStreamManager.start(appId,
+                () -> appService.chatToGenCode(appId, message, loginUser));
+        return toServerSentEvents(generationStreamManager.subscribe(session, 0));
     }
 
     /**
-     * 中断应用聊天生成代码（流式 SSE）
+     * 恢复应用聊天生成代码（流式 SSE）
+     * 前端连接异常时携带最后收到的事件 ID（请求头 Last-Event-ID 或参数 lastEventId）调用，从缺失的位置继续推送；
+     * 不携带时从最近一次生成的开头回放
      *
-     * @param appId   应用 ID
-     * @param request 请求对象
+     * @param appId             应用 ID
+     * @param lastEventIdHeader 最后收到的事件 ID（请求头）
+     * @param lastEventId       最后收到的事件 ID（查询参数）
+     * @param request           请求对象
      * @return 生成结果流
      */
-    @GetMapping("/chat/gen/stop")
+    @GetMapping(value = "/chat/gen/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @AuthCheck(mustRole = UserConstant.USER_LOGIN_STATE)
-    public BaseResponse<Boolean> stopToGenCode(@RequestParam Long appId, HttpServletRequest request) {
+    public Flux<ServerSentEvent<String>> resumeGenCode(@RequestParam Long appId,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                       @RequestParam(required = false) String lastEventId,
+                                                       HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         // 获取当前登录用户
         User loginUser = userService.getLoginUser(request);
-
         // 验证应用权限
+        checkAppOwner(appId, loginUser);
+        return toServerSentEvents(generationStreamManager.resume(appId, StrUtil.blankToDefault(lastEventIdHeader, lastEventId)));
+    }
+
+    /**
+     * 将回放记录转换为 SSE 事件，事件 ID 用于断线重连
+     */
+    private Flux<ServerSentEvent<String>> toServerSentEvents(Flux<ReplayEntry> entryFlux) {
+        return entryFlux
+                .map(entry -> {
+                    // 将内容包装成JSON对象（整条流水线中唯一一次序列化）
+                    Map<String, String> wrapper = Map.of("d", entry.data());
+                    String jsonData = JSONUtil.toJsonStr(wrapper);
+                    sseMetricsCollector.recordFrame(jsonData.length());
+                    return ServerSentEvent.<String>builder()
+                            .id(entry.eventId())
+                            .data(jsonData)
+                            .build();
+                })
+                .concatWith(Mono.just(
+                        // 发送结束事件
+                        ServerSentEvent.<String>builder()
+                                .event("done")
+                                .data("")
+                                .build()
+                ));
+    }
+
+    /**
+     * 校验当前用户是否为应用创建者
+     */
+    private void checkAppOwner(Long appId, User loginUser) {
         AppQueryDto appQueryDto = new AppQueryDto();
         appQueryDto.setId(appId);
         appQueryDto.setUserId(loginUser.getId());
@@ -152,16 +168,29 @@ public class AppController {
         if (count == 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "应用id错误或无权限操作");
         }
+    }
 
-        // 一次性获取并移除disposable，保证该操作的原子性，避免并发问题
-        Disposable disposable = disposableMap.remove(appId);
-        if (disposable == null) {
-            throw new BusinessException(ErrorCode.PARAMS_ERROR, "没有正在进行的代码生成任务");
-        }
+    /**
+     * 中断应用聊天生成代码（流式 SSE）
+     *
+     * @param appId   应用 ID
+     * @param request 请求对象
+     * @return 生成结果流
+     */
+    @GetMapping("/chat/gen/stop")
+    @AuthCheck(mustRole = UserConstant.USER_LOGIN_STATE)
+    public BaseResponse<Boolean> stopToGenCode(@RequestParam Long appId, HttpServletRequest request) {
+        // 参数校验
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
+        // 获取当前登录用户
+        User loginUser = userService.getLoginUser(request);
 
-        // 中断流（检查是否已经被中断，避免重复中断）
-        if (!disposable.isDisposed()) {
-            disposable.dispose();
+        // 验证应用权限
+        checkAppOwner(appId, loginUser);
+
+        // 中断生成任务（任务在其他节点时转发，已结束的任务不会被重复中断）
+        if (!generationStreamManager.stop(appId)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "没有正在进行的代码生成任务");
         }
 
         return ResultUtils.success(true);
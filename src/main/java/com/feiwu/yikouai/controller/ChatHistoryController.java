@@ -9,6 +9,7 @@ import com.feiwu.yikouai.exception.ThrowUtils;
 import com.feiwu.yikouai.model.dto.chatHistory.ChatHistoryQueryDto;
 import com.feiwu.yikouai.model.entity.ChatHistory;
 import com.feiwu.yikouai.model.entity.User;
+import com.feiwu.yikouai.model.vo.chatHistory.ChatHistoryCursorPageVO;
 import com.feiwu.yikouai.service.ChatHistoryService;
 import com.feiwu.yikouai.service.UserService;
 import com.mybatisflex.core.paginate.Page;
@@ -54,6 +55,28 @@ public class ChatHistoryController {
         return ResultUtils.success(result);
     }
 
+    /**
+     * 按 (创建时间, id) 组合游标查询某个应用的对话历史，不查询总数
+     *
+     * @param appId          应用ID
+     * @param pageSize       页面大小
+     * @param lastCreateTime 上一页返回的 nextCreateTime
+     * @param lastId         上一页返回的 nextId
+     * @param request        请求
+     * @return 本页记录、是否还有更多及下一页游标
+     */
+    @GetMapping("/app/{appId}/cursor")
+    public BaseResponse<ChatHistoryCursorPageVO> listAppChatHistoryByCursor(@PathVariable String appId,
+                                                                            @RequestParam(defaultValue = "10") int pageSize,
+                                                                            @RequestParam(required = false) LocalDateTime lastCreateTime,
+                                                                            @RequestParam(required = false) Long lastId,
+                                                                            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        ChatHistoryCursorPageVO result = chatHistoryService.listAppChatHistoryByCursor(Long.parseLong(appId), pageSize,
+                lastCreateTime, lastId, loginUser);
+        return ResultUtils.success(result);
+    }
+
     /**
      * 管理员分页查询所有对话历史
      *
@@ -69,6 +92,7 @@ public class ChatHistoryController {
         // 查询数据
         QueryWrapper queryWrapper = chatHistoryService.getQueryWrapper(chatHistoryQueryDto);
         Page<ChatHistory> result = chatHistoryService.page(Page.of(pageNum, pageSize), queryWrapper);
+        result.setRecords(chatHistoryService.expandToolContent(result.getRecords()));
         return ResultUtils.success(result);
     }
 
@@ -1,17 +1,18 @@
 package com.feiwu.yikouai.core;
 
-import cn.hutool.json.JSONUtil;
 import com.feiwu.yikouai.ai.AiCodeGeneratorService;
 import com.feiwu.yikouai.ai.AiCodeGeneratorServiceFactory;
 import com.feiwu.yikouai.ai.model.HtmlCodeResult;
 import com.feiwu.yikouai.ai.model.MultiFileCodeResult;
 import com.feiwu.yikouai.ai.model.message.AiResponseMessage;
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
 import com.feiwu.yikouai.ai.model.message.ToolExecutedMessage;
 import com.feiwu.yikouai.ai.model.message.ToolRequestMessage;
 import com.feiwu.yikouai.constant.AppConstant;
 import com.feiwu.yikouai.core.builder.VueProjectBuilder;
-import com.feiwu.yikouai.core.parse.CodeParserExecutor;
 import com.feiwu.yikouai.core.saver.CodeFileSaverExecutor;
+import com.feiwu.yikouai.core.saver.StreamingCodeFileSaver;
+import com.feiwu.yikouai.core.stream.GenerationSession;
 import com.feiwu.yikouai.exception.BusinessException;
 import com.feiwu.yikouai.exception.ErrorCode;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
@@ -63,15 +64,15 @@ public class AiCodeGeneratorFacade {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
-        // 根据 appId 获取对应的 AI 服务实例
+        // 获取该类型共享的 AI 服务实例，并准备好该应用的对话记忆
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(userMessage);
+                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(appId, userMessage);
                 yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML, appId);
             }
             case MULTI_FILE -> {
-                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(userMessage);
+                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(appId, userMessage);
                 yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE, appId);
             }
             default -> {
@@ -87,22 +88,22 @@ public class AiCodeGeneratorFacade {
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
      * @param appId           应用id
-     * @return Flux<String> 流式响应
+     * @return Flux<StreamMessage> 流式响应（类型化消息，仅在 SSE 出口处序列化一次）
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
-        // 根据 appId 获取对应的 AI 服务实例
+        // 获取该类型共享的 AI 服务实例，并准备好该应用的对话记忆
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId);
+                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(appId, userMessage);
+                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId).map(AiResponseMessage::new);
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId);
+                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(appId, userMessage);
+                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId).map(AiResponseMessage::new);
             }
             case VUE_PROJECT -> {
                 TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
@@ -116,13 +117,14 @@ public class AiCodeGeneratorFacade {
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
+     * 消息以对象形式在进程内传递，避免每个 token 的 JSON 序列化与反序列化
      *
      * @param tokenStream TokenStream 对象
      * @param appId Long 应用id
-     * @return Flux<String> 流式响应
+     * @return Flux<StreamMessage> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream,Long appId) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream,Long appId) {
         return Flux.create(sink -> {
             // 创建一个原子布尔值来跟踪是否已取消
             AtomicBoolean isCancelled = new AtomicBoolean(false);
@@ -132,49 +134,68 @@ public class AiCodeGeneratorFacade {
             
             // 生成唯一的流ID
             String streamId = generateStreamId();
-            
+
+            // 取消订阅无法停止 TokenStream，模型调用和工具循环会继续写入工作目录，
+            // 登记为生成任务的后台工作，真正结束（onCompleteResponse/onError）后才释放应用的生成权
+            Runnable workDone = sink.contextView().<GenerationSession>getOrEmpty(GenerationSession.class)
+                    .map(GenerationSession::trackBackgroundWork)
+                    .orElse(() -> {
+                    });
+
             tokenStream.onPartialResponse((String partialResponse) -> {
                         if(sink.isCancelled() || isCancelled.get()){
                             sink.complete();
                             return;
                         }
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                        sink.next(new AiResponseMessage(partialResponse));
                     })
                     .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
                         if(sink.isCancelled() || isCancelled.get()){
                             sink.complete();
                             return;
                         }
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                        sink.next(new ToolRequestMessage(toolExecutionRequest));
                     })
                     .onToolExecuted((ToolExecution toolExecution) -> {
                         if(sink.isCancelled() || isCancelled.get()){
                             sink.complete();
                             return;
                         }
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                        sink.next(new ToolExecutedMessage(toolExecution));
                     })
                     .onCompleteResponse((ChatResponse response) -> {
-                        if(sink.isCancelled() || isCancelled.get()){
+                        try {
+                            if(sink.isCancelled() || isCancelled.get()){
+                                sink.complete();
+                                return;
+                            }
+                            // 执行 Vue 项目构建（同步执行，确保预览时项目已就绪）
+                            String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + "vue_project_" + appId;
+                            vueProjectBuilder.buildProject(projectPath);
+                            // 生成与构建都结束后完成流，下游才能发送结束事件
                             sink.complete();
-                            return;
+                        } finally {
+                            workDone.run();
                         }
-                        // 执行 Vue 项目构建（同步执行，确保预览时项目已就绪）
-                        String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + "vue_project_" + appId;
-                        vueProjectBuilder.buildProject(projectPath);
                     })
                     .onError((Throwable error) -> {
-                        if(sink.isCancelled() || isCancelled.get()){
-                            sink.complete();
-                            return;
+                        try {
+                            if(sink.isCancelled() || isCancelled.get()){
+                                sink.complete();
+                                return;
+                            }
+                            log.error("转换失败: {}", error.getMessage());
+                            sink.error(error);
+                        } finally {
+                            workDone.run();
                         }
-                        log.error("转换失败: {}", error.getMessage());
-                        sink.error(error);
-                    })
-                    .start();
+                    });
+            try {
+                tokenStream.start();
+            } catch (RuntimeException e) {
+                workDone.run();
+                throw e;
+            }
             
             // 保存实际执行AiService方法的线程
             aiServiceThread[0] = Thread.currentThread();
@@ -206,6 +227,7 @@ public class AiCodeGeneratorFacade {
 
     /**
      * 通用流式代码处理方法
+     * 代码块在流式输出过程中逐个闭合、逐个写入，不再缓存整段响应
      *
      * @param codeStream  代码流
      * @param codeGenType 代码生成类型
@@ -213,16 +235,12 @@ public class AiCodeGeneratorFacade {
      * @return 流式响应
      */
     private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
-        StringBuilder codeBuilder = new StringBuilder();
-        // 实时收集代码片段
-        return codeStream.doOnNext(codeBuilder::append).doOnComplete(() -> {
-            // 流式返回完成后保存代码
+        StreamingCodeFileSaver codeFileSaver = new StreamingCodeFileSaver(codeGenType, appId);
+        // 实时解析并写入代码文件
+        return codeStream.doOnNext(codeFileSaver::append).doOnComplete(() -> {
+            // 流式返回完成后处理兜底内容并校验
             try {
-                String completeCode = codeBuilder.toString();
-                // 使用执行器解析代码
-                Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenType);
-                // 使用执行器保存代码
-                File savedDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType, appId);
+                File savedDir = codeFileSaver.finish();
                 log.info("保存成功，路径为：{}", savedDir.getAbsolutePath());
             } catch (Exception e) {
                 log.error("保存失败: {}", e.getMessage());
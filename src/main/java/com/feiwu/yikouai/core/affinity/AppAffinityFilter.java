@@ -0,0 +1,257 @@
+package com.feiwu.yikouai.core.affinity;
+
+import cn.hutool.core.util.ReUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.feiwu.yikouai.monitor.AppAffinityMetricsCollector;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 应用亲和路由过滤器
+ * 应用的工作目录、AI 服务与对话记忆缓存、生成流都在处理它的节点本地，
+ * 因此按 appId 把对话生成、部署、下载和预览请求交给一致性哈希环上的所属节点处理：
+ * 1. forward 模式：本节点代为请求所属节点并逐块回写响应（SSE 逐块刷新）
+ * 2. redirect 模式：返回 307，由客户端直接请求所属节点
+ * 所属节点不可达时由本节点处理；已被转发过的请求不再转发，避免成员表不一致时循环转发
+ */
+@Slf4j
+public class AppAffinityFilter extends OncePerRequestFilter {
+
+    /**
+     * 转发请求携带的来源节点 ID
+     */
+    public static final String FORWARDED_HEADER = "X-App-Affinity-Forwarded";
+
+    /**
+     * 预览目录名：{代码生成类型}_{appId}
+     */
+    private static final Pattern PREVIEW_DIR_PATTERN = Pattern.compile("^[a-z_]+_(\\d+)$");
+
+    /**
+     * 逐跳头部及 HttpClient 不允许设置的头部，不转发
+     */
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "host", "content-length", "expect", "proxy-connection");
+
+    private final AppAffinityMembership membership;
+
+    private final AppAffinityMetricsCollector metricsCollector;
+
+    private final boolean redirect;
+
+    private final HttpClient httpClient;
+
+    public AppAffinityFilter(AppAffinityMembership membership, AppAffinityMetricsCollector metricsCollector,
+                             boolean redirect, Duration connectTimeout) {
+        this.membership = membership;
+        this.metricsCollector = metricsCollector;
+        this.redirect = redirect;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !membership.isEnabled() || request.getHeader(FORWARDED_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // 请求体只有部署接口的小 JSON，读出后包装请求，本节点处理时仍可读取
+        byte[] body = null;
+        if ("POST".equalsIgnoreCase(request.getMethod())) {
+            body = request.getInputStream().readAllBytes();
+            request = new CachedBodyRequest(request, body);
+        }
+        Long appId = resolveAppId(request, body);
+        String ownerUrl = appId == null ? null : membership.locateRemote(appId);
+        if (ownerUrl == null) {
+            metricsCollector.recordRequest("local");
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String target = ownerUrl + request.getRequestURI().substring(request.getContextPath().length())
+                + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+        if (redirect) {
+            metricsCollector.recordRequest("redirected");
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader("Location", target);
+            return;
+        }
+        HttpResponse<InputStream> upstream;
+        try {
+            upstream = httpClient.send(buildForwardRequest(request, body, target), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            log.warn("应用所属节点不可达，由本节点处理, appId: {}, target: {}, error: {}", appId, target, e.getMessage());
+            metricsCollector.recordRequest("fallback");
+            filterChain.doFilter(request, response);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("转发请求被中断", e);
+        }
+        metricsCollector.recordRequest("forwarded");
+        copyResponse(upstream, response);
+    }
+
+    /**
+     * 从请求中解析 appId，无法解析时返回 null（由本节点处理）
+     */
+    private Long resolveAppId(HttpServletRequest request, byte[] body) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        try {
+            if (path.startsWith("/static/")) {
+                String previewDir = StrUtil.subBefore(path.substring("/static/".length()), "/", false);
+                String appId = ReUtil.get(PREVIEW_DIR_PATTERN, previewDir, 1);
+                return appId == null ? null : Long.parseLong(appId);
+            }
+            if (path.startsWith("/app/download/")) {
+                return Long.parseLong(StrUtil.subBefore(path.substring("/app/download/".length()), "/", false));
+            }
+            if (body != null && body.length > 0) {
+                return JSONUtil.parseObj(new String(body, StandardCharsets.UTF_8)).getLong("appId");
+            }
+            String appId = request.getParameter("appId");
+            return StrUtil.isBlank(appId) ? null : Long.parseLong(appId);
+        } catch (Exception e) {
+            // 参数错误交给本节点的接口返回
+            return null;
+        }
+    }
+
+    private HttpRequest buildForwardRequest(HttpServletRequest request, byte[] body, String target) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target))
+                .method(request.getMethod(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                continue;
+            }
+            for (String value : Collections.list(request.getHeaders(name))) {
+                builder.header(name, value);
+            }
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        builder.setHeader("X-Forwarded-For", StrUtil.isBlank(forwardedFor)
+                ? request.getRemoteAddr()
+                : forwardedFor + ", " + request.getRemoteAddr());
+        builder.header(FORWARDED_HEADER, membership.getNodeId());
+        return builder.build();
+    }
+
+    /**
+     * 回写所属节点的响应，每读到一块就刷新，SSE 事件不会积压在本节点
+     * 客户端断开时关闭上游连接，所属节点随之结束订阅
+     */
+    private void copyResponse(HttpResponse<InputStream> upstream, HttpServletResponse response) throws IOException {
+        response.setStatus(upstream.statusCode());
+        for (Map.Entry<String, List<String>> header : upstream.headers().map().entrySet()) {
+            String name = header.getKey();
+            if (name.startsWith(":") || SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                response.addHeader(name, value);
+            }
+        }
+        try (InputStream in = upstream.body()) {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * 请求体已被读取的请求包装，重新提供请求体
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.feiwu.yikouai.core.affinity;
+
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.core.stream.GenerationRegistry;
+import com.feiwu.yikouai.monitor.AppAffinityMetricsCollector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用亲和路由的集群成员表
+ * 每个节点定时在 Redis 有序集合中上报心跳（分数为心跳时间），并登记自己的访问地址；
+ * 同时读取心跳未过期的节点构建一致性哈希环，成员变化时重建并记录改变归属的应用比例
+ * 节点 ID 与生成任务注册表相同
+ */
+@Slf4j
+@Component
+public class AppAffinityMembership {
+
+    private static final String NODES_KEY = "app_affinity:nodes";
+
+    private static final String NODE_URLS_KEY = "app_affinity:node_urls";
+
+    /**
+     * 估算重新分配比例时抽样的 appId 数
+     */
+    private static final int REBALANCE_SAMPLE_SIZE = 10_000;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private GenerationRegistry generationRegistry;
+
+    @Resource
+    private AppAffinityMetricsCollector appAffinityMetricsCollector;
+
+    /**
+     * 是否启用应用亲和路由，单节点部署时不需要
+     */
+    @Getter
+    @Value("${app-affinity.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 其他节点访问本节点的地址（包含 context-path），未配置时使用本机 IP
+     */
+    @Value("${app-affinity.advertised-url:}")
+    private String configuredAdvertisedUrl;
+
+    @Value("${server.port:8123}")
+    private int serverPort;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    @Value("${app-affinity.virtual-nodes:160}")
+    private int virtualNodes;
+
+    @Value("${app-affinity.heartbeat-seconds:5}")
+    private long heartbeatSeconds;
+
+    /**
+     * 超过该时长没有心跳的节点视为离开
+     */
+    @Value("${app-affinity.node-ttl-seconds:15}")
+    private long nodeTtlSeconds;
+
+    @Getter
+    private String advertisedUrl;
+
+    private volatile AppAffinityRing ring = AppAffinityRing.of(Set.of(), 0);
+
+    private volatile Map<String, String> nodeUrls = Map.of();
+
+    private Disposable heartbeatTask;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        advertisedUrl = StrUtil.isNotBlank(configuredAdvertisedUrl)
+                ? StrUtil.removeSuffix(configuredAdvertisedUrl, "/")
+                : "http://" + NetUtil.getLocalhostStr() + ":" + serverPort + contextPath;
+        appAffinityMetricsCollector.bindRingSize(() -> ring.getNodes().size());
+        heartbeat();
+        long heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        heartbeatTask = Schedulers.parallel().schedulePeriodically(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        log.info("应用亲和路由已启动, nodeId: {}, url: {}", getNodeId(), advertisedUrl);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (heartbeatTask != null) {
+            heartbeatTask.dispose();
+        }
+        if (!enabled) {
+            return;
+        }
+        // 正常停机时主动离开，其他节点在下一次心跳时重新分配本节点的应用
+        try {
+            getNodes().remove(getNodeId());
+            getNodeUrlMap().fastRemove(getNodeId());
+        } catch (Exception e) {
+            log.error("离开应用亲和路由成员表失败, error: {}", e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return generationRegistry.getNodeId();
+    }
+
+    /**
+     * 查找应用所属节点的访问地址
+     *
+     * @param appId 应用 ID
+     * @return 所属节点的地址，未启用、成员表为空或属于本节点时返回 null
+     */
+    public String locateRemote(long appId) {
+        if (!enabled) {
+            return null;
+        }
+        String owner = ring.locate(appId);
+        if (owner == null || owner.equals(getNodeId())) {
+            return null;
+        }
+        return nodeUrls.get(owner);
+    }
+
+    private void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            RScoredSortedSet<String> nodes = getNodes();
+            nodes.add(now, getNodeId());
+            getNodeUrlMap().fastPut(getNodeId(), advertisedUrl);
+            long expiredBefore = now - TimeUnit.SECONDS.toMillis(nodeTtlSeconds);
+            nodes.removeRangeByScore(0, true, expiredBefore, false);
+            Collection<String> liveNodes = nodes.valueRange(expiredBefore, true, Double.MAX_VALUE, true);
+            Set<String> liveNodeSet = new HashSet<>(liveNodes);
+            nodeUrls = getNodeUrlMap().getAll(liveNodeSet);
+            if (!liveNodeSet.equals(ring.getNodes())) {
+                rebuild(liveNodeSet);
+            }
+        } catch (Exception e) {
+            // Redis 不可用时沿用上一次的哈希环
+            log.error("应用亲和路由心跳失败, error: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild(Set<String> liveNodes) {
+        AppAffinityRing previous = ring;
+        AppAffinityRing current = AppAffinityRing.of(liveNodes, virtualNodes);
+        double movedRatio = previous.getNodes().isEmpty() ? 0 : current.movedRatio(previous, REBALANCE_SAMPLE_SIZE);
+        ring = current;
+        appAffinityMetricsCollector.recordRebalance(movedRatio);
+        log.info("应用亲和路由成员变化: {} -> {}，约 {}% 的应用改变归属节点",
+                previous.getNodes(), current.getNodes(), String.format("%.1f", movedRatio * 100));
+    }
+
+    private RScoredSortedSet<String> getNodes() {
+        return redissonClient.getScoredSortedSet(NODES_KEY, StringCodec.INSTANCE);
+    }
+
+    private RMap<String, String> getNodeUrlMap() {
+        return redissonClient.getMap(NODE_URLS_KEY, StringCodec.INSTANCE);
+    }
+}
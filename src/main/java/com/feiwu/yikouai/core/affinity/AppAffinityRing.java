@@ -0,0 +1,89 @@
+package com.feiwu.yikouai.core.affinity;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 应用到节点的一致性哈希环（不可变）
+ * 每个节点在环上放置 virtualNodes 个虚拟节点，应用按 appId 的哈希顺时针找到第一个虚拟节点，
+ * 节点加入或离开时只有约 1/N 的应用改变归属
+ */
+public final class AppAffinityRing {
+
+    private static final AppAffinityRing EMPTY = new AppAffinityRing(new TreeMap<>(), Collections.emptySet());
+
+    private final TreeMap<Long, String> ring;
+
+    private final Set<String> nodes;
+
+    private AppAffinityRing(TreeMap<Long, String> ring, Set<String> nodes) {
+        this.ring = ring;
+        this.nodes = nodes;
+    }
+
+    /**
+     * 构建哈希环
+     *
+     * @param nodeIds      节点 ID
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @return 哈希环
+     */
+    public static AppAffinityRing of(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            return EMPTY;
+        }
+        TreeMap<Long, String> ring = new TreeMap<>();
+        // 节点按 ID 排序后放置，哈希冲突时各节点得到相同的结果
+        Set<String> nodes = new TreeSet<>(nodeIds);
+        for (String nodeId : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.putIfAbsent(MurmurHash.hash64(nodeId + "#" + i), nodeId);
+            }
+        }
+        return new AppAffinityRing(ring, Collections.unmodifiableSet(nodes));
+    }
+
+    /**
+     * 查找应用所属的节点
+     *
+     * @param appId 应用 ID
+     * @return 节点 ID，环为空时返回 null
+     */
+    public String locate(long appId) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(MurmurHash.hash64(Long.toString(appId)));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 估算从 previous 切换到当前环时改变归属的应用比例（按 sampleSize 个随机 appId 抽样）
+     */
+    public double movedRatio(AppAffinityRing previous, int sampleSize) {
+        if (sampleSize <= 0) {
+            return 0;
+        }
+        Random random = new Random(sampleSize);
+        int moved = 0;
+        for (int i = 0; i < sampleSize; i++) {
+            long appId = random.nextLong() >>> 1;
+            if (!Objects.equals(previous.locate(appId), locate(appId))) {
+                moved++;
+            }
+        }
+        return (double) moved / sampleSize;
+    }
+}
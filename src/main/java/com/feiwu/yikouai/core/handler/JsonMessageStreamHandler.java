@@ -9,6 +9,7 @@ import com.feiwu.yikouai.ai.tools.BaseTool;
 import com.feiwu.yikouai.ai.tools.ToolManager;
 import com.feiwu.yikouai.constant.AppConstant;
 import com.feiwu.yikouai.core.builder.VueProjectBuilder;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
 import com.feiwu.yikouai.model.entity.User;
 import com.feiwu.yikouai.model.enums.ChatHistoryMessageTypeEnum;
 import com.feiwu.yikouai.service.ChatHistoryService;
@@ -34,9 +35,12 @@ public class JsonMessageStreamHandler {
     @Resource
     private ToolManager toolManager;
 
+    @Resource
+    private ToolContentBlobStore toolContentBlobStore;
+
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 按消息类型分发并重组为完整的响应格式
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -44,7 +48,7 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
@@ -52,9 +56,9 @@ public class JsonMessageStreamHandler {
         // 用于跟踪已经见过的工具ID，判断是否是第一次调用
         Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                .map(chunk -> {
-                    // 解析每个 JSON 消息块
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
+                .map(streamMessage -> {
+                    // 处理每个类型化消息
+                    return handleStreamMessage(streamMessage, appId, chatHistoryStringBuilder, seenToolIds);
                 })
                 .filter(StrUtil::isNotEmpty) // 过滤空字串
                 .doFinally(signalType -> {
@@ -65,22 +69,24 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 收集 TokenStream 数据
+     * 消息已是具体子类型，直接按类型处理，无需再做 JSON 解析
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
+    private String handleStreamMessage(StreamMessage streamMessage, long appId, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
         StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        if (typeEnum == null) {
+            log.error("不支持的消息类型: {}", streamMessage.getType());
+            return "";
+        }
         switch (typeEnum) {
             case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
-                String data = aiMessage.getData();
+                String data = ((AiResponseMessage) streamMessage).getData();
                 // 直接拼接响应
                 chatHistoryStringBuilder.append(data);
                 return data;
             }
             case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+                ToolRequestMessage toolRequestMessage = (ToolRequestMessage) streamMessage;
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
                 // 检查是否是第一次看到这个工具 ID
@@ -97,15 +103,16 @@ public class JsonMessageStreamHandler {
                 }
             }
             case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+                ToolExecutedMessage toolExecutedMessage = (ToolExecutedMessage) streamMessage;
                 String toolName = toolExecutedMessage.getName();
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
                 // 根据工具名称获取工具实例并生成相应的结果格式
                 BaseTool tool = toolManager.getTool(toolName);
                 String result = tool.generateToolExecutedResult(jsonObject);
-                // 输出前端和要持久化的内容
+                // 前端展示完整内容，持久化时大段文件内容只保存引用
                 String output = String.format("\n\n%s\n\n", result);
-                chatHistoryStringBuilder.append(output);
+                String record = tool.generateToolExecutedRecord(jsonObject, appId, toolContentBlobStore);
+                chatHistoryStringBuilder.append(String.format("\n\n%s\n\n", record));
                 return output;
             }
             default -> {
@@ -1,6 +1,8 @@
 package com.feiwu.yikouai.core.handler;
 
 import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.ai.model.message.AiResponseMessage;
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
 import com.feiwu.yikouai.model.entity.User;
 import com.feiwu.yikouai.model.enums.ChatHistoryMessageTypeEnum;
 import com.feiwu.yikouai.service.ChatHistoryService;
@@ -24,12 +26,14 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
         return originFlux
-                .map(chunk -> {
+                .map(streamMessage -> {
+                    // 传统流只包含 AI 响应消息，直接取出文本
+                    String chunk = ((AiResponseMessage) streamMessage).getData();
                     // 收集AI响应内容
                     aiResponseBuilder.append(chunk);
                     return chunk;
@@ -1,5 +1,6 @@
 package com.feiwu.yikouai.core.handler;
 
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
 import com.feiwu.yikouai.model.entity.User;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
 import com.feiwu.yikouai.service.ChatHistoryService;
@@ -31,7 +32,7 @@ public class StreamHandlerExecutor {
      * @param codeGenType        代码生成类型
      * @return 处理后的流
      */
-    public Flux<String> doExecute(Flux<String> originFlux,
+    public Flux<String> doExecute(Flux<StreamMessage> originFlux,
                                   ChatHistoryService chatHistoryService,
                                   long appId, User loginUser, CodeGenTypeEnum codeGenType) {
         return switch (codeGenType) {
@@ -0,0 +1,161 @@
+package com.feiwu.yikouai.core.handler;
+
+import com.feiwu.yikouai.ai.model.message.AiResponseMessage;
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式消息合并器（可选）
+ * 将相邻的 AI 响应增量合并为一条消息，从而让 SSE 每个时间窗口或字节预算只输出一帧：
+ * 1. 待发送内容达到字节预算时立即刷新
+ * 2. 第一个增量进入缓冲后开始计时，时间窗口到达时刷新
+ * 3. 遇到工具请求、工具执行结果等非文本消息时，先刷新缓冲再原样透传
+ * 4. 流结束（完成、错误）前刷新剩余内容
+ */
+@Slf4j
+@Component
+public class StreamMessageCoalescer {
+
+    /**
+     * 是否启用合并
+     */
+    @Value("${sse.coalescing.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 合并时间窗口（毫秒）
+     */
+    @Value("${sse.coalescing.window-millis:30}")
+    private long windowMillis;
+
+    /**
+     * 单帧字节预算
+     */
+    @Value("${sse.coalescing.max-bytes:2048}")
+    private int maxBytes;
+
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    /**
+     * 对消息流进行合并，未启用时原样返回
+     *
+     * @param originFlux 原始消息流
+     * @return 合并后的消息流
+     */
+    public Flux<StreamMessage> coalesce(Flux<StreamMessage> originFlux) {
+        if (!enabled) {
+            return originFlux;
+        }
+        return Flux.create(sink -> {
+            CoalescingBuffer buffer = new CoalescingBuffer(sink);
+            // 手动订阅不会继承下游的 Reactor Context，显式传递给上游（上游通过 Context 登记生成任务的后台工作）
+            Disposable upstream = originFlux.contextWrite(sink.contextView())
+                    .subscribe(buffer::onNext, buffer::onError, buffer::onComplete);
+            // 下游取消或结束时，同时取消上游订阅和定时刷新
+            sink.onDispose(() -> {
+                upstream.dispose();
+                buffer.cancelScheduledFlush();
+            });
+        });
+    }
+
+    /**
+     * 计算字符串的 UTF-8 字节数（不产生额外的数组分配）
+     */
+    private static int utf8Length(String text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 单个流的合并缓冲区，上游回调线程与定时刷新线程通过对象锁互斥
+     */
+    private final class CoalescingBuffer {
+
+        private final FluxSink<StreamMessage> sink;
+
+        private final StringBuilder pending = new StringBuilder();
+
+        private int pendingBytes;
+
+        private Disposable scheduledFlush;
+
+        private CoalescingBuffer(FluxSink<StreamMessage> sink) {
+            this.sink = sink;
+        }
+
+        private synchronized void onNext(StreamMessage streamMessage) {
+            if (streamMessage instanceof AiResponseMessage aiResponseMessage) {
+                String data = aiResponseMessage.getData();
+                if (data == null || data.isEmpty()) {
+                    return;
+                }
+                pending.append(data);
+                pendingBytes += utf8Length(data);
+                if (pendingBytes >= maxBytes) {
+                    flush();
+                } else if (scheduledFlush == null) {
+                    scheduledFlush = scheduler.schedule(this::flushOnTimer, windowMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            // 工具调用边界：先输出已缓冲的文本，保证前端显示顺序不变
+            flush();
+            sink.next(streamMessage);
+        }
+
+        private synchronized void onError(Throwable error) {
+            flush();
+            sink.error(error);
+        }
+
+        private synchronized void onComplete() {
+            flush();
+            sink.complete();
+        }
+
+        private synchronized void flushOnTimer() {
+            scheduledFlush = null;
+            flush();
+        }
+
+        private synchronized void cancelScheduledFlush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+                scheduledFlush = null;
+            }
+        }
+
+        private void flush() {
+            cancelScheduledFlush();
+            if (pending.isEmpty() || sink.isCancelled()) {
+                return;
+            }
+            sink.next(new AiResponseMessage(pending.toString()));
+            pending.setLength(0);
+            pendingBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.feiwu.yikouai.core.parse;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 流式代码块解析器
+ * 按到达顺序逐字符扫描模型输出，单次遍历识别 ```lang ... ``` 代码块，每个代码块闭合时立即回调，
+ * 无需等待完整响应，也不需要保留整段输出：
+ * 1. 只缓存当前所需语言的代码块内容，同一语言只取第一个代码块（与正则解析器的 find 语义一致）
+ * 2. 其他语言的代码块和代码块之外的文本直接丢弃
+ * 3. 可选地保留兜底内容：在兜底语言的代码块开始之前记录原始文本，整段输出中没有该语言的完整代码块时，
+ *    由原始文本加上未闭合的代码块内容还原出完整输出；该语言的第一个代码块为空时同样以完整输出兜底
+ *    （与 HtmlCodeParser 的兜底逻辑一致）
+ * 非线程安全，每个生成流使用一个实例
+ */
+public class StreamingCodeFenceParser {
+
+    private static final char BACKTICK = '`';
+
+    private static final int FENCE_LENGTH = 3;
+
+    /**
+     * 语言标识的最大长度，超过后视为无效代码块
+     */
+    private static final int MAX_INFO_LENGTH = 32;
+
+    private enum State {
+        /**
+         * 代码块之外的文本
+         */
+        TEXT,
+        /**
+         * 开始标记后的语言标识，直到换行
+         */
+        INFO,
+        /**
+         * 代码块内容
+         */
+        CODE
+    }
+
+    /**
+     * 需要提取的语言（已规范化）
+     */
+    private final Set<String> languages;
+
+    /**
+     * 代码块闭合回调，参数为 (规范化后的语言, 代码内容)
+     */
+    private final BiConsumer<String, String> fenceHandler;
+
+    /**
+     * 兜底语言，为 null 时不保留兜底内容
+     */
+    private final String fallbackLanguage;
+
+    private final Set<String> emittedLanguages = new HashSet<>();
+
+    private final StringBuilder info = new StringBuilder();
+
+    private final StringBuilder code = new StringBuilder();
+
+    private StringBuilder fallbackContent;
+
+    /**
+     * 是否仍在记录兜底用的原始文本
+     */
+    private boolean recordingFallback;
+
+    private State state = State.TEXT;
+
+    /**
+     * 当前连续的反引号数量
+     */
+    private int backticks;
+
+    /**
+     * 当前代码块的语言，为 null 表示该代码块不需要提取
+     */
+    private String currentLanguage;
+
+    /**
+     * @param languages        需要提取的语言
+     * @param fallbackLanguage 兜底语言，为 null 时不保留兜底内容
+     * @param fenceHandler     代码块闭合回调，参数为 (规范化后的语言, 代码内容)
+     */
+    public StreamingCodeFenceParser(Set<String> languages, String fallbackLanguage, BiConsumer<String, String> fenceHandler) {
+        this.languages = languages;
+        this.fallbackLanguage = fallbackLanguage;
+        this.fenceHandler = fenceHandler;
+        if (fallbackLanguage != null) {
+            this.fallbackContent = new StringBuilder();
+            this.recordingFallback = true;
+        }
+    }
+
+    /**
+     * 规范化语言标识
+     *
+     * @param language 代码块开始标记后的语言标识
+     * @return 规范化后的语言（javascript 归为 js）
+     */
+    public static String normalizeLanguage(String language) {
+        String normalized = language.trim().toLowerCase(Locale.ROOT);
+        return "javascript".equals(normalized) ? "js" : normalized;
+    }
+
+    /**
+     * 输入一段增量内容
+     *
+     * @param chunk 增量内容
+     */
+    public void feed(CharSequence chunk) {
+        int length = chunk.length();
+        // 本段中待记录的兜底内容的起点
+        int recordFrom = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chunk.charAt(i);
+            switch (state) {
+                case TEXT -> acceptText(c);
+                case INFO -> {
+                    if (acceptInfo(c)) {
+                        // 兜底语言的代码块开始，之后的原始内容可由代码缓冲区还原，不再重复记录
+                        fallbackContent.append(chunk, recordFrom, i + 1);
+                    }
+                }
+                case CODE -> {
+                    if (acceptCode(c)) {
+                        // 兜底语言的代码块为空，闭合时已补回代码块内容，从下一个字符起继续记录
+                        recordFrom = i + 1;
+                    }
+                }
+            }
+        }
+        // 兜底语言的代码块可能在本段内已闭合，此时兜底内容已释放
+        if (recordingFallback) {
+            fallbackContent.append(chunk, recordFrom, length);
+        }
+    }
+
+    /**
+     * 兜底内容：整段输出中没有兜底语言的有效代码块时返回完整的原始输出，否则返回 null
+     * 应在输入结束后调用
+     */
+    public String getFallbackContent() {
+        if (fallbackContent == null) {
+            return null;
+        }
+        if (state == State.CODE && fallbackLanguage.equals(currentLanguage)) {
+            // 兜底语言的代码块未闭合，原始文本记录到代码块开始处，之后的内容都在代码缓冲区中
+            StringBuilder content = new StringBuilder(fallbackContent.length() + code.length() + backticks);
+            content.append(fallbackContent).append(code);
+            content.repeat(BACKTICK, backticks);
+            return content.toString();
+        }
+        return fallbackContent.toString();
+    }
+
+    private void acceptText(char c) {
+        if (c != BACKTICK) {
+            backticks = 0;
+            return;
+        }
+        if (++backticks == FENCE_LENGTH) {
+            backticks = 0;
+            info.setLength(0);
+            state = State.INFO;
+        }
+    }
+
+    /**
+     * @return 是否开始了兜底语言的代码块
+     */
+    private boolean acceptInfo(char c) {
+        if (c != '\n') {
+            if (info.length() <= MAX_INFO_LENGTH) {
+                info.append(c);
+            }
+            return false;
+        }
+        String language = info.length() > MAX_INFO_LENGTH ? null : normalizeLanguage(info.toString());
+        if (language != null && languages.contains(language) && !emittedLanguages.contains(language)) {
+            currentLanguage = language;
+        } else {
+            currentLanguage = null;
+        }
+        code.setLength(0);
+        backticks = 0;
+        state = State.CODE;
+        if (recordingFallback && fallbackLanguage.equals(currentLanguage)) {
+            recordingFallback = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 是否恢复了兜底内容的记录
+     */
+    private boolean acceptCode(char c) {
+        if (c == BACKTICK) {
+            return ++backticks == FENCE_LENGTH && closeFence();
+        }
+        if (currentLanguage != null) {
+            if (backticks > 0) {
+                code.repeat(BACKTICK, backticks);
+            }
+            code.append(c);
+        }
+        backticks = 0;
+        return false;
+    }
+
+    /**
+     * @return 是否恢复了兜底内容的记录
+     */
+    private boolean closeFence() {
+        backticks = 0;
+        state = State.TEXT;
+        if (currentLanguage == null) {
+            return false;
+        }
+        String language = currentLanguage;
+        currentLanguage = null;
+        emittedLanguages.add(language);
+        String content = code.toString();
+        code.setLength(0);
+        if (language.equals(fallbackLanguage)) {
+            if (content.isBlank()) {
+                // 第一个代码块为空时以完整输出兜底（之后的同语言代码块也不再提取）：补回代码块内容和结束标记，继续记录
+                fallbackContent.append(content).repeat(BACKTICK, FENCE_LENGTH);
+                recordingFallback = true;
+                return true;
+            }
+            // 兜底语言已有完整代码块，不再需要兜底内容
+            fallbackContent = null;
+            recordingFallback = false;
+        }
+        fenceHandler.accept(language, content);
+        return false;
+    }
+}
@@ -9,7 +9,13 @@ import com.feiwu.yikouai.exception.ErrorCode;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 /**
  * 抽象代码文件保存器 - 模板方法模式
@@ -74,8 +80,33 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected final void writeToFile(String dirPath, String filename, String content) {
         if (StrUtil.isNotBlank(content)) {
-            String filePath = dirPath + File.separator + filename;
-            FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
+            writeAtomically(dirPath, filename, content);
+        }
+    }
+
+    /**
+     * 原子写入文件：先写入同目录下的临时文件再重命名，预览时不会读到写了一半的文件
+     *
+     * @param dirPath  目录路径
+     * @param filename 文件名
+     * @param content  文件内容
+     */
+    static void writeAtomically(String dirPath, String filename, String content) {
+        Path target = Paths.get(dirPath, filename);
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(target.getParent(), "." + filename + ".", ".tmp");
+            Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if (tempFile != null) {
+                FileUtil.del(tempFile);
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "写入文件失败: " + filename);
         }
     }
 
@@ -0,0 +1,112 @@
+package com.feiwu.yikouai.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.constant.AppConstant;
+import com.feiwu.yikouai.core.parse.StreamingCodeFenceParser;
+import com.feiwu.yikouai.exception.BusinessException;
+import com.feiwu.yikouai.exception.ErrorCode;
+import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式代码文件保存器（HTML、MULTI_FILE）
+ * 边接收模型输出边解析，每个代码块闭合时立即原子写入对应文件，前端预览无需等待整段响应结束；
+ * 解析规则与 HtmlCodeParser、MultiFileCodeParser 保持一致
+ * 非线程安全，每个生成流使用一个实例
+ */
+@Slf4j
+public class StreamingCodeFileSaver {
+
+    private static final String LANGUAGE_HTML = "html";
+
+    /**
+     * 语言 -> 文件名
+     */
+    private static final Map<String, String> FILE_NAMES = Map.of(
+            LANGUAGE_HTML, "index.html",
+            "css", "style.css",
+            "js", "script.js"
+    );
+
+    private final CodeGenTypeEnum codeGenType;
+
+    private final Long appId;
+
+    private final StreamingCodeFenceParser parser;
+
+    private String dirPath;
+
+    private boolean htmlSaved;
+
+    public StreamingCodeFileSaver(CodeGenTypeEnum codeGenType, Long appId) {
+        if (appId == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "应用Id不能为空");
+        }
+        this.codeGenType = codeGenType;
+        this.appId = appId;
+        this.parser = switch (codeGenType) {
+            // 单文件模式下没有 html 代码块时，整段输出作为 HTML
+            case HTML -> new StreamingCodeFenceParser(Set.of(LANGUAGE_HTML), LANGUAGE_HTML, this::saveFence);
+            case MULTI_FILE -> new StreamingCodeFenceParser(FILE_NAMES.keySet(), null, this::saveFence);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+
+    /**
+     * 输入一段模型输出
+     *
+     * @param chunk 增量内容
+     */
+    public void append(String chunk) {
+        try {
+            parser.feed(chunk);
+        } catch (Exception e) {
+            // 写入失败不影响流式输出，结束时仍会校验 HTML 是否已保存
+            log.error("流式保存代码失败, appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 输出结束，处理兜底内容并校验结果
+     *
+     * @return 保存的目录
+     */
+    public File finish() {
+        if (!htmlSaved) {
+            String fallbackContent = parser.getFallbackContent();
+            if (StrUtil.isNotBlank(fallbackContent)) {
+                saveFence(LANGUAGE_HTML, fallbackContent);
+            }
+        }
+        if (!htmlSaved) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "HTML代码内容不能为空");
+        }
+        return new File(dirPath);
+    }
+
+    private void saveFence(String language, String code) {
+        String content = code.trim();
+        if (content.isEmpty()) {
+            return;
+        }
+        CodeFileSaverTemplate.writeAtomically(getDirPath(), FILE_NAMES.get(language), content);
+        if (LANGUAGE_HTML.equals(language)) {
+            htmlSaved = true;
+        }
+        log.info("代码文件已写入, appId: {}, file: {}", appId, FILE_NAMES.get(language));
+    }
+
+    private String getDirPath() {
+        if (dirPath == null) {
+            String uniqueDirName = StrUtil.format("{}_{}", codeGenType.getValue(), appId);
+            dirPath = AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + uniqueDirName;
+            FileUtil.mkdir(dirPath);
+        }
+        return dirPath;
+    }
+}
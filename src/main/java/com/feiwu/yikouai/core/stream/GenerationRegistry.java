@@ -0,0 +1,231 @@
+package com.feiwu.yikouai.core.stream;
+
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.monitor.GenerationMetricsCollector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 集群生成任务注册表
+ * 1. 每个应用同一时间只允许一个生成任务（多个任务同时写入 vue_project_{appId} 会破坏工作目录），
+ *    通过 Redis 中带租约的 owner 键实现，owner 节点定时续约，节点宕机后租约到期自动释放
+ * 2. 中断请求可能落在任意节点，本机没有该任务时通过 Redis 发布订阅转发给 owner 节点执行
+ */
+@Slf4j
+@Component
+public class GenerationRegistry {
+
+    private static final String OWNER_KEY_PREFIX = "generation:owner:";
+
+    private static final String STOP_TOPIC = "generation:stop";
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 仅当 owner 仍是自己时续约，避免续上其他节点的租约
+     */
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "else return 0 end";
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private GenerationMetricsCollector generationMetricsCollector;
+
+    /**
+     * 节点 ID，未配置时使用 主机名-随机串
+     */
+    @Value("${generation.registry.node-id:}")
+    private String configuredNodeId;
+
+    /**
+     * owner 租约时长（秒），续约间隔为租约的三分之一
+     */
+    @Value("${generation.registry.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Getter
+    private String nodeId;
+
+    /**
+     * 本节点持有的任务：appId -> owner 值（nodeId|generationId）
+     */
+    private final Map<Long, String> ownedGenerations = new ConcurrentHashMap<>();
+
+    private RTopic stopTopic;
+
+    private int stopListenerId;
+
+    private Disposable renewTask;
+
+    private volatile BiConsumer<Long, String> stopHandler;
+
+    @PostConstruct
+    public void init() {
+        nodeId = StrUtil.isNotBlank(configuredNodeId)
+                ? configuredNodeId
+                : NetUtil.getLocalHostName() + "-" + IdUtil.nanoId(6);
+        stopTopic = redissonClient.getTopic(STOP_TOPIC, StringCodec.INSTANCE);
+        stopListenerId = stopTopic.addListener(String.class, (channel, message) -> onStopMessage(message));
+        long renewMillis = TimeUnit.SECONDS.toMillis(leaseSeconds) / 3;
+        renewTask = Schedulers.parallel().schedulePeriodically(this::renewLeases, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        generationMetricsCollector.bindActiveGenerations(nodeId, ownedGenerations::size);
+        log.info("生成任务注册表已启动, nodeId: {}", nodeId);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (renewTask != null) {
+            renewTask.dispose();
+        }
+        if (stopTopic != null) {
+            stopTopic.removeListener(stopListenerId);
+        }
+        // 正常停机时主动释放，其他节点无需等待租约到期
+        ownedGenerations.forEach(this::releaseOwner);
+        ownedGenerations.clear();
+    }
+
+    /**
+     * 设置收到中断请求时的处理器，参数为 (appId, generationId)
+     */
+    public void onStopRequested(BiConsumer<Long, String> stopHandler) {
+        this.stopHandler = stopHandler;
+    }
+
+    /**
+     * 尝试占有应用的生成权
+     *
+     * @param appId        应用 ID
+     * @param generationId 生成任务 ID
+     * @return 是否占有成功，应用已有正在执行的任务时返回 false
+     */
+    public boolean tryAcquire(long appId, String generationId) {
+        String ownerValue = nodeId + SEPARATOR + generationId;
+        boolean acquired = getOwnerBucket(appId).setIfAbsent(ownerValue, Duration.ofSeconds(leaseSeconds));
+        if (acquired) {
+            ownedGenerations.put(appId, ownerValue);
+        } else {
+            generationMetricsCollector.recordRejected();
+        }
+        return acquired;
+    }
+
+    /**
+     * 释放应用的生成权
+     *
+     * @param appId        应用 ID
+     * @param generationId 生成任务 ID
+     */
+    public void release(long appId, String generationId) {
+        String ownerValue = nodeId + SEPARATOR + generationId;
+        if (ownedGenerations.remove(appId, ownerValue)) {
+            releaseOwner(appId, ownerValue);
+        }
+    }
+
+    /**
+     * 集群中是否仍在执行指定的生成任务（owner 租约仍属于该任务）
+     *
+     * @param appId        应用 ID
+     * @param generationId 生成任务 ID
+     * @return 是否仍在执行
+     */
+    public boolean isRunning(long appId, String generationId) {
+        String ownerValue = getOwnerBucket(appId).get();
+        return ownerValue != null && generationId.equals(StrUtil.subAfter(ownerValue, SEPARATOR, true));
+    }
+
+    /**
+     * 将中断请求转发给正在执行该应用生成任务的节点
+     *
+     * @param appId 应用 ID
+     * @return 集群中是否存在正在执行的任务
+     */
+    public boolean publishStop(long appId) {
+        String ownerValue = getOwnerBucket(appId).get();
+        if (ownerValue == null) {
+            return false;
+        }
+        String generationId = StrUtil.subAfter(ownerValue, SEPARATOR, true);
+        long receivers = stopTopic.publish(appId + SEPARATOR + generationId);
+        log.info("转发中断请求, appId: {}, owner: {}, 接收节点数: {}", appId, ownerValue, receivers);
+        return true;
+    }
+
+    private void onStopMessage(String message) {
+        String appIdStr = StrUtil.subBefore(message, SEPARATOR, false);
+        String generationId = StrUtil.subAfter(message, SEPARATOR, false);
+        long appId;
+        try {
+            appId = Long.parseLong(appIdStr);
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的中断消息: {}", message);
+            return;
+        }
+        // 只有 owner 节点处理，其他节点忽略
+        if (!(nodeId + SEPARATOR + generationId).equals(ownedGenerations.get(appId))) {
+            return;
+        }
+        BiConsumer<Long, String> handler = stopHandler;
+        if (handler != null) {
+            log.info("收到其他节点转发的中断请求, appId: {}, generationId: {}", appId, generationId);
+            handler.accept(appId, generationId);
+        }
+    }
+
+    private void renewLeases() {
+        if (ownedGenerations.isEmpty()) {
+            return;
+        }
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        String leaseMillis = String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds));
+        ownedGenerations.forEach((appId, ownerValue) -> {
+            try {
+                Long renewed = script.eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                        List.of(OWNER_KEY_PREFIX + appId), ownerValue, leaseMillis);
+                if (renewed == null || renewed == 0) {
+                    log.warn("生成任务租约已丢失, appId: {}, owner: {}", appId, ownerValue);
+                }
+            } catch (Exception e) {
+                log.error("生成任务续约失败, appId: {}, error: {}", appId, e.getMessage());
+            }
+        });
+    }
+
+    private void releaseOwner(long appId, String ownerValue) {
+        try {
+            getOwnerBucket(appId).compareAndSet(ownerValue, null);
+        } catch (Exception e) {
+            log.error("释放生成任务失败, appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    private RBucket<String> getOwnerBucket(long appId) {
+        return redissonClient.getBucket(OWNER_KEY_PREFIX + appId, StringCodec.INSTANCE);
+    }
+}
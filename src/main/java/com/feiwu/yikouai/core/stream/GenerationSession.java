@@ -0,0 +1,232 @@
+package com.feiwu.yikouai.core.stream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.context.Context;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 一次代码生成任务
+ * 生成过程与前端 SSE 连接解耦：连接断开只会移除监听者，生成继续执行，
+ * 已输出的内容保存在有界环形缓冲区中，供重连时按序号补发
+ */
+@Slf4j
+public class GenerationSession implements Disposable {
+
+    @Getter
+    private final long appId;
+
+    @Getter
+    private final String generationId;
+
+    /**
+     * 环形缓冲区容量
+     */
+    private final int capacity;
+
+    private final ArrayDeque<ReplayEntry> ring;
+
+    private final List<FluxSink<ReplayEntry>> listeners = new ArrayList<>();
+
+    /**
+     * 每条记录的镜像写入（如写入 Redis），用于缓冲区淘汰后的补发
+     */
+    private final Consumer<ReplayEntry> mirror;
+
+    private long lastSeq;
+
+    @Getter
+    private boolean finished;
+
+    private Throwable error;
+
+    private Disposable upstream;
+
+    private Runnable terminateCallback;
+
+    /**
+     * 仍在执行的工作数：上游订阅本身计 1，另加取消订阅后仍会继续执行的后台工作（如 TokenStream 的工具调用循环）
+     */
+    private final AtomicInteger runningWork = new AtomicInteger(1);
+
+    private Runnable settledCallback;
+
+    public GenerationSession(long appId, String generationId, int capacity, Consumer<ReplayEntry> mirror) {
+        this.appId = appId;
+        this.generationId = generationId;
+        this.capacity = capacity;
+        this.ring = new ArrayDeque<>(Math.min(capacity, 256));
+        this.mirror = mirror;
+    }
+
+    /**
+     * 订阅生成流并开始执行，此后生成过程不再受任何前端连接影响
+     * 会话通过 Reactor Context 传递给上游，上游可以登记取消后仍在执行的后台工作
+     *
+     * @param contentFlux       生成内容流
+     * @param terminateCallback 生成流结束（完成、错误、中断）时的回调
+     * @param settledCallback   生成流结束且所有后台工作都结束后的回调
+     */
+    void start(Flux<String> contentFlux, Runnable terminateCallback, Runnable settledCallback) {
+        this.terminateCallback = terminateCallback;
+        this.settledCallback = settledCallback;
+        this.upstream = contentFlux
+                .contextWrite(Context.of(GenerationSession.class, this))
+                .subscribe(this::append, this::fail, this::complete);
+    }
+
+    /**
+     * 登记一项后台工作，中断后生成流会立即结束，但已登记的工作结束前不会触发 settledCallback
+     *
+     * @return 工作结束时调用的回调（可重复调用，只生效一次）
+     */
+    public Runnable trackBackgroundWork() {
+        runningWork.incrementAndGet();
+        AtomicBoolean done = new AtomicBoolean(false);
+        return () -> {
+            if (done.compareAndSet(false, true)) {
+                workDone();
+            }
+        };
+    }
+
+    private void workDone() {
+        if (runningWork.decrementAndGet() == 0 && settledCallback != null) {
+            settledCallback.run();
+        }
+    }
+
+    /**
+     * 从指定序号之后开始订阅：先补发缓冲区中的内容，再实时接收后续内容
+     * 缓冲区已淘汰的部分在锁外加载（加载涉及网络 IO，不能阻塞 append），
+     * 加载期间缓冲区可能继续淘汰，因此循环补齐直到与缓冲区衔接
+     *
+     * @param afterSeq  已收到的最后序号，0 表示从头开始
+     * @param gapLoader 缓冲区已淘汰部分的加载器，参数为 (afterSeq, 缓冲区中第一条的序号)
+     * @return 回放 + 实时内容流
+     */
+    public Flux<ReplayEntry> subscribe(long afterSeq, BiFunction<Long, Long, List<ReplayEntry>> gapLoader) {
+        return Flux.create(sink -> {
+            // 前端连接断开时只移除监听者，不影响生成；在加入监听者之前注册，避免中间取消的订阅留在监听者中
+            sink.onDispose(() -> removeListener(sink));
+            long sentSeq = afterSeq;
+            while (!sink.isCancelled()) {
+                long firstSeq;
+                synchronized (this) {
+                    firstSeq = ring.isEmpty() ? lastSeq + 1 : ring.peekFirst().seq();
+                    if (sentSeq + 1 >= firstSeq) {
+                        for (ReplayEntry entry : ring) {
+                            if (entry.seq() > sentSeq) {
+                                sink.next(entry);
+                            }
+                        }
+                        if (finished) {
+                            terminate(sink);
+                            return;
+                        }
+                        // 已取消时 onDispose 已经执行过，不能再加入；之后的取消会在锁释放后移除
+                        if (!sink.isCancelled()) {
+                            listeners.add(sink);
+                        }
+                        return;
+                    }
+                }
+                // 缓冲区已淘汰了部分内容，从镜像中补齐
+                gapLoader.apply(sentSeq, firstSeq).forEach(sink::next);
+                sentSeq = firstSeq - 1;
+            }
+        });
+    }
+
+    /**
+     * 中断生成
+     */
+    @Override
+    public void dispose() {
+        Disposable current = upstream;
+        if (current != null && !current.isDisposed()) {
+            current.dispose();
+        }
+        complete();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return finished;
+    }
+
+    private synchronized void append(String data) {
+        ReplayEntry entry = new ReplayEntry(generationId, ++lastSeq, data);
+        if (ring.size() >= capacity) {
+            ring.pollFirst();
+        }
+        ring.addLast(entry);
+        mirror.accept(entry);
+        for (FluxSink<ReplayEntry> listener : listeners) {
+            listener.next(entry);
+        }
+    }
+
+    private void fail(Throwable throwable) {
+        log.error("代码生成任务异常结束, appId: {}, generationId: {}, error: {}", appId, generationId, throwable.getMessage());
+        finish(throwable);
+    }
+
+    private void complete() {
+        finish(null);
+    }
+
+    private void finish(Throwable throwable) {
+        List<FluxSink<ReplayEntry>> toTerminate;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            error = throwable;
+            toTerminate = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        toTerminate.forEach(this::terminate);
+        if (terminateCallback != null) {
+            terminateCallback.run();
+        }
+        workDone();
+    }
+
+    private void terminate(FluxSink<ReplayEntry> sink) {
+        if (error != null) {
+            sink.error(error);
+        } else {
+            sink.complete();
+        }
+    }
+
+    private synchronized void removeListener(FluxSink<ReplayEntry> sink) {
+        listeners.remove(sink);
+    }
+
+    /**
+     * 生成流与所有后台工作是否都已结束
+     */
+    public boolean isSettled() {
+        return runningWork.get() == 0;
+    }
+
+    /**
+     * 当前已输出的最后序号
+     */
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+}
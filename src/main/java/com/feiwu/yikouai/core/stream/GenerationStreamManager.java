@@ -0,0 +1,388 @@
+package com.feiwu.yikouai.core.stream;
+
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.exception.BusinessException;
+import com.feiwu.yikouai.exception.ErrorCode;
+import com.feiwu.yikouai.exception.ThrowUtils;
+import com.feiwu.yikouai.monitor.GenerationMetricsCollector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamReadArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 可恢复的生成流管理器
+ * 1. 每次生成创建一个 GenerationSession，前端断开连接后生成继续执行
+ * 2. 输出内容保存在内存环形缓冲区中，并异步镜像到 Redis Stream
+ * 3. 前端通过 Last-Event-ID 重连时，从缺失的位置开始补发，本机没有该任务时从 Redis 回放
+ * 4. 通过 GenerationRegistry 保证同一应用在集群中只有一个生成任务，中断请求可转发到执行节点
+ */
+@Slf4j
+@Component
+public class GenerationStreamManager {
+
+    private static final String REPLAY_KEY_PREFIX = "generation:replay:";
+
+    private static final String LATEST_KEY_PREFIX = "generation:replay:latest:";
+
+    private static final String FIELD_SEQ = "seq";
+
+    private static final String FIELD_DATA = "d";
+
+    private static final String FIELD_END = "end";
+
+    /**
+     * 跟随回放时每次读取的最大条数
+     */
+    private static final int TAIL_BATCH_SIZE = 256;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private GenerationRegistry generationRegistry;
+
+    @Resource
+    private GenerationMetricsCollector generationMetricsCollector;
+
+    /**
+     * 内存环形缓冲区容量（条）
+     */
+    @Value("${generation.replay.ring-capacity:2048}")
+    private int ringCapacity;
+
+    /**
+     * 是否镜像到 Redis Stream
+     */
+    @Value("${generation.replay.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    /**
+     * Redis Stream 最大长度（条）
+     */
+    @Value("${generation.replay.redis-max-len:8192}")
+    private int redisMaxLen;
+
+    /**
+     * 生成结束后回放日志的保留时间（分钟）
+     */
+    @Value("${generation.replay.retention-minutes:10}")
+    private long retentionMinutes;
+
+    /**
+     * 跟随 Redis 回放时单次阻塞读取的等待时间（毫秒）
+     */
+    @Value("${generation.replay.tail-block-millis:1000}")
+    private long tailBlockMillis;
+
+    /**
+     * 中断后等待后台工作结束的最长时间（秒），超时后强制释放生成权
+     */
+    @Value("${generation.registry.settle-timeout-seconds:300}")
+    private long settleTimeoutSeconds;
+
+    /**
+     * appId -> 最近一次生成任务
+     */
+    private final Map<Long, GenerationSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // 其他节点转发来的中断请求
+        generationRegistry.onStopRequested(this::stopLocal);
+    }
+
+    /**
+     * 开始一次生成任务
+     * 先占有应用的生成权再创建生成流，被拒绝时不会产生任何副作用（如保存用户消息、调用模型）
+     *
+     * @param appId               应用 ID
+     * @param contentFluxSupplier 生成内容流的创建函数
+     * @return 生成任务
+     */
+    public GenerationSession start(long appId, Supplier<Flux<String>> contentFluxSupplier) {
+        String generationId = UUID.randomUUID().toString();
+        if (!generationRegistry.tryAcquire(appId, generationId)) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "该应用正在生成代码，请等待完成或中断后再试");
+        }
+        Flux<String> contentFlux;
+        try {
+            contentFlux = contentFluxSupplier.get();
+        } catch (RuntimeException e) {
+            generationRegistry.release(appId, generationId);
+            throw e;
+        }
+        GenerationSession session = new GenerationSession(appId, generationId, ringCapacity,
+                entry -> mirrorToRedis(appId, entry));
+        sessions.put(appId, session);
+        if (redisEnabled) {
+            RBucket<String> latest = redissonClient.getBucket(LATEST_KEY_PREFIX + appId, StringCodec.INSTANCE);
+            latest.setAsync(generationId, Duration.ofMinutes(retentionMinutes));
+        }
+        session.start(contentFlux, () -> onSessionFinished(session), () -> onSessionSettled(session));
+        return session;
+    }
+
+    /**
+     * 订阅生成任务，缓冲区已淘汰的部分从 Redis 补齐
+     *
+     * @param session  生成任务
+     * @param afterSeq 已收到的最后序号，0 表示从头开始
+     * @return 回放 + 实时内容流
+     */
+    public Flux<ReplayEntry> subscribe(GenerationSession session, long afterSeq) {
+        long appId = session.getAppId();
+        String generationId = session.getGenerationId();
+        return session.subscribe(afterSeq, (from, to) -> loadFromRedis(appId, generationId, from, to));
+    }
+
+    /**
+     * 获取应用正在执行的生成任务
+     *
+     * @param appId 应用 ID
+     * @return 生成任务，不存在或已结束时返回 null
+     */
+    public GenerationSession getRunningSession(long appId) {
+        GenerationSession session = sessions.get(appId);
+        return session == null || session.isFinished() ? null : session;
+    }
+
+    /**
+     * 中断应用正在执行的生成任务，任务不在本机时转发给执行节点
+     *
+     * @param appId 应用 ID
+     * @return 集群中是否存在正在执行的任务
+     */
+    public boolean stop(long appId) {
+        GenerationSession session = getRunningSession(appId);
+        if (session != null) {
+            session.dispose();
+            generationMetricsCollector.recordStop("local");
+            return true;
+        }
+        boolean published = generationRegistry.publishStop(appId);
+        generationMetricsCollector.recordStop(published ? "remote" : "none");
+        return published;
+    }
+
+    /**
+     * 中断本机指定的生成任务（generationId 不一致说明已是新的任务，不处理）
+     */
+    private void stopLocal(long appId, String generationId) {
+        GenerationSession session = getRunningSession(appId);
+        if (session != null && session.getGenerationId().equals(generationId)) {
+            session.dispose();
+        }
+    }
+
+    /**
+     * 恢复生成流
+     *
+     * @param appId       应用 ID
+     * @param lastEventId 前端最后收到的事件 ID（格式为 generationId:seq），为空时从最近一次生成的开头回放
+     * @return 回放 + 实时内容流
+     */
+    public Flux<ReplayEntry> resume(long appId, String lastEventId) {
+        String generationId = null;
+        long afterSeq = 0;
+        if (StrUtil.isNotBlank(lastEventId)) {
+            int separatorIndex = lastEventId.lastIndexOf(ReplayEntry.EVENT_ID_SEPARATOR);
+            if (separatorIndex <= 0) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "Last-Event-ID 格式错误");
+            }
+            generationId = lastEventId.substring(0, separatorIndex);
+            try {
+                afterSeq = Long.parseLong(lastEventId.substring(separatorIndex + 1));
+            } catch (NumberFormatException e) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "Last-Event-ID 格式错误");
+            }
+        }
+        // 优先使用本机内存中的任务
+        GenerationSession session = sessions.get(appId);
+        if (session != null && (generationId == null || generationId.equals(session.getGenerationId()))) {
+            return subscribe(session, afterSeq);
+        }
+        // 本机没有该任务（已过期或由其他节点执行），从 Redis 回放已记录的内容
+        if (!redisEnabled) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "没有可恢复的代码生成任务");
+        }
+        if (generationId == null) {
+            RBucket<String> latest = redissonClient.getBucket(LATEST_KEY_PREFIX + appId, StringCodec.INSTANCE);
+            generationId = latest.get();
+            ThrowUtils.throwIf(generationId == null, ErrorCode.NOT_FOUND_ERROR, "没有可恢复的代码生成任务");
+        }
+        RStream<String, String> stream = redissonClient.getStream(buildReplayKey(appId, generationId), StringCodec.INSTANCE);
+        if (!stream.isExists() && !generationRegistry.isRunning(appId, generationId)) {
+            if (afterSeq == 0) {
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "没有可恢复的代码生成任务");
+            }
+            return Flux.empty();
+        }
+        return tailFromRedis(appId, generationId, afterSeq);
+    }
+
+    /**
+     * 跟随 Redis Stream 回放（任务可能仍在其他节点执行），读到结束标记后才完成
+     * 1. 阻塞读取新记录，异步写入可能乱序，按序号缓冲后依次发送
+     * 2. 缺口持续一个阻塞周期仍未补上时说明记录已被裁剪，跳过缺口
+     * 3. 执行节点宕机未写结束标记时，任务租约释放后再空闲一个周期即结束
+     */
+    private Flux<ReplayEntry> tailFromRedis(long appId, String generationId, long afterSeq) {
+        String key = buildReplayKey(appId, generationId);
+        Duration blockTimeout = Duration.ofMillis(tailBlockMillis);
+        long blockNanos = blockTimeout.toNanos();
+        return Flux.<ReplayEntry>create(sink -> {
+            RStream<String, String> stream = redissonClient.getStream(key, StringCodec.INSTANCE);
+            TreeMap<Long, ReplayEntry> pending = new TreeMap<>();
+            StreamMessageId lastId = new StreamMessageId(0, 0);
+            long sentSeq = afterSeq;
+            long endSeq = -1;
+            long gapSince = 0;
+            boolean ownerGone = false;
+            try {
+                while (!sink.isCancelled()) {
+                    Map<StreamMessageId, Map<String, String>> records = stream.read(StreamReadArgs.greaterThan(lastId)
+                            .count(TAIL_BATCH_SIZE).timeout(blockTimeout));
+                    boolean idle = records == null || records.isEmpty();
+                    if (!idle) {
+                        for (Map.Entry<StreamMessageId, Map<String, String>> record : records.entrySet()) {
+                            lastId = record.getKey();
+                            Map<String, String> fields = record.getValue();
+                            String endStr = fields.get(FIELD_END);
+                            if (endStr != null) {
+                                endSeq = Long.parseLong(endStr);
+                                continue;
+                            }
+                            String seqStr = fields.get(FIELD_SEQ);
+                            if (seqStr == null) {
+                                continue;
+                            }
+                            long seq = Long.parseLong(seqStr);
+                            if (seq > sentSeq) {
+                                pending.put(seq, new ReplayEntry(generationId, seq, fields.get(FIELD_DATA)));
+                            }
+                        }
+                    }
+                    boolean ended = endSeq >= 0 && (idle || pending.isEmpty() && sentSeq >= endSeq);
+                    if (!ended && idle && pending.isEmpty()) {
+                        // 没有结束标记：租约释放后再等一个周期（结束标记晚于租约释放写入）
+                        ended = ownerGone;
+                        ownerGone = !generationRegistry.isRunning(appId, generationId);
+                    }
+                    long now = System.nanoTime();
+                    boolean skipGap = ended || idle || gapSince != 0 && now - gapSince >= blockNanos;
+                    while (!pending.isEmpty() && (skipGap || pending.firstKey() == sentSeq + 1)) {
+                        ReplayEntry entry = pending.pollFirstEntry().getValue();
+                        sentSeq = entry.seq();
+                        sink.next(entry);
+                    }
+                    gapSince = pending.isEmpty() ? 0 : (gapSince == 0 ? now : gapSince);
+                    if (ended || endSeq >= 0 && sentSeq >= endSeq) {
+                        sink.complete();
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("从 Redis 回放生成流失败, appId: {}, generationId: {}, error: {}", appId, generationId, e.getMessage());
+                sink.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 从 Redis 加载序号在 (afterSeq, beforeSeq) 之间的记录
+     */
+    private List<ReplayEntry> loadFromRedis(long appId, String generationId, long afterSeq, long beforeSeq) {
+        List<ReplayEntry> entries = new ArrayList<>();
+        if (!redisEnabled) {
+            return entries;
+        }
+        try {
+            RStream<String, String> stream = redissonClient.getStream(buildReplayKey(appId, generationId), StringCodec.INSTANCE);
+            Map<StreamMessageId, Map<String, String>> records = stream.range(StreamMessageId.MIN, StreamMessageId.MAX);
+            for (Map<String, String> fields : records.values()) {
+                String seqStr = fields.get(FIELD_SEQ);
+                if (seqStr == null) {
+                    continue;
+                }
+                long seq = Long.parseLong(seqStr);
+                if (seq > afterSeq && seq < beforeSeq) {
+                    entries.add(new ReplayEntry(generationId, seq, fields.get(FIELD_DATA)));
+                }
+            }
+            // 异步写入可能乱序，按序号排序
+            entries.sort(Comparator.comparingLong(ReplayEntry::seq));
+        } catch (Exception e) {
+            log.error("从 Redis 加载生成回放日志失败, appId: {}, generationId: {}, error: {}", appId, generationId, e.getMessage());
+        }
+        return entries;
+    }
+
+    private void mirrorToRedis(long appId, ReplayEntry entry) {
+        if (!redisEnabled) {
+            return;
+        }
+        RStream<String, String> stream = redissonClient.getStream(buildReplayKey(appId, entry.generationId()), StringCodec.INSTANCE);
+        stream.addAsync(StreamAddArgs.entries(FIELD_SEQ, String.valueOf(entry.seq()), FIELD_DATA, entry.data())
+                .trimNonStrict().maxLen(redisMaxLen).noLimit());
+        if (entry.seq() == 1) {
+            stream.expireAsync(Duration.ofMinutes(retentionMinutes));
+        }
+    }
+
+    /**
+     * 生成流结束（完成、错误、中断），中断时模型调用和工具循环可能仍在写入工作目录，此时不释放生成权
+     */
+    private void onSessionFinished(GenerationSession session) {
+        long appId = session.getAppId();
+        if (!session.isSettled()) {
+            // 兜底：后台工作长时间不结束（如模型连接挂起）时强制释放，避免应用永久无法生成
+            Schedulers.parallel().schedule(() -> {
+                if (!session.isSettled()) {
+                    log.warn("中断后后台工作长时间未结束，强制释放生成权, appId: {}, generationId: {}", appId, session.getGenerationId());
+                    generationRegistry.release(appId, session.getGenerationId());
+                }
+            }, settleTimeoutSeconds, TimeUnit.SECONDS);
+        }
+        if (redisEnabled) {
+            RStream<String, String> stream = redissonClient.getStream(buildReplayKey(appId, session.getGenerationId()), StringCodec.INSTANCE);
+            stream.addAsync(StreamAddArgs.entry(FIELD_END, String.valueOf(session.getLastSeq())));
+            stream.expireAsync(Duration.ofMinutes(retentionMinutes));
+        }
+        // 保留一段时间供断线重连，之后释放内存
+        Schedulers.parallel().schedule(() -> sessions.remove(appId, session), retentionMinutes, TimeUnit.MINUTES);
+        log.info("代码生成任务结束, appId: {}, generationId: {}, 共输出 {} 条", appId, session.getGenerationId(), session.getLastSeq());
+    }
+
+    /**
+     * 生成流与后台工作（TokenStream、工具调用循环）都已结束，释放应用的生成权
+     */
+    private void onSessionSettled(GenerationSession session) {
+        generationRegistry.release(session.getAppId(), session.getGenerationId());
+    }
+
+    private String buildReplayKey(long appId, String generationId) {
+        return REPLAY_KEY_PREFIX + appId + ":" + generationId;
+    }
+}
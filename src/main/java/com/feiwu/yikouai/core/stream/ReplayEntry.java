@@ -0,0 +1,23 @@
+package com.feiwu.yikouai.core.stream;
+
+/**
+ * 生成流回放日志中的一条记录
+ *
+ * @param generationId 生成任务 ID
+ * @param seq          序号（从 1 开始递增）
+ * @param data         推送给前端的内容
+ */
+public record ReplayEntry(String generationId, long seq, String data) {
+
+    /**
+     * 事件 ID 分隔符
+     */
+    public static final String EVENT_ID_SEPARATOR = ":";
+
+    /**
+     * 作为 SSE 的 id 字段，浏览器重连时会通过 Last-Event-ID 请求头带回
+     */
+    public String eventId() {
+        return generationId + EVENT_ID_SEPARATOR + seq;
+    }
+}
@@ -0,0 +1,236 @@
+package com.feiwu.yikouai.core.summary;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.ai.AiBaseGeneratorServiceFactory;
+import com.feiwu.yikouai.manager.ChatHistoryWriteBehindQueue;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
+import com.feiwu.yikouai.model.entity.ChatHistory;
+import com.feiwu.yikouai.model.enums.ChatHistoryMessageTypeEnum;
+import com.feiwu.yikouai.monitor.ChatSummaryMetricsCollector;
+import com.feiwu.yikouai.service.ChatHistoryService;
+import com.mybatisflex.core.query.QueryWrapper;
+import dev.langchain4j.service.Result;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话历史后台总结器
+ * 对话超过阈值轮数后，每条用户消息只登记一次总结请求，不阻塞代码生成：
+ * 1. 按应用去抖：去抖时间内的新请求会推迟执行，但距首次请求超过最长等待时间后不再推迟
+ * 2. 增量总结：以最新的总结为基础，只把总结之后已完成的对话（用户消息与 AI 回复都已保存的轮次）交给模型合并
+ * 3. 同一应用同一时间只有一个总结任务在执行，新总结的 turnNumber 为其覆盖到的最后一轮
+ */
+@Component
+@Slf4j
+public class ChatHistorySummarizer {
+
+    @Resource
+    @Lazy
+    private ChatHistoryService chatHistoryService;
+
+    @Resource
+    private AiBaseGeneratorServiceFactory aiBaseGeneratorServiceFactory;
+
+    @Resource
+    private ChatSummaryMetricsCollector chatSummaryMetricsCollector;
+
+    @Resource
+    private ToolContentBlobStore toolContentBlobStore;
+
+    @Resource
+    private ChatHistoryWriteBehindQueue chatHistoryWriteBehindQueue;
+
+    /**
+     * 超过该轮数后才开始总结
+     */
+    @Value("${chat.summary.turn-threshold:10}")
+    private long turnThreshold;
+
+    /**
+     * 已有总结之后至少新增多少轮已完成的对话才重新总结
+     */
+    @Value("${chat.summary.min-new-turns:3}")
+    private long minNewTurns;
+
+    @Value("${chat.summary.debounce-seconds:30}")
+    private long debounceSeconds;
+
+    @Value("${chat.summary.max-wait-seconds:300}")
+    private long maxWaitSeconds;
+
+    @Value("${chat.summary.worker-threads:2}")
+    private int workerThreads;
+
+    /**
+     * 单条消息交给模型的最大字符数，AI 回复中的完整代码不需要逐字进入总结
+     */
+    @Value("${chat.summary.max-message-chars:2000}")
+    private int maxMessageChars;
+
+    /**
+     * 去抖等待中的总结任务（应用 ID -> 任务）
+     */
+    private final Map<Long, PendingSummary> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 正在执行总结的应用 ID
+     */
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private static final class PendingSummary {
+
+        private final long firstRequestedNanos;
+
+        private final Long userId;
+
+        private volatile ScheduledFuture<?> future;
+
+        private PendingSummary(long firstRequestedNanos, Long userId) {
+            this.firstRequestedNanos = firstRequestedNanos;
+            this.userId = userId;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = new ScheduledThreadPoolExecutor(workerThreads,
+                Thread.ofPlatform().name("chat-summary-", 0).daemon().factory());
+        executor.setRemoveOnCancelPolicy(true);
+        chatSummaryMetricsCollector.bindPending(pending);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 未执行的总结直接丢弃，下次用户发消息时会重新登记
+        executor.shutdownNow();
+    }
+
+    /**
+     * 登记一次总结请求，立即返回
+     *
+     * @param appId      应用 ID
+     * @param userId     用户 ID
+     * @param turnNumber 刚保存的用户消息所在轮次
+     */
+    public void requestSummary(Long appId, Long userId, long turnNumber) {
+        if (turnNumber <= turnThreshold) {
+            return;
+        }
+        long now = System.nanoTime();
+        pending.compute(appId, (id, previous) -> {
+            if (previous != null && now - previous.firstRequestedNanos >= TimeUnit.SECONDS.toNanos(maxWaitSeconds)) {
+                // 已等待太久，不再推迟
+                return previous;
+            }
+            if (previous != null) {
+                previous.future.cancel(false);
+            }
+            PendingSummary summary = new PendingSummary(previous == null ? now : previous.firstRequestedNanos, userId);
+            summary.future = executor.schedule(() -> run(id, summary), debounceSeconds, TimeUnit.SECONDS);
+            return summary;
+        });
+    }
+
+    private void run(Long appId, PendingSummary summary) {
+        if (pending.get(appId) != summary) {
+            // 已被更新的请求取代
+            return;
+        }
+        if (!running.add(appId)) {
+            // 上一次总结还未结束，稍后再试
+            pending.computeIfPresent(appId, (id, current) -> {
+                if (current == summary) {
+                    summary.future = executor.schedule(() -> run(id, summary), debounceSeconds, TimeUnit.SECONDS);
+                }
+                return current;
+            });
+            return;
+        }
+        try {
+            if (!pending.remove(appId, summary)) {
+                return;
+            }
+            summarize(appId, summary);
+        } catch (Exception e) {
+            chatSummaryMetricsCollector.recordFailure();
+            log.error("生成对话总结失败，appId: {}, error: {}", appId, e.getMessage(), e);
+        } finally {
+            running.remove(appId);
+        }
+    }
+
+    private void summarize(Long appId, PendingSummary summary) {
+        // 先写入尚未落库的消息，刚完成的一轮也能纳入总结
+        chatHistoryWriteBehindQueue.flush(appId);
+        ChatHistory latestSummary = chatHistoryService.getOne(QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId)
+                .eq(ChatHistory::getMessageType, ChatHistoryMessageTypeEnum.SUMMARY.getValue())
+                .orderBy(ChatHistory::getCreateTime, false)
+                .limit(1));
+        long coveredTurn = latestSummary == null ? 0 : latestSummary.getTurnNumber();
+        List<ChatHistory> newMessages = chatHistoryService.list(QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId)
+                .in(ChatHistory::getMessageType,
+                        ChatHistoryMessageTypeEnum.USER.getValue(),
+                        ChatHistoryMessageTypeEnum.AI.getValue())
+                .gt(ChatHistory::getTurnNumber, coveredTurn)
+                .orderBy(ChatHistory::getCreateTime, true));
+        if (CollUtil.isEmpty(newMessages)) {
+            chatSummaryMetricsCollector.recordSkipped();
+            return;
+        }
+        // 最后一轮还在生成中（只有用户消息）时不纳入本次总结
+        ChatHistory last = newMessages.getLast();
+        long upToTurn = ChatHistoryMessageTypeEnum.USER.getValue().equals(last.getMessageType())
+                ? last.getTurnNumber() - 1 : last.getTurnNumber();
+        newMessages = newMessages.stream().filter(history -> history.getTurnNumber() <= upToTurn).toList();
+        if (upToTurn - coveredTurn < minNewTurns || newMessages.isEmpty()) {
+            chatSummaryMetricsCollector.recordSkipped();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Result<String> result = aiBaseGeneratorServiceFactory.createAiBaseGeneratorService()
+                .generateIncrementalChatHistorySummary(
+                        latestSummary == null ? "无" : latestSummary.getMessage(), format(newMessages));
+        long durationNanos = System.nanoTime() - start;
+
+        chatHistoryService.save(ChatHistory.builder()
+                .appId(appId)
+                .message(result.content())
+                .messageType(ChatHistoryMessageTypeEnum.SUMMARY.getValue())
+                .userId(summary.userId)
+                .turnNumber(upToTurn)
+                .build());
+        chatSummaryMetricsCollector.recordSuccess(System.nanoTime() - summary.firstRequestedNanos, durationNanos,
+                newMessages.size(), result.tokenUsage());
+        log.info("appId: {} 对话总结已更新至第 {} 轮，合并 {} 条新消息，耗时 {} ms", appId, upToTurn,
+                newMessages.size(), TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    private String format(List<ChatHistory> messages) {
+        StringBuilder builder = new StringBuilder();
+        for (ChatHistory history : messages) {
+            String role = ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType()) ? "用户" : "AI";
+            builder.append("第").append(history.getTurnNumber()).append("轮 ").append(role).append("：")
+                    .append(StrUtil.maxLength(toolContentBlobStore.summarize(history.getMessage()), maxMessageChars)).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -1,30 +1,53 @@
 package com.feiwu.yikouai.langgraph4j;
 
-import cn.hutool.core.thread.ExecutorBuilder;
-import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
 import com.feiwu.yikouai.exception.BusinessException;
 import com.feiwu.yikouai.exception.ErrorCode;
+import com.feiwu.yikouai.exception.ThrowUtils;
+import com.feiwu.yikouai.langgraph4j.checkpoint.RedisWorkflowCheckpointSaver;
 import com.feiwu.yikouai.langgraph4j.concurrent.*;
 import com.feiwu.yikouai.langgraph4j.model.QualityResult;
 import com.feiwu.yikouai.langgraph4j.node.*;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.*;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
 import org.bsc.langgraph4j.prebuilt.MessagesStateGraph;
+import org.springframework.stereotype.Component;
 
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import static org.bsc.langgraph4j.StateGraph.END;
 import static org.bsc.langgraph4j.StateGraph.START;
 import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
 
+/**
+ * 并发代码生成工作流
+ * 图在启动时编译一次，所有执行共享；并行分支使用共享的有界执行器（见 WorkflowExecutorConfig）
+ * 每个节点完成后保存检查点（见 RedisWorkflowCheckpointSaver），中断的执行可以按 workflowId 继续
+ */
 @Slf4j
+@Component
 public class CodeGenConcurrentWorkflow {
 
+    @Resource
+    private ExecutorService workflowParallelExecutor;
+
+    @Resource
+    private RedisWorkflowCheckpointSaver redisWorkflowCheckpointSaver;
+
+    private CompiledGraph<MessagesState<String>> workflow;
+
+    @PostConstruct
+    public void init() {
+        workflow = createWorkflow();
+        log.info("并发工作流图:\n{}", workflow.getGraph(GraphRepresentation.Type.MERMAID).content());
+    }
+
     /**
      * 创建并发工作流
      */
@@ -76,7 +99,10 @@ public class CodeGenConcurrentWorkflow {
                                     "fail", "code_generator"
                             ))
                     .addEdge("project_builder", END)
-                    .compile();
+                    .compile(CompileConfig.builder()
+                            .checkpointSaver(redisWorkflowCheckpointSaver)
+                            .releaseThread(true)
+                            .build());
         } catch (GraphStateException e) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "并发工作流创建失败");
         }
@@ -86,30 +112,35 @@ public class CodeGenConcurrentWorkflow {
      * 执行并发工作流
      */
     public WorkflowContext executeWorkflow(String originalPrompt) {
-        CompiledGraph<MessagesState<String>> workflow = createWorkflow();
         WorkflowContext initialContext = WorkflowContext.builder()
+                .workflowId(IdUtil.fastSimpleUUID())
                 .originalPrompt(originalPrompt)
                 .currentStep("初始化")
                 .build();
-        GraphRepresentation graph = workflow.getGraph(GraphRepresentation.Type.MERMAID);
-        log.info("并发工作流图:\n{}", graph.content());
-        log.info("开始执行并发代码生成工作流");
+        log.info("开始执行并发代码生成工作流, workflowId: {}", initialContext.getWorkflowId());
+        return runWorkflow(GraphInput.args(Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext)),
+                initialContext.getWorkflowId());
+    }
+
+    /**
+     * 从最后一个完成的节点继续执行中断的并发工作流（进程崩溃、重新部署等），已完成节点的结果直接复用
+     */
+    public WorkflowContext resumeWorkflow(String workflowId) {
+        ThrowUtils.throwIf(redisWorkflowCheckpointSaver.getLatestContext(workflowId).isEmpty(),
+                ErrorCode.NOT_FOUND_ERROR, "工作流检查点不存在或已过期");
+        log.info("继续执行并发代码生成工作流, workflowId: {}", workflowId);
+        return runWorkflow(GraphInput.resume(), workflowId);
+    }
+
+    private WorkflowContext runWorkflow(GraphInput input, String workflowId) {
         WorkflowContext finalContext = null;
         int stepCounter = 1;
-        // 配置并发执行
-        ExecutorService pool = ExecutorBuilder.create()
-                .setCorePoolSize(10)
-                .setMaxPoolSize(20)
-                .setWorkQueue(new LinkedBlockingQueue<>(100))
-                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("Parallel-Image-Collect").build())
-                .build();
+        // 配置并发执行，检查点按 workflowId 保存
         RunnableConfig runnableConfig = RunnableConfig.builder()
-                .addParallelNodeExecutor("image_plan", pool)
+                .threadId(workflowId)
+                .addParallelNodeExecutor("image_plan", workflowParallelExecutor)
                 .build();
-        for (NodeOutput<MessagesState<String>> step : workflow.stream(
-                Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext),
-                runnableConfig
-        )) {
+        for (NodeOutput<MessagesState<String>> step : workflow.stream(input, runnableConfig)) {
             log.info("--- 第 {} 步完成 ---", stepCounter);
             WorkflowContext currentContext = WorkflowContext.getContext(step.state());
             if (currentContext != null) {
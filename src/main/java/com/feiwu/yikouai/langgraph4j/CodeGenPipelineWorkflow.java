@@ -0,0 +1,169 @@
+package com.feiwu.yikouai.langgraph4j;
+
+import cn.hutool.core.util.IdUtil;
+import com.feiwu.yikouai.exception.BusinessException;
+import com.feiwu.yikouai.exception.ErrorCode;
+import com.feiwu.yikouai.exception.ThrowUtils;
+import com.feiwu.yikouai.langgraph4j.checkpoint.RedisWorkflowCheckpointSaver;
+import com.feiwu.yikouai.langgraph4j.model.QualityResult;
+import com.feiwu.yikouai.langgraph4j.node.*;
+import com.feiwu.yikouai.langgraph4j.pipeline.ImagePlaceholderResolverNode;
+import com.feiwu.yikouai.langgraph4j.pipeline.ImagePrefetchNode;
+import com.feiwu.yikouai.langgraph4j.pipeline.ImagePrefetchRegistry;
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.bsc.langgraph4j.*;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesStateGraph;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+
+/**
+ * 流水线代码生成工作流
+ * 图片收集不再阻塞代码生成：开始时图片计划与智能路由并行执行，图片任务放到后台后立即开始代码生成，
+ * 生成的代码中先写图片占位符，生成完成后再替换为已收集到的图片地址，截止时间前没有结果的图片丢弃。
+ * 端到端耗时约为 max(图片收集, 代码生成)，而不是两者之和；串行与并发工作流的图片阶段在这里都变成后台任务
+ * 每个节点完成后保存检查点（见 RedisWorkflowCheckpointSaver），中断的执行可以按 workflowId 继续
+ */
+@Slf4j
+@Component
+public class CodeGenPipelineWorkflow {
+
+    @Resource
+    private ExecutorService workflowParallelExecutor;
+
+    @Resource
+    private ImagePrefetchRegistry imagePrefetchRegistry;
+
+    @Resource
+    private RedisWorkflowCheckpointSaver redisWorkflowCheckpointSaver;
+
+    private CompiledGraph<MessagesState<String>> workflow;
+
+    @PostConstruct
+    public void init() {
+        workflow = createWorkflow();
+        log.info("流水线工作流图:\n{}", workflow.getGraph(GraphRepresentation.Type.MERMAID).content());
+    }
+
+    /**
+     * 创建流水线工作流
+     */
+    public CompiledGraph<MessagesState<String>> createWorkflow() {
+        try {
+            return new MessagesStateGraph<String>()
+                    .addNode("image_prefetch", ImagePrefetchNode.create())
+                    .addNode("router", RouterNode.create())
+                    .addNode("prompt_enhancer", PromptEnhancerNode.create())
+                    .addNode("code_generator", CodeGeneratorNode.create())
+                    .addNode("image_resolver", ImagePlaceholderResolverNode.create())
+                    .addNode("code_quality_check", CodeQualityCheckNode.create())
+                    .addNode("project_builder", ProjectBuilderNode.create())
+
+                    // 并发分支：图片计划（之后图片在后台收集）与智能路由同时开始
+                    .addEdge(START, "image_prefetch")
+                    .addEdge(START, "router")
+                    .addEdge("image_prefetch", "prompt_enhancer")
+                    .addEdge("router", "prompt_enhancer")
+
+                    // 代码生成完成后再填入图片
+                    .addEdge("prompt_enhancer", "code_generator")
+                    .addEdge("code_generator", "image_resolver")
+                    .addEdge("image_resolver", "code_quality_check")
+
+                    // 质检条件边
+                    .addConditionalEdges("code_quality_check",
+                            edge_async(this::routeAfterQualityCheck),
+                            Map.of(
+                                    "build", "project_builder",
+                                    "skip_build", END,
+                                    "fail", "code_generator"
+                            ))
+                    .addEdge("project_builder", END)
+                    .compile(CompileConfig.builder()
+                            .checkpointSaver(redisWorkflowCheckpointSaver)
+                            .releaseThread(true)
+                            .build());
+        } catch (GraphStateException e) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "流水线工作流创建失败");
+        }
+    }
+
+    /**
+     * 执行流水线工作流
+     */
+    public WorkflowContext executeWorkflow(String originalPrompt) {
+        WorkflowContext initialContext = WorkflowContext.builder()
+                .workflowId(IdUtil.fastSimpleUUID())
+                .originalPrompt(originalPrompt)
+                .currentStep("初始化")
+                .build();
+        log.info("开始执行流水线代码生成工作流, workflowId: {}", initialContext.getWorkflowId());
+        return runWorkflow(GraphInput.args(Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext)),
+                initialContext.getWorkflowId());
+    }
+
+    /**
+     * 从最后一个完成的节点继续执行中断的流水线工作流，已完成节点的结果直接复用；
+     * 中断前还在后台收集的图片随进程丢失，继续执行时对应的占位符按未收集到处理
+     */
+    public WorkflowContext resumeWorkflow(String workflowId) {
+        ThrowUtils.throwIf(redisWorkflowCheckpointSaver.getLatestContext(workflowId).isEmpty(),
+                ErrorCode.NOT_FOUND_ERROR, "工作流检查点不存在或已过期");
+        log.info("继续执行流水线代码生成工作流, workflowId: {}", workflowId);
+        return runWorkflow(GraphInput.resume(), workflowId);
+    }
+
+    private WorkflowContext runWorkflow(GraphInput input, String workflowId) {
+        WorkflowContext finalContext = null;
+        int stepCounter = 1;
+        RunnableConfig runnableConfig = RunnableConfig.builder()
+                .threadId(workflowId)
+                .addParallelNodeExecutor(START, workflowParallelExecutor)
+                .build();
+        try {
+            for (NodeOutput<MessagesState<String>> step : workflow.stream(input, runnableConfig)) {
+                log.info("--- 第 {} 步完成 ---", stepCounter);
+                WorkflowContext currentContext = WorkflowContext.getContext(step.state());
+                if (currentContext != null) {
+                    finalContext = currentContext;
+                    log.info("当前步骤上下文: {}", currentContext);
+                }
+                stepCounter++;
+            }
+        } finally {
+            // 工作流异常结束时取消仍在后台执行的图片任务
+            imagePrefetchRegistry.remove(workflowId);
+        }
+        log.info("流水线代码生成工作流执行完成！");
+        return finalContext;
+    }
+
+    /**
+     * 路由函数：根据质检结果决定下一步
+     */
+    private String routeAfterQualityCheck(MessagesState<String> state) {
+        WorkflowContext context = WorkflowContext.getContext(state);
+        QualityResult qualityResult = context.getQualityResult();
+        if (qualityResult == null || !qualityResult.getIsValid()) {
+            log.error("代码质检失败，需要重新生成代码");
+            return "fail";
+        }
+        log.info("代码质检通过，继续后续流程");
+        CodeGenTypeEnum generationType = context.getGenerationType();
+        if (generationType == CodeGenTypeEnum.VUE_PROJECT) {
+            return "build";
+        } else {
+            return "skip_build";
+        }
+    }
+}
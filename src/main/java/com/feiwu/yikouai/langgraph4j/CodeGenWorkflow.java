@@ -1,20 +1,29 @@
 package com.feiwu.yikouai.langgraph4j;
 
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.json.JSONUtil;
 import com.feiwu.yikouai.exception.BusinessException;
 import com.feiwu.yikouai.exception.ErrorCode;
+import com.feiwu.yikouai.exception.ThrowUtils;
+import com.feiwu.yikouai.langgraph4j.checkpoint.RedisWorkflowCheckpointSaver;
 import com.feiwu.yikouai.langgraph4j.node.ImageCollectorNode;
 import com.feiwu.yikouai.langgraph4j.model.QualityResult;
 import com.feiwu.yikouai.langgraph4j.node.*;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.bsc.langgraph4j.CompileConfig;
 import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphInput;
 import org.bsc.langgraph4j.GraphRepresentation;
 import org.bsc.langgraph4j.GraphStateException;
 import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
 import org.bsc.langgraph4j.prebuilt.MessagesStateGraph;
+import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.util.Map;
@@ -23,9 +32,26 @@ import static org.bsc.langgraph4j.StateGraph.END;
 import static org.bsc.langgraph4j.StateGraph.START;
 import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
 
+/**
+ * 代码生成工作流
+ * 图在启动时编译一次，所有执行共享
+ * 每个节点完成后保存检查点（见 RedisWorkflowCheckpointSaver），中断的执行可以按 workflowId 继续
+ */
 @Slf4j
+@Component
 public class CodeGenWorkflow {
 
+    @Resource
+    private RedisWorkflowCheckpointSaver redisWorkflowCheckpointSaver;
+
+    private CompiledGraph<MessagesState<String>> workflow;
+
+    @PostConstruct
+    public void init() {
+        workflow = createWorkflow();
+        log.info("工作流图:\n{}", workflow.getGraph(GraphRepresentation.Type.MERMAID).content());
+    }
+
     private String routeBuildOrSkip(MessagesState<String> state) {
         WorkflowContext context = WorkflowContext.getContext(state);
         CodeGenTypeEnum generationType = context.getGenerationType();
@@ -78,8 +104,11 @@ public class CodeGenWorkflow {
                                     "fail", "code_generator"    //质检失败，重新生成
                             ))
                     .addEdge("project_builder", END)
-                    // 编译工作流
-                    .compile();
+                    // 编译工作流，每个节点完成后保存检查点，正常结束后删除
+                    .compile(CompileConfig.builder()
+                            .checkpointSaver(redisWorkflowCheckpointSaver)
+                            .releaseThread(true)
+                            .build());
         } catch (GraphStateException e) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "工作流创建失败");
         }
@@ -89,22 +118,31 @@ public class CodeGenWorkflow {
      * 执行工作流
      */
     public WorkflowContext executeWorkflow(String originalPrompt) {
-        CompiledGraph<MessagesState<String>> workflow = createWorkflow();
-
         // 初始化 WorkflowContext
         WorkflowContext initialContext = WorkflowContext.builder()
+                .workflowId(IdUtil.fastSimpleUUID())
                 .originalPrompt(originalPrompt)
                 .currentStep("初始化")
                 .build();
+        log.info("开始执行代码生成工作流, workflowId: {}", initialContext.getWorkflowId());
+        return runWorkflow(GraphInput.args(Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext)),
+                initialContext.getWorkflowId());
+    }
 
-        GraphRepresentation graph = workflow.getGraph(GraphRepresentation.Type.MERMAID);
-        log.info("工作流图:\n{}", graph.content());
-        log.info("开始执行代码生成工作流");
+    /**
+     * 从最后一个完成的节点继续执行中断的工作流（进程崩溃、重新部署等），已完成节点的结果直接复用
+     */
+    public WorkflowContext resumeWorkflow(String workflowId) {
+        ThrowUtils.throwIf(redisWorkflowCheckpointSaver.getLatestContext(workflowId).isEmpty(),
+                ErrorCode.NOT_FOUND_ERROR, "工作流检查点不存在或已过期");
+        log.info("继续执行代码生成工作流, workflowId: {}", workflowId);
+        return runWorkflow(GraphInput.resume(), workflowId);
+    }
 
+    private WorkflowContext runWorkflow(GraphInput input, String workflowId) {
         WorkflowContext finalContext = null;
         int stepCounter = 1;
-        for (NodeOutput<MessagesState<String>> step : workflow.stream(
-                Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext))) {
+        for (NodeOutput<MessagesState<String>> step : workflow.stream(input, runnableConfig(workflowId))) {
             log.info("--- 第 {} 步完成 ---", stepCounter);
             // 显示当前状态
             WorkflowContext currentContext = WorkflowContext.getContext(step.state());
@@ -118,6 +156,15 @@ public class CodeGenWorkflow {
         return finalContext;
     }
 
+    /**
+     * 检查点按 workflowId 保存
+     */
+    private RunnableConfig runnableConfig(String workflowId) {
+        return RunnableConfig.builder()
+                .threadId(workflowId)
+                .build();
+    }
+
     /**
      * 执行工作流（Flux 流式输出版本）
      */
@@ -125,8 +172,8 @@ public class CodeGenWorkflow {
         return Flux.create(sink -> {
             Thread.startVirtualThread(() -> {
                 try {
-                    CompiledGraph<MessagesState<String>> workflow = createWorkflow();
                     WorkflowContext initialContext = WorkflowContext.builder()
+                            .workflowId(IdUtil.fastSimpleUUID())
                             .originalPrompt(originalPrompt)
                             .currentStep("初始化")
                             .build();
@@ -134,12 +181,11 @@ public class CodeGenWorkflow {
                             "message", "开始执行代码生成工作流",
                             "originalPrompt", originalPrompt
                     )));
-                    GraphRepresentation graph = workflow.getGraph(GraphRepresentation.Type.MERMAID);
-                    log.info("工作流图:\n{}", graph.content());
 
                     int stepCounter = 1;
                     for (NodeOutput<MessagesState<String>> step : workflow.stream(
-                            Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext))) {
+                            Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext),
+                            runnableConfig(initialContext.getWorkflowId()))) {
                         log.info("--- 第 {} 步完成 ---", stepCounter);
                         WorkflowContext currentContext = WorkflowContext.getContext(step.state());
                         if (currentContext != null) {
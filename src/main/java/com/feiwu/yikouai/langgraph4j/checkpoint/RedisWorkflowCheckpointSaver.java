@@ -0,0 +1,139 @@
+package com.feiwu.yikouai.langgraph4j.checkpoint;
+
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.redisson.api.RBatch;
+import org.redisson.api.RList;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 基于 Redis 的工作流检查点存储
+ * 每次工作流执行（threadId 即 WorkflowContext 的 workflowId）一个 List，最新的检查点在最前面，
+ * 每个节点完成后写入一个检查点，进程崩溃或重新部署后可以从最后一个完成的节点继续执行。
+ * 旧检查点的清理：
+ * 1. 每次执行只保留最近 max-per-thread 个检查点
+ * 2. 每次写入时续期，超过 ttl 没有写入（执行中断后没有继续）的整体过期
+ * 3. 工作流正常结束时整体删除（编译时 releaseThread）
+ */
+@Slf4j
+@Component
+public class RedisWorkflowCheckpointSaver implements BaseCheckpointSaver {
+
+    private static final String KEY_PREFIX = "workflow_checkpoint:";
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Value("${workflow.checkpoint.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${workflow.checkpoint.max-per-thread:20}")
+    private int maxPerThread;
+
+    @Value("${workflow.checkpoint.compress-threshold:512}")
+    private int compressThreshold;
+
+    private WorkflowCheckpointCodec codec;
+
+    @PostConstruct
+    public void init() {
+        codec = new WorkflowCheckpointCodec(compressThreshold);
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        return getList(threadId(config)).readAll().stream()
+                .map(codec::decode)
+                .toList();
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        if (config.checkPointId().isEmpty()) {
+            // 未指定检查点时取最新的
+            return getList(threadId(config)).range(0, 0).stream()
+                    .findFirst()
+                    .map(codec::decode);
+        }
+        String checkPointId = config.checkPointId().get();
+        return list(config).stream()
+                .filter(checkpoint -> checkPointId.equals(checkpoint.getId()))
+                .findFirst();
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) {
+        String key = KEY_PREFIX + threadId(config);
+        byte[] bytes = codec.encode(checkpoint);
+        if (config.checkPointId().isPresent()) {
+            // 更新指定的检查点（updateState）
+            replace(key, config.checkPointId().get(), bytes);
+        } else {
+            RBatch batch = redissonClient.createBatch();
+            batch.<byte[]>getDeque(key, ByteArrayCodec.INSTANCE).addFirstAsync(bytes);
+            batch.getList(key, ByteArrayCodec.INSTANCE).trimAsync(0, maxPerThread - 1);
+            batch.getList(key, ByteArrayCodec.INSTANCE).expireAsync(ttl);
+            batch.execute();
+        }
+        log.debug("写入工作流检查点, threadId: {}, 节点: {} -> {}, {} 字节", threadId(config),
+                checkpoint.getNodeId(), checkpoint.getNextNodeId(), bytes.length);
+        return RunnableConfig.builder(config)
+                .checkPointId(checkpoint.getId())
+                .build();
+    }
+
+    @Override
+    public Tag release(RunnableConfig config) {
+        String threadId = threadId(config);
+        RList<byte[]> list = getList(threadId);
+        List<Checkpoint> checkpoints = new ArrayList<>(list(config));
+        list.delete();
+        return new Tag(threadId, checkpoints);
+    }
+
+    /**
+     * 查看一次工作流执行最后保存的上下文
+     *
+     * @param workflowId 工作流执行标识
+     * @return 最新检查点中的上下文，检查点不存在（已完成或已过期）时为空
+     */
+    public Optional<WorkflowContext> getLatestContext(String workflowId) {
+        return get(RunnableConfig.builder().threadId(workflowId).build())
+                .map(checkpoint -> (WorkflowContext) checkpoint.getState().get(WorkflowContext.WORKFLOW_CONTEXT_KEY));
+    }
+
+    private void replace(String key, String checkPointId, byte[] bytes) {
+        RList<byte[]> list = redissonClient.getList(key, ByteArrayCodec.INSTANCE);
+        List<byte[]> entries = list.readAll();
+        for (int i = 0; i < entries.size(); i++) {
+            if (checkPointId.equals(codec.decode(entries.get(i)).getId())) {
+                list.fastSet(i, bytes);
+                list.expire(ttl);
+                return;
+            }
+        }
+        throw new IllegalStateException("工作流检查点不存在: " + checkPointId);
+    }
+
+    private RList<byte[]> getList(String threadId) {
+        return redissonClient.getList(KEY_PREFIX + threadId, ByteArrayCodec.INSTANCE);
+    }
+
+    private static String threadId(RunnableConfig config) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+}
@@ -0,0 +1,139 @@
+package com.feiwu.yikouai.langgraph4j.checkpoint;
+
+import cn.hutool.core.util.ZipUtil;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import lombok.Data;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 工作流检查点的紧凑编码
+ * 图状态中只有 WorkflowContext 和消息列表两个字段，按字段编码为 JSON（省略 null 字段），不使用 Java 序列化
+ * （Java 序列化会把每个类的描述信息一起写入，WorkflowContext 这类小对象的类描述比数据本身还大）；
+ * 第一个字节为格式标记：0 表示 UTF-8 JSON 原文，1 表示 zlib 压缩后的 JSON，只有达到压缩阈值且压缩后更小时才压缩
+ */
+public class WorkflowCheckpointCodec {
+
+    private static final byte RAW = 0;
+
+    private static final byte DEFLATE = 1;
+
+    /**
+     * MessagesState 中消息列表的 key
+     */
+    private static final String MESSAGES_KEY = "messages";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            // 派生的只读属性（如 ImagePlaceholder#getToken）会被写出，读取时忽略
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * 压缩阈值（字节），小于 0 表示不压缩
+     */
+    private final int compressThreshold;
+
+    public WorkflowCheckpointCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * 检查点的存储结构
+     */
+    @Data
+    public static class CheckpointData {
+
+        private String id;
+
+        private String nodeId;
+
+        private String nextNodeId;
+
+        private WorkflowContext workflowContext;
+
+        private List<String> messages;
+
+        /**
+         * 其他状态字段（按 JSON 原样保存）
+         */
+        private Map<String, Object> others;
+    }
+
+    public byte[] encode(Checkpoint checkpoint) {
+        CheckpointData data = new CheckpointData();
+        data.setId(checkpoint.getId());
+        data.setNodeId(checkpoint.getNodeId());
+        data.setNextNodeId(checkpoint.getNextNodeId());
+        Map<String, Object> others = new LinkedHashMap<>();
+        checkpoint.getState().forEach((key, value) -> {
+            if (WorkflowContext.WORKFLOW_CONTEXT_KEY.equals(key)) {
+                data.setWorkflowContext((WorkflowContext) value);
+            } else if (MESSAGES_KEY.equals(key)) {
+                @SuppressWarnings("unchecked")
+                List<String> messages = (List<String>) value;
+                data.setMessages(messages);
+            } else {
+                others.put(key, value);
+            }
+        });
+        if (!others.isEmpty()) {
+            data.setOthers(others);
+        }
+        byte[] json;
+        try {
+            json = OBJECT_MAPPER.writeValueAsBytes(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (compressThreshold >= 0 && json.length >= compressThreshold) {
+            byte[] compressed = ZipUtil.zlib(json, Deflater.BEST_SPEED);
+            if (compressed.length < json.length) {
+                return withFormat(DEFLATE, compressed);
+            }
+        }
+        return withFormat(RAW, json);
+    }
+
+    public Checkpoint decode(byte[] bytes) {
+        byte[] payload = Arrays.copyOfRange(bytes, 1, bytes.length);
+        byte[] json = bytes[0] == DEFLATE ? ZipUtil.unZlib(payload) : payload;
+        CheckpointData data;
+        try {
+            data = OBJECT_MAPPER.readValue(json, CheckpointData.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Object> state = new HashMap<>();
+        if (data.getOthers() != null) {
+            state.putAll(data.getOthers());
+        }
+        if (data.getWorkflowContext() != null) {
+            state.put(WorkflowContext.WORKFLOW_CONTEXT_KEY, data.getWorkflowContext());
+        }
+        state.put(MESSAGES_KEY, data.getMessages() != null ? data.getMessages() : List.of());
+        return Checkpoint.builder()
+                .id(data.getId())
+                .nodeId(data.getNodeId())
+                .nextNodeId(data.getNextNodeId())
+                .state(state)
+                .build();
+    }
+
+    private static byte[] withFormat(byte format, byte[] payload) {
+        byte[] bytes = new byte[payload.length + 1];
+        bytes[0] = format;
+        System.arraycopy(payload, 0, bytes, 1, payload.length);
+        return bytes;
+    }
+}
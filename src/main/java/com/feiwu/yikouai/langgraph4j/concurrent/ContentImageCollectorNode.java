@@ -2,6 +2,7 @@ package com.feiwu.yikouai.langgraph4j.concurrent;
 
 import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
 import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import com.feiwu.yikouai.langgraph4j.tools.ImageSearchTool;
 import com.feiwu.yikouai.utils.SpringContextUtil;
@@ -26,12 +27,8 @@ public class ContentImageCollectorNode {
                 if (plan != null && plan.getContentImageTasks() != null) {
                     ImageSearchTool imageSearchTool = SpringContextUtil.getBean(ImageSearchTool.class);
                     log.info("开始并发收集内容图片，任务数: {}", plan.getContentImageTasks().size());
-                    for (ImageCollectionPlan.ImageSearchTask task : plan.getContentImageTasks()) {
-                        List<ImageResource> images = imageSearchTool.searchContentImages(task.query());
-                        if (images != null) {
-                            contentImages.addAll(images);
-                        }
-                    }
+                    contentImages.addAll(SpringContextUtil.getBean(ImageTaskFanOut.class).collect(
+                            ImageProviderEnum.PEXELS, plan.getContentImageTasks(), task -> imageSearchTool.searchContentImages(task.query())));
                     log.info("内容图片收集完成，共收集到 {} 张图片", contentImages.size());
                 }
             } catch (Exception e) {
@@ -2,6 +2,7 @@ package com.feiwu.yikouai.langgraph4j.concurrent;
 
 import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
 import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import com.feiwu.yikouai.langgraph4j.tools.MermaidDiagramTool;
 import com.feiwu.yikouai.utils.SpringContextUtil;
@@ -26,13 +27,9 @@ public class DiagramCollectorNode {
                 if (plan != null && plan.getDiagramTasks() != null) {
                     MermaidDiagramTool diagramTool = SpringContextUtil.getBean(MermaidDiagramTool.class);
                     log.info("开始并发生成架构图，任务数: {}", plan.getDiagramTasks().size());
-                    for (ImageCollectionPlan.DiagramTask task : plan.getDiagramTasks()) {
-                        List<ImageResource> images = diagramTool.generateMermaidDiagram(
-                                task.mermaidCode(), task.description());
-                        if (images != null) {
-                            diagrams.addAll(images);
-                        }
-                    }
+                    diagrams.addAll(SpringContextUtil.getBean(ImageTaskFanOut.class).collect(
+                            ImageProviderEnum.MMDC, plan.getDiagramTasks(),
+                            task -> diagramTool.generateMermaidDiagram(task.mermaidCode(), task.description())));
                     log.info("架构图生成完成，共生成 {} 张图片", diagrams.size());
                 }
             } catch (Exception e) {
@@ -2,6 +2,7 @@ package com.feiwu.yikouai.langgraph4j.concurrent;
 
 import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
 import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import com.feiwu.yikouai.langgraph4j.tools.UndrawIllustrationTool;
 import com.feiwu.yikouai.utils.SpringContextUtil;
@@ -26,12 +27,8 @@ public class IllustrationCollectorNode {
                 if (plan != null && plan.getIllustrationTasks() != null) {
                     UndrawIllustrationTool illustrationTool = SpringContextUtil.getBean(UndrawIllustrationTool.class);
                     log.info("开始并发收集插画图片，任务数: {}", plan.getIllustrationTasks().size());
-                    for (ImageCollectionPlan.IllustrationTask task : plan.getIllustrationTasks()) {
-                        List<ImageResource> images = illustrationTool.searchIllustrations(task.query());
-                        if (images != null) {
-                            illustrations.addAll(images);
-                        }
-                    }
+                    illustrations.addAll(SpringContextUtil.getBean(ImageTaskFanOut.class).collect(
+                            ImageProviderEnum.UNDRAW, plan.getIllustrationTasks(), task -> illustrationTool.searchIllustrations(task.query())));
                     log.info("插画图片收集完成，共收集到 {} 张图片", illustrations.size());
                 }
             } catch (Exception e) {
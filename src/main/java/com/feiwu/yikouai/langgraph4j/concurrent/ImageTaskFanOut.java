@@ -0,0 +1,167 @@
+package com.feiwu.yikouai.langgraph4j.concurrent;
+
+import cn.hutool.core.exceptions.ExceptionUtil;
+import com.feiwu.yikouai.config.ImageCollectionConfig;
+import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
+import com.feiwu.yikouai.monitor.ImageCollectionMetricsCollector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 图片收集任务并发执行器
+ * 收集节点中的每个任务在单独的虚拟线程上执行，节点耗时取决于最慢的单个任务而不是所有任务之和；
+ * 每个外部服务一个公平信号量，限制所有工作流同时调用该服务的任务数；
+ * 到达该服务的任务超时时间后取消未完成的任务，只返回已完成任务的结果（按计划中的任务顺序）
+ */
+@Slf4j
+@Component
+public class ImageTaskFanOut {
+
+    @Resource
+    private ImageCollectionConfig imageCollectionConfig;
+
+    @Resource
+    private ImageCollectionMetricsCollector imageCollectionMetricsCollector;
+
+    private final Map<ImageProviderEnum, Semaphore> permits = new EnumMap<>(ImageProviderEnum.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    public void init() {
+        for (ImageProviderEnum provider : ImageProviderEnum.values()) {
+            permits.put(provider, new Semaphore(imageCollectionConfig.getLimit(provider).getPermits(), true));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 并发执行一组图片收集任务
+     *
+     * @param provider  任务调用的外部服务
+     * @param tasks     计划中的任务
+     * @param collector 执行单个任务
+     * @return 截止时间前完成的任务收集到的图片
+     */
+    public <T> List<ImageResource> collect(ImageProviderEnum provider, List<T> tasks,
+                                           Function<T, List<ImageResource>> collector) {
+        List<ImageResource> images = new ArrayList<>();
+        if (tasks == null || tasks.isEmpty()) {
+            return images;
+        }
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + imageCollectionConfig.getLimit(provider).getTaskTimeout().toNanos();
+        List<Future<List<ImageResource>>> futures = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            futures.add(submit(provider, deadlineNanos, task, collector));
+        }
+        int timedOut = 0;
+        for (Future<List<ImageResource>> future : futures) {
+            try {
+                List<ImageResource> result = future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (result != null) {
+                    images.addAll(result);
+                } else {
+                    timedOut++;
+                    imageCollectionMetricsCollector.recordTask(provider, "timeout", System.nanoTime() - startNanos);
+                }
+            } catch (TimeoutException e) {
+                // 中断虚拟线程，阻塞中的 Socket 读写会被关闭
+                future.cancel(true);
+                timedOut++;
+                imageCollectionMetricsCollector.recordTask(provider, "timeout", System.nanoTime() - startNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                log.error("{} 任务执行失败: {}", provider.getText(), e.getCause().getMessage(), e.getCause());
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        imageCollectionMetricsCollector.recordCollect(provider, elapsedNanos);
+        if (timedOut > 0) {
+            log.warn("{} 有 {}/{} 个任务超时，返回已完成任务的 {} 张图片", provider.getText(), timedOut, tasks.size(), images.size());
+        }
+        log.info("{} 任务完成，任务数: {}，图片数: {}，耗时: {} ms", provider.getText(), tasks.size(), images.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return images;
+    }
+
+    /**
+     * 在后台执行单个图片收集任务，由调用方决定等待多久（流水线工作流在代码生成完成后才取结果）
+     * 超过该服务的任务超时时间仍未拿到并发许可时，任务结果为 null
+     *
+     * @param provider  任务调用的外部服务
+     * @param task      计划中的任务
+     * @param collector 执行单个任务
+     * @return 任务结果，取消时中断执行中的任务
+     */
+    public <T> Future<List<ImageResource>> submit(ImageProviderEnum provider, T task,
+                                                  Function<T, List<ImageResource>> collector) {
+        long deadlineNanos = System.nanoTime() + imageCollectionConfig.getLimit(provider).getTaskTimeout().toNanos();
+        return submit(provider, deadlineNanos, task, collector);
+    }
+
+    private <T> Future<List<ImageResource>> submit(ImageProviderEnum provider, long deadlineNanos, T task,
+                                                   Function<T, List<ImageResource>> collector) {
+        Semaphore semaphore = permits.get(provider);
+        return executor.submit(() -> runTask(provider, semaphore, deadlineNanos, task, collector));
+    }
+
+    private <T> List<ImageResource> runTask(ImageProviderEnum provider, Semaphore semaphore, long deadlineNanos,
+                                            T task, Function<T, List<ImageResource>> collector) throws InterruptedException {
+        if (!semaphore.tryAcquire(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            // 截止时间前没有拿到许可，返回 null 由调用方按超时处理
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            List<ImageResource> result = collector.apply(task);
+            // 超时被取消的任务已由调用方记为 timeout，不再重复记录
+            if (!Thread.currentThread().isInterrupted()) {
+                imageCollectionMetricsCollector.recordTask(provider, "success", System.nanoTime() - startNanos);
+            }
+            return result != null ? result : List.of();
+        } catch (RuntimeException e) {
+            if (!isCancelled(e)) {
+                imageCollectionMetricsCollector.recordTask(provider, "error", System.nanoTime() - startNanos);
+            }
+            throw e;
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 任务是否因超时取消（线程被中断）而失败，收集器可能把中断包装为其他异常并清除中断标记
+     */
+    private static boolean isCancelled(RuntimeException e) {
+        return Thread.currentThread().isInterrupted()
+                || ExceptionUtil.isCausedBy(e, InterruptedException.class, InterruptedIOException.class,
+                ClosedByInterruptException.class);
+    }
+}
@@ -2,6 +2,7 @@ package com.feiwu.yikouai.langgraph4j.concurrent;
 
 import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
 import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import com.feiwu.yikouai.langgraph4j.tools.LogoGeneratorTool;
 import com.feiwu.yikouai.utils.SpringContextUtil;
@@ -26,12 +27,8 @@ public class LogoCollectorNode {
                 if (plan != null && plan.getLogoTasks() != null) {
                     LogoGeneratorTool logoTool = SpringContextUtil.getBean(LogoGeneratorTool.class);
                     log.info("开始并发生成Logo，任务数: {}", plan.getLogoTasks().size());
-                    for (ImageCollectionPlan.LogoTask task : plan.getLogoTasks()) {
-                        List<ImageResource> images = logoTool.generateLogos(task.description());
-                        if (images != null) {
-                            logos.addAll(images);
-                        }
-                    }
+                    logos.addAll(SpringContextUtil.getBean(ImageTaskFanOut.class).collect(
+                            ImageProviderEnum.DASHSCOPE, plan.getLogoTasks(), task -> logoTool.generateLogos(task.description())));
                     log.info("Logo生成完成，共生成 {} 张图片", logos.size());
                 }
             } catch (Exception e) {
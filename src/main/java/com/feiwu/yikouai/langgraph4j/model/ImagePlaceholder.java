@@ -0,0 +1,56 @@
+package com.feiwu.yikouai.langgraph4j.model;
+
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageCategoryEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 流水线工作流中的图片占位符
+ * 代码生成时图片还在后台收集，生成的代码中先写占位符，生成完成后再替换为图片地址
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImagePlaceholder implements Serializable {
+
+    /**
+     * 占位符标识，如 logo-0，对应代码中的 {{image:logo-0}}
+     */
+    private String key;
+
+    /**
+     * 图片类别
+     */
+    private ImageCategoryEnum category;
+
+    /**
+     * 图片描述（收集任务的关键词或描述）
+     */
+    private String description;
+
+    /**
+     * 图片地址，替换完成后填入，截止时间前没有结果时为 null
+     */
+    private String url;
+
+    /**
+     * 是否已经取过结果（质检失败重新生成时不再等待）
+     */
+    private boolean resolved;
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @return 代码中使用的占位符文本
+     */
+    public String getToken() {
+        return "{{image:" + key + "}}";
+    }
+}
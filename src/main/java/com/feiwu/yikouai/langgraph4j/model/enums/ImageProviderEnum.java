@@ -0,0 +1,25 @@
+package com.feiwu.yikouai.langgraph4j.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 图片收集任务调用的外部服务，每个服务单独限制并发
+ */
+@Getter
+public enum ImageProviderEnum {
+
+    PEXELS("Pexels 图片搜索", "pexels"),
+    UNDRAW("unDraw 插画搜索", "undraw"),
+    DASHSCOPE("DashScope 图片生成", "dashscope"),
+    MMDC("Mermaid CLI 渲染", "mmdc");
+
+
+    private final String text;
+
+    private final String value;
+
+    ImageProviderEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
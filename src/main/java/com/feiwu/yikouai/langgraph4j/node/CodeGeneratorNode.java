@@ -1,5 +1,6 @@
 package com.feiwu.yikouai.langgraph4j.node;
 
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
 import com.feiwu.yikouai.constant.AppConstant;
 import com.feiwu.yikouai.core.AiCodeGeneratorFacade;
 import com.feiwu.yikouai.langgraph4j.model.QualityResult;
@@ -76,7 +77,7 @@ public class CodeGeneratorNode {
             // 先使用固定的 appId (后续再整合到业务中)
             Long appId = 0L;
             // 调用流式代码生成
-            Flux<String> codeStream = codeGeneratorFacade.generateAndSaveCodeStream(userMessage, generationType, appId);
+            Flux<StreamMessage> codeStream = codeGeneratorFacade.generateAndSaveCodeStream(userMessage, generationType, appId);
             // 同步等待流式输出完成
             codeStream.blockLast(Duration.ofMinutes(10)); // 最多等待 10 分钟
             // 根据类型设置生成目录
@@ -2,6 +2,7 @@ package com.feiwu.yikouai.langgraph4j.node;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.langgraph4j.model.ImagePlaceholder;
 import com.feiwu.yikouai.langgraph4j.model.ImageResource;
 import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
 import lombok.extern.slf4j.Slf4j;
@@ -26,8 +27,24 @@ public class PromptEnhancerNode {
             // 构建增强后的提示词
             StringBuilder enhancedPromptBuilder = new StringBuilder();
             enhancedPromptBuilder.append(originalPrompt);
-            // 如果有图片资源，则添加图片信息
-            if (CollUtil.isNotEmpty(imageList) || StrUtil.isNotBlank(imageListStr)) {
+            List<ImagePlaceholder> imagePlaceholders = context.getImagePlaceholders();
+            // 流水线工作流：图片还在后台收集，使用占位符代替图片地址
+            if (CollUtil.isNotEmpty(imagePlaceholders)) {
+                enhancedPromptBuilder.append("\n\n## 可用素材资源\n");
+                enhancedPromptBuilder.append("以下图片正在准备中，请在生成网站时将这些图片合理地嵌入到网站的相应位置中，")
+                        .append("图片地址直接原样写占位符（例如 <img src=\"{{image:logo-0}}\">），生成后会自动替换为真实地址，")
+                        .append("不要修改占位符，也不要使用列表之外的占位符。\n");
+                for (ImagePlaceholder placeholder : imagePlaceholders) {
+                    enhancedPromptBuilder.append("- ")
+                            .append(placeholder.getCategory().getText())
+                            .append("：")
+                            .append(placeholder.getDescription())
+                            .append("（")
+                            .append(placeholder.getToken())
+                            .append("）\n");
+                }
+            } else if (CollUtil.isNotEmpty(imageList) || StrUtil.isNotBlank(imageListStr)) {
+                // 如果有图片资源，则添加图片信息
                 enhancedPromptBuilder.append("\n\n## 可用素材资源\n");
                 enhancedPromptBuilder.append("请在生成网站使用以下图片资源，将这些图片合理地嵌入到网站的相应位置中。\n");
                 if (CollUtil.isNotEmpty(imageList)) {
@@ -0,0 +1,219 @@
+package com.feiwu.yikouai.langgraph4j.pipeline;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.langgraph4j.model.ImagePlaceholder;
+import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import com.feiwu.yikouai.monitor.ImageCollectionMetricsCollector;
+import com.feiwu.yikouai.utils.SpringContextUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * 图片占位符替换节点（流水线工作流）
+ * 代码生成完成后取后台图片收集的结果，最多等到截止时间，超时的任务取消；
+ * 有结果的占位符替换为图片地址，没有结果的占位符连同所在的 img 标签、CSS 声明或标签属性一起去掉。
+ * 结果记录在上下文中，质检失败重新生成代码后直接使用，不再等待
+ */
+@Slf4j
+public class ImagePlaceholderResolverNode {
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{\\{image:([\\w-]+)}}");
+
+    /**
+     * src（包括 Vue 的 :src 绑定）引用图片的 img 标签，分组 2 为占位符标识
+     */
+    private static final Pattern IMG_TAG_PATTERN = Pattern.compile(
+            "<img\\b[^>]*?[\\s:]src\\s*=\\s*(\"[^\"]*?|'[^']*?)\\{\\{image:([\\w-]+)}}[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 引用图片的 CSS 声明，如 background-image: url('{{image:key}}');（也匹配 style 属性和 Vue 样式绑定中的写法）
+     * 值中不含冒号，逗号后面还有冒号时视为下一个声明（Vue 样式对象），避免一次匹配跨过多个声明；连同结尾的分号或逗号一起去掉
+     */
+    private static final Pattern CSS_DECLARATION_PATTERN = Pattern.compile(
+            "[\\w-]+\\s*:[^;:{}\"\\n]*url\\(\\s*['\"`]?\\{\\{image:[\\w-]+}}['\"`]?\\s*\\)"
+                    + "(?:[^;,:{}\"\\n]|,(?![^;{}\"\\n]*:))*[;,]?");
+
+    private static final Pattern TAG_PATTERN = Pattern.compile("<[a-zA-Z][\\w-]*\\s[^<>]*\\{\\{image:[\\w-]+}}[^<>]*>");
+
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile(
+            "\\s[\\w:@.-]+\\s*=\\s*(\"[^\"]*\\{\\{image:[\\w-]+}}[^\"]*\"|'[^']*\\{\\{image:[\\w-]+}}[^']*')");
+
+    /**
+     * 需要替换的文件扩展名
+     */
+    private static final List<String> CODE_EXTENSIONS = Arrays.asList(
+            ".html", ".htm", ".css", ".js", ".json", ".vue", ".ts", ".jsx", ".tsx"
+    );
+
+    public static AsyncNodeAction<MessagesState<String>> create() {
+        return node_async(state -> {
+            WorkflowContext context = WorkflowContext.getContext(state);
+            log.info("执行节点: 图片占位符替换");
+            List<ImagePlaceholder> placeholders = context.getImagePlaceholders();
+            Map<String, String> urls = new HashMap<>();
+            long waitNanos = awaitImages(context.getWorkflowId(), placeholders);
+            List<ImageResource> imageList = new ArrayList<>();
+            if (placeholders != null) {
+                for (ImagePlaceholder placeholder : placeholders) {
+                    if (placeholder.getUrl() != null) {
+                        urls.put(placeholder.getKey(), placeholder.getUrl());
+                        imageList.add(ImageResource.builder()
+                                .category(placeholder.getCategory())
+                                .description(placeholder.getDescription())
+                                .url(placeholder.getUrl())
+                                .build());
+                    }
+                }
+            }
+            int replacedFiles = replaceInCodeDir(context.getGeneratedCodeDir(), urls);
+            int total = placeholders == null ? 0 : placeholders.size();
+            SpringContextUtil.getBean(ImageCollectionMetricsCollector.class)
+                    .recordPlaceholders(urls.size(), total - urls.size(), waitNanos);
+            log.info("图片占位符替换完成，有图片: {}/{}，修改文件: {}，等待图片: {} ms", urls.size(), total, replacedFiles,
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            context.setImageList(imageList);
+            context.setCurrentStep("图片占位符替换");
+            return WorkflowContext.saveContext(context);
+        });
+    }
+
+    /**
+     * 取后台图片收集的结果（每个占位符只取一次），返回等待的时长
+     */
+    private static long awaitImages(String workflowId, List<ImagePlaceholder> placeholders) {
+        long startNanos = System.nanoTime();
+        if (CollUtil.isEmpty(placeholders) || placeholders.stream().allMatch(ImagePlaceholder::isResolved)) {
+            return 0;
+        }
+        ImagePrefetchRegistry registry = SpringContextUtil.getBean(ImagePrefetchRegistry.class);
+        ImagePrefetchRegistry.ImagePrefetch prefetch = registry.get(workflowId);
+        for (ImagePlaceholder placeholder : placeholders) {
+            if (placeholder.isResolved()) {
+                continue;
+            }
+            placeholder.setResolved(true);
+            Future<List<ImageResource>> future = prefetch == null ? null : prefetch.futures().get(placeholder.getKey());
+            if (future == null) {
+                continue;
+            }
+            try {
+                List<ImageResource> images = future.get(Math.max(0, prefetch.deadlineNanos() - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                if (CollUtil.isNotEmpty(images)) {
+                    placeholder.setUrl(images.get(0).getUrl());
+                }
+            } catch (TimeoutException e) {
+                log.warn("图片 {} 在截止时间前没有结果，已丢弃", placeholder.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("图片 {} 收集失败: {}", placeholder.getKey(), e.getCause().getMessage());
+            }
+        }
+        // 取消仍在执行的任务
+        registry.remove(workflowId);
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 替换代码目录下所有代码文件中的占位符
+     *
+     * @return 修改的文件数
+     */
+    private static int replaceInCodeDir(String codeDir, Map<String, String> urls) {
+        if (StrUtil.isBlank(codeDir) || !FileUtil.isDirectory(codeDir)) {
+            return 0;
+        }
+        File directory = new File(codeDir);
+        int[] replacedFiles = {0};
+        FileUtil.walkFiles(directory, file -> {
+            if (shouldSkipFile(file, directory) || !isCodeFile(file)) {
+                return;
+            }
+            String content = FileUtil.readUtf8String(file);
+            if (!content.contains("{{image:")) {
+                return;
+            }
+            FileUtil.writeUtf8String(resolvePlaceholders(content, urls), file);
+            replacedFiles[0]++;
+        });
+        return replacedFiles[0];
+    }
+
+    /**
+     * 替换文本中的占位符，没有图片地址的占位符按所在位置去掉：
+     * 在 img 的 src 中时整个 img 标签去掉，CSS 声明整条去掉，其他标签属性中去掉所在的属性，其余位置替换为空
+     *
+     * @param content 代码文本
+     * @param urls    占位符标识 -> 图片地址
+     * @return 替换后的文本
+     */
+    public static String resolvePlaceholders(String content, Map<String, String> urls) {
+        String resolved = IMG_TAG_PATTERN.matcher(content).replaceAll(match ->
+                urls.containsKey(match.group(2)) ? Matcher.quoteReplacement(match.group()) : "");
+        resolved = removeMissing(CSS_DECLARATION_PATTERN, resolved, urls);
+        resolved = TAG_PATTERN.matcher(resolved).replaceAll(tag ->
+                Matcher.quoteReplacement(removeMissing(ATTRIBUTE_PATTERN, tag.group(), urls)));
+        return PLACEHOLDER_PATTERN.matcher(resolved).replaceAll(match ->
+                Matcher.quoteReplacement(urls.getOrDefault(match.group(1), "")));
+    }
+
+    /**
+     * 去掉包含没有图片地址的占位符的匹配片段
+     */
+    private static String removeMissing(Pattern pattern, String content, Map<String, String> urls) {
+        return pattern.matcher(content).replaceAll(match -> {
+            Matcher placeholder = PLACEHOLDER_PATTERN.matcher(match.group());
+            while (placeholder.find()) {
+                if (!urls.containsKey(placeholder.group(1))) {
+                    return "";
+                }
+            }
+            return Matcher.quoteReplacement(match.group());
+        });
+    }
+
+    /**
+     * 判断是否应该跳过此文件
+     */
+    private static boolean shouldSkipFile(File file, File rootDir) {
+        String relativePath = FileUtil.subPath(rootDir.getAbsolutePath(), file.getAbsolutePath());
+        // 跳过隐藏文件
+        if (file.getName().startsWith(".")) {
+            return true;
+        }
+        // 跳过特定目录下的文件
+        return relativePath.contains("node_modules" + File.separator) ||
+                relativePath.contains("dist" + File.separator) ||
+                relativePath.contains("target" + File.separator) ||
+                relativePath.contains(".git" + File.separator);
+    }
+
+    /**
+     * 判断是否是需要替换的代码文件
+     */
+    private static boolean isCodeFile(File file) {
+        String fileName = file.getName().toLowerCase();
+        return CODE_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+}
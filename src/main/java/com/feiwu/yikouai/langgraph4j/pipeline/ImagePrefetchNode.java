@@ -0,0 +1,103 @@
+package com.feiwu.yikouai.langgraph4j.pipeline;
+
+import com.feiwu.yikouai.config.ImageCollectionConfig;
+import com.feiwu.yikouai.langgraph4j.ai.ImageCollectionPlanService;
+import com.feiwu.yikouai.langgraph4j.concurrent.ImageTaskFanOut;
+import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
+import com.feiwu.yikouai.langgraph4j.model.ImagePlaceholder;
+import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageCategoryEnum;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import com.feiwu.yikouai.langgraph4j.tools.ImageSearchTool;
+import com.feiwu.yikouai.langgraph4j.tools.LogoGeneratorTool;
+import com.feiwu.yikouai.langgraph4j.tools.MermaidDiagramTool;
+import com.feiwu.yikouai.langgraph4j.tools.UndrawIllustrationTool;
+import com.feiwu.yikouai.utils.SpringContextUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * 图片预取节点（流水线工作流）
+ * 生成图片收集计划后立即把所有任务放到后台执行，不等待结果；
+ * 每个任务对应一个占位符，代码生成时先写占位符，生成完成后由占位符替换节点填入图片地址
+ */
+@Slf4j
+public class ImagePrefetchNode {
+
+    public static AsyncNodeAction<MessagesState<String>> create() {
+        return node_async(state -> {
+            WorkflowContext context = WorkflowContext.getContext(state);
+            List<ImagePlaceholder> placeholders = new ArrayList<>();
+            try {
+                ImageCollectionPlanService planService = SpringContextUtil.getBean(ImageCollectionPlanService.class);
+                ImageCollectionPlan plan = planService.planImageCollection(context.getOriginalPrompt());
+                context.setImageCollectionPlan(plan);
+                long deadlineNanos = System.nanoTime()
+                        + SpringContextUtil.getBean(ImageCollectionConfig.class).getPipelineDeadline().toNanos();
+                Map<String, Future<List<ImageResource>>> futures = new HashMap<>();
+                ImageTaskFanOut fanOut = SpringContextUtil.getBean(ImageTaskFanOut.class);
+                if (plan.getContentImageTasks() != null) {
+                    ImageSearchTool imageSearchTool = SpringContextUtil.getBean(ImageSearchTool.class);
+                    prefetch("content", ImageCategoryEnum.CONTENT, ImageProviderEnum.PEXELS, plan.getContentImageTasks(),
+                            ImageCollectionPlan.ImageSearchTask::query,
+                            task -> imageSearchTool.searchContentImages(task.query()), fanOut, placeholders, futures);
+                }
+                if (plan.getIllustrationTasks() != null) {
+                    UndrawIllustrationTool illustrationTool = SpringContextUtil.getBean(UndrawIllustrationTool.class);
+                    prefetch("illustration", ImageCategoryEnum.ILLUSTRATION, ImageProviderEnum.UNDRAW, plan.getIllustrationTasks(),
+                            ImageCollectionPlan.IllustrationTask::query,
+                            task -> illustrationTool.searchIllustrations(task.query()), fanOut, placeholders, futures);
+                }
+                if (plan.getDiagramTasks() != null) {
+                    MermaidDiagramTool diagramTool = SpringContextUtil.getBean(MermaidDiagramTool.class);
+                    prefetch("diagram", ImageCategoryEnum.ARCHITECTURE, ImageProviderEnum.MMDC, plan.getDiagramTasks(),
+                            ImageCollectionPlan.DiagramTask::description,
+                            task -> diagramTool.generateMermaidDiagram(task.mermaidCode(), task.description()),
+                            fanOut, placeholders, futures);
+                }
+                if (plan.getLogoTasks() != null) {
+                    LogoGeneratorTool logoTool = SpringContextUtil.getBean(LogoGeneratorTool.class);
+                    prefetch("logo", ImageCategoryEnum.LOGO, ImageProviderEnum.DASHSCOPE, plan.getLogoTasks(),
+                            ImageCollectionPlan.LogoTask::description,
+                            task -> logoTool.generateLogos(task.description()), fanOut, placeholders, futures);
+                }
+                SpringContextUtil.getBean(ImagePrefetchRegistry.class)
+                        .register(context.getWorkflowId(), new ImagePrefetchRegistry.ImagePrefetch(deadlineNanos, futures));
+                log.info("图片收集任务已在后台启动，占位符数: {}", placeholders.size());
+            } catch (Exception e) {
+                log.error("图片预取失败，本次生成不使用图片: {}", e.getMessage(), e);
+            }
+            context.setImagePlaceholders(placeholders);
+            context.setCurrentStep("图片预取");
+            return WorkflowContext.saveContext(context);
+        });
+    }
+
+    private static <T> void prefetch(String keyPrefix, ImageCategoryEnum category, ImageProviderEnum provider,
+                                     List<T> tasks, Function<T, String> description,
+                                     Function<T, List<ImageResource>> collector, ImageTaskFanOut fanOut,
+                                     List<ImagePlaceholder> placeholders,
+                                     Map<String, Future<List<ImageResource>>> futures) {
+        for (int i = 0; i < tasks.size(); i++) {
+            T task = tasks.get(i);
+            String key = keyPrefix + "-" + i;
+            placeholders.add(ImagePlaceholder.builder()
+                    .key(key)
+                    .category(category)
+                    .description(description.apply(task))
+                    .build());
+            futures.put(key, fanOut.submit(provider, task, collector));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.feiwu.yikouai.langgraph4j.pipeline;
+
+import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * 流水线工作流后台图片收集登记表
+ * 未完成的任务不能放进可序列化的 WorkflowContext，按工作流执行标识保存在这里，
+ * 占位符替换完成或工作流结束后移除；异常退出的工作流由过期清理兜底，移除时取消仍在执行的任务
+ */
+@Slf4j
+@Component
+public class ImagePrefetchRegistry {
+
+    /**
+     * 一次工作流执行的后台图片收集
+     *
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @param futures       占位符标识 -> 收集任务
+     */
+    public record ImagePrefetch(long deadlineNanos, Map<String, Future<List<ImageResource>>> futures) {
+    }
+
+    private final Cache<String, ImagePrefetch> prefetches = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .removalListener((String workflowId, ImagePrefetch prefetch, RemovalCause cause) -> {
+                if (prefetch != null) {
+                    prefetch.futures().values().forEach(future -> future.cancel(true));
+                }
+                if (cause.wasEvicted()) {
+                    log.warn("工作流 {} 的后台图片收集未被取用，已过期清理", workflowId);
+                }
+            })
+            .build();
+
+    public void register(String workflowId, ImagePrefetch prefetch) {
+        prefetches.put(workflowId, prefetch);
+    }
+
+    /**
+     * @return 后台图片收集，不存在（未登记或已取用）时返回 null
+     */
+    public ImagePrefetch get(String workflowId) {
+        return prefetches.getIfPresent(workflowId);
+    }
+
+    /**
+     * 移除并取消仍在执行的任务
+     */
+    public void remove(String workflowId) {
+        prefetches.invalidate(workflowId);
+    }
+}
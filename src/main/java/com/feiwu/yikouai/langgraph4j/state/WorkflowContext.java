@@ -1,6 +1,7 @@
 package com.feiwu.yikouai.langgraph4j.state;
 
 import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
+import com.feiwu.yikouai.langgraph4j.model.ImagePlaceholder;
 import com.feiwu.yikouai.langgraph4j.model.ImageResource;
 import com.feiwu.yikouai.langgraph4j.model.QualityResult;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
@@ -29,6 +30,11 @@ public class WorkflowContext implements Serializable {
      */
     public static final String WORKFLOW_CONTEXT_KEY = "workflowContext";
 
+    /**
+     * 工作流执行标识
+     */
+    private String workflowId;
+
     /**
      * 当前执行步骤
      */
@@ -96,6 +102,11 @@ public class WorkflowContext implements Serializable {
     private List<ImageResource> diagrams;
     private List<ImageResource> logos;
 
+    /**
+     * 流水线工作流的图片占位符
+     */
+    private List<ImagePlaceholder> imagePlaceholders;
+
 
 
     // ========== 上下文操作方法 ==========
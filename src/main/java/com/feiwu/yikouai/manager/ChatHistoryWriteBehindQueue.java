@@ -0,0 +1,259 @@
+package com.feiwu.yikouai.manager;
+
+import com.feiwu.yikouai.mapper.ChatHistoryMapper;
+import com.feiwu.yikouai.model.entity.ChatHistory;
+import com.feiwu.yikouai.monitor.ChatHistoryWriteMetricsCollector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 对话历史异步批量写入队列
+ * 用户消息和 AI 回复入队后立即返回，由单独的写入线程攒批后通过一条多行 INSERT 落库：
+ * 攒满 batch-size 条立即写入，否则最早入队的消息最多等待 flush-interval-ms
+ * 1. 创建时间在入队时确定（秒级，与数据库 datetime 精度一致），批量写入不会改变消息顺序
+ * 2. 读取某个应用的对话历史前通过 {@link #flush(Long)} 立即写入该应用尚未落库的消息，保证写后立即可读
+ * 3. 应用关闭时先写完队列中的全部消息；队列已满或写入线程已停止时退回同步写入
+ * 4. 批量写入失败时逐条重试，仍失败的消息记录日志后丢弃
+ */
+@Component
+@Slf4j
+public class ChatHistoryWriteBehindQueue {
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private ChatHistoryWriteMetricsCollector chatHistoryWriteMetricsCollector;
+
+    @Value("${chat.history-write.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.history-write.batch-size:100}")
+    private int batchSize;
+
+    @Value("${chat.history-write.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${chat.history-write.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingChatHistory> queue;
+
+    /**
+     * 已入队但尚未落库的消息（包括写入线程正在写入的批次）
+     */
+    private final Set<PendingChatHistory> unflushed = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    /**
+     * 等待写入线程写完正在写入的批次的最长时间（秒）
+     */
+    private static final long IN_FLIGHT_WAIT_SECONDS = 5;
+
+    private static final class PendingChatHistory {
+
+        private final ChatHistory chatHistory;
+
+        private final long enqueuedNanos;
+
+        /**
+         * 落库（或写入失败被丢弃）后完成
+         */
+        private final CompletableFuture<Void> persisted = new CompletableFuture<>();
+
+        private PendingChatHistory(ChatHistory chatHistory) {
+            this.chatHistory = chatHistory;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        chatHistoryWriteMetricsCollector.bindQueue(queue);
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform().name("chat-history-writer").daemon().start(this::writeLoop);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        // 写入线程退出后仍在队列中的消息（退出前刚入队的）在当前线程写完
+        List<PendingChatHistory> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flush(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+        log.info("对话历史写入队列已关闭，关闭时写入 {} 条", remaining.size());
+    }
+
+    /**
+     * 提交一条对话历史
+     *
+     * @param chatHistory 对话历史，创建时间、更新时间、删除标记未设置时在此补齐
+     * @return 是否已入队或写入成功
+     */
+    public boolean submit(ChatHistory chatHistory) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        if (chatHistory.getCreateTime() == null) {
+            chatHistory.setCreateTime(now);
+        }
+        if (chatHistory.getUpdateTime() == null) {
+            chatHistory.setUpdateTime(now);
+        }
+        if (chatHistory.getIsDelete() == null) {
+            chatHistory.setIsDelete(0);
+        }
+        if (running) {
+            PendingChatHistory pending = new PendingChatHistory(chatHistory);
+            unflushed.add(pending);
+            if (queue.offer(pending)) {
+                return true;
+            }
+            unflushed.remove(pending);
+            log.warn("对话历史写入队列已满，同步写入, appId: {}", chatHistory.getAppId());
+        }
+        return chatHistoryMapper.insert(chatHistory) > 0;
+    }
+
+    /**
+     * 立即写入某个应用尚未落库的对话历史，读取该应用的对话历史前调用，之后从数据库即可读到全部已保存的消息
+     * 写入线程正在写入的批次先于队列中的消息入队，先等待其写完再在当前线程写入队列中的消息，保持写入顺序
+     *
+     * @param appId 应用 ID
+     */
+    public void flush(Long appId) {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        List<PendingChatHistory> appPending = unflushed.stream()
+                .filter(pending -> appId.equals(pending.chatHistory.getAppId()))
+                .sorted((a, b) -> Long.compare(a.enqueuedNanos, b.enqueuedNanos))
+                .toList();
+        if (appPending.isEmpty()) {
+            return;
+        }
+        List<PendingChatHistory> owned = new ArrayList<>();
+        for (PendingChatHistory pending : appPending) {
+            // 从队列中取走的由当前线程写入，取不到的已在写入线程的批次中
+            if (queue.remove(pending)) {
+                owned.add(pending);
+                continue;
+            }
+            try {
+                pending.persisted.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("等待对话历史写入超时, appId: {}", appId);
+            }
+        }
+        flush(owned);
+    }
+
+    /**
+     * 丢弃某个应用尚未落库的对话历史，删除应用的对话历史时调用，避免删除后又被写入
+     *
+     * @param appId 应用 ID
+     */
+    public void discard(Long appId) {
+        queue.removeIf(pending -> appId.equals(pending.chatHistory.getAppId()));
+        unflushed.removeIf(pending -> {
+            if (!appId.equals(pending.chatHistory.getAppId())) {
+                return false;
+            }
+            pending.persisted.complete(null);
+            return true;
+        });
+    }
+
+    private void writeLoop() {
+        List<PendingChatHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingChatHistory first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingChatHistory next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("对话历史批量写入异常: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingChatHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ChatHistory> rows = batch.stream().map(pending -> pending.chatHistory).toList();
+        long start = System.nanoTime();
+        try {
+            chatHistoryMapper.insertBatch(rows);
+            long end = System.nanoTime();
+            chatHistoryWriteMetricsCollector.recordFlush(rows.size(), end - batch.getFirst().enqueuedNanos, end - start);
+        } catch (Exception e) {
+            log.error("对话历史批量写入失败，逐条重试, 条数: {}, error: {}", rows.size(), e.getMessage());
+            int failed = 0;
+            for (ChatHistory row : rows) {
+                try {
+                    chatHistoryMapper.insert(row);
+                } catch (Exception ex) {
+                    failed++;
+                    log.error("对话历史写入失败已丢弃, appId: {}, turnNumber: {}, error: {}",
+                            row.getAppId(), row.getTurnNumber(), ex.getMessage());
+                }
+            }
+            if (failed > 0) {
+                chatHistoryWriteMetricsCollector.recordFailed(failed);
+            }
+        } finally {
+            batch.forEach(pending -> {
+                unflushed.remove(pending);
+                pending.persisted.complete(null);
+            });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.feiwu.yikouai.manager;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话记忆新鲜度水位
+ * 与 Redis 中的对话记忆放在一起，记录记忆已包含到第几轮对话（对话历史的 turnNumber）：
+ * 1. 从数据库重建记忆后，水位设为当前轮数
+ * 2. 每保存一条用户消息（新的一轮），水位正好落后一轮时前进一轮，这一轮的消息随后由 AI 服务写入记忆
+ * 3. 水位缺失（过期、记忆被清空）或落后时说明记忆不完整，需要从数据库重建
+ * 轮数来自 Redis 计数器而不是自增 id，因为对话历史异步批量落库，保存消息时还没有 id
+ */
+@Component
+@Slf4j
+public class ChatMemoryWatermarkManager {
+
+    private static final String WATERMARK_KEY_PREFIX = "chat_memory:";
+
+    private static final String WATERMARK_KEY_SUFFIX = ":watermark";
+
+    /**
+     * 水位正好是 ARGV[1] - 1 时前进到 ARGV[1] 并续期，否则不变
+     */
+    private static final String ADVANCE_SCRIPT =
+            "local watermark = redis.call('get', KEYS[1]) " +
+            "if watermark and tonumber(watermark) == tonumber(ARGV[1]) - 1 then " +
+            "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 " +
+            "end return 0";
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    /**
+     * 与对话记忆相同的过期时间（秒）
+     */
+    @Value("${spring.data.redis.ttl:3600}")
+    private long ttlSeconds;
+
+    /**
+     * 记忆是否已包含到指定轮数
+     *
+     * @param appId       应用 ID
+     * @param currentTurn 当前轮数
+     * @return 水位存在且不落后于当前轮数
+     */
+    public boolean isFresh(Long appId, long currentTurn) {
+        String watermark = getBucket(appId).get();
+        return watermark != null && Long.parseLong(watermark) >= currentTurn;
+    }
+
+    /**
+     * 从数据库重建记忆后设置水位
+     */
+    public void reset(Long appId, long currentTurn) {
+        getBucket(appId).set(String.valueOf(currentTurn), Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * 新的一轮对话开始时前进水位
+     */
+    public void advance(Long appId, long turnNumber) {
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, ADVANCE_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(WATERMARK_KEY_PREFIX + appId + WATERMARK_KEY_SUFFIX),
+                    String.valueOf(turnNumber), String.valueOf(TimeUnit.SECONDS.toMillis(ttlSeconds)));
+        } catch (Exception e) {
+            // 前进失败只会导致下次多重建一次
+            log.warn("对话记忆水位前进失败, appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除水位，下次使用记忆时从数据库重建
+     */
+    public void delete(Long appId) {
+        try {
+            getBucket(appId).delete();
+        } catch (Exception e) {
+            log.warn("删除对话记忆水位失败, appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    private RBucket<String> getBucket(Long appId) {
+        return redissonClient.getBucket(WATERMARK_KEY_PREFIX + appId + WATERMARK_KEY_SUFFIX, StringCodec.INSTANCE);
+    }
+}
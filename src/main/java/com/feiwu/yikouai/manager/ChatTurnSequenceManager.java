@@ -0,0 +1,118 @@
+package com.feiwu.yikouai.manager;
+
+import com.feiwu.yikouai.mapper.ChatHistoryMapper;
+import com.feiwu.yikouai.model.entity.ChatHistory;
+import com.feiwu.yikouai.model.enums.ChatHistoryMessageTypeEnum;
+import com.mybatisflex.core.query.QueryWrapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话轮数序列
+ * 每个应用一个 Redis 计数器，用户消息 INCR 取新轮数，AI 回复读取当前轮数，
+ * 并发的两条用户消息不会拿到相同轮数，也省去每条消息一次的 ORDER BY turnNumber 查询。
+ * 计数器不存在（首次使用或过期）时从 MySQL 中最大的用户消息轮数初始化，Redis 不可用时退回数据库查询
+ */
+@Component
+@Slf4j
+public class ChatTurnSequenceManager {
+
+    private static final String TURN_KEY_PREFIX = "chat:turn:";
+
+    /**
+     * ARGV[1] 过期毫秒数，ARGV[2] 增量（0 表示只读当前值），ARGV[3] 初始值（可选）
+     * 计数器不存在且未给初始值时返回 nil，由调用方从数据库查出初始值后重试；
+     * 初始化只在键不存在时进行，多个节点同时初始化也不会覆盖已经递增过的值
+     */
+    private static final String TURN_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "if not ARGV[3] then return false end " +
+            "redis.call('set', KEYS[1], ARGV[3]) " +
+            "end " +
+            "local turn = redis.call('incrby', KEYS[1], ARGV[2]) " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+            "return turn";
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    /**
+     * 计数器过期时间（小时），每次使用都会续期，过期后从数据库重新初始化
+     */
+    @Value("${chat.turn-sequence.ttl-hours:168}")
+    private long ttlHours;
+
+    /**
+     * 为新的用户消息分配轮数
+     *
+     * @param appId 应用 ID
+     * @return 新轮数（从 1 开始）
+     */
+    public long nextTurn(Long appId) {
+        return advance(appId, 1);
+    }
+
+    /**
+     * 当前轮数，用于 AI 回复（与其回复的用户消息同一轮）
+     *
+     * @param appId 应用 ID
+     * @return 当前轮数，还没有用户消息时为 0
+     */
+    public long currentTurn(Long appId) {
+        return advance(appId, 0);
+    }
+
+    /**
+     * 删除计数器，应用的对话历史被删除时调用
+     *
+     * @param appId 应用 ID
+     */
+    public void reset(Long appId) {
+        try {
+            redissonClient.getBucket(TURN_KEY_PREFIX + appId, StringCodec.INSTANCE).delete();
+        } catch (Exception e) {
+            log.error("删除对话轮数计数器失败, appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    private long advance(Long appId, long increment) {
+        try {
+            RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+            List<Object> keys = List.of(TURN_KEY_PREFIX + appId);
+            String ttlMillis = String.valueOf(TimeUnit.HOURS.toMillis(ttlHours));
+            Long turn = script.eval(RScript.Mode.READ_WRITE, TURN_SCRIPT, RScript.ReturnType.INTEGER,
+                    keys, ttlMillis, String.valueOf(increment));
+            if (turn == null) {
+                String seed = String.valueOf(queryMaxTurn(appId));
+                turn = script.eval(RScript.Mode.READ_WRITE, TURN_SCRIPT, RScript.ReturnType.INTEGER,
+                        keys, ttlMillis, String.valueOf(increment), seed);
+            }
+            return turn;
+        } catch (Exception e) {
+            log.warn("对话轮数计数器不可用，退回数据库查询, appId: {}, error: {}", appId, e.getMessage());
+            return queryMaxTurn(appId) + increment;
+        }
+    }
+
+    private long queryMaxTurn(Long appId) {
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .select(ChatHistory::getTurnNumber)
+                .eq(ChatHistory::getAppId, appId)
+                .eq(ChatHistory::getMessageType, ChatHistoryMessageTypeEnum.USER.getValue())
+                .orderBy(ChatHistory::getTurnNumber, false)
+                .limit(1);
+        ChatHistory chatHistory = chatHistoryMapper.selectOneByQuery(queryWrapper);
+        return chatHistory == null || chatHistory.getTurnNumber() == null ? 0 : chatHistory.getTurnNumber();
+    }
+}
@@ -0,0 +1,155 @@
+package com.feiwu.yikouai.manager;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.feiwu.yikouai.monitor.ToolExecutionMetricsCollector;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工具调用文件内容存储
+ * 写入文件、修改文件等工具调用中的大段文件内容按 SHA-256 存放在 Redis 中，每个应用一个哈希（同一应用中同样的内容只存一份），
+ * 对话历史中只保存引用 {{tool-blob:哈希:行数}}：
+ * 1. 查看对话历史时展开为原始内容，内容存放在共享的 Redis 中，任意节点都能展开
+ * 2. 加载到对话记忆时替换为简短说明，不再把整个文件重新发给模型
+ * 3. 与对话历史一样长期保存，删除应用的对话历史时一并删除
+ */
+@Component
+@Slf4j
+public class ToolContentBlobStore {
+
+    private static final String KEY_PREFIX = "tool_blob:";
+
+    private static final String REFERENCE_PREFIX = "{{tool-blob:";
+
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("\\{\\{tool-blob:([0-9a-f]{64}):(\\d+)}}");
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private ToolExecutionMetricsCollector toolExecutionMetricsCollector;
+
+    /**
+     * 是否启用，关闭后对话历史中保存完整内容
+     */
+    @Value("${chat.tool-blob.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 内容达到该字符数才存为引用，短内容直接保存
+     */
+    @Value("${chat.tool-blob.min-chars:512}")
+    private int minChars;
+
+    /**
+     * 最近读取的内容（哈希 -> 内容），翻看对话历史时同一文件的多个版本经常被连续展开
+     */
+    private final Cache<String, String> contentCache = Caffeine.newBuilder()
+            .maximumWeight(32L * 1024 * 1024)
+            .<String, String>weigher((hash, content) -> content.length() * 2)
+            .build();
+
+    /**
+     * 保存内容并返回引用
+     *
+     * @param appId   应用 ID
+     * @param content 文件内容
+     * @return 引用，未启用、内容较短或保存失败时返回原内容
+     */
+    public String reference(long appId, String content) {
+        if (!enabled || content == null || content.length() < minChars) {
+            return content;
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String hash = DigestUtil.sha256Hex(bytes);
+        try {
+            boolean stored = getBlobMap(appId).fastPutIfAbsent(hash, content);
+            toolExecutionMetricsCollector.recordBlob(stored, bytes.length);
+            contentCache.put(hash, content);
+            return REFERENCE_PREFIX + hash + ":" + lineCount(content) + "}}";
+        } catch (Exception e) {
+            log.warn("保存工具调用内容失败，对话历史中保存完整内容, appId: {}, hash: {}, error: {}", appId, hash, e.getMessage());
+            return content;
+        }
+    }
+
+    /**
+     * 将消息中的引用展开为原始内容（展示给用户），本地缓存中没有的内容一次批量读取
+     *
+     * @param appId   应用 ID
+     * @param message 对话历史消息
+     * @return 展开后的消息，内容丢失的引用保持原样
+     */
+    public String expand(long appId, String message) {
+        if (message == null || !message.contains(REFERENCE_PREFIX)) {
+            return message;
+        }
+        Set<String> missing = new HashSet<>();
+        Matcher matcher = REFERENCE_PATTERN.matcher(message);
+        while (matcher.find()) {
+            if (contentCache.getIfPresent(matcher.group(1)) == null) {
+                missing.add(matcher.group(1));
+            }
+        }
+        if (!missing.isEmpty()) {
+            try {
+                contentCache.putAll(getBlobMap(appId).getAll(missing));
+            } catch (Exception e) {
+                log.warn("读取工具调用内容失败, appId: {}, error: {}", appId, e.getMessage());
+            }
+        }
+        return REFERENCE_PATTERN.matcher(message).replaceAll(matchResult -> {
+            String content = contentCache.getIfPresent(matchResult.group(1));
+            return Matcher.quoteReplacement(content == null ? matchResult.group() : content);
+        });
+    }
+
+    /**
+     * 将消息中的引用替换为简短说明（加载到对话记忆），模型需要时可以通过读取文件工具查看当前内容
+     *
+     * @param message 对话历史消息
+     * @return 替换后的消息
+     */
+    public String summarize(String message) {
+        if (message == null || !message.contains(REFERENCE_PREFIX)) {
+            return message;
+        }
+        return REFERENCE_PATTERN.matcher(message).replaceAll(matchResult ->
+                Matcher.quoteReplacement("（内容已省略，共 " + matchResult.group(2) + " 行）"));
+    }
+
+    /**
+     * 删除应用的全部工具调用内容，删除应用的对话历史时调用
+     *
+     * @param appId 应用 ID
+     */
+    public void delete(long appId) {
+        try {
+            getBlobMap(appId).delete();
+        } catch (Exception e) {
+            log.error("删除工具调用内容失败, appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    private RMap<String, String> getBlobMap(long appId) {
+        return redissonClient.getMap(KEY_PREFIX + appId, StringCodec.INSTANCE);
+    }
+
+    private static int lineCount(String content) {
+        return StrUtil.count(content, '\n') + 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.feiwu.yikouai.model.vo.chatHistory;
+
+import com.feiwu.yikouai.model.entity.ChatHistory;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 对话历史游标分页结果（按创建时间、id 倒序），不返回总数
+ */
+@Data
+public class ChatHistoryCursorPageVO implements Serializable {
+
+    /**
+     * 本页记录
+     */
+    private List<ChatHistory> records;
+
+    /**
+     * 是否还有更早的记录
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标 - 本页最后一条记录的创建时间
+     */
+    private LocalDateTime nextCreateTime;
+
+    /**
+     * 下一页游标 - 本页最后一条记录的 id
+     */
+    private Long nextId;
+
+    private static final long serialVersionUID = 1L;
+}
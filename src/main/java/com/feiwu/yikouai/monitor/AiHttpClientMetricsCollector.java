@@ -0,0 +1,112 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 模型共享 HTTP 连接池指标收集器
+ * 连接数（活跃 / 空闲）、调度器中执行中和排队等待的请求数、新建连接的 TCP 连接耗时与 TLS 握手耗时
+ */
+@Component
+@Slf4j
+public class AiHttpClientMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Timer connectTimer;
+
+    private Timer handshakeTimer;
+
+    @PostConstruct
+    public void init() {
+        connectTimer = Timer.builder("ai_http_connect_duration")
+                .description("AI 模型 HTTP 新建 TCP 连接耗时")
+                .register(meterRegistry);
+        handshakeTimer = Timer.builder("ai_http_tls_handshake_duration")
+                .description("AI 模型 HTTP TLS 握手耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册连接池与调度器指标
+     *
+     * @param connectionPool 连接池
+     * @param dispatcher     调度器
+     */
+    public void bindPool(ConnectionPool connectionPool, Dispatcher dispatcher) {
+        Gauge.builder("ai_http_pool_connections", connectionPool,
+                        pool -> pool.connectionCount() - pool.idleConnectionCount())
+                .description("AI 模型 HTTP 连接池中正在使用的连接数")
+                .tag("state", "active")
+                .register(meterRegistry);
+        Gauge.builder("ai_http_pool_connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .description("AI 模型 HTTP 连接池中的空闲连接数")
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("ai_http_requests", dispatcher, Dispatcher::runningCallsCount)
+                .description("AI 模型 HTTP 正在执行的异步请求数")
+                .tag("state", "running")
+                .register(meterRegistry);
+        Gauge.builder("ai_http_requests", dispatcher, Dispatcher::queuedCallsCount)
+                .description("AI 模型 HTTP 因达到并发上限而排队的请求数")
+                .tag("state", "pending")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录连接耗时的事件监听器工厂，每个请求一个监听器实例
+     */
+    public EventListener.Factory eventListenerFactory() {
+        return call -> new ConnectionTimingListener();
+    }
+
+    private final class ConnectionTimingListener extends EventListener {
+
+        private long connectStartNanos;
+
+        private long secureConnectStartNanos;
+
+        @Override
+        public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+            connectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(@NotNull Call call) {
+            secureConnectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(@NotNull Call call, Handshake handshake) {
+            if (secureConnectStartNanos != 0) {
+                handshakeTimer.record(System.nanoTime() - secureConnectStartNanos, TimeUnit.NANOSECONDS);
+                secureConnectStartNanos = 0;
+            }
+        }
+
+        @Override
+        public void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy, Protocol protocol) {
+            if (connectStartNanos != 0) {
+                connectTimer.record(System.nanoTime() - connectStartNanos, TimeUnit.NANOSECONDS);
+                connectStartNanos = 0;
+            }
+        }
+    }
+}
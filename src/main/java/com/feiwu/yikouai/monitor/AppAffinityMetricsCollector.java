@@ -0,0 +1,69 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 应用亲和路由指标收集器
+ * 按处理方式（local 本节点处理 / forwarded 转发 / redirected 重定向 / fallback 所属节点不可达时本节点处理）统计请求数，
+ * 哈希环中的节点数，以及成员变化时改变归属节点的应用比例
+ */
+@Component
+@Slf4j
+public class AppAffinityMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Counter> requestCountersCache = new ConcurrentHashMap<>();
+
+    private DistributionSummary rebalanceSummary;
+
+    @PostConstruct
+    public void init() {
+        rebalanceSummary = DistributionSummary.builder("app_affinity_rebalance_moved_ratio")
+                .description("成员变化时改变归属节点的应用比例")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册哈希环中的节点数
+     */
+    public void bindRingSize(Supplier<Number> ringSize) {
+        Gauge.builder("app_affinity_ring_nodes", ringSize)
+                .description("应用亲和路由哈希环中的节点数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次请求的处理方式
+     *
+     * @param result local / forwarded / redirected / fallback
+     */
+    public void recordRequest(String result) {
+        requestCountersCache.computeIfAbsent(result, key -> Counter.builder("app_affinity_requests_total")
+                        .description("应用亲和路由处理的请求数")
+                        .tag("result", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 记录一次成员变化
+     *
+     * @param movedRatio 改变归属节点的应用比例（0 ~ 1）
+     */
+    public void recordRebalance(double movedRatio) {
+        rebalanceSummary.record(movedRatio);
+    }
+}
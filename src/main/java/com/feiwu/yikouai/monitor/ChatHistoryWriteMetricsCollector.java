@@ -0,0 +1,78 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话历史异步批量写入指标收集器
+ * 队列深度、每批条数、写入延迟（入队到落库）、批量 INSERT 耗时以及写入失败条数
+ */
+@Component
+@Slf4j
+public class ChatHistoryWriteMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private DistributionSummary batchSizeSummary;
+
+    private Timer flushLatencyTimer;
+
+    private Timer insertTimer;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        batchSizeSummary = DistributionSummary.builder("chat_history_write_batch_size")
+                .description("对话历史每次批量 INSERT 的条数")
+                .register(meterRegistry);
+        flushLatencyTimer = Timer.builder("chat_history_write_flush_latency")
+                .description("对话历史写入延迟：批次中最早入队的消息到整批落库的时长")
+                .register(meterRegistry);
+        insertTimer = Timer.builder("chat_history_write_insert_duration")
+                .description("对话历史一次批量 INSERT 的耗时")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("chat_history_write_failed_total")
+                .description("对话历史逐条重试后仍写入失败而丢弃的条数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册队列深度
+     *
+     * @param queue 等待写入的队列
+     */
+    public void bindQueue(Collection<?> queue) {
+        Gauge.builder("chat_history_write_queue_depth", queue, Collection::size)
+                .description("对话历史等待批量写入的条数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次批量写入
+     *
+     * @param batchSize     本批条数
+     * @param latencyNanos  最早入队的消息到落库的纳秒数
+     * @param insertNanos   批量 INSERT 纳秒数
+     */
+    public void recordFlush(int batchSize, long latencyNanos, long insertNanos) {
+        batchSizeSummary.record(batchSize);
+        flushLatencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        insertTimer.record(insertNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailed(int count) {
+        failedCounter.increment(count);
+    }
+}
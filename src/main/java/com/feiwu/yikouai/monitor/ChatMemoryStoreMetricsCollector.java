@@ -0,0 +1,129 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话记忆存储指标收集器
+ * 按操作类型（append 追加 / rewrite 整体重写 / read 读取）统计次数与传输的消息字节数，
+ * 以及本地缓存（L1）命中情况和未命中时从 Redis 读取后的反序列化耗时；
+ * 创建 AI 服务时直接复用 Redis 中的记忆或从数据库重建的次数（按原因）与重建耗时
+ */
+@Component
+@Slf4j
+public class ChatMemoryStoreMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Counter localCacheHitCounter;
+
+    private Counter localCacheMissCounter;
+
+    private Timer deserializeTimer;
+
+    private Timer rebuildTimer;
+
+    private Counter reuseCounter;
+
+    private final ConcurrentMap<String, Counter> rebuildCountersCache = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter> operationCountersCache = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter> bytesCountersCache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        localCacheHitCounter = Counter.builder("ai_chat_memory_local_cache_requests_total")
+                .description("对话记忆本地缓存请求次数（命中时 Redis 只返回版本号）")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        localCacheMissCounter = Counter.builder("ai_chat_memory_local_cache_requests_total")
+                .description("对话记忆本地缓存请求次数（命中时 Redis 只返回版本号）")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        deserializeTimer = Timer.builder("ai_chat_memory_deserialize_duration")
+                .description("本地缓存未命中时反序列化整个对话记忆窗口的耗时")
+                .register(meterRegistry);
+        rebuildTimer = Timer.builder("ai_chat_memory_rebuild_duration")
+                .description("从数据库重建对话记忆的耗时")
+                .register(meterRegistry);
+        reuseCounter = Counter.builder("ai_chat_memory_warmup_total")
+                .description("创建 AI 服务时准备对话记忆的次数")
+                .tag("result", "reuse")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次写入
+     *
+     * @param operation append / rewrite
+     * @param bytes     写入 Redis 的消息字节数
+     */
+    public void recordWrite(String operation, long bytes) {
+        record(operation, bytes);
+    }
+
+    /**
+     * 记录一次本地缓存未命中时的读取
+     *
+     * @param bytes             从 Redis 读取的消息字节数
+     * @param deserializeNanos  反序列化耗时
+     */
+    public void recordRead(long bytes, long deserializeNanos) {
+        record("read", bytes);
+        deserializeTimer.record(deserializeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLocalCacheHit() {
+        localCacheHitCounter.increment();
+    }
+
+    public void recordLocalCacheMiss() {
+        localCacheMissCounter.increment();
+    }
+
+    /**
+     * 记录一次直接复用 Redis 中的记忆
+     */
+    public void recordReuse() {
+        reuseCounter.increment();
+    }
+
+    /**
+     * 记录一次从数据库重建记忆
+     *
+     * @param reason        stale 水位缺失或落后 / empty 记忆为空 / error 读取水位失败
+     * @param durationNanos 重建耗时
+     */
+    public void recordRebuild(String reason, long durationNanos) {
+        rebuildCountersCache.computeIfAbsent(reason, key -> Counter.builder("ai_chat_memory_warmup_total")
+                        .description("创建 AI 服务时准备对话记忆的次数")
+                        .tag("result", "rebuild_" + key)
+                        .register(meterRegistry))
+                .increment();
+        rebuildTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void record(String operation, long bytes) {
+        operationCountersCache.computeIfAbsent(operation, key -> Counter.builder("ai_chat_memory_store_operations_total")
+                        .description("对话记忆存储操作次数")
+                        .tag("operation", key)
+                        .register(meterRegistry))
+                .increment();
+        bytesCountersCache.computeIfAbsent(operation, key -> Counter.builder("ai_chat_memory_store_bytes_total")
+                        .description("对话记忆存储与 Redis 之间传输的消息字节数")
+                        .tag("operation", key)
+                        .register(meterRegistry))
+                .increment(bytes);
+    }
+}
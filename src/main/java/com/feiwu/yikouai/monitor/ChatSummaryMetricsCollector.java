@@ -0,0 +1,113 @@
+package com.feiwu.yikouai.monitor;
+
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话总结后台任务指标收集器
+ * 总结滞后（首次请求总结到总结落库）、模型调用耗时、每次合并的消息数、token 消耗，以及成功 / 跳过 / 失败次数
+ */
+@Component
+@Slf4j
+public class ChatSummaryMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Timer lagTimer;
+
+    private Timer durationTimer;
+
+    private DistributionSummary messagesSummary;
+
+    private Counter inputTokenCounter;
+
+    private Counter outputTokenCounter;
+
+    @PostConstruct
+    public void init() {
+        lagTimer = Timer.builder("ai_chat_summary_lag")
+                .description("对话总结滞后：应用首次请求总结到新总结落库的时长")
+                .register(meterRegistry);
+        durationTimer = Timer.builder("ai_chat_summary_duration")
+                .description("生成一次对话总结的模型调用耗时")
+                .register(meterRegistry);
+        messagesSummary = DistributionSummary.builder("ai_chat_summary_messages")
+                .description("每次增量总结合并的新消息条数")
+                .register(meterRegistry);
+        inputTokenCounter = Counter.builder("ai_chat_summary_tokens_total")
+                .description("对话总结消耗的 token 数")
+                .tag("token_type", "input")
+                .register(meterRegistry);
+        outputTokenCounter = Counter.builder("ai_chat_summary_tokens_total")
+                .description("对话总结消耗的 token 数")
+                .tag("token_type", "output")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册等待中的总结任务数
+     *
+     * @param pending 按应用 ID 去抖后等待执行的总结任务
+     */
+    public void bindPending(Map<Long, ?> pending) {
+        Gauge.builder("ai_chat_summary_pending", pending, Map::size)
+                .description("去抖等待中的对话总结任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次成功的总结
+     *
+     * @param lagNanos      首次请求总结到落库的纳秒数
+     * @param durationNanos 模型调用纳秒数
+     * @param messageCount  本次合并的消息条数
+     * @param tokenUsage    模型返回的 token 用量，可能为 null
+     */
+    public void recordSuccess(long lagNanos, long durationNanos, int messageCount, TokenUsage tokenUsage) {
+        result("success").increment();
+        lagTimer.record(lagNanos, TimeUnit.NANOSECONDS);
+        durationTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        messagesSummary.record(messageCount);
+        if (tokenUsage != null) {
+            if (tokenUsage.inputTokenCount() != null) {
+                inputTokenCounter.increment(tokenUsage.inputTokenCount());
+            }
+            if (tokenUsage.outputTokenCount() != null) {
+                outputTokenCounter.increment(tokenUsage.outputTokenCount());
+            }
+        }
+    }
+
+    /**
+     * 记录一次因新增轮数不足而跳过的总结
+     */
+    public void recordSkipped() {
+        result("skipped").increment();
+    }
+
+    /**
+     * 记录一次失败的总结
+     */
+    public void recordFailure() {
+        result("failure").increment();
+    }
+
+    private Counter result(String result) {
+        return Counter.builder("ai_chat_summary_total")
+                .description("对话总结任务执行次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,70 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 代码生成任务指标收集器
+ */
+@Component
+@Slf4j
+public class GenerationMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Counter> stopCountersCache = new ConcurrentHashMap<>();
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        rejectedCounter = Counter.builder("ai_generation_rejected_total")
+                .description("因同一应用已有生成任务而被拒绝的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册本节点正在执行的生成任务数
+     *
+     * @param nodeId      节点 ID
+     * @param activeCount 正在执行的任务数
+     */
+    public void bindActiveGenerations(String nodeId, Supplier<Number> activeCount) {
+        Gauge.builder("ai_generation_active", activeCount)
+                .description("本节点正在执行的代码生成任务数")
+                .tag("node", nodeId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录被拒绝的并发生成请求
+     */
+    public void recordRejected() {
+        rejectedCounter.increment();
+    }
+
+    /**
+     * 记录中断请求
+     *
+     * @param route local（本机执行）、remote（转发到其他节点）、none（没有正在执行的任务）
+     */
+    public void recordStop(String route) {
+        Counter counter = stopCountersCache.computeIfAbsent(route, k ->
+                Counter.builder("ai_generation_stop_total")
+                        .description("代码生成中断请求次数")
+                        .tag("route", route)
+                        .register(meterRegistry)
+        );
+        counter.increment();
+    }
+}
@@ -0,0 +1,100 @@
+package com.feiwu.yikouai.monitor;
+
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发图片收集指标收集器
+ * 按外部服务统计单个任务的耗时与结果（成功 / 超时 / 失败），以及每个收集节点的总耗时；
+ * 流水线工作流中图片占位符的替换结果，以及代码生成完成后仍需等待图片的时长
+ */
+@Component
+@Slf4j
+public class ImageCollectionMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Timer> taskTimersCache = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<ImageProviderEnum, Timer> collectTimersCache = new ConcurrentHashMap<>();
+
+    private Counter placeholderResolvedCounter;
+
+    private Counter placeholderDroppedCounter;
+
+    private Timer resolveWaitTimer;
+
+    @PostConstruct
+    public void init() {
+        placeholderResolvedCounter = Counter.builder("workflow_image_placeholder_total")
+                .description("流水线工作流图片占位符数")
+                .tag("result", "resolved")
+                .register(meterRegistry);
+        placeholderDroppedCounter = Counter.builder("workflow_image_placeholder_total")
+                .description("流水线工作流图片占位符数")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        resolveWaitTimer = Timer.builder("workflow_image_resolve_wait_duration")
+                .description("流水线工作流代码生成完成后等待图片的时长")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录单个图片收集任务
+     *
+     * @param provider 外部服务
+     * @param result   success / timeout / error
+     * @param nanos    耗时，超时任务为等待的时长
+     */
+    public void recordTask(ImageProviderEnum provider, String result, long nanos) {
+        String key = String.format("%s_%s", provider.getValue(), result);
+        Timer timer = taskTimersCache.computeIfAbsent(key, k ->
+                Timer.builder("workflow_image_task_duration")
+                        .description("图片收集单个任务耗时")
+                        .tag("provider", provider.getValue())
+                        .tag("result", result)
+                        .register(meterRegistry)
+        );
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一个收集节点的总耗时
+     *
+     * @param provider 外部服务
+     * @param nanos    从开始到全部任务完成或超时的耗时
+     */
+    public void recordCollect(ImageProviderEnum provider, long nanos) {
+        Timer timer = collectTimersCache.computeIfAbsent(provider, k ->
+                Timer.builder("workflow_image_collect_duration")
+                        .description("图片收集节点总耗时")
+                        .tag("provider", k.getValue())
+                        .register(meterRegistry)
+        );
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录流水线工作流中一次占位符替换
+     *
+     * @param resolved  替换为图片地址的占位符数
+     * @param dropped   截止时间前没有结果而被丢弃的占位符数
+     * @param waitNanos 代码生成完成后等待图片的时长
+     */
+    public void recordPlaceholders(int resolved, int dropped, long waitNanos) {
+        placeholderResolvedCounter.increment(resolved);
+        placeholderDroppedCounter.increment(dropped);
+        resolveWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+}
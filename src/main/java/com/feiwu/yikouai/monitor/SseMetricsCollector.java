@@ -0,0 +1,46 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * SSE 推送指标收集器
+ * frames_total 的速率即每秒帧数，frame_size 的均值即平均帧大小
+ */
+@Component
+@Slf4j
+public class SseMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Counter frameCounter;
+
+    private DistributionSummary frameSizeSummary;
+
+    @PostConstruct
+    public void init() {
+        frameCounter = Counter.builder("sse_frames_total")
+                .description("SSE 推送帧总数")
+                .register(meterRegistry);
+        frameSizeSummary = DistributionSummary.builder("sse_frame_size_chars")
+                .description("SSE 单帧数据大小（字符数）")
+                .baseUnit("chars")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一帧 SSE 数据
+     *
+     * @param frameLength 帧数据字符数
+     */
+    public void recordFrame(int frameLength) {
+        frameCounter.increment();
+        frameSizeSummary.record(frameLength);
+    }
+}
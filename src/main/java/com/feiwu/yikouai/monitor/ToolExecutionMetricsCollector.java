@@ -0,0 +1,63 @@
+package com.feiwu.yikouai.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 工具调用执行指标收集器
+ * 提前执行工具调用节省的耗时，以及工具调用文件内容存储新写入和去重的字节数
+ */
+@Component
+@Slf4j
+public class ToolExecutionMetricsCollector {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Timer eagerSavedTimer;
+
+    private Counter blobStoredCounter;
+
+    private Counter blobDeduplicatedCounter;
+
+    @PostConstruct
+    public void init() {
+        eagerSavedTimer = Timer.builder("ai_tool_eager_saved_duration")
+                .description("提前执行工具调用在每轮对话中节省的耗时（模型仍在输出时工具已在执行的时长）")
+                .register(meterRegistry);
+        blobStoredCounter = Counter.builder("ai_tool_blob_bytes_total")
+                .description("工具调用文件内容存储的字节数")
+                .tag("result", "stored")
+                .register(meterRegistry);
+        blobDeduplicatedCounter = Counter.builder("ai_tool_blob_bytes_total")
+                .description("工具调用文件内容存储的字节数")
+                .tag("result", "deduplicated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一轮对话中提前执行工具调用节省的耗时
+     *
+     * @param saved 节省的耗时
+     */
+    public void recordEagerSaved(Duration saved) {
+        eagerSavedTimer.record(saved);
+    }
+
+    /**
+     * 记录一次工具调用文件内容存储
+     *
+     * @param stored 是否新写入存储，false 表示相同内容已存在
+     * @param bytes  内容字节数
+     */
+    public void recordBlob(boolean stored, long bytes) {
+        (stored ? blobStoredCounter : blobDeduplicatedCounter).increment(bytes);
+    }
+}
@@ -2,6 +2,7 @@ package com.feiwu.yikouai.service;
 
 import com.feiwu.yikouai.model.dto.chatHistory.ChatHistoryQueryDto;
 import com.feiwu.yikouai.model.entity.User;
+import com.feiwu.yikouai.model.vo.chatHistory.ChatHistoryCursorPageVO;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
@@ -9,6 +10,7 @@ import com.feiwu.yikouai.model.entity.ChatHistory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 对话历史 服务层。
@@ -65,6 +67,20 @@ public interface ChatHistoryService extends IService<ChatHistory> {
                                                LocalDateTime lastCreateTime,
                                                User loginUser);
 
+    /**
+     * 按 (创建时间, id) 组合游标分页查询应用聊天记录，不执行 COUNT
+     *
+     * @param appId          应用ID
+     * @param pageSize       每页大小
+     * @param lastCreateTime 上一页最后一条记录的创建时间，第一页为空
+     * @param lastId         上一页最后一条记录的 id，第一页为空
+     * @param loginUser      登录用户信息
+     * @return 本页记录、是否还有更多及下一页游标
+     */
+    ChatHistoryCursorPageVO listAppChatHistoryByCursor(Long appId, int pageSize,
+                                                       LocalDateTime lastCreateTime, Long lastId,
+                                                       User loginUser);
+
     /**
      * 将聊天历史记录加载到内存中的方法
      *
@@ -74,4 +90,12 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      * @return int 返回实际加载到内存中的消息数量
      */
     int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
+
+    /**
+     * 展开 AI 回复中工具调用文件内容的引用，返回副本，不修改原记录
+     *
+     * @param records 聊天记录
+     * @return 展开后的聊天记录
+     */
+    List<ChatHistory> expandToolContent(List<ChatHistory> records);
 }
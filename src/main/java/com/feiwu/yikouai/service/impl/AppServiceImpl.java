@@ -9,10 +9,12 @@ import com.feiwu.yikouai.ai.AiBaseGeneratorService;
 import com.feiwu.yikouai.ai.AiBaseGeneratorServiceFactory;
 import com.feiwu.yikouai.ai.AiCodeGenTypeRoutingService;
 import com.feiwu.yikouai.ai.AiCodeGenTypeRoutingServiceFactory;
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
 import com.feiwu.yikouai.constant.AppConstant;
 import com.feiwu.yikouai.core.AiCodeGeneratorFacade;
 import com.feiwu.yikouai.core.builder.VueProjectBuilder;
 import com.feiwu.yikouai.core.handler.StreamHandlerExecutor;
+import com.feiwu.yikouai.core.handler.StreamMessageCoalescer;
 import com.feiwu.yikouai.exception.BusinessException;
 import com.feiwu.yikouai.exception.ErrorCode;
 import com.feiwu.yikouai.exception.ThrowUtils;
@@ -68,6 +70,9 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private StreamHandlerExecutor streamHandlerExecutor;
 
+    @Resource
+    private StreamMessageCoalescer streamMessageCoalescer;
+
     @Resource
     private VueProjectBuilder vueProjectBuilder;
 
@@ -108,7 +113,9 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
                         .build()
         );
         // 7. 调用 AI 生成代码（流式）
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        // 合并细碎的 AI 响应增量（按配置开启），减少 SSE 帧数
+        codeStream = streamMessageCoalescer.coalesce(codeStream);
         // 8. 收集 AI 响应内容并在完成后记录到对话历史
         return streamHandlerExecutor.doExecute(codeStream, chatHistoryService, appId, loginUser, codeGenTypeEnum)
                 .doFinally(signalType -> {
@@ -1,16 +1,21 @@
 package com.feiwu.yikouai.service.impl;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
-import com.feiwu.yikouai.ai.AiBaseGeneratorService;
-import com.feiwu.yikouai.ai.AiBaseGeneratorServiceFactory;
 import com.feiwu.yikouai.constant.UserConstant;
+import com.feiwu.yikouai.core.summary.ChatHistorySummarizer;
 import com.feiwu.yikouai.exception.ErrorCode;
 import com.feiwu.yikouai.exception.ThrowUtils;
+import com.feiwu.yikouai.manager.ChatHistoryWriteBehindQueue;
+import com.feiwu.yikouai.manager.ChatMemoryWatermarkManager;
+import com.feiwu.yikouai.manager.ChatTurnSequenceManager;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
 import com.feiwu.yikouai.model.dto.chatHistory.ChatHistoryQueryDto;
 import com.feiwu.yikouai.model.entity.App;
 import com.feiwu.yikouai.model.entity.User;
 import com.feiwu.yikouai.model.enums.ChatHistoryMessageTypeEnum;
+import com.feiwu.yikouai.model.vo.chatHistory.ChatHistoryCursorPageVO;
 import com.feiwu.yikouai.service.AppService;
 import com.feiwu.yikouai.service.ChatHistoryService;
 import com.mybatisflex.core.paginate.Page;
@@ -29,7 +34,9 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 对话历史 服务层实现。
@@ -45,7 +52,19 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     private AppService appService;
 
     @Resource
-    private AiBaseGeneratorServiceFactory aiBaseGeneratorServiceFactory;
+    private ChatHistorySummarizer chatHistorySummarizer;
+
+    @Resource
+    private ChatTurnSequenceManager chatTurnSequenceManager;
+
+    @Resource
+    private ChatHistoryWriteBehindQueue chatHistoryWriteBehindQueue;
+
+    @Resource
+    private ChatMemoryWatermarkManager chatMemoryWatermarkManager;
+
+    @Resource
+    private ToolContentBlobStore toolContentBlobStore;
 
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
@@ -54,60 +73,28 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         ThrowUtils.throwIf(StrUtil.isBlank(messageType), ErrorCode.PARAMS_ERROR, "消息类型不能为空");
         ThrowUtils.throwIf(userId == null || userId <= 0, ErrorCode.PARAMS_ERROR, "用户ID不能为空");
 
-        // 获取当前最大的turnNumber
-        QueryWrapper queryWrapper = new QueryWrapper();
-        queryWrapper.eq("appId", appId);
-        queryWrapper.eq("messageType", ChatHistoryMessageTypeEnum.USER.getValue());
-        queryWrapper.orderBy("turnNumber", false);
-        ChatHistory dbChatHistory = this.getOne(queryWrapper);
-        if (dbChatHistory == null) {
-            dbChatHistory = ChatHistory.builder().turnNumber(0L).build();
-        }
-
-        // 检查对话历史轮数，如果超过 10 轮，生成总结
-        if (messageType.equals(ChatHistoryMessageTypeEnum.USER.getValue()) && dbChatHistory.getTurnNumber() > 10) {
-            // 获取所有对话历史，用于生成总结
-            QueryWrapper historyQueryWrapper = new QueryWrapper();
-            historyQueryWrapper.eq("appId", appId);
-            historyQueryWrapper.orderBy("createTime", true);
-            List<ChatHistory> chatHistoryList = this.list(historyQueryWrapper);
-
-            // 调用AI生成对话总结
-            AiBaseGeneratorService aiBaseGeneratorService = aiBaseGeneratorServiceFactory.createAiBaseGeneratorService();
-            String summary = aiBaseGeneratorService.generateChatHistorySummary(chatHistoryList);
-
-            // 保存总结作为新的对话历史
-            ChatHistory summaryHistory = ChatHistory.builder()
-                    .appId(appId)
-                    .message(summary)
-                    .messageType(ChatHistoryMessageTypeEnum.SUMMARY.getValue())
-                    .userId(userId)
-                    .turnNumber(dbChatHistory.getTurnNumber())
-                    .build();
-            this.save(summaryHistory);
-        }
         // 验证消息类型是否有效
-        ChatHistory chatHistory = null;
         ChatHistoryMessageTypeEnum messageTypeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(messageTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的消息类型: " + messageType);
-        if (messageType.equals(ChatHistoryMessageTypeEnum.AI.getValue())) {
-            chatHistory = ChatHistory.builder()
-                    .appId(appId)
-                    .message(message)
-                    .messageType(messageType)
-                    .userId(userId)
-                    .turnNumber(dbChatHistory.getTurnNumber())
-                    .build();
-        } else {
-            chatHistory = ChatHistory.builder()
-                    .appId(appId)
-                    .message(message)
-                    .messageType(messageType)
-                    .userId(userId)
-                    .turnNumber(dbChatHistory.getTurnNumber() + 1)
-                    .build();
+        // AI 回复与其回复的用户消息同一轮，其余消息开启新的一轮
+        long turnNumber = messageTypeEnum == ChatHistoryMessageTypeEnum.AI
+                ? chatTurnSequenceManager.currentTurn(appId)
+                : chatTurnSequenceManager.nextTurn(appId);
+        ChatHistory chatHistory = ChatHistory.builder()
+                .appId(appId)
+                .message(message)
+                .messageType(messageType)
+                .userId(userId)
+                .turnNumber(turnNumber)
+                .build();
+        boolean saved = chatHistoryWriteBehindQueue.submit(chatHistory);
+        // 对话轮数超过阈值后在后台增量生成总结，不阻塞本次生成
+        if (saved && messageTypeEnum == ChatHistoryMessageTypeEnum.USER) {
+            // 这一轮的消息随后由 AI 服务写入记忆，记忆原本是完整的则前进水位
+            chatMemoryWatermarkManager.advance(appId, turnNumber);
+            chatHistorySummarizer.requestSummary(appId, userId, chatHistory.getTurnNumber());
         }
-        return this.save(chatHistory);
+        return saved;
     }
 
     @Override
@@ -115,7 +102,12 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq("appId", appId);
-        return this.remove(queryWrapper);
+        chatHistoryWriteBehindQueue.discard(appId);
+        boolean removed = this.remove(queryWrapper);
+        chatTurnSequenceManager.reset(appId);
+        chatMemoryWatermarkManager.delete(appId);
+        toolContentBlobStore.delete(appId);
+        return removed;
     }
 
     /**
@@ -175,22 +167,86 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     public Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize,
                                                       LocalDateTime lastCreateTime,
                                                       User loginUser) {
+        checkChatHistoryAuth(appId, pageSize, loginUser);
+        // 构建查询条件
+        ChatHistoryQueryDto chatHistoryQueryDto = new ChatHistoryQueryDto();
+        chatHistoryQueryDto.setAppId(appId);
+        chatHistoryQueryDto.setLastCreateTime(lastCreateTime);
+        QueryWrapper queryWrapper = this.getChatHistoryQueryWrapper(chatHistoryQueryDto);
+        // 先写入尚未落库的消息，保证写后立即可读
+        chatHistoryWriteBehindQueue.flush(appId);
+        // 查询数据
+        Page<ChatHistory> page = this.page(Page.of(1, pageSize), queryWrapper);
+        page.setRecords(expandToolContent(page.getRecords()));
+        return page;
+    }
+
+    @Override
+    public ChatHistoryCursorPageVO listAppChatHistoryByCursor(Long appId, int pageSize,
+                                                              LocalDateTime lastCreateTime, Long lastId,
+                                                              User loginUser) {
+        checkChatHistoryAuth(appId, pageSize, loginUser);
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId)
+                .in(ChatHistory::getMessageType,
+                        ChatHistoryMessageTypeEnum.USER.getValue(),
+                        ChatHistoryMessageTypeEnum.AI.getValue());
+        // 组合游标：(createTime, id) < (lastCreateTime, lastId)，同一秒内的多条消息不会被跳过或重复
+        if (lastCreateTime != null && lastId != null) {
+            queryWrapper.and((Consumer<QueryWrapper>) wrapper -> wrapper.lt(ChatHistory::getCreateTime, lastCreateTime)
+                    .or((Consumer<QueryWrapper>) inner -> inner.eq(ChatHistory::getCreateTime, lastCreateTime)
+                            .lt(ChatHistory::getId, lastId)));
+        } else if (lastCreateTime != null) {
+            queryWrapper.lt(ChatHistory::getCreateTime, lastCreateTime);
+        }
+        // 多取一条判断是否还有更多，不执行 COUNT
+        queryWrapper.orderBy(ChatHistory::getCreateTime, false)
+                .orderBy(ChatHistory::getId, false)
+                .limit(pageSize + 1);
+        // 尚未落库的消息都比库中的新，只会出现在第一页：查询第一页前先写入，每条记录都有 id 可作为游标
+        if (lastCreateTime == null) {
+            chatHistoryWriteBehindQueue.flush(appId);
+        }
+        List<ChatHistory> records = this.list(queryWrapper);
+        ChatHistoryCursorPageVO cursorPageVO = new ChatHistoryCursorPageVO();
+        cursorPageVO.setHasMore(records.size() > pageSize);
+        records = records.subList(0, Math.min(pageSize, records.size()));
+        cursorPageVO.setRecords(expandToolContent(records));
+        if (!records.isEmpty()) {
+            ChatHistory lastRecord = records.getLast();
+            cursorPageVO.setNextCreateTime(lastRecord.getCreateTime());
+            cursorPageVO.setNextId(lastRecord.getId());
+        }
+        return cursorPageVO;
+    }
+
+    /**
+     * 校验分页参数和查看权限：只有应用创建者和管理员可以查看
+     */
+    private void checkChatHistoryAuth(Long appId, int pageSize, User loginUser) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
         ThrowUtils.throwIf(pageSize <= 0 || pageSize > 50, ErrorCode.PARAMS_ERROR, "页面大小必须在1-50之间");
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR);
-        // 验证权限：只有应用创建者和管理员可以查看
         App app = appService.getById(appId);
         ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
         boolean isAdmin = UserConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
         boolean isCreator = app.getUserId().equals(loginUser.getId());
         ThrowUtils.throwIf(!isAdmin && !isCreator, ErrorCode.NO_AUTH_ERROR, "无权查看该应用的对话历史");
-        // 构建查询条件
-        ChatHistoryQueryDto chatHistoryQueryDto = new ChatHistoryQueryDto();
-        chatHistoryQueryDto.setAppId(appId);
-        chatHistoryQueryDto.setLastCreateTime(lastCreateTime);
-        QueryWrapper queryWrapper = this.getChatHistoryQueryWrapper(chatHistoryQueryDto);
-        // 查询数据
-        return this.page(Page.of(1, pageSize), queryWrapper);
+    }
+
+    @Override
+    public List<ChatHistory> expandToolContent(List<ChatHistory> records) {
+        return records.stream()
+                .map(history -> {
+                    String expanded = toolContentBlobStore.expand(history.getAppId(), history.getMessage());
+                    if (expanded == null || expanded.equals(history.getMessage())) {
+                        return history;
+                    }
+                    ChatHistory copy = BeanUtil.copyProperties(history, ChatHistory.class);
+                    copy.setMessage(expanded);
+                    return copy;
+                })
+                .toList();
     }
 
     @Override
@@ -207,34 +263,49 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                     .orderBy(ChatHistory::getCreateTime, false);
             ChatHistory latestSummary = this.getOne(summaryQueryWrapper);
 
-            // 如果存在对话总结，将其作为系统消息添加到chatMemory中
+            // 如果存在对话总结，将其作为系统消息添加到chatMemory中，再补上总结之后的对话（总结在后台生成，可能落后几轮）
             if (latestSummary != null) {
                 chatMemory.add(SystemMessage.from("对话总结：" + latestSummary.getMessage()));
                 loadedCount++;
-            }else {
-                // 查询普通对话历史
-                QueryWrapper queryWrapper = QueryWrapper.create()
-                        .eq(ChatHistory::getAppId, appId)
-                        .in(ChatHistory::getMessageType,
-                                ChatHistoryMessageTypeEnum.USER.getValue(),
-                                ChatHistoryMessageTypeEnum.AI.getValue())
-                        .orderBy(ChatHistory::getCreateTime, false)
-                        .limit(1, maxCount);
-                List<ChatHistory> historyList = this.list(queryWrapper);
-                if (CollUtil.isEmpty(historyList)) {
-                    return loadedCount;
+            }
+            // 查询普通对话历史，先写入尚未落库的消息
+            chatHistoryWriteBehindQueue.flush(appId);
+            QueryWrapper queryWrapper = QueryWrapper.create()
+                    .eq(ChatHistory::getAppId, appId)
+                    .in(ChatHistory::getMessageType,
+                            ChatHistoryMessageTypeEnum.USER.getValue(),
+                            ChatHistoryMessageTypeEnum.AI.getValue())
+                    .gt(ChatHistory::getTurnNumber, latestSummary == null ? null : latestSummary.getTurnNumber())
+                    .orderBy(ChatHistory::getCreateTime, false)
+                    .orderBy(ChatHistory::getId, false)
+                    .limit(maxCount + 1);
+            List<ChatHistory> historyList = new ArrayList<>(this.list(queryWrapper));
+            // 当前这一轮还没有 AI 回复的用户消息由 AI 服务在调用时写入记忆，按轮数排除，避免重复
+            long currentTurn = chatTurnSequenceManager.currentTurn(appId);
+            if (!historyList.isEmpty()) {
+                ChatHistory newest = historyList.getFirst();
+                if (ChatHistoryMessageTypeEnum.USER.getValue().equals(newest.getMessageType())
+                        && Long.valueOf(currentTurn).equals(newest.getTurnNumber())) {
+                    historyList.removeFirst();
                 }
-                // 反转列表，确保按时间正序（老的在前，新的在后）
-                historyList = historyList.reversed();
-                // 按时间顺序添加到记忆中
-                for (ChatHistory history : historyList) {
-                    if (ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
-                        chatMemory.add(UserMessage.from(history.getMessage()));
-                        loadedCount++;
-                    } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
-                        chatMemory.add(AiMessage.from(history.getMessage()));
-                        loadedCount++;
-                    }
+            }
+            if (historyList.size() > maxCount) {
+                historyList = historyList.subList(0, maxCount);
+            }
+            if (CollUtil.isEmpty(historyList)) {
+                return loadedCount;
+            }
+            // 反转列表，确保按时间正序（老的在前，新的在后）
+            historyList = historyList.reversed();
+            // 按时间顺序添加到记忆中
+            for (ChatHistory history : historyList) {
+                if (ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
+                    chatMemory.add(UserMessage.from(history.getMessage()));
+                    loadedCount++;
+                } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
+                    // 工具调用中的文件内容只保留简短说明，不再发给模型
+                    chatMemory.add(AiMessage.from(toolContentBlobStore.summarize(history.getMessage())));
+                    loadedCount++;
                 }
             }
             log.info("成功为 appId: {} 加载了 {} 条历史对话", appId, loadedCount);
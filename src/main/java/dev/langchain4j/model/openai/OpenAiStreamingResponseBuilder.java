@@ -11,40 +11,54 @@ import dev.langchain4j.model.openai.internal.shared.Usage;
 import dev.langchain4j.model.output.FinishReason;
 import dev.langchain4j.model.output.TokenUsage;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static dev.langchain4j.internal.Utils.isNullOrBlank;
 import static dev.langchain4j.internal.Utils.isNullOrEmpty;
 import static dev.langchain4j.model.openai.internal.OpenAiUtils.finishReasonFrom;
 import static dev.langchain4j.model.openai.internal.OpenAiUtils.tokenUsageFrom;
 import static java.util.Collections.singletonList;
-import static java.util.stream.Collectors.toList;
 
 /**
- * This class needs to be thread safe because it is called when a streaming result comes back
- * and there is no guarantee that this thread will be the same as the one that initiated the request,
- * in fact it almost certainly won't be.
+ * Accumulates the partial responses of a single streaming request into a {@link ChatResponse}.
+ * <p>
+ * This class is a single-writer builder and is not thread safe. All partial responses of one request are
+ * delivered sequentially by the streaming HTTP client (one SSE reader per request), and {@link #build()} is called
+ * from the completion callback of the same stream after the last delta, so no locking or atomics are needed.
+ * Do not share an instance between requests.
  */
 @Internal
 public class OpenAiStreamingResponseBuilder {
 
-    private final StringBuffer contentBuilder = new StringBuffer();
+    private static final Logger LOG = LoggerFactory.getLogger(OpenAiStreamingResponseBuilder.class);
+
+    private static final int INITIAL_CONTENT_CAPACITY = 1024;
+    private static final int INITIAL_TOOL_CALL_CAPACITY = 4;
 
-    private final StringBuffer toolNameBuilder = new StringBuffer();
-    private final StringBuffer toolArgumentsBuilder = new StringBuffer();
+    private final StringBuilder contentBuilder = new StringBuilder(INITIAL_CONTENT_CAPACITY);
 
-    private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new ConcurrentHashMap<>();
+    private StringBuilder toolNameBuilder;
+    private StringBuilder toolArgumentsBuilder;
 
-    private final AtomicReference<String> id = new AtomicReference<>();
-    private final AtomicReference<Long> created = new AtomicReference<>();
-    private final AtomicReference<String> model = new AtomicReference<>();
-    private final AtomicReference<String> serviceTier = new AtomicReference<>();
-    private final AtomicReference<String> systemFingerprint = new AtomicReference<>();
-    private final AtomicReference<TokenUsage> tokenUsage = new AtomicReference<>();
-    private final AtomicReference<FinishReason> finishReason = new AtomicReference<>();
+    /**
+     * Tool call builders indexed by {@link ToolCall#index()}; slots may be null if the model skips an index.
+     */
+    private ToolExecutionRequestBuilder[] toolExecutionRequestBuilders;
+    private int toolExecutionRequestBuilderCount;
+    private int lastToolCallIndex;
+
+    private String id;
+    private Long created;
+    private String model;
+    private String serviceTier;
+    private String systemFingerprint;
+    private TokenUsage tokenUsage;
+    private FinishReason finishReason;
 
     public void append(ChatCompletionResponse partialResponse) {
         if (partialResponse == null) {
@@ -52,24 +66,24 @@ public class OpenAiStreamingResponseBuilder {
         }
 
         if (!isNullOrBlank(partialResponse.id())) {
-            this.id.set(partialResponse.id());
+            this.id = partialResponse.id();
         }
         if (partialResponse.created() != null) {
-            this.created.set(partialResponse.created());
+            this.created = partialResponse.created();
         }
         if (!isNullOrBlank(partialResponse.model())) {
-            this.model.set(partialResponse.model());
+            this.model = partialResponse.model();
         }
         if (!isNullOrBlank(partialResponse.serviceTier())) {
-            this.serviceTier.set(partialResponse.serviceTier());
+            this.serviceTier = partialResponse.serviceTier();
         }
         if (!isNullOrBlank(partialResponse.systemFingerprint())) {
-            this.systemFingerprint.set(partialResponse.systemFingerprint());
+            this.systemFingerprint = partialResponse.systemFingerprint();
         }
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<ChatCompletionChoice> choices = partialResponse.choices();
@@ -84,7 +98,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = chatCompletionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         Delta delta = chatCompletionChoice.delta();
@@ -101,29 +115,38 @@ public class OpenAiStreamingResponseBuilder {
             FunctionCall functionCall = delta.functionCall();
 
             if (functionCall.name() != null) {
+                if (this.toolNameBuilder == null) {
+                    this.toolNameBuilder = new StringBuilder();
+                }
                 this.toolNameBuilder.append(functionCall.name());
             }
 
             if (functionCall.arguments() != null) {
+                if (this.toolArgumentsBuilder == null) {
+                    this.toolArgumentsBuilder = new StringBuilder();
+                }
                 this.toolArgumentsBuilder.append(functionCall.arguments());
             }
         }
 
-        if (delta.toolCalls() != null) {
-            System.out.println("OLOLO " + delta.toolCalls()); // TODO
+        List<ToolCall> toolCalls = delta.toolCalls();
+        if (toolCalls != null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Tool call delta: {}", toolCalls);
+            }
 
-            for (ToolCall toolCall : delta.toolCalls()) {
+            for (ToolCall toolCall : toolCalls) {
 
-                ToolExecutionRequestBuilder builder = this.indexToToolExecutionRequestBuilder.computeIfAbsent(
-                        toolCall.index(),
-                        idx -> new ToolExecutionRequestBuilder()
-                );
+                ToolExecutionRequestBuilder builder = toolExecutionRequestBuilder(toolCall.index());
 
                 if (toolCall.id() != null) {
                     builder.idBuilder.append(toolCall.id());
                 }
 
                 FunctionCall functionCall = toolCall.function();
+                if (functionCall == null) {
+                    continue;
+                }
                 if (functionCall.name() != null) {
                     builder.nameBuilder.append(functionCall.name());
                 }
@@ -135,6 +158,27 @@ public class OpenAiStreamingResponseBuilder {
         }
     }
 
+    private ToolExecutionRequestBuilder toolExecutionRequestBuilder(Integer toolCallIndex) {
+        // a missing index continues the tool call that is currently being streamed
+        int index = toolCallIndex != null ? toolCallIndex : lastToolCallIndex;
+        this.lastToolCallIndex = index;
+
+        if (this.toolExecutionRequestBuilders == null) {
+            this.toolExecutionRequestBuilders = new ToolExecutionRequestBuilder[Math.max(INITIAL_TOOL_CALL_CAPACITY, index + 1)];
+        } else if (index >= this.toolExecutionRequestBuilders.length) {
+            this.toolExecutionRequestBuilders = Arrays.copyOf(this.toolExecutionRequestBuilders,
+                    Math.max(this.toolExecutionRequestBuilders.length * 2, index + 1));
+        }
+
+        ToolExecutionRequestBuilder builder = this.toolExecutionRequestBuilders[index];
+        if (builder == null) {
+            builder = new ToolExecutionRequestBuilder();
+            this.toolExecutionRequestBuilders[index] = builder;
+            this.toolExecutionRequestBuilderCount++;
+        }
+        return builder;
+    }
+
     public void append(CompletionResponse partialResponse) {
         if (partialResponse == null) {
             return;
@@ -142,7 +186,7 @@ public class OpenAiStreamingResponseBuilder {
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<CompletionChoice> choices = partialResponse.choices();
@@ -157,7 +201,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = completionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         String token = completionChoice.text();
@@ -169,22 +213,22 @@ public class OpenAiStreamingResponseBuilder {
     public ChatResponse build() {
 
         OpenAiChatResponseMetadata chatResponseMetadata = OpenAiChatResponseMetadata.builder()
-                .id(id.get())
-                .modelName(model.get())
-                .tokenUsage(tokenUsage.get())
-                .finishReason(finishReason.get())
-                .created(created.get())
-                .serviceTier(serviceTier.get())
-                .systemFingerprint(systemFingerprint.get())
+                .id(id)
+                .modelName(model)
+                .tokenUsage(tokenUsage)
+                .finishReason(finishReason)
+                .created(created)
+                .serviceTier(serviceTier)
+                .systemFingerprint(systemFingerprint)
                 .build();
 
         String text = contentBuilder.toString();
 
-        String toolName = toolNameBuilder.toString();
+        String toolName = toolNameBuilder == null ? "" : toolNameBuilder.toString();
         if (!toolName.isEmpty()) {
             ToolExecutionRequest toolExecutionRequest = ToolExecutionRequest.builder()
                     .name(toolName)
-                    .arguments(toolArgumentsBuilder.toString())
+                    .arguments(toolArgumentsBuilder == null ? "" : toolArgumentsBuilder.toString())
                     .build();
 
             AiMessage aiMessage = isNullOrBlank(text) ?
@@ -197,14 +241,18 @@ public class OpenAiStreamingResponseBuilder {
                     .build();
         }
 
-        if (!indexToToolExecutionRequestBuilder.isEmpty()) {
-            List<ToolExecutionRequest> toolExecutionRequests = indexToToolExecutionRequestBuilder.values().stream()
-                    .map(it -> ToolExecutionRequest.builder()
-                            .id(it.idBuilder.toString())
-                            .name(it.nameBuilder.toString())
-                            .arguments(it.argumentsBuilder.toString())
-                            .build())
-                    .collect(toList());
+        if (toolExecutionRequestBuilderCount > 0) {
+            List<ToolExecutionRequest> toolExecutionRequests = new ArrayList<>(toolExecutionRequestBuilderCount);
+            for (ToolExecutionRequestBuilder it : toolExecutionRequestBuilders) {
+                if (it == null) {
+                    continue;
+                }
+                toolExecutionRequests.add(ToolExecutionRequest.builder()
+                        .id(it.idBuilder.toString())
+                        .name(it.nameBuilder.toString())
+                        .arguments(it.argumentsBuilder.toString())
+                        .build());
+            }
 
             AiMessage aiMessage = isNullOrBlank(text) ?
                     AiMessage.from(toolExecutionRequests) :
@@ -229,8 +277,8 @@ public class OpenAiStreamingResponseBuilder {
 
     private static class ToolExecutionRequestBuilder {
 
-        private final StringBuffer idBuilder = new StringBuffer();
-        private final StringBuffer nameBuilder = new StringBuffer();
-        private final StringBuffer argumentsBuilder = new StringBuffer();
+        private final StringBuilder idBuilder = new StringBuilder();
+        private final StringBuilder nameBuilder = new StringBuilder();
+        private final StringBuilder argumentsBuilder = new StringBuilder(256);
     }
 }
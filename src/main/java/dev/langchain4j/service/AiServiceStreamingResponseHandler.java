@@ -19,13 +19,19 @@ import dev.langchain4j.service.tool.ToolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static dev.langchain4j.internal.Utils.copy;
+import static dev.langchain4j.internal.Utils.isNullOrBlank;
 import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
 
 /**
@@ -58,6 +64,17 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
 
+    /**
+     * Tool calls dispatched by {@link #onCompleteToolExecutionRequest} before the response completed,
+     * only used when {@link ToolExecutionOptions#eager()} is enabled.
+     */
+    private ToolExecutionScheduler eagerScheduler;
+    private final List<EagerToolCall> eagerToolCalls = new ArrayList<>();
+    private final Object busyLock = new Object();
+    private int runningTools;
+    private long busySinceNanos;
+    private long busyNanos;
+
     AiServiceStreamingResponseHandler(
             ChatExecutor chatExecutor,
             AiServiceContext context,
@@ -111,26 +128,34 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         partialToolExecutionRequestHandler.accept(index, partialToolExecutionRequest);
     }
 
+    @Override
+    public void onCompleteToolExecutionRequest(int index, ToolExecutionRequest completeToolExecutionRequest) {
+        if (completeToolExecutionRequestHandler != null) {
+            completeToolExecutionRequestHandler.accept(index, completeToolExecutionRequest);
+        }
+        if (ToolExecutionOptions.eager()) {
+            if (eagerScheduler == null) {
+                eagerScheduler = newScheduler(this::executeTrackingBusyTime);
+            }
+            eagerToolCalls.add(new EagerToolCall(
+                    index, completeToolExecutionRequest, eagerScheduler.submit(completeToolExecutionRequest)));
+        }
+    }
+
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
         AiMessage aiMessage = completeResponse.aiMessage();
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
-                ToolExecutionResultMessage toolExecutionResultMessage =
-                        ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
-                addToMemory(toolExecutionResultMessage);
-
-                if (toolExecutionHandler != null) {
-                    ToolExecution toolExecution = ToolExecution.builder()
-                            .request(toolExecutionRequest)
-                            .result(toolExecutionResult)
-                            .build();
-                    toolExecutionHandler.accept(toolExecution);
+            List<ToolExecutionRequest> toolExecutionRequests = aiMessage.toolExecutionRequests();
+            if (eagerScheduler != null) {
+                awaitEagerToolCalls(toolExecutionRequests);
+            } else if (ToolExecutionOptions.parallel() && toolExecutionRequests.size() > 1) {
+                executeToolsConcurrently(toolExecutionRequests);
+            } else {
+                for (ToolExecutionRequest toolExecutionRequest : toolExecutionRequests) {
+                    onToolExecuted(toolExecutionRequest, executeTool(toolExecutionRequest));
                 }
             }
 
@@ -199,6 +224,146 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         }
     }
 
+    /**
+     * Runs independent tool calls concurrently (see {@link ToolExecutionOptions}), then adds the results to memory
+     * and reports them in the original request order, each as soon as it and all calls before it are done.
+     */
+    private void executeToolsConcurrently(List<ToolExecutionRequest> toolExecutionRequests) {
+        ToolExecutionScheduler scheduler = newScheduler(this::executeTool);
+        List<CompletableFuture<String>> results = new ArrayList<>(toolExecutionRequests.size());
+        for (ToolExecutionRequest toolExecutionRequest : toolExecutionRequests) {
+            results.add(scheduler.submit(toolExecutionRequest));
+        }
+        for (int i = 0; i < toolExecutionRequests.size(); i++) {
+            onToolExecuted(toolExecutionRequests.get(i), ToolExecutionScheduler.await(results.get(i)));
+        }
+    }
+
+    /**
+     * Collects the results of the eagerly dispatched tool calls in the order of the complete response. The streamed
+     * and the complete requests are built separately (e.g. empty arguments are "{}" in one and "" in the other), so
+     * they are matched by tool call id, or by streaming index when there is no id, never by equality. A request that
+     * was not dispatched while streaming is submitted now; a dispatched call is never submitted again.
+     */
+    private void awaitEagerToolCalls(List<ToolExecutionRequest> toolExecutionRequests) {
+        Duration saved = busyTime();
+        // the complete response lists tool calls in streaming index order
+        eagerToolCalls.sort(Comparator.comparingInt(EagerToolCall::index));
+        List<EagerToolCall> unmatched = new ArrayList<>(eagerToolCalls);
+        List<CompletableFuture<String>> results = new ArrayList<>(toolExecutionRequests.size());
+        for (int i = 0; i < toolExecutionRequests.size(); i++) {
+            ToolExecutionRequest toolExecutionRequest = toolExecutionRequests.get(i);
+            EagerToolCall eagerToolCall = takeEagerToolCall(toolExecutionRequest, i, unmatched);
+            if (eagerToolCall == null) {
+                LOG.debug("Tool call {} was not dispatched while streaming, executing it now", toolExecutionRequest.id());
+                results.add(eagerScheduler.submit(toolExecutionRequest));
+            } else {
+                results.add(eagerToolCall.result());
+            }
+        }
+        for (int i = 0; i < toolExecutionRequests.size(); i++) {
+            onToolExecuted(toolExecutionRequests.get(i), ToolExecutionScheduler.await(results.get(i)));
+        }
+        for (EagerToolCall eagerToolCall : unmatched) {
+            // already executed, but the model did not keep it in the complete response; wait for it so that
+            // it does not overlap with the next round, and make the discarded result visible
+            String result = ToolExecutionScheduler.await(eagerToolCall.result());
+            LOG.warn("Tool call {} (index {}, {}) was executed while streaming but is missing from the complete "
+                            + "response, its result is discarded: {}", eagerToolCall.request().id(),
+                    eagerToolCall.index(), eagerToolCall.request().name(), result);
+        }
+        eagerToolCalls.clear();
+        try {
+            ToolExecutionOptions.eagerExecutionListener().accept(saved);
+        } catch (Exception e) {
+            LOG.warn("Eager tool execution listener failed", e);
+        }
+    }
+
+    /**
+     * Finds the eagerly dispatched call for the {@code position}-th request of the complete response: the call with
+     * the same id, or without ids, the {@code position}-th dispatched call in streaming index order.
+     */
+    private EagerToolCall takeEagerToolCall(ToolExecutionRequest toolExecutionRequest, int position,
+                                            List<EagerToolCall> unmatched) {
+        String id = toolExecutionRequest.id();
+        if (isNullOrBlank(id)) {
+            if (position < eagerToolCalls.size()) {
+                EagerToolCall eagerToolCall = eagerToolCalls.get(position);
+                if (isNullOrBlank(eagerToolCall.request().id()) && unmatched.remove(eagerToolCall)) {
+                    return eagerToolCall;
+                }
+            }
+            return null;
+        }
+        Iterator<EagerToolCall> iterator = unmatched.iterator();
+        while (iterator.hasNext()) {
+            EagerToolCall eagerToolCall = iterator.next();
+            if (id.equals(eagerToolCall.request().id())) {
+                iterator.remove();
+                return eagerToolCall;
+            }
+        }
+        return null;
+    }
+
+    private ToolExecutionScheduler newScheduler(Function<ToolExecutionRequest, String> toolExecutor) {
+        // without parallel execution all calls share one conflict key, i.e. they run one after another
+        return new ToolExecutionScheduler(
+                toolExecutor,
+                ToolExecutionOptions.parallel() ? ToolExecutionOptions.conflictKeyResolver() : request -> "",
+                ToolExecutionOptions.executor());
+    }
+
+    private String executeTrackingBusyTime(ToolExecutionRequest toolExecutionRequest) {
+        synchronized (busyLock) {
+            if (runningTools++ == 0) {
+                busySinceNanos = System.nanoTime();
+            }
+        }
+        try {
+            return executeTool(toolExecutionRequest);
+        } finally {
+            synchronized (busyLock) {
+                if (--runningTools == 0) {
+                    busyNanos += System.nanoTime() - busySinceNanos;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wall-clock time so far during which at least one eagerly dispatched tool call was running.
+     */
+    private Duration busyTime() {
+        synchronized (busyLock) {
+            long nanos = busyNanos;
+            if (runningTools > 0) {
+                nanos += System.nanoTime() - busySinceNanos;
+            }
+            return Duration.ofNanos(nanos);
+        }
+    }
+
+    private String executeTool(ToolExecutionRequest toolExecutionRequest) {
+        ToolExecutor toolExecutor = toolExecutors.get(toolExecutionRequest.name());
+        return toolExecutor.execute(toolExecutionRequest, memoryId);
+    }
+
+    private void onToolExecuted(ToolExecutionRequest toolExecutionRequest, String toolExecutionResult) {
+        ToolExecutionResultMessage toolExecutionResultMessage =
+                ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
+        addToMemory(toolExecutionResultMessage);
+
+        if (toolExecutionHandler != null) {
+            ToolExecution toolExecution = ToolExecution.builder()
+                    .request(toolExecutionRequest)
+                    .result(toolExecutionResult)
+                    .build();
+            toolExecutionHandler.accept(toolExecution);
+        }
+    }
+
     private ChatMemory getMemory() {
         return getMemory(memoryId);
     }
@@ -228,4 +393,7 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
             LOG.warn("Ignored error", error);
         }
     }
+
+    private record EagerToolCall(int index, ToolExecutionRequest request, CompletableFuture<String> result) {
+    }
 }
@@ -0,0 +1,91 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
+
+/**
+ * Process-wide options for how streaming AI services execute the tool calls of one model turn.
+ * <p>
+ * By default tool calls run sequentially on the thread that delivered the model response. When
+ * {@link #parallel(boolean) parallel} execution is enabled, the tool calls of a turn are executed concurrently on
+ * virtual threads, while results are still added to the chat memory and reported to
+ * {@link TokenStream#onToolExecuted(java.util.function.Consumer)} in the original request order.
+ * <p>
+ * The {@link #conflictKeyResolver(Function) conflict key resolver} decides which calls are independent:
+ * calls with the same key run one after another in request order (for example, two writes to the same file),
+ * calls with different keys may overlap, and a {@code null} key makes the call exclusive: it waits for every
+ * earlier call, and every later call waits for it.
+ * <p>
+ * When {@link #eager(boolean) eager} execution is enabled, each tool call is dispatched as soon as the model has
+ * finished streaming its arguments, so that tool execution overlaps with the rest of the generation. Results are
+ * awaited and ordered when the response completes. Without parallel execution, eager calls still run one after
+ * another in request order. Note that eagerly dispatched calls are executed even if the response later fails.
+ */
+public final class ToolExecutionOptions {
+
+    private static final ExecutorService VIRTUAL_THREAD_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static volatile boolean parallel;
+
+    private static volatile Function<ToolExecutionRequest, String> conflictKeyResolver = ToolExecutionRequest::name;
+
+    private static volatile boolean eager;
+
+    private static volatile Consumer<Duration> eagerExecutionListener = saved -> {
+    };
+
+    private ToolExecutionOptions() {
+    }
+
+    public static boolean parallel() {
+        return parallel;
+    }
+
+    public static void parallel(boolean parallel) {
+        ToolExecutionOptions.parallel = parallel;
+    }
+
+    public static Function<ToolExecutionRequest, String> conflictKeyResolver() {
+        return conflictKeyResolver;
+    }
+
+    /**
+     * @param conflictKeyResolver returns the conflict key of a tool call; by default the tool name,
+     *                            so that calls of the same tool stay serialized
+     */
+    public static void conflictKeyResolver(Function<ToolExecutionRequest, String> conflictKeyResolver) {
+        ToolExecutionOptions.conflictKeyResolver = ensureNotNull(conflictKeyResolver, "conflictKeyResolver");
+    }
+
+    public static boolean eager() {
+        return eager;
+    }
+
+    public static void eager(boolean eager) {
+        ToolExecutionOptions.eager = eager;
+    }
+
+    public static Consumer<Duration> eagerExecutionListener() {
+        return eagerExecutionListener;
+    }
+
+    /**
+     * @param eagerExecutionListener receives, once per model turn with eagerly dispatched tool calls, the wall-clock
+     *                               time during which tools were already running before the response completed,
+     *                               i.e. the time saved compared to starting them at the end of the response
+     */
+    public static void eagerExecutionListener(Consumer<Duration> eagerExecutionListener) {
+        ToolExecutionOptions.eagerExecutionListener = ensureNotNull(eagerExecutionListener, "eagerExecutionListener");
+    }
+
+    static ExecutorService executor() {
+        return VIRTUAL_THREAD_EXECUTOR;
+    }
+}
@@ -0,0 +1,87 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Schedules the tool calls of one model turn onto an executor, honouring the conflict keys described in
+ * {@link ToolExecutionOptions}. Calls must be submitted in request order; results are collected by the caller
+ * in the same order.
+ */
+class ToolExecutionScheduler {
+
+    private final Function<ToolExecutionRequest, String> toolExecutor;
+    private final Function<ToolExecutionRequest, String> conflictKeyResolver;
+    private final Executor executor;
+
+    /**
+     * The last exclusive call; every later call depends on it.
+     */
+    private CompletableFuture<String> barrier = CompletableFuture.completedFuture(null);
+    private final Map<String, CompletableFuture<String>> lastCallByKey = new HashMap<>();
+    private final List<CompletableFuture<String>> callsSinceBarrier = new ArrayList<>();
+
+    ToolExecutionScheduler(Function<ToolExecutionRequest, String> toolExecutor,
+                           Function<ToolExecutionRequest, String> conflictKeyResolver,
+                           Executor executor) {
+        this.toolExecutor = toolExecutor;
+        this.conflictKeyResolver = conflictKeyResolver;
+        this.executor = executor;
+    }
+
+    synchronized CompletableFuture<String> submit(ToolExecutionRequest request) {
+        String conflictKey = resolveConflictKey(request);
+        CompletableFuture<?> dependency;
+        if (conflictKey == null) {
+            callsSinceBarrier.add(barrier);
+            dependency = CompletableFuture.allOf(callsSinceBarrier.toArray(CompletableFuture[]::new));
+        } else {
+            dependency = lastCallByKey.getOrDefault(conflictKey, barrier);
+        }
+        // a failed call must not prevent the calls that depend on it from running
+        CompletableFuture<String> call = dependency.handleAsync((ignored, error) -> toolExecutor.apply(request), executor);
+        if (conflictKey == null) {
+            barrier = call;
+            callsSinceBarrier.clear();
+            lastCallByKey.clear();
+        } else {
+            lastCallByKey.put(conflictKey, call);
+            callsSinceBarrier.add(call);
+        }
+        return call;
+    }
+
+    /**
+     * Waits for a submitted call and rethrows its failure unwrapped, as the sequential path would.
+     */
+    static String await(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private String resolveConflictKey(ToolExecutionRequest request) {
+        try {
+            return conflictKeyResolver.apply(request);
+        } catch (RuntimeException e) {
+            // unknown conflicts are treated as exclusive
+            return null;
+        }
+    }
+}
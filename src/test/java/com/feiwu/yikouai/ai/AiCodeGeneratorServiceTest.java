@@ -2,35 +2,55 @@ package com.feiwu.yikouai.ai;
 
 import com.feiwu.yikouai.ai.model.HtmlCodeResult;
 import com.feiwu.yikouai.ai.model.MultiFileCodeResult;
+import com.feiwu.yikouai.cassette.Cassette;
+import com.feiwu.yikouai.cassette.CassetteConfig;
+import com.feiwu.yikouai.cassette.ScenarioProbe;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * ClassName:AiCodeGeneratorServiceTest
  * Package:com.feiwu.yikouai.ai
- * Description:
+ * Description: 默认回放 src/test/resources/cassettes 下的录制带，不访问模型接口；
+ * 使用 -Dcassette.mode=record 重新录制，-Dcassette.speed=0 不等待录制的间隔
  *
  * @Author: 绯雾sama
  * @Create:2025/10/7 12:01
  * Version: 1.0
  */
+@SpringBootTest
+@Import(CassetteConfig.class)
 class AiCodeGeneratorServiceTest {
 
     @Resource
     private AiCodeGeneratorService aiCodeGeneratorService;
 
+    @Resource
+    private RedissonClient redissonClient;
+
     @Test
     void generateHtmlCode() {
-        HtmlCodeResult generateHtmlCode = aiCodeGeneratorService.generateHtmlCode("帮我生成一个小型的博客,不超过20行");
-        Assertions.assertNotNull(generateHtmlCode);
+        try (Cassette ignored = Cassette.insert("service-html")) {
+            ScenarioProbe probe = ScenarioProbe.start("service-html", redissonClient);
+            HtmlCodeResult generateHtmlCode = aiCodeGeneratorService.generateHtmlCode(0L, "帮我生成一个小型的博客,不超过20行");
+            probe.stop();
+            Assertions.assertNotNull(generateHtmlCode);
+        }
     }
 
     @Test
     void generateMultiFileCode() {
-        MultiFileCodeResult generateMultiFileCode = aiCodeGeneratorService.generateMultiFileCode("帮我生成一个小小型的留言板，不超过50行");
-        Assertions.assertNotNull(generateMultiFileCode);
+        try (Cassette ignored = Cassette.insert("service-multi-file")) {
+            ScenarioProbe probe = ScenarioProbe.start("service-multi-file", redissonClient);
+            MultiFileCodeResult generateMultiFileCode = aiCodeGeneratorService.generateMultiFileCode(0L, "帮我生成一个小小型的留言板，不超过50行");
+            probe.stop();
+            Assertions.assertNotNull(generateMultiFileCode);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package com.feiwu.yikouai.benchmark;
+
+import com.feiwu.yikouai.ai.AiCodeGeneratorService;
+import com.feiwu.yikouai.ai.guardrail.PromptSafetyInputGuardrail;
+import com.feiwu.yikouai.ai.http.OkHttpAiHttpClientBuilder;
+import com.feiwu.yikouai.ai.tools.ExitTool;
+import com.feiwu.yikouai.ai.tools.FileDeleteTool;
+import com.feiwu.yikouai.ai.tools.FileDirReadTool;
+import com.feiwu.yikouai.ai.tools.FileModifyTool;
+import com.feiwu.yikouai.ai.tools.FileReadTool;
+import com.feiwu.yikouai.ai.tools.FileWriteTool;
+import com.feiwu.yikouai.ai.tools.TemplateCopyTool;
+import com.feiwu.yikouai.mock.MockOpenAiServer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import okhttp3.OkHttpClient;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName:AiServicesSharingBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: VUE_PROJECT 代码生成服务：每个应用一个 AiServices 代理（原实现，每个代理一个新的多例流式模型）
+ * vs 所有应用共享一个代理、对话记忆通过 chatMemoryProvider 按 @MemoryId 获取并单独缓存
+ * 依次为 bench.apps 个应用各发起一次冷请求（该应用第一次生成），模型接口为本地 MockOpenAiServer（立即返回一小段文本），
+ * 输出：共享代理的创建耗时、冷请求耗时（包括创建代理 / 对话记忆）的平均值、p50、p99，以及请求全部完成、Full GC 后仍被持有的堆内存
+ * 对话记忆存放在进程内（InMemoryChatMemoryStore），两种方式相同，不影响对比；不需要外部服务
+ * 运行方式：执行 main 方法，参数通过系统属性设置：-Dbench.apps=1000 -Dbench.rounds=2
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/26 15:10
+ * Version: 1.0
+ */
+public class AiServicesSharingBenchmark {
+
+    private static final String USER_MESSAGE = "帮我生成一个简单的个人主页";
+
+    private record Result(List<Long> coldNanos, long retainedBytes) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int apps = Integer.getInteger("bench.apps", 1000);
+        int rounds = Integer.getInteger("bench.rounds", 2);
+        MockOpenAiServer.Options options = MockOpenAiServer.Options.builder()
+                .timeToFirstToken(Duration.ZERO)
+                .tokensPerSecond(1_000_000)
+                .responseChars(200)
+                .toolCalls(List.of())
+                .build();
+        OkHttpClient sharedClient = new OkHttpClient.Builder().build();
+        try (MockOpenAiServer mockServer = new MockOpenAiServer(options).start()) {
+            for (int round = 1; round <= rounds; round++) {
+                // 第一轮包含类加载和 JIT 预热
+                long appIdBase = round * 1_000_000L;
+                print(round, "每个应用一个代理", perApp(mockServer.getBaseUrl(), sharedClient, apps, appIdBase), apps);
+                print(round, "共享代理", shared(mockServer.getBaseUrl(), sharedClient, apps, appIdBase), apps);
+            }
+        }
+        sharedClient.dispatcher().executorService().shutdown();
+        sharedClient.connectionPool().evictAll();
+    }
+
+    /**
+     * 原实现：每个应用创建一个流式模型、一个对话记忆和一个 AiServices 代理，并一直持有（对应原来的服务实例缓存）
+     */
+    private static Result perApp(String baseUrl, OkHttpClient sharedClient, int apps, long appIdBase) throws Exception {
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        long baseline = usedHeapAfterGc();
+        List<AiCodeGeneratorService> services = new ArrayList<>(apps);
+        List<Long> coldNanos = new ArrayList<>(apps);
+        for (int i = 0; i < apps; i++) {
+            long appId = appIdBase + i;
+            long start = System.nanoTime();
+            MessageWindowChatMemory chatMemory = newChatMemory(appId, store);
+            AiCodeGeneratorService service = buildService(newModel(baseUrl, sharedClient), memoryId -> chatMemory);
+            call(service, appId);
+            coldNanos.add(System.nanoTime() - start);
+            services.add(service);
+        }
+        long retained = usedHeapAfterGc() - baseline;
+        if (services.size() != apps) {
+            throw new IllegalStateException();
+        }
+        return new Result(coldNanos, retained);
+    }
+
+    /**
+     * 新实现：共享一个代理，对话记忆按 appId 缓存（与 AiCodeGeneratorServiceFactory 相同的上限）
+     */
+    private static Result shared(String baseUrl, OkHttpClient sharedClient, int apps, long appIdBase) throws Exception {
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        long baseline = usedHeapAfterGc();
+        List<AiCodeGeneratorService> holder = new ArrayList<>(1);
+        Cache<Long, MessageWindowChatMemory> chatMemoryCache = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .removalListener((Long appId, MessageWindowChatMemory chatMemory, com.github.benmanes.caffeine.cache.RemovalCause cause) ->
+                        holder.forEach(service -> ((ChatMemoryAccess) service).evictChatMemory(appId)))
+                .build();
+        long buildStart = System.nanoTime();
+        AiCodeGeneratorService service = buildService(newModel(baseUrl, sharedClient),
+                memoryId -> chatMemoryCache.get((Long) memoryId, key -> newChatMemory(key, store)));
+        holder.add(service);
+        System.out.printf("共享代理创建耗时: %.2f ms%n", (System.nanoTime() - buildStart) / 1e6);
+        List<Long> coldNanos = new ArrayList<>(apps);
+        for (int i = 0; i < apps; i++) {
+            long appId = appIdBase + i;
+            long start = System.nanoTime();
+            chatMemoryCache.get(appId, key -> newChatMemory(key, store));
+            call(service, appId);
+            coldNanos.add(System.nanoTime() - start);
+        }
+        long retained = usedHeapAfterGc() - baseline;
+        if (chatMemoryCache.estimatedSize() == 0) {
+            throw new IllegalStateException();
+        }
+        return new Result(coldNanos, retained);
+    }
+
+    private static StreamingChatModel newModel(String baseUrl, OkHttpClient sharedClient) {
+        return OpenAiStreamingChatModel.builder()
+                .httpClientBuilder(new OkHttpAiHttpClientBuilder(sharedClient))
+                .baseUrl(baseUrl)
+                .apiKey("bench")
+                .modelName("bench")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static MessageWindowChatMemory newChatMemory(long appId, InMemoryChatMemoryStore store) {
+        return MessageWindowChatMemory.builder()
+                .id(appId)
+                .chatMemoryStore(store)
+                .maxMessages(50)
+                .build();
+    }
+
+    /**
+     * 与 AiCodeGeneratorServiceFactory 中 VUE_PROJECT 的配置相同
+     */
+    private static AiCodeGeneratorService buildService(StreamingChatModel model, ChatMemoryProvider chatMemoryProvider) {
+        return AiServices.builder(AiCodeGeneratorService.class)
+                .streamingChatModel(model)
+                .chatMemoryProvider(chatMemoryProvider)
+                .tools(new FileWriteTool(), new FileReadTool(), new FileModifyTool(), new FileDeleteTool(),
+                        new FileDirReadTool(), new ExitTool(), new TemplateCopyTool())
+                .hallucinatedToolNameStrategy(toolExecutionRequest -> ToolExecutionResultMessage.from(
+                        toolExecutionRequest, "Error: there is no tool called " + toolExecutionRequest.name()
+                ))
+                .inputGuardrails(new PromptSafetyInputGuardrail())
+                .maxSequentialToolsInvocations(20)
+                .build();
+    }
+
+    private static void call(AiCodeGeneratorService service, long appId) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        TokenStream tokenStream = service.generateVueProjectCodeStream(appId, USER_MESSAGE);
+        tokenStream.onPartialResponse(token -> {
+                })
+                .onCompleteResponse(response -> done.complete(null))
+                .onError(done::completeExceptionally)
+                .start();
+        done.get(30, TimeUnit.SECONDS);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void print(int round, String name, Result result, int apps) {
+        List<Long> sorted = new ArrayList<>(result.coldNanos());
+        Collections.sort(sorted);
+        double avg = sorted.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6;
+        double p50 = sorted.get(sorted.size() / 2) / 1e6;
+        double p99 = sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.99) - 1)) / 1e6;
+        System.out.printf("第 %d 轮 %s: %d 个应用冷请求 平均 %.2f ms p50 %.2f ms p99 %.2f ms，持有堆内存 %.1f MB（每个应用 %.1f KB）%n",
+                round, name, apps, avg, p50, p99, result.retainedBytes() / 1024.0 / 1024,
+                result.retainedBytes() / 1024.0 / apps);
+    }
+}
@@ -0,0 +1,181 @@
+package com.feiwu.yikouai.benchmark;
+
+import com.feiwu.yikouai.core.affinity.AppAffinityRing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+/**
+ * ClassName:AppAffinityRoutingBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 应用亲和路由的缓存命中率与重新分配比例（纯计算模拟，不需要外部服务）
+ * bench.nodes 个节点，每个节点一个容量为 bench.cache-size 的 LRU（对应 AI 服务 / 对话记忆实例缓存），
+ * bench.apps 个应用按 Zipf(bench.zipf) 分布发起 bench.requests 次请求，对比：
+ * 1. 轮询负载均衡 vs 一致性哈希（AppAffinityRing，bench.virtual-nodes 个虚拟节点）下的本地缓存命中率与各节点负载
+ * 2. 增加 / 减少一个节点时改变归属的应用比例：一致性哈希 vs appId 取模，以及加入节点后紧接着 bench.after-requests 次请求的命中率
+ * 运行方式：执行 main 方法，参数通过系统属性设置：
+ * -Dbench.nodes=4 -Dbench.apps=20000 -Dbench.requests=500000 -Dbench.after-requests=20000 -Dbench.cache-size=1000 -Dbench.zipf=1.0 -Dbench.virtual-nodes=160
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/27 10:20
+ * Version: 1.0
+ */
+public class AppAffinityRoutingBenchmark {
+
+    private static final int NODES = Integer.getInteger("bench.nodes", 4);
+
+    private static final int APPS = Integer.getInteger("bench.apps", 20_000);
+
+    private static final int REQUESTS = Integer.getInteger("bench.requests", 500_000);
+
+    private static final int AFTER_REQUESTS = Integer.getInteger("bench.after-requests", 20_000);
+
+    private static final int CACHE_SIZE = Integer.getInteger("bench.cache-size", 1000);
+
+    private static final double ZIPF = Double.parseDouble(System.getProperty("bench.zipf", "1.0"));
+
+    private static final int VIRTUAL_NODES = Integer.getInteger("bench.virtual-nodes", 160);
+
+    /**
+     * 每个节点的 LRU 缓存
+     */
+    private static final class Node {
+
+        private final Map<Long, Boolean> cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        private long requests;
+
+        private long hits;
+
+        boolean access(long appId) {
+            requests++;
+            if (cache.put(appId, Boolean.TRUE) != null) {
+                hits++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static void main(String[] args) {
+        long[] appIds = new long[APPS];
+        Random idRandom = new Random(7);
+        for (int i = 0; i < APPS; i++) {
+            // 与雪花 ID 相近的量级
+            appIds[i] = 300_000_000_000_000_000L + (idRandom.nextLong() >>> 20);
+        }
+        long[] workload = zipfWorkload(appIds, REQUESTS, new Random(42));
+        System.out.printf("%d 个节点，%d 个应用，%d 次请求，每个节点缓存 %d 个应用，Zipf %.2f%n",
+                NODES, APPS, REQUESTS, CACHE_SIZE, ZIPF);
+
+        List<String> nodeIds = nodeIds(NODES);
+        long[] roundRobin = {0};
+        List<Node> rrNodes = newNodes(NODES);
+        run("轮询", rrNodes, workload, appId -> (int) (roundRobin[0]++ % NODES));
+        AppAffinityRing ring = AppAffinityRing.of(nodeIds, VIRTUAL_NODES);
+        List<Node> affinityNodes = newNodes(NODES);
+        run("一致性哈希", affinityNodes, workload, appId -> nodeIds.indexOf(ring.locate(appId)));
+
+        // 节点加入与离开：在已预热的缓存上继续请求
+        long[] after = zipfWorkload(appIds, AFTER_REQUESTS, new Random(43));
+        List<String> joined = nodeIds(NODES + 1);
+        List<String> left = nodeIds(NODES - 1);
+        AppAffinityRing joinedRing = AppAffinityRing.of(joined, VIRTUAL_NODES);
+        AppAffinityRing leftRing = AppAffinityRing.of(left, VIRTUAL_NODES);
+        System.out.printf("加入一个节点: 一致性哈希 %.1f%% 的应用改变归属（抽样 %.1f%%），取模 %.1f%%%n",
+                100 * moved(appIds, ring::locate, joinedRing::locate), 100 * joinedRing.movedRatio(ring, 10_000),
+                100 * moved(appIds, appId -> "node-" + Math.floorMod(appId, NODES), appId -> "node-" + Math.floorMod(appId, NODES + 1)));
+        System.out.printf("离开一个节点: 一致性哈希 %.1f%% 的应用改变归属（抽样 %.1f%%），取模 %.1f%%%n",
+                100 * moved(appIds, ring::locate, leftRing::locate), 100 * leftRing.movedRatio(ring, 10_000),
+                100 * moved(appIds, appId -> "node-" + Math.floorMod(appId, NODES), appId -> "node-" + Math.floorMod(appId, NODES - 1)));
+
+        List<Node> joinedNodes = warmNodes(affinityNodes, NODES + 1);
+        run("加入节点后 一致性哈希", joinedNodes, after, appId -> joined.indexOf(joinedRing.locate(appId)));
+        List<Node> moduloNodes = newNodes(NODES);
+        run("取模（预热）", moduloNodes, workload, appId -> (int) Math.floorMod(appId, NODES));
+        run("加入节点后 取模", warmNodes(moduloNodes, NODES + 1), after, appId -> (int) Math.floorMod(appId, NODES + 1));
+    }
+
+    private static void run(String name, List<Node> nodes, long[] workload, LongFunction<Integer> router) {
+        nodes.forEach(node -> {
+            node.requests = 0;
+            node.hits = 0;
+        });
+        long hits = 0;
+        for (long appId : workload) {
+            if (nodes.get(router.apply(appId)).access(appId)) {
+                hits++;
+            }
+        }
+        StringBuilder load = new StringBuilder();
+        for (Node node : nodes) {
+            load.append(String.format(" %.1f%%", 100.0 * node.requests / workload.length));
+        }
+        System.out.printf("%s: 本地缓存命中率 %.1f%%，各节点请求占比%s%n", name, 100.0 * hits / workload.length, load);
+    }
+
+    private static double moved(long[] appIds, LongFunction<String> before, LongFunction<String> after) {
+        int moved = 0;
+        for (long appId : appIds) {
+            if (!before.apply(appId).equals(after.apply(appId))) {
+                moved++;
+            }
+        }
+        return (double) moved / appIds.length;
+    }
+
+    /**
+     * 原有节点保留缓存，新节点为空（只用于加入节点的场景）
+     */
+    private static List<Node> warmNodes(List<Node> existing, int count) {
+        List<Node> nodes = new ArrayList<>(existing);
+        while (nodes.size() < count) {
+            nodes.add(new Node());
+        }
+        return nodes;
+    }
+
+    private static List<Node> newNodes(int count) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new Node());
+        }
+        return nodes;
+    }
+
+    private static List<String> nodeIds(int count) {
+        List<String> nodeIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodeIds.add("node-" + i);
+        }
+        return nodeIds;
+    }
+
+    /**
+     * 按 Zipf 分布生成请求序列：第 k 热门的应用被请求的概率与 1 / k^s 成正比
+     */
+    private static long[] zipfWorkload(long[] appIds, int requests, Random random) {
+        double[] cumulative = new double[appIds.length];
+        double sum = 0;
+        for (int k = 0; k < appIds.length; k++) {
+            sum += 1 / Math.pow(k + 1, ZIPF);
+            cumulative[k] = sum;
+        }
+        long[] workload = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            double target = random.nextDouble() * sum;
+            int index = java.util.Arrays.binarySearch(cumulative, target);
+            workload[i] = appIds[index >= 0 ? index : -index - 1];
+        }
+        return workload;
+    }
+}
@@ -0,0 +1,206 @@
+package com.feiwu.yikouai.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ClassName:ChatHistoryPagingBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 对话历史翻页对比：原实现（每页 COUNT(*) + createTime 单字段游标） vs (createTime, id) 组合游标（多取一条判断 hasMore，不 COUNT）
+ * 在独立的 chat_history_paging_bench 表（结构与 chat_history 相同）中为一个应用写入 bench.messages 条消息，
+ * 每秒 bench.per-second 条（模拟同一秒内的多条消息），从最新一页翻到最早一页，
+ * 输出每页耗时的平均值和 p99、翻完全部历史的总耗时，以及看到的不重复消息数（单字段游标会跳过同一秒内的消息）
+ * 运行前需要可用的 MySQL，运行方式：执行 main 方法，参数通过系统属性设置：
+ * -Dbench.jdbc-url=jdbc:mysql://127.0.0.1:3306/yikou_ai?rewriteBatchedStatements=true -Dbench.jdbc-user=root -Dbench.jdbc-password=
+ * -Dbench.messages=100000 -Dbench.per-second=5 -Dbench.page-size=10 -Dbench.rounds=3
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/24 15:20
+ * Version: 1.0
+ */
+public class ChatHistoryPagingBenchmark {
+
+    private static final String TABLE = "chat_history_paging_bench";
+
+    private static final long APP_ID = 1L;
+
+    private static final String JDBC_URL = System.getProperty("bench.jdbc-url",
+            "jdbc:mysql://127.0.0.1:3306/yikou_ai?useSSL=false&rewriteBatchedStatements=true");
+
+    private static final String JDBC_USER = System.getProperty("bench.jdbc-user", "root");
+
+    private static final String JDBC_PASSWORD = System.getProperty("bench.jdbc-password", "");
+
+    private static final String FILTER = " WHERE appId = ? AND messageType IN ('user', 'ai')";
+
+    private record ScrollResult(List<Long> pageNanos, long totalNanos, int rows, int uniqueRows) {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int messages = Integer.getInteger("bench.messages", 100_000);
+        int perSecond = Integer.getInteger("bench.per-second", 5);
+        int pageSize = Integer.getInteger("bench.page-size", 10);
+        int rounds = Integer.getInteger("bench.rounds", 3);
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD)) {
+            prepareTable(connection, messages, perSecond);
+            for (int round = 1; round <= rounds; round++) {
+                // 第一轮包含缓冲池预热
+                print(round, "COUNT+时间游标", scrollWithCount(connection, pageSize), messages);
+                print(round, "组合游标", scrollWithKeyset(connection, pageSize), messages);
+            }
+        }
+    }
+
+    /**
+     * 原实现：每页一次 COUNT(*)，游标只有 createTime
+     */
+    private static ScrollResult scrollWithCount(Connection connection, int pageSize) throws SQLException {
+        List<Long> pageNanos = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int rows = 0;
+        Timestamp lastCreateTime = null;
+        long start = System.nanoTime();
+        try (PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM " + TABLE + FILTER);
+             PreparedStatement first = connection.prepareStatement("SELECT id, createTime FROM " + TABLE + FILTER +
+                     " ORDER BY createTime DESC LIMIT ?");
+             PreparedStatement next = connection.prepareStatement("SELECT id, createTime FROM " + TABLE + FILTER +
+                     " AND createTime < ? ORDER BY createTime DESC LIMIT ?")) {
+            while (true) {
+                long pageStart = System.nanoTime();
+                count.setLong(1, APP_ID);
+                try (ResultSet resultSet = count.executeQuery()) {
+                    resultSet.next();
+                }
+                PreparedStatement select = lastCreateTime == null ? first : next;
+                select.setLong(1, APP_ID);
+                if (lastCreateTime != null) {
+                    select.setTimestamp(2, lastCreateTime);
+                    select.setInt(3, pageSize);
+                } else {
+                    select.setInt(2, pageSize);
+                }
+                int pageRows = 0;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        seen.add(resultSet.getLong(1));
+                        lastCreateTime = resultSet.getTimestamp(2);
+                        pageRows++;
+                    }
+                }
+                pageNanos.add(System.nanoTime() - pageStart);
+                rows += pageRows;
+                if (pageRows < pageSize) {
+                    break;
+                }
+            }
+        }
+        return new ScrollResult(pageNanos, System.nanoTime() - start, rows, seen.size());
+    }
+
+    /**
+     * (createTime, id) 组合游标，取 pageSize + 1 条判断 hasMore
+     */
+    private static ScrollResult scrollWithKeyset(Connection connection, int pageSize) throws SQLException {
+        List<Long> pageNanos = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int rows = 0;
+        Timestamp lastCreateTime = null;
+        long lastId = 0;
+        long start = System.nanoTime();
+        try (PreparedStatement first = connection.prepareStatement("SELECT id, createTime FROM " + TABLE + FILTER +
+                " ORDER BY createTime DESC, id DESC LIMIT ?");
+             PreparedStatement next = connection.prepareStatement("SELECT id, createTime FROM " + TABLE + FILTER +
+                     " AND (createTime < ? OR (createTime = ? AND id < ?)) ORDER BY createTime DESC, id DESC LIMIT ?")) {
+            boolean hasMore = true;
+            while (hasMore) {
+                long pageStart = System.nanoTime();
+                PreparedStatement select = lastCreateTime == null ? first : next;
+                select.setLong(1, APP_ID);
+                if (lastCreateTime != null) {
+                    select.setTimestamp(2, lastCreateTime);
+                    select.setTimestamp(3, lastCreateTime);
+                    select.setLong(4, lastId);
+                    select.setInt(5, pageSize + 1);
+                } else {
+                    select.setInt(2, pageSize + 1);
+                }
+                int pageRows = 0;
+                hasMore = false;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (pageRows == pageSize) {
+                            hasMore = true;
+                            break;
+                        }
+                        lastId = resultSet.getLong(1);
+                        lastCreateTime = resultSet.getTimestamp(2);
+                        seen.add(lastId);
+                        pageRows++;
+                    }
+                }
+                pageNanos.add(System.nanoTime() - pageStart);
+                rows += pageRows;
+            }
+        }
+        return new ScrollResult(pageNanos, System.nanoTime() - start, rows, seen.size());
+    }
+
+    private static void prepareTable(Connection connection, int messages, int perSecond) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (" +
+                    "id bigint auto_increment primary key, message text not null, messageType varchar(32) not null, " +
+                    "appId bigint not null, userId bigint not null, turnNumber int not null default 1, " +
+                    "createTime datetime default CURRENT_TIMESTAMP not null, " +
+                    "updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP, " +
+                    "isDelete tinyint default 0 not null, " +
+                    "INDEX idx_appId (appId), INDEX idx_createTime (createTime), " +
+                    "INDEX idx_appId_createTime_id (appId, createTime, id)" +
+                    ") collate = utf8mb4_unicode_ci");
+        }
+        connection.setAutoCommit(false);
+        LocalDateTime base = LocalDateTime.now().withNano(0).minusSeconds(messages / perSecond + 1);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE +
+                " (message, messageType, appId, userId, turnNumber, createTime) VALUES (?, ?, ?, 1, ?, ?)")) {
+            for (int i = 0; i < messages; i++) {
+                insert.setString(1, "history message " + i);
+                insert.setString(2, i % 2 == 0 ? "user" : "ai");
+                insert.setLong(3, APP_ID);
+                insert.setInt(4, i / 2 + 1);
+                insert.setTimestamp(5, Timestamp.valueOf(base.plusSeconds(i / perSecond)));
+                insert.addBatch();
+                if (i % 5000 == 4999) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + TABLE);
+        }
+    }
+
+    private static void print(int round, String name, ScrollResult result, int messages) {
+        List<Long> sorted = new ArrayList<>(result.pageNanos());
+        Collections.sort(sorted);
+        double average = sorted.stream().mapToLong(Long::longValue).average().orElse(0);
+        long p99 = sorted.isEmpty() ? 0 : sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.99) - 1));
+        System.out.printf("第 %d 轮 %-12s %d 页，每页平均 %.3f ms，p99 %.3f ms，总耗时 %d ms，读取 %d 条，不重复 %d / %d 条%n",
+                round, name, sorted.size(), average / 1e6, p99 / 1e6, result.totalNanos() / 1_000_000,
+                result.rows(), result.uniqueRows(), messages);
+    }
+}
@@ -0,0 +1,124 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.feiwu.yikouai.ai.memory.AppendOnlyRedisChatMemoryStore;
+import com.feiwu.yikouai.monitor.ChatMemoryStoreMetricsCollector;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * ClassName:ChatMemoryStoreBytesBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 一轮 VUE_PROJECT 生成写入 Redis 的字节数：RedisChatMemoryStore（整体 JSON 重写） vs AppendOnlyRedisChatMemoryStore
+ * 模拟 50 条窗口的对话记忆：先有 20 条历史消息，每轮一条系统消息、一条用户消息、bench.tool-calls 次 writeFile 工具调用
+ * （参数中包含约 bench.file-chars 字符的文件内容）及其结果、一条最终回复，连续 bench.turns 轮（后面几轮触发窗口淘汰）
+ * 每轮前后读取 Redis INFO stats 中的 total_net_input_bytes（Redis 收到的全部字节，包括读取命令本身），运行时 Redis 上不应有其他客户端
+ * 运行方式：执行 main 方法，参数通过系统属性设置：
+ * -Dbench.redis=redis://127.0.0.1:6379 -Dbench.turns=3 -Dbench.tool-calls=15 -Dbench.file-chars=6000 -Dbench.compress-threshold=1024
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/25 10:30
+ * Version: 1.0
+ */
+public class ChatMemoryStoreBytesBenchmark {
+
+    private static final int TOOL_CALLS = Integer.getInteger("bench.tool-calls", 15);
+
+    private static final int FILE_CHARS = Integer.getInteger("bench.file-chars", 6000);
+
+    public static void main(String[] args) {
+        String redisAddress = System.getProperty("bench.redis", "redis://127.0.0.1:6379");
+        int turns = Integer.getInteger("bench.turns", 3);
+        int compressThreshold = Integer.getInteger("bench.compress-threshold", 1024);
+        Config config = new Config();
+        config.useSingleServer().setAddress(redisAddress);
+        RedissonClient redissonClient = Redisson.create(config);
+        try {
+            URI uri = URI.create(redisAddress);
+            ChatMemoryStore blobStore = RedisChatMemoryStore.builder()
+                    .host(uri.getHost())
+                    .port(uri.getPort())
+                    .ttl(3600L)
+                    .build();
+            ChatMemoryStoreMetricsCollector metricsCollector = new ChatMemoryStoreMetricsCollector();
+            ReflectionTestUtils.setField(metricsCollector, "meterRegistry", new SimpleMeterRegistry());
+            metricsCollector.init();
+            ChatMemoryStore appendOnlyStore = new AppendOnlyRedisChatMemoryStore(redissonClient, Duration.ofHours(1),
+                    compressThreshold, 100, Duration.ofMinutes(30), metricsCollector);
+            run("RedisChatMemoryStore", blobStore, redissonClient, turns, 900_001L);
+            run("AppendOnlyRedisChatMemoryStore", appendOnlyStore, redissonClient, turns, 900_002L);
+        } finally {
+            redissonClient.shutdown();
+        }
+    }
+
+    private static void run(String name, ChatMemoryStore store, RedissonClient redissonClient, int turns, long memoryId) {
+        store.deleteMessages(memoryId);
+        MessageWindowChatMemory chatMemory = MessageWindowChatMemory.builder()
+                .id(memoryId)
+                .maxMessages(50)
+                .chatMemoryStore(store)
+                .build();
+        for (int i = 0; i < 10; i++) {
+            chatMemory.add(UserMessage.from("历史需求 " + i));
+            chatMemory.add(AiMessage.from("历史回复 " + i));
+        }
+        for (int turn = 1; turn <= turns; turn++) {
+            long before = netInputBytes(redissonClient);
+            simulateTurn(chatMemory, turn);
+            long written = netInputBytes(redissonClient) - before;
+            System.out.printf("%-32s 第 %d 轮 Redis 收到 %,d 字节%n", name, turn, written);
+        }
+        store.deleteMessages(memoryId);
+    }
+
+    private static void simulateTurn(MessageWindowChatMemory chatMemory, int turn) {
+        chatMemory.add(SystemMessage.from("你是一位资深的 Vue3 前端架构师，精通现代前端工程化开发。".repeat(60)));
+        chatMemory.add(UserMessage.from("第 " + turn + " 轮需求：做一个博客首页，包含导航栏、文章列表和侧边栏"));
+        for (int i = 0; i < TOOL_CALLS; i++) {
+            String path = "src/components/Component" + i + ".vue";
+            ToolExecutionRequest request = ToolExecutionRequest.builder()
+                    .id("call_" + turn + "_" + i)
+                    .name("writeFile")
+                    .arguments("{\"relativeFilePath\":\"" + path + "\",\"content\":" + JSONUtil.quote(fileContent(turn * 100 + i)) + "}")
+                    .build();
+            chatMemory.add(AiMessage.from(request));
+            chatMemory.add(ToolExecutionResultMessage.from(request, "文件写入成功: " + path));
+        }
+        chatMemory.add(AiMessage.from("第 " + turn + " 轮的修改已全部完成"));
+    }
+
+    private static String fileContent(int seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder("<template>\n");
+        while (builder.length() < FILE_CHARS) {
+            builder.append("  <div class=\"card-").append(random.nextInt(100_000)).append(" p-").append(random.nextInt(8))
+                    .append("\">{{ items[").append(random.nextInt(1000)).append("].title }}</div>\n");
+        }
+        return builder.append("</template>\n").toString();
+    }
+
+    private static long netInputBytes(RedissonClient redissonClient) {
+        String value = redissonClient.getRedisNodes(RedisNodes.SINGLE).getInstance()
+                .info(RedisNode.InfoSection.STATS)
+                .get("total_net_input_bytes");
+        return value == null ? 0 : Long.parseLong(value);
+    }
+}
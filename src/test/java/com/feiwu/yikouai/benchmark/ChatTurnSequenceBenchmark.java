@@ -0,0 +1,194 @@
+package com.feiwu.yikouai.benchmark;
+
+import org.redisson.Redisson;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName:ChatTurnSequenceBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 对话消息写入吞吐对比：每条消息先 SELECT 最大轮数再 INSERT（原实现） vs Redis INCR 分配轮数后 INSERT
+ * 在独立的 chat_history_turn_bench 表（结构与 chat_history 相同）中预先写入大量历史消息，
+ * 多个线程随机选择应用持续写入用户消息，输出每秒写入条数、单条耗时 p50/p99，以及同一应用出现重复轮数的次数
+ * 运行前需要可用的 MySQL 和 Redis，运行方式：执行 main 方法，参数通过系统属性设置：
+ * -Dbench.jdbc-url=jdbc:mysql://127.0.0.1:3306/yikou_ai?rewriteBatchedStatements=true -Dbench.jdbc-user=root -Dbench.jdbc-password=
+ * -Dbench.redis=redis://127.0.0.1:6379 -Dbench.rows=1000000 -Dbench.apps=1000 -Dbench.threads=16 -Dbench.seconds=30
+ * -Dbench.covering-index=true（是否创建 (appId, messageType, turnNumber) 索引）
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/24 09:40
+ * Version: 1.0
+ */
+public class ChatTurnSequenceBenchmark {
+
+    private static final String TABLE = "chat_history_turn_bench";
+
+    private static final String TURN_KEY_PREFIX = "bench:chat:turn:";
+
+    private static final String JDBC_URL = System.getProperty("bench.jdbc-url",
+            "jdbc:mysql://127.0.0.1:3306/yikou_ai?useSSL=false&rewriteBatchedStatements=true");
+
+    private static final String JDBC_USER = System.getProperty("bench.jdbc-user", "root");
+
+    private static final String JDBC_PASSWORD = System.getProperty("bench.jdbc-password", "");
+
+    private static final int APPS = Integer.getInteger("bench.apps", 1000);
+
+    private enum Mode {
+        SELECT_MAX,
+        REDIS_INCR
+    }
+
+    private record RunResult(long inserts, List<Long> latencies) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.getInteger("bench.rows", 1_000_000);
+        int threads = Integer.getInteger("bench.threads", 16);
+        int seconds = Integer.getInteger("bench.seconds", 30);
+        boolean coveringIndex = Boolean.parseBoolean(System.getProperty("bench.covering-index", "true"));
+        Config config = new Config();
+        config.useSingleServer().setAddress(System.getProperty("bench.redis", "redis://127.0.0.1:6379"));
+        RedissonClient redissonClient = Redisson.create(config);
+        try {
+            for (Mode mode : Mode.values()) {
+                prepareTable(rows, coveringIndex);
+                redissonClient.getKeys().deleteByPattern(TURN_KEY_PREFIX + "*");
+                RunResult result = run(mode, redissonClient, threads, seconds);
+                List<Long> latencies = result.latencies();
+                Collections.sort(latencies);
+                System.out.printf("%-10s 写入 %d 条，%.0f 条/秒，p50 %.2f ms，p99 %.2f ms，重复轮数 %d%n",
+                        mode, result.inserts(), result.inserts() / (double) seconds,
+                        percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, countDuplicateTurns());
+            }
+        } finally {
+            redissonClient.shutdown();
+        }
+    }
+
+    private static RunResult run(Mode mode, RedissonClient redissonClient, int threads, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+                try (Connection connection = connect();
+                     PreparedStatement select = connection.prepareStatement("SELECT turnNumber FROM " + TABLE +
+                             " WHERE appId = ? AND messageType = 'user' ORDER BY turnNumber DESC LIMIT 1");
+                     PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE +
+                             " (message, messageType, appId, userId, turnNumber) VALUES (?, 'user', ?, 1, ?)")) {
+                    while (System.nanoTime() < deadline) {
+                        long appId = ThreadLocalRandom.current().nextLong(1, APPS + 1);
+                        long start = System.nanoTime();
+                        long turn = mode == Mode.SELECT_MAX
+                                ? queryMaxTurn(select, appId) + 1
+                                : nextTurn(redissonClient, select, appId);
+                        insert.setString(1, "bench message");
+                        insert.setLong(2, appId);
+                        insert.setLong(3, turn);
+                        insert.executeUpdate();
+                        latencies.add(System.nanoTime() - start);
+                    }
+                }
+                return latencies;
+            }));
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            latencies.addAll(future.get());
+        }
+        executor.shutdown();
+        return new RunResult(latencies.size(), latencies);
+    }
+
+    /**
+     * 与 ChatTurnSequenceManager 相同：计数器不存在时从数据库初始化（只初始化一次），之后只有 INCR
+     */
+    private static long nextTurn(RedissonClient redissonClient, PreparedStatement select, long appId) throws SQLException {
+        RAtomicLong counter = redissonClient.getAtomicLong(TURN_KEY_PREFIX + appId);
+        if (!counter.isExists()) {
+            counter.compareAndSet(0, queryMaxTurn(select, appId));
+        }
+        return counter.incrementAndGet();
+    }
+
+    private static long queryMaxTurn(PreparedStatement select, long appId) throws SQLException {
+        select.setLong(1, appId);
+        try (ResultSet resultSet = select.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * 重建测试表并写入 rows 条历史消息（每个应用交替的用户消息和 AI 回复）
+     */
+    private static void prepareTable(int rows, boolean coveringIndex) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (" +
+                    "id bigint auto_increment primary key, message text not null, messageType varchar(32) not null, " +
+                    "appId bigint not null, userId bigint not null, turnNumber int not null default 1, " +
+                    "createTime datetime default CURRENT_TIMESTAMP not null, " +
+                    "updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP, " +
+                    "isDelete tinyint default 0 not null, " +
+                    "INDEX idx_appId (appId), INDEX idx_createTime (createTime), INDEX idx_appId_createTime (appId, createTime)" +
+                    (coveringIndex ? ", INDEX idx_appId_messageType_turnNumber (appId, messageType, turnNumber)" : "") +
+                    ") collate = utf8mb4_unicode_ci");
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE +
+                    " (message, messageType, appId, userId, turnNumber) VALUES (?, ?, ?, 1, ?)")) {
+                int perApp = Math.max(2, rows / APPS);
+                for (int app = 1; app <= APPS; app++) {
+                    for (int i = 0; i < perApp; i++) {
+                        insert.setString(1, "history message " + i);
+                        insert.setString(2, i % 2 == 0 ? "user" : "ai");
+                        insert.setLong(3, app);
+                        insert.setLong(4, i / 2 + 1);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    if (app % 50 == 0) {
+                        connection.commit();
+                    }
+                }
+                connection.commit();
+            }
+        }
+    }
+
+    private static long countDuplicateTurns() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM (SELECT appId, turnNumber FROM " + TABLE +
+                     " WHERE messageType = 'user' GROUP BY appId, turnNumber HAVING COUNT(*) > 1) t")) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(percentile * sorted.size()) - 1));
+    }
+}
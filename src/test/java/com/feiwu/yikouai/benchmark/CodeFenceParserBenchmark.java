@@ -0,0 +1,166 @@
+package com.feiwu.yikouai.benchmark;
+
+import com.feiwu.yikouai.ai.model.HtmlCodeResult;
+import com.feiwu.yikouai.ai.model.MultiFileCodeResult;
+import com.feiwu.yikouai.core.parse.HtmlCodeParser;
+import com.feiwu.yikouai.core.parse.MultiFileCodeParser;
+import com.feiwu.yikouai.core.parse.StreamingCodeFenceParser;
+import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName:CodeFenceParserBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 对比"整段缓存 + 正则解析"与"流式代码块解析"处理一次完整模型输出的耗时和分配字节数
+ * 运行方式：执行 main 方法，结果中的 gc.alloc.rate.norm 即为每次响应的分配字节数
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/19 15:40
+ * Version: 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeFenceParserBenchmark {
+
+    private static final HtmlCodeParser HTML_CODE_PARSER = new HtmlCodeParser();
+
+    private static final MultiFileCodeParser MULTI_FILE_CODE_PARSER = new MultiFileCodeParser();
+
+    @Param({"HTML", "MULTI_FILE"})
+    private String codeGenType;
+
+    /**
+     * 模型输出中每个代码块的大致字符数
+     */
+    @Param({"4096", "32768"})
+    private int fenceSize;
+
+    private List<String> chunks;
+
+    @Setup
+    public void setUp() {
+        CodeGenTypeEnum typeEnum = CodeGenTypeEnum.valueOf(codeGenType);
+        String response = buildResponse(typeEnum, fenceSize);
+        // 模型增量通常为几个字符
+        chunks = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < response.length(); ) {
+            int end = Math.min(response.length(), i + 1 + random.nextInt(8));
+            chunks.add(response.substring(i, end));
+            i = end;
+        }
+        // 两种解析方式的结果必须一致
+        Map<String, String> expected = regexParse(typeEnum, response);
+        Map<String, String> actual = streamingParse(typeEnum, chunks);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("流式解析结果与正则解析结果不一致: " + expected.keySet() + " vs " + actual.keySet());
+        }
+    }
+
+    /**
+     * 原路径：缓存整段输出，结束后运行正则解析
+     */
+    @Benchmark
+    public void regexParser(Blackhole blackhole) {
+        StringBuilder codeBuilder = new StringBuilder();
+        for (String chunk : chunks) {
+            codeBuilder.append(chunk);
+        }
+        blackhole.consume(regexParse(CodeGenTypeEnum.valueOf(codeGenType), codeBuilder.toString()));
+    }
+
+    /**
+     * 新路径：逐段输入，代码块闭合时回调
+     */
+    @Benchmark
+    public void streamingParser(Blackhole blackhole) {
+        blackhole.consume(streamingParse(CodeGenTypeEnum.valueOf(codeGenType), chunks));
+    }
+
+    private static Map<String, String> regexParse(CodeGenTypeEnum typeEnum, String response) {
+        Map<String, String> files = new HashMap<>();
+        if (typeEnum == CodeGenTypeEnum.HTML) {
+            HtmlCodeResult result = HTML_CODE_PARSER.parseCode(response);
+            files.put("html", result.getHtmlCode());
+        } else {
+            MultiFileCodeResult result = MULTI_FILE_CODE_PARSER.parseCode(response);
+            files.put("html", result.getHtmlCode());
+            files.put("css", result.getCssCode());
+            files.put("js", result.getJsCode());
+        }
+        files.values().removeIf(Objects::isNull);
+        return files;
+    }
+
+    private static Map<String, String> streamingParse(CodeGenTypeEnum typeEnum, List<String> chunks) {
+        Map<String, String> files = new HashMap<>();
+        StreamingCodeFenceParser parser = typeEnum == CodeGenTypeEnum.HTML
+                ? new StreamingCodeFenceParser(Set.of("html"), "html", (language, code) -> files.put(language, code.trim()))
+                : new StreamingCodeFenceParser(Set.of("html", "css", "js"), null, (language, code) -> files.put(language, code.trim()));
+        for (String chunk : chunks) {
+            parser.feed(chunk);
+        }
+        String fallbackContent = parser.getFallbackContent();
+        if (fallbackContent != null) {
+            files.put("html", fallbackContent.trim());
+        }
+        files.values().removeIf(String::isEmpty);
+        return files;
+    }
+
+    private static String buildResponse(CodeGenTypeEnum typeEnum, int fenceSize) {
+        StringBuilder response = new StringBuilder();
+        response.append("好的，下面是根据你的需求生成的页面代码，使用了 `flex` 布局：\n\n");
+        response.append("```html\n<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<head>\n<meta charset=\"UTF-8\">\n");
+        if (typeEnum == CodeGenTypeEnum.MULTI_FILE) {
+            response.append("<link rel=\"stylesheet\" href=\"style.css\">\n");
+        }
+        response.append("</head>\n<body>\n");
+        while (response.length() < fenceSize) {
+            response.append("  <section class=\"card\"><h2>标题</h2><p>这里是一段介绍文字，包含 <code>inline</code> 代码。</p></section>\n");
+        }
+        response.append("</body>\n</html>\n```\n\n");
+        if (typeEnum == CodeGenTypeEnum.MULTI_FILE) {
+            response.append("样式文件：\n\n```css\n");
+            int start = response.length();
+            while (response.length() - start < fenceSize / 2) {
+                response.append(".card { display: flex; padding: 16px; border-radius: 8px; color: #333; }\n");
+            }
+            response.append("```\n\n脚本文件：\n\n```javascript\n");
+            start = response.length();
+            while (response.length() - start < fenceSize / 2) {
+                response.append("document.querySelectorAll('.card').forEach(el => el.classList.add(`active`));\n");
+            }
+            response.append("```\n\n");
+        }
+        response.append("以上代码可以直接在浏览器中打开预览。");
+        return response.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CodeFenceParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
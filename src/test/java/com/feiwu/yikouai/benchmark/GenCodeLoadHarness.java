@@ -0,0 +1,307 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.feiwu.yikouai.YikouAiFeiwuApplication;
+import com.feiwu.yikouai.mock.MockOpenAiServer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ClassName:GenCodeLoadHarness
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: /app/chat/gen/code 压测工具，在本机完全离线运行
+ * 启动本地 Mock OpenAI 服务并将所有模型的 base-url 指向它，在同一进程中启动完整的 Spring 应用，
+ * 通过 HTTP 为每个并发会话注册用户、登录、创建应用，然后同时发起 N 个 SSE 生成会话，
+ * 统计首字节时间（收到第一条 SSE 数据）p50/p99、会话耗时、吞吐量，以及进程的堆内存和平台线程数峰值
+ * 运行前需要本机可用的 MySQL 和 Redis（可以通过程序参数覆盖，如 --spring.datasource.url=... --spring.data.redis.host=127.0.0.1）
+ * 运行方式：执行 main 方法，程序参数原样传给 Spring 应用，压测参数通过系统属性设置：
+ * -Dload.sessions=50 -Dload.ttft-ms=500 -Dload.tps=50 -Dload.response-chars=4000 -Dload.error-rate=0 -Dload.error-mode=HTTP_500
+ * 注意每个用户每分钟最多 5 次生成请求（@RateLimit），因此每个会话使用独立的用户；VUE_PROJECT 生成结束时会执行 npm 构建，离线环境建议使用 HTML
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/22 16:10
+ * Version: 1.0
+ */
+public class GenCodeLoadHarness {
+
+    private static final String PASSWORD = "12345678";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final String apiBaseUrl;
+
+    private GenCodeLoadHarness(String apiBaseUrl) {
+        this.apiBaseUrl = apiBaseUrl;
+    }
+
+    /**
+     * 一个压测会话：已登录用户及其应用
+     */
+    private record Session(String cookie, long appId) {
+    }
+
+    /**
+     * 一次生成会话的结果
+     */
+    private record SessionResult(boolean success, long firstByteNanos, long durationNanos, long events, long bytes, String error) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = Integer.getInteger("load.sessions", 50);
+        String codeGenType = System.getProperty("load.code-gen-type", "HTML");
+        MockOpenAiServer.Options mockOptions = MockOpenAiServer.Options.builder()
+                .timeToFirstToken(Duration.ofMillis(Long.getLong("load.ttft-ms", 500L)))
+                .tokensPerSecond(Double.parseDouble(System.getProperty("load.tps", "50")))
+                .responseChars(Integer.getInteger("load.response-chars", 4000))
+                .completionContent(codeGenType)
+                .errorRate(Double.parseDouble(System.getProperty("load.error-rate", "0")))
+                .errorMode(MockOpenAiServer.ErrorMode.valueOf(System.getProperty("load.error-mode", "HTTP_500")))
+                .build();
+        try (MockOpenAiServer mockServer = new MockOpenAiServer(mockOptions).start()) {
+            ConfigurableApplicationContext context = SpringApplication.run(YikouAiFeiwuApplication.class,
+                    springArgs(mockServer.getBaseUrl(), args));
+            try {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+                GenCodeLoadHarness harness = new GenCodeLoadHarness("http://127.0.0.1:" + port + contextPath);
+                harness.run(sessions, mockServer);
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 所有模型指向 Mock 服务，其余配置可以被程序参数覆盖
+     */
+    private static String[] springArgs(String mockBaseUrl, String[] args) {
+        List<String> springArgs = new ArrayList<>();
+        springArgs.add("--server.port=0");
+        for (String model : List.of("chat-model", "streaming-chat-model", "reasoning-streaming-chat-model", "routing-chat-model")) {
+            String prefix = "--langchain4j.open-ai." + model + ".";
+            springArgs.add(prefix + "base-url=" + mockBaseUrl);
+            springArgs.add(prefix + "api-key=mock");
+            springArgs.add(prefix + "model-name=mock-model");
+            springArgs.add(prefix + "timeout=120s");
+        }
+        springArgs.add("--pexels.api-key=mock");
+        springArgs.add("--cos.client.secret-id=mock");
+        springArgs.add("--cos.client.secret-key=mock");
+        springArgs.add("--cos.client.region=ap-shanghai");
+        springArgs.add("--cos.client.bucket=mock");
+        springArgs.add("--cos.client.host=http://127.0.0.1");
+        Collections.addAll(springArgs, args);
+        return springArgs.toArray(String[]::new);
+    }
+
+    private void run(int sessions, MockOpenAiServer mockServer) throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        System.out.printf("准备 %d 个用户和应用...%n", sessions);
+        List<Session> prepared = new ArrayList<>(sessions);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Session>> futures = new ArrayList<>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                String account = "load_" + runId + "_" + i;
+                futures.add(executor.submit(() -> prepare(account)));
+            }
+            for (Future<Session> future : futures) {
+                prepared.add(future.get());
+            }
+        }
+
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long baselineHeap = memoryBean.getHeapMemoryUsage().getUsed();
+        int baselineThreads = threadBean.getThreadCount();
+        AtomicLong peakHeap = new AtomicLong(baselineHeap);
+        AtomicLong peakThreads = new AtomicLong(baselineThreads);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(memoryBean.getHeapMemoryUsage().getUsed(), Math::max);
+            peakThreads.accumulateAndGet(threadBean.getThreadCount(), Math::max);
+        }, 0, 50, TimeUnit.MILLISECONDS);
+
+        System.out.printf("同时发起 %d 个生成会话...%n", sessions);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<SessionResult> results = new ArrayList<>(sessions);
+        long start;
+        long elapsed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<SessionResult>> futures = new ArrayList<>(sessions);
+            for (Session session : prepared) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    return generate(session);
+                }));
+            }
+            start = System.nanoTime();
+            startSignal.countDown();
+            for (Future<SessionResult> future : futures) {
+                results.add(future.get());
+            }
+            elapsed = System.nanoTime() - start;
+        } finally {
+            sampler.shutdownNow();
+        }
+        report(results, elapsed, baselineHeap, peakHeap.get(), baselineThreads, peakThreads.get(), mockServer);
+    }
+
+    /**
+     * 注册、登录并创建应用
+     */
+    private Session prepare(String account) throws Exception {
+        JSONObject register = JSONUtil.createObj()
+                .set("userAccount", account)
+                .set("userPassword", PASSWORD)
+                .set("checkPassword", PASSWORD);
+        checkSuccess(postJson("/user/register", register, null).body());
+        JSONObject login = JSONUtil.createObj()
+                .set("userAccount", account)
+                .set("userPassword", PASSWORD);
+        HttpResponse<String> loginResponse = postJson("/user/login", login, null);
+        checkSuccess(loginResponse.body());
+        String cookie = loginResponse.headers().allValues("Set-Cookie").stream()
+                .map(value -> value.split(";", 2)[0])
+                .reduce((a, b) -> a + "; " + b)
+                .orElseThrow(() -> new IllegalStateException("登录未返回 Cookie"));
+        JSONObject app = JSONUtil.createObj().set("initPrompt", "帮我生成一个个人博客首页");
+        long appId = checkSuccess(postJson("/app/add", app, cookie).body()).getLong("data");
+        return new Session(cookie, appId);
+    }
+
+    private SessionResult generate(Session session) {
+        String url = apiBaseUrl + "/app/chat/gen/code?appId=" + session.appId()
+                + "&message=" + URLEncoder.encode("帮我生成一个个人博客首页", StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Cookie", session.cookie())
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofMinutes(5))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        long firstByte = -1;
+        long events = 0;
+        long bytes = 0;
+        boolean done = false;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                return new SessionResult(false, -1, System.nanoTime() - start, 0, 0, "HTTP " + response.statusCode());
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    bytes += line.length() + 1;
+                    if (line.startsWith("data:")) {
+                        if (firstByte < 0) {
+                            firstByte = System.nanoTime() - start;
+                        }
+                        events++;
+                    } else if (line.startsWith("event:done") || line.startsWith("event: done")) {
+                        done = true;
+                    } else if (line.startsWith("event:business-error") || line.startsWith("event: business-error")) {
+                        return new SessionResult(false, firstByte, System.nanoTime() - start, events, bytes, "business-error");
+                    }
+                }
+            }
+            return new SessionResult(done, firstByte, System.nanoTime() - start, events, bytes, done ? null : "未收到结束事件");
+        } catch (Exception e) {
+            return new SessionResult(false, firstByte, System.nanoTime() - start, events, bytes, e.getClass().getSimpleName());
+        }
+    }
+
+    private HttpResponse<String> postJson(String path, JSONObject body, String cookie) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiBaseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JSONObject checkSuccess(String body) {
+        JSONObject response = JSONUtil.parseObj(body);
+        if (response.getInt("code", -1) != 0) {
+            throw new IllegalStateException("请求失败: " + body);
+        }
+        return response;
+    }
+
+    private static void report(List<SessionResult> results, long elapsedNanos, long baselineHeap, long peakHeap,
+                               int baselineThreads, long peakThreads, MockOpenAiServer mockServer) {
+        List<Long> firstBytes = new ArrayList<>();
+        List<Long> durations = new ArrayList<>();
+        long succeeded = 0;
+        long events = 0;
+        long bytes = 0;
+        List<String> errors = new ArrayList<>();
+        for (SessionResult result : results) {
+            if (result.success()) {
+                succeeded++;
+                durations.add(result.durationNanos());
+            } else {
+                errors.add(result.error());
+            }
+            if (result.firstByteNanos() >= 0) {
+                firstBytes.add(result.firstByteNanos());
+            }
+            events += result.events();
+            bytes += result.bytes();
+        }
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("================ 压测结果 ================");
+        System.out.printf("会话: %d，成功: %d，失败: %d%s%n", results.size(), succeeded, results.size() - succeeded,
+                errors.isEmpty() ? "" : "，失败原因: " + errors.stream().distinct().toList());
+        System.out.printf("首字节时间 p50: %.1f ms，p99: %.1f ms%n", percentileMillis(firstBytes, 50), percentileMillis(firstBytes, 99));
+        System.out.printf("会话耗时 p50: %.1f ms，p99: %.1f ms%n", percentileMillis(durations, 50), percentileMillis(durations, 99));
+        System.out.printf("总耗时: %.2f s，吞吐量: %.2f 会话/s，%.0f SSE 事件/s，%.1f KB/s%n",
+                seconds, succeeded / seconds, events / seconds, bytes / 1024.0 / seconds);
+        System.out.printf("堆内存: 基线 %.1f MB，峰值 %.1f MB%n", baselineHeap / 1048576.0, peakHeap / 1048576.0);
+        System.out.printf("平台线程数: 基线 %d，峰值 %d%n", baselineThreads, peakThreads);
+        System.out.printf("Mock 模型请求数: %d，注入错误数: %d，最大并发流: %d%n",
+                mockServer.getRequestCount(), mockServer.getInjectedErrorCount(), mockServer.getPeakActiveStreams());
+    }
+
+    private static double percentileMillis(List<Long> values, int percentile) {
+        if (values.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
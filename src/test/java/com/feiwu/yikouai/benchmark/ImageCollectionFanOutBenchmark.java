@@ -0,0 +1,128 @@
+package com.feiwu.yikouai.benchmark;
+
+import com.feiwu.yikouai.config.ImageCollectionConfig;
+import com.feiwu.yikouai.langgraph4j.concurrent.ImageTaskFanOut;
+import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageCategoryEnum;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageProviderEnum;
+import com.feiwu.yikouai.monitor.ImageCollectionMetricsCollector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName:ImageCollectionFanOutBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 并发图片收集阶段耗时：收集节点内串行执行任务（原实现） vs 任务级并发 + 按服务限流 + 超时返回部分结果
+ * 四个收集节点并行执行（与工作流中的并行分支一致），外部服务调用用随机睡眠模拟，不需要网络：
+ * 内容图片 6 个任务（Pexels 300~900 ms），插画 3 个（unDraw 200~700 ms），Logo 2 个（DashScope 3~8 s），架构图 2 个（mmdc 2~5 s），
+ * 每 bench.hang-every 次执行中有一次 Logo 任务卡住 bench.hang-millis（默认 20 s），用于观察超时后的部分结果
+ * DashScope 任务超时默认取 10 s 以缩短运行时间，application.yml 中的配置仍为 40 s，需要按生产配置测量时设置 -Dbench.dashscope-timeout=40s
+ * 运行方式：执行 main 方法，参数通过系统属性设置：-Dbench.runs=10 -Dbench.hang-every=3 -Dbench.hang-millis=20000 -Dbench.dashscope-timeout=10s
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/28 10:20
+ * Version: 1.0
+ */
+public class ImageCollectionFanOutBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("bench.runs", 10);
+        int hangEvery = Integer.getInteger("bench.hang-every", 3);
+        long hangMillis = Long.getLong("bench.hang-millis", 20_000L);
+        Duration dashscopeTimeout = Duration.parse("PT" + System.getProperty("bench.dashscope-timeout", "10s").toUpperCase());
+
+        ImageCollectionConfig config = new ImageCollectionConfig();
+        config.getDashscope().setTaskTimeout(dashscopeTimeout);
+        ImageCollectionMetricsCollector metricsCollector = new ImageCollectionMetricsCollector();
+        ReflectionTestUtils.setField(metricsCollector, "meterRegistry", new SimpleMeterRegistry());
+        metricsCollector.init();
+        ImageTaskFanOut fanOut = new ImageTaskFanOut();
+        ReflectionTestUtils.setField(fanOut, "imageCollectionConfig", config);
+        ReflectionTestUtils.setField(fanOut, "imageCollectionMetricsCollector", metricsCollector);
+        fanOut.init();
+
+        List<Long> serialMillis = new ArrayList<>();
+        List<Long> fanOutMillis = new ArrayList<>();
+        int serialImages = 0;
+        int fanOutImages = 0;
+        for (int run = 0; run < runs; run++) {
+            // 两种方式使用同一组模拟耗时
+            Plan plan = Plan.random(new Random(run), (run + 1) % hangEvery == 0, hangMillis);
+            long start = System.nanoTime();
+            serialImages += runBranches(plan, ImageCollectionFanOutBenchmark::serial);
+            serialMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            start = System.nanoTime();
+            fanOutImages += runBranches(plan, (provider, latencies) -> fanOut.collect(provider, latencies, ImageCollectionFanOutBenchmark::call));
+            fanOutMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            System.out.printf("第 %d 次: Logo 卡住=%s, 串行 %d ms, 并发 %d ms%n", run + 1, plan.hang,
+                    serialMillis.get(run), fanOutMillis.get(run));
+        }
+        System.out.printf("串行: 平均 %.0f ms，共 %d 张图片%n", serialMillis.stream().mapToLong(Long::longValue).average().orElse(0), serialImages);
+        System.out.printf("并发: 平均 %.0f ms，共 %d 张图片%n", fanOutMillis.stream().mapToLong(Long::longValue).average().orElse(0), fanOutImages);
+        fanOut.destroy();
+    }
+
+    private interface Collector {
+        List<ImageResource> collect(ImageProviderEnum provider, List<Long> latencies);
+    }
+
+    /**
+     * 四个收集节点并行执行，返回图片总数
+     */
+    private static int runBranches(Plan plan, Collector collector) {
+        List<CompletableFuture<List<ImageResource>>> branches = List.of(
+                CompletableFuture.supplyAsync(() -> collector.collect(ImageProviderEnum.PEXELS, plan.content)),
+                CompletableFuture.supplyAsync(() -> collector.collect(ImageProviderEnum.UNDRAW, plan.illustration)),
+                CompletableFuture.supplyAsync(() -> collector.collect(ImageProviderEnum.DASHSCOPE, plan.logo)),
+                CompletableFuture.supplyAsync(() -> collector.collect(ImageProviderEnum.MMDC, plan.diagram)));
+        return branches.stream().mapToInt(branch -> branch.join().size()).sum();
+    }
+
+    private static List<ImageResource> serial(ImageProviderEnum provider, List<Long> latencies) {
+        List<ImageResource> images = new ArrayList<>();
+        for (Long latency : latencies) {
+            images.addAll(call(latency));
+        }
+        return images;
+    }
+
+    /**
+     * 模拟一次外部服务调用，返回一张图片
+     */
+    private static List<ImageResource> call(long latencyMillis) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+        return List.of(ImageResource.builder().category(ImageCategoryEnum.CONTENT).url("https://example.com/" + latencyMillis).build());
+    }
+
+    private record Plan(List<Long> content, List<Long> illustration, List<Long> logo, List<Long> diagram, boolean hang) {
+
+        static Plan random(Random random, boolean hang, long hangMillis) {
+            List<Long> logo = latencies(random, 2, 3000, 8000);
+            if (hang) {
+                logo.set(0, hangMillis);
+            }
+            return new Plan(latencies(random, 6, 300, 900), latencies(random, 3, 200, 700), logo,
+                    latencies(random, 2, 2000, 5000), hang);
+        }
+
+        private static List<Long> latencies(Random random, int count, int min, int max) {
+            List<Long> latencies = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                latencies.add((long) (min + random.nextInt(max - min)));
+            }
+            return latencies;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.feiwu.yikouai.benchmark;
+
+import ch.qos.logback.classic.Level;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiChatResponseMetadata;
+import dev.langchain4j.model.openai.OpenAiStreamingResponseBuilder;
+import dev.langchain4j.model.openai.internal.chat.*;
+import dev.langchain4j.model.openai.internal.shared.Usage;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static dev.langchain4j.model.openai.internal.OpenAiUtils.finishReasonFrom;
+import static dev.langchain4j.model.openai.internal.OpenAiUtils.tokenUsageFrom;
+
+/**
+ * ClassName:OpenAiStreamingResponseBuilderBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 回放一次 VUE_PROJECT 生成的约 2 万个流式增量（文本 + writeFile 工具调用参数），
+ * 对比原 StringBuffer / AtomicReference / ConcurrentHashMap + 控制台输出实现与单写者实现的吞吐量和分配字节数
+ * 运行方式：执行 main 方法，结果中的 gc.alloc.rate.norm 即为每个增量的分配字节数
+ * 原实现的控制台输出被重定向到空输出流，只统计格式化和加锁的开销，真实环境中还有 IO 开销
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/20 11:05
+ * Version: 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenAiStreamingResponseBuilderBenchmark {
+
+    /**
+     * 回放的增量数
+     */
+    private static final int DELTAS = 20_000;
+
+    /**
+     * 工具调用（写入文件）次数
+     */
+    private static final int TOOL_CALLS = 24;
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz<>{}=\"/.:; \\n组件页面样式路由";
+
+    private List<ChatCompletionResponse> recording;
+
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        // 与 Spring Boot 默认日志级别（INFO）保持一致，logback 未配置时默认为 DEBUG
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        recording = record();
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELTAS)
+    public void legacyBuilder(Blackhole blackhole) {
+        LegacyOpenAiStreamingResponseBuilder builder = new LegacyOpenAiStreamingResponseBuilder();
+        for (ChatCompletionResponse partialResponse : recording) {
+            builder.append(partialResponse);
+        }
+        blackhole.consume(builder.build());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELTAS)
+    public void singleWriterBuilder(Blackhole blackhole) {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        for (ChatCompletionResponse partialResponse : recording) {
+            builder.append(partialResponse);
+        }
+        blackhole.consume(builder.build());
+    }
+
+    /**
+     * 生成与真实 VUE_PROJECT 流相同形态的增量序列：
+     * 每个增量都带有 id / created / model，先输出说明文字，然后依次流式输出每个 writeFile 调用的参数
+     */
+    private static List<ChatCompletionResponse> record() {
+        Random random = new Random(7);
+        List<ChatCompletionResponse> deltas = new ArrayList<>(DELTAS + 1);
+        int contentDeltas = DELTAS / 5;
+        int argumentDeltasPerTool = (DELTAS - contentDeltas) / TOOL_CALLS;
+        for (int i = 0; i < contentDeltas; i++) {
+            deltas.add(chunk(Delta.builder().content(randomToken(random)).build(), null, null));
+        }
+        for (int tool = 0; tool < TOOL_CALLS; tool++) {
+            for (int i = 0; i < argumentDeltasPerTool; i++) {
+                ToolCall.Builder toolCall = ToolCall.builder().index(tool);
+                FunctionCall.Builder functionCall = FunctionCall.builder();
+                if (i == 0) {
+                    toolCall.id("call_" + tool).type(ToolType.FUNCTION);
+                    functionCall.name("writeFile").arguments("{\"relativeFilePath\":\"src/components/C" + tool + ".vue\",\"content\":\"");
+                } else {
+                    functionCall.arguments(randomToken(random));
+                }
+                toolCall.function(functionCall.build());
+                deltas.add(chunk(Delta.builder().toolCalls(List.of(toolCall.build())).build(), null, null));
+            }
+        }
+        Usage usage = Usage.builder().promptTokens(3000).completionTokens(DELTAS).totalTokens(3000 + DELTAS).build();
+        deltas.add(chunk(Delta.builder().build(), "tool_calls", usage));
+        return deltas;
+    }
+
+    private static ChatCompletionResponse chunk(Delta delta, String finishReason, Usage usage) {
+        return ChatCompletionResponse.builder()
+                .id("chatcmpl-replay")
+                .created(1760000000L)
+                .model("deepseek-chat")
+                .choices(List.of(ChatCompletionChoice.builder().index(0).delta(delta).finishReason(finishReason).build()))
+                .usage(usage)
+                .build();
+    }
+
+    private static String randomToken(Random random) {
+        int length = 1 + random.nextInt(4);
+        StringBuilder token = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            token.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return token.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OpenAiStreamingResponseBuilderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * 改造前的 OpenAiStreamingResponseBuilder（仅保留 ChatCompletionResponse 路径），作为对照组
+     */
+    static class LegacyOpenAiStreamingResponseBuilder {
+
+        private final StringBuffer contentBuilder = new StringBuffer();
+
+        private final Map<Integer, LegacyToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new ConcurrentHashMap<>();
+
+        private final AtomicReference<String> id = new AtomicReference<>();
+        private final AtomicReference<Long> created = new AtomicReference<>();
+        private final AtomicReference<String> model = new AtomicReference<>();
+        private final AtomicReference<TokenUsage> tokenUsage = new AtomicReference<>();
+        private final AtomicReference<FinishReason> finishReason = new AtomicReference<>();
+
+        void append(ChatCompletionResponse partialResponse) {
+            if (partialResponse.id() != null && !partialResponse.id().isBlank()) {
+                id.set(partialResponse.id());
+            }
+            if (partialResponse.created() != null) {
+                created.set(partialResponse.created());
+            }
+            if (partialResponse.model() != null && !partialResponse.model().isBlank()) {
+                model.set(partialResponse.model());
+            }
+            if (partialResponse.usage() != null) {
+                tokenUsage.set(tokenUsageFrom(partialResponse.usage()));
+            }
+            ChatCompletionChoice choice = partialResponse.choices().get(0);
+            if (choice.finishReason() != null) {
+                finishReason.set(finishReasonFrom(choice.finishReason()));
+            }
+            Delta delta = choice.delta();
+            if (delta.content() != null && !delta.content().isEmpty()) {
+                contentBuilder.append(delta.content());
+            }
+            if (delta.toolCalls() != null) {
+                System.out.println("OLOLO " + delta.toolCalls());
+                for (ToolCall toolCall : delta.toolCalls()) {
+                    LegacyToolExecutionRequestBuilder builder = indexToToolExecutionRequestBuilder.computeIfAbsent(
+                            toolCall.index(), idx -> new LegacyToolExecutionRequestBuilder());
+                    if (toolCall.id() != null) {
+                        builder.idBuilder.append(toolCall.id());
+                    }
+                    FunctionCall functionCall = toolCall.function();
+                    if (functionCall.name() != null) {
+                        builder.nameBuilder.append(functionCall.name());
+                    }
+                    if (functionCall.arguments() != null) {
+                        builder.argumentsBuilder.append(functionCall.arguments());
+                    }
+                }
+            }
+        }
+
+        ChatResponse build() {
+            OpenAiChatResponseMetadata metadata = OpenAiChatResponseMetadata.builder()
+                    .id(id.get())
+                    .modelName(model.get())
+                    .tokenUsage(tokenUsage.get())
+                    .finishReason(finishReason.get())
+                    .created(created.get())
+                    .build();
+            List<ToolExecutionRequest> toolExecutionRequests = indexToToolExecutionRequestBuilder.values().stream()
+                    .map(it -> ToolExecutionRequest.builder()
+                            .id(it.idBuilder.toString())
+                            .name(it.nameBuilder.toString())
+                            .arguments(it.argumentsBuilder.toString())
+                            .build())
+                    .toList();
+            return ChatResponse.builder()
+                    .aiMessage(AiMessage.from(contentBuilder.toString(), toolExecutionRequests))
+                    .metadata(metadata)
+                    .build();
+        }
+
+        private static class LegacyToolExecutionRequestBuilder {
+
+            private final StringBuffer idBuilder = new StringBuffer();
+            private final StringBuffer nameBuilder = new StringBuffer();
+            private final StringBuffer argumentsBuilder = new StringBuffer();
+        }
+    }
+}
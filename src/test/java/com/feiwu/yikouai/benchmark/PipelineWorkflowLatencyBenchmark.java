@@ -0,0 +1,210 @@
+package com.feiwu.yikouai.benchmark;
+
+import com.feiwu.yikouai.langgraph4j.pipeline.ImagePlaceholderResolverNode;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesStateGraph;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * ClassName:PipelineWorkflowLatencyBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 工作流端到端耗时：并发工作流（图片收集完成后才开始提示词增强、路由和代码生成） vs 流水线工作流（图片在后台收集，代码生成完成后替换占位符）
+ * 两种图结构与 CodeGenConcurrentWorkflow / CodeGenPipelineWorkflow 一致，节点用按比例缩放的睡眠模拟，不需要外部服务：
+ * 图片计划 3 s，路由 1.5 s，内容图片 1~3 s，插画 1~2 s，架构图 4~12 s，Logo 10~30 s（bench.slow-logo-every 次中有一次 80 s），代码生成 30~60 s，质检 5 s，
+ * 流水线的图片截止时间 60 s（从开始收集算起），超过截止时间的 Logo 被丢弃
+ * 运行方式：执行 main 方法，参数通过系统属性设置：-Dbench.runs=20 -Dbench.scale=0.02 -Dbench.slow-logo-every=5
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/28 16:05
+ * Version: 1.0
+ */
+public class PipelineWorkflowLatencyBenchmark {
+
+    private static final String TIMING_KEY = "timing";
+
+    private static double scale;
+
+    private static final AtomicInteger DROPPED = new AtomicInteger();
+
+    /**
+     * 后台图片任务：与 ImagePrefetchRegistry 一样放在状态之外（工作流状态在节点之间会被序列化复制），
+     * 各次执行依次进行，这里只保存当前执行的任务
+     */
+    private static volatile CompletableFuture<Void> images;
+
+    private static volatile long deadlineNanos;
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 一次执行中各节点的模拟耗时（毫秒，缩放前）
+     */
+    private record Timing(long content, long illustration, long diagram, long logo, long codegen) implements Serializable {
+
+        long images() {
+            return Math.max(Math.max(content, illustration), Math.max(diagram, logo));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("bench.runs", 20);
+        scale = Double.parseDouble(System.getProperty("bench.scale", "0.02"));
+        int slowLogoEvery = Integer.getInteger("bench.slow-logo-every", 5);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CompiledGraph<MessagesState<String>> concurrent = concurrentWorkflow();
+        CompiledGraph<MessagesState<String>> pipeline = pipelineWorkflow();
+        RunnableConfig concurrentConfig = RunnableConfig.builder().addParallelNodeExecutor("image_plan", executor).build();
+        RunnableConfig pipelineConfig = RunnableConfig.builder().addParallelNodeExecutor(START, executor).build();
+
+        // 占位符替换的正确性：有地址的替换，没有地址的连同 img 标签去掉
+        String resolved = ImagePlaceholderResolverNode.resolvePlaceholders(
+                "<img class=\"logo\" src=\"{{image:logo-0}}\"><img src=\"{{image:content-0}}\" alt=\"banner\">"
+                        + "<div style=\"background:url('{{image:illustration-0}}')\"></div>",
+                Map.of("content-0", "https://example.com/banner.jpg"));
+        System.out.println("占位符替换结果: " + resolved);
+
+        List<Long> concurrentMillis = new ArrayList<>();
+        List<Long> pipelineMillis = new ArrayList<>();
+        Random random = new Random(42);
+        for (int run = 0; run < runs; run++) {
+            Timing timing = new Timing(between(random, 1000, 3000), between(random, 1000, 2000),
+                    between(random, 4000, 12000),
+                    (run + 1) % slowLogoEvery == 0 ? 80_000 : between(random, 10_000, 30_000),
+                    between(random, 30_000, 60_000));
+            long start = System.nanoTime();
+            concurrent.invoke(Map.of(TIMING_KEY, timing), concurrentConfig);
+            concurrentMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            start = System.nanoTime();
+            pipeline.invoke(Map.of(TIMING_KEY, timing), pipelineConfig);
+            pipelineMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        print("并发工作流", concurrentMillis);
+        print("流水线工作流", pipelineMillis);
+        System.out.printf("流水线工作流超过截止时间丢弃的 Logo: %d / %d 次执行%n", DROPPED.get(), runs);
+        executor.shutdown();
+        VIRTUAL_THREADS.shutdownNow();
+    }
+
+    private static CompiledGraph<MessagesState<String>> concurrentWorkflow() throws GraphStateException {
+        return new MessagesStateGraph<String>()
+                .addNode("image_plan", sleep(t -> 3000L))
+                .addNode("content_image_collector", sleep(Timing::content))
+                .addNode("illustration_collector", sleep(Timing::illustration))
+                .addNode("diagram_collector", sleep(Timing::diagram))
+                .addNode("logo_collector", sleep(Timing::logo))
+                .addNode("image_aggregator", sleep(t -> 0L))
+                .addNode("prompt_enhancer", sleep(t -> 0L))
+                .addNode("router", sleep(t -> 1500L))
+                .addNode("code_generator", sleep(Timing::codegen))
+                .addNode("code_quality_check", sleep(t -> 5000L))
+                .addEdge(START, "image_plan")
+                .addEdge("image_plan", "content_image_collector")
+                .addEdge("image_plan", "illustration_collector")
+                .addEdge("image_plan", "diagram_collector")
+                .addEdge("image_plan", "logo_collector")
+                .addEdge("content_image_collector", "image_aggregator")
+                .addEdge("illustration_collector", "image_aggregator")
+                .addEdge("diagram_collector", "image_aggregator")
+                .addEdge("logo_collector", "image_aggregator")
+                .addEdge("image_aggregator", "prompt_enhancer")
+                .addEdge("prompt_enhancer", "router")
+                .addEdge("router", "code_generator")
+                .addEdge("code_generator", "code_quality_check")
+                .addEdge("code_quality_check", END)
+                .compile();
+    }
+
+    private static CompiledGraph<MessagesState<String>> pipelineWorkflow() throws GraphStateException {
+        return new MessagesStateGraph<String>()
+                .addNode("image_prefetch", node_async(state -> {
+                    Timing timing = timing(state);
+                    sleepScaled(3000);
+                    deadlineNanos = System.nanoTime() + scaledNanos(60_000);
+                    // 与 ImageTaskFanOut 一样在虚拟线程上执行，不阻塞后续节点
+                    images = CompletableFuture.runAsync(() -> sleepScaled(timing.images()), VIRTUAL_THREADS);
+                    return Map.of();
+                }))
+                .addNode("router", sleep(t -> 1500L))
+                .addNode("prompt_enhancer", sleep(t -> 0L))
+                .addNode("code_generator", sleep(Timing::codegen))
+                .addNode("image_resolver", node_async(state -> {
+                    try {
+                        images.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException e) {
+                        images.cancel(true);
+                        DROPPED.incrementAndGet();
+                    }
+                    return Map.of();
+                }))
+                .addNode("code_quality_check", sleep(t -> 5000L))
+                .addEdge(START, "image_prefetch")
+                .addEdge(START, "router")
+                .addEdge("image_prefetch", "prompt_enhancer")
+                .addEdge("router", "prompt_enhancer")
+                .addEdge("prompt_enhancer", "code_generator")
+                .addEdge("code_generator", "image_resolver")
+                .addEdge("image_resolver", "code_quality_check")
+                .addEdge("code_quality_check", END)
+                .compile();
+    }
+
+    private interface Duration {
+        long millis(Timing timing);
+    }
+
+    private static AsyncNodeAction<MessagesState<String>> sleep(Duration duration) {
+        return node_async(state -> {
+            sleepScaled(duration.millis(timing(state)));
+            return Map.of();
+        });
+    }
+
+    private static Timing timing(MessagesState<String> state) {
+        return (Timing) state.data().get(TIMING_KEY);
+    }
+
+    private static long scaledNanos(long millis) {
+        return (long) (TimeUnit.MILLISECONDS.toNanos(millis) * scale);
+    }
+
+    private static void sleepScaled(long millis) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(scaledNanos(millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long between(Random random, int min, int max) {
+        return min + random.nextInt(max - min);
+    }
+
+    private static void print(String name, List<Long> millis) {
+        List<Long> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        double avg = sorted.stream().mapToLong(Long::longValue).average().orElse(0);
+        // 换算回缩放前的秒数
+        System.out.printf("%s: 平均 %.1f s，p50 %.1f s，最大 %.1f s（模拟时间）%n", name, avg / 1000 / scale,
+                sorted.get(sorted.size() / 2) / 1000.0 / scale, sorted.get(sorted.size() - 1) / 1000.0 / scale);
+    }
+}
@@ -0,0 +1,107 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.feiwu.yikouai.ai.model.message.AiResponseMessage;
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
+import com.feiwu.yikouai.ai.model.message.StreamMessageTypeEnum;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName:StreamMessagePipelineBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 对比每个 token 的 JSON 往返路径与类型化消息路径的吞吐量（tokens/s）和单 token 分配字节数
+ * 运行方式：执行 main 方法，结果中的 gc.alloc.rate.norm 即为每个 token 的分配字节数
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/18 10:20
+ * Version: 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamMessagePipelineBenchmark {
+
+    /**
+     * 每次调用回放的 token 数
+     */
+    private static final int TOKENS = 1024;
+
+    private static final String TOKEN_ALPHABET = "abcdefghijklmnopqrstuvwxyz<>{}=\"; 生成页面组件样式";
+
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        // 模型增量通常只有 1~3 个字符
+        tokens = new String[TOKENS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < TOKENS; i++) {
+            int length = random.nextInt(1, 4);
+            StringBuilder token = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                token.append(TOKEN_ALPHABET.charAt(random.nextInt(TOKEN_ALPHABET.length())));
+            }
+            tokens[i] = token.toString();
+        }
+    }
+
+    /**
+     * 原路径：序列化为 JSON -> 解析为 StreamMessage -> 再解析为具体类型 -> SSE 包装再序列化
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public void jsonRoundTrip(Blackhole blackhole) {
+        StringBuilder chatHistory = new StringBuilder();
+        for (String token : tokens) {
+            String chunk = JSONUtil.toJsonStr(new AiResponseMessage(token));
+            StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
+            StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+            if (typeEnum == StreamMessageTypeEnum.AI_RESPONSE) {
+                String data = JSONUtil.toBean(chunk, AiResponseMessage.class).getData();
+                chatHistory.append(data);
+                blackhole.consume(JSONUtil.toJsonStr(Map.of("d", data)));
+            }
+        }
+        blackhole.consume(chatHistory);
+    }
+
+    /**
+     * 新路径：类型化消息在进程内传递，仅在 SSE 出口序列化一次
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public void typedMessage(Blackhole blackhole) {
+        StringBuilder chatHistory = new StringBuilder();
+        for (String token : tokens) {
+            StreamMessage streamMessage = new AiResponseMessage(token);
+            StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+            if (typeEnum == StreamMessageTypeEnum.AI_RESPONSE) {
+                String data = ((AiResponseMessage) streamMessage).getData();
+                chatHistory.append(data);
+                blackhole.consume(JSONUtil.toJsonStr(Map.of("d", data)));
+            }
+        }
+        blackhole.consume(chatHistory);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StreamMessagePipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
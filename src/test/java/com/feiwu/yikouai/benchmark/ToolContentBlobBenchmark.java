@@ -0,0 +1,184 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.json.JSONObject;
+import com.feiwu.yikouai.ai.tools.BaseTool;
+import com.feiwu.yikouai.ai.tools.FileModifyTool;
+import com.feiwu.yikouai.ai.tools.FileWriteTool;
+import com.feiwu.yikouai.manager.ToolContentBlobStore;
+import com.feiwu.yikouai.monitor.ToolExecutionMetricsCollector;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ClassName:ToolContentBlobBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: VUE_PROJECT 对话历史中工具调用文件内容的存储与提示词开销：完整内容 vs 按哈希存储、对话历史中只保存引用
+ * 模拟一个应用 bench.turns 轮对话，每轮一条用户消息和一条 AI 回复，AI 回复包含 bench.writes 次 writeFile
+ * （在 bench.files 个文件中随机选择，约 bench.file-chars 字符，其中 bench.unchanged 比例的写入内容与上一版相同）
+ * 和 bench.modifies 次 modifyFile（替换约 bench.modify-chars 字符的片段）
+ * 输出：chat_history.message 总字节数、Redis 中内容哈希的总字节数，以及按 loadChatHistoryToMemory 加载最近 20 条消息到记忆时的 token 数（o200k_base）
+ * Redis 哈希用内存 Map 模拟，不需要外部服务，运行方式：执行 main 方法，参数通过系统属性设置：
+ * -Dbench.turns=30 -Dbench.writes=8 -Dbench.modifies=4 -Dbench.files=20 -Dbench.file-chars=3000 -Dbench.modify-chars=400 -Dbench.unchanged=0.3
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/26 10:40
+ * Version: 1.0
+ */
+public class ToolContentBlobBenchmark {
+
+    private static final int MEMORY_MESSAGES = 20;
+
+    private static final long APP_ID = 1L;
+
+    public static void main(String[] args) {
+        int turns = Integer.getInteger("bench.turns", 30);
+        int writes = Integer.getInteger("bench.writes", 8);
+        int modifies = Integer.getInteger("bench.modifies", 4);
+        int files = Integer.getInteger("bench.files", 20);
+        int fileChars = Integer.getInteger("bench.file-chars", 3000);
+        int modifyChars = Integer.getInteger("bench.modify-chars", 400);
+        double unchanged = Double.parseDouble(System.getProperty("bench.unchanged", "0.3"));
+        int minChars = Integer.getInteger("bench.min-chars", 512);
+
+        Map<String, String> blobs = new HashMap<>();
+        ToolExecutionMetricsCollector metricsCollector = new ToolExecutionMetricsCollector();
+        ReflectionTestUtils.setField(metricsCollector, "meterRegistry", new SimpleMeterRegistry());
+        metricsCollector.init();
+        ToolContentBlobStore blobStore = new ToolContentBlobStore();
+        ReflectionTestUtils.setField(blobStore, "toolExecutionMetricsCollector", metricsCollector);
+        ReflectionTestUtils.setField(blobStore, "enabled", true);
+        ReflectionTestUtils.setField(blobStore, "minChars", minChars);
+        ReflectionTestUtils.setField(blobStore, "redissonClient", inMemoryRedisson(blobs));
+        BaseTool writeTool = new FileWriteTool();
+        BaseTool modifyTool = new FileModifyTool();
+
+        Random random = new Random(42);
+        Map<String, String> fileContents = new HashMap<>();
+        List<String> fullMessages = new ArrayList<>();
+        List<String> referencedMessages = new ArrayList<>();
+        for (int turn = 1; turn <= turns; turn++) {
+            String userMessage = "第 " + turn + " 轮：请调整页面布局并修复按钮样式";
+            fullMessages.add(userMessage);
+            referencedMessages.add(userMessage);
+            StringBuilder full = new StringBuilder("好的，我来修改相关文件。");
+            StringBuilder referenced = new StringBuilder("好的，我来修改相关文件。");
+            for (int i = 0; i < writes; i++) {
+                String path = "src/components/Component" + random.nextInt(files) + ".vue";
+                String content = fileContents.get(path);
+                if (content == null || random.nextDouble() >= unchanged) {
+                    content = vueFile(random, fileChars);
+                    fileContents.put(path, content);
+                }
+                JSONObject arguments = new JSONObject().set("relativeFilePath", path).set("content", content);
+                append(full, writeTool.generateToolExecutedResult(arguments));
+                append(referenced, writeTool.generateToolExecutedRecord(arguments, APP_ID, blobStore));
+            }
+            for (int i = 0; i < modifies; i++) {
+                String path = "src/components/Component" + random.nextInt(files) + ".vue";
+                JSONObject arguments = new JSONObject().set("relativeFilePath", path)
+                        .set("oldContent", vueFile(random, modifyChars))
+                        .set("newContent", vueFile(random, modifyChars));
+                append(full, modifyTool.generateToolExecutedResult(arguments));
+                append(referenced, modifyTool.generateToolExecutedRecord(arguments, APP_ID, blobStore));
+            }
+            full.append("修改完成。");
+            referenced.append("修改完成。");
+            fullMessages.add(full.toString());
+            referencedMessages.add(referenced.toString());
+        }
+
+        // 展开后应与完整内容一致
+        for (int i = 0; i < fullMessages.size(); i++) {
+            if (!fullMessages.get(i).equals(blobStore.expand(APP_ID, referencedMessages.get(i)))) {
+                throw new IllegalStateException("第 " + i + " 条消息展开后与原内容不一致");
+            }
+        }
+
+        long fullBytes = bytes(fullMessages);
+        long referencedBytes = bytes(referencedMessages);
+        long blobBytes = blobs.entrySet().stream()
+                .mapToLong(entry -> entry.getKey().length() + entry.getValue().getBytes(StandardCharsets.UTF_8).length)
+                .sum();
+        System.out.printf("对话历史: %d 轮 %d 条消息%n", turns, fullMessages.size());
+        System.out.printf("完整内容: chat_history %s%n", FileUtil.readableFileSize(fullBytes));
+        System.out.printf("只保存引用: chat_history %s + Redis 内容哈希 %s（%d 个字段）= %s，节省 %.1f%%%n",
+                FileUtil.readableFileSize(referencedBytes), FileUtil.readableFileSize(blobBytes),
+                blobs.size(), FileUtil.readableFileSize(referencedBytes + blobBytes),
+                100.0 * (fullBytes - referencedBytes - blobBytes) / fullBytes);
+
+        Encoding encoding = Encodings.newDefaultEncodingRegistry().getEncoding(EncodingType.O200K_BASE);
+        List<String> fullMemory = fullMessages.subList(fullMessages.size() - MEMORY_MESSAGES, fullMessages.size());
+        List<String> compactMemory = referencedMessages
+                .subList(referencedMessages.size() - MEMORY_MESSAGES, referencedMessages.size()).stream()
+                .map(blobStore::summarize)
+                .toList();
+        long fullTokens = tokens(encoding, fullMemory);
+        long compactTokens = tokens(encoding, compactMemory);
+        System.out.printf("加载最近 %d 条消息到记忆: 完整内容 %d tokens，简短说明 %d tokens，节省 %.1f%%%n",
+                MEMORY_MESSAGES, fullTokens, compactTokens, 100.0 * (fullTokens - compactTokens) / fullTokens);
+    }
+
+    /**
+     * 模拟 ToolContentBlobStore 用到的 Redis 哈希操作，数据保存在 blobs 中
+     */
+    @SuppressWarnings("unchecked")
+    private static RedissonClient inMemoryRedisson(Map<String, String> blobs) {
+        RMap<String, String> blobMap = mock(RMap.class);
+        when(blobMap.fastPutIfAbsent(anyString(), anyString()))
+                .thenAnswer(invocation -> blobs.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(blobMap.getAll(any())).thenAnswer(invocation -> {
+            Set<String> hashes = invocation.getArgument(0);
+            return MapUtil.filter(blobs, entry -> hashes.contains(entry.getKey()));
+        });
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.<String, String>getMap(anyString(), any(Codec.class))).thenReturn(blobMap);
+        return redissonClient;
+    }
+
+    private static void append(StringBuilder message, String result) {
+        message.append(String.format("\n\n%s\n\n", result));
+    }
+
+    /**
+     * 生成约 chars 个字符的 Vue 单文件组件内容
+     */
+    private static String vueFile(Random random, int chars) {
+        StringBuilder builder = new StringBuilder("<template>\n  <div class=\"container\">\n");
+        while (builder.length() < chars) {
+            int id = random.nextInt(10_000);
+            builder.append("    <a-button type=\"primary\" class=\"btn-").append(id)
+                    .append("\" @click=\"handleClick").append(id).append("\">按钮 ").append(id).append("</a-button>\n");
+        }
+        builder.append("  </div>\n</template>\n");
+        return builder.toString();
+    }
+
+    private static long bytes(List<String> messages) {
+        return messages.stream().mapToLong(message -> message.getBytes(StandardCharsets.UTF_8).length).sum();
+    }
+
+    private static long tokens(Encoding encoding, List<String> messages) {
+        return messages.stream().mapToLong(encoding::countTokens).sum();
+    }
+}
@@ -0,0 +1,178 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.ToolExecutionOptions;
+import dev.langchain4j.service.tool.ToolExecution;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ClassName:ToolExecutionLatencyBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 测量一轮包含多个慢工具调用的对话的总耗时，对比工具调用串行执行、并行执行与提前执行
+ * 模型为本地假模型：第一次请求流式返回 6 个 writeFile 调用（其中两个写同一文件），每个调用的参数输出耗时约 150ms，
+ * 收到工具结果后返回文本；工具每次调用耗时约 200ms，冲突键为文件路径，因此并行时同一文件的两次写入仍串行
+ * 理论耗时：串行 6 × 150 + 6 × 200，并行 6 × 150 + 2 × 200，提前执行时工具耗时与模型输出重叠
+ * 运行方式：执行 main 方法
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/21 10:20
+ * Version: 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ToolExecutionLatencyBenchmark {
+
+    private static final long TOOL_LATENCY_MILLIS = 200;
+
+    private static final long ARGUMENTS_STREAMING_MILLIS = 150;
+
+    private static final List<String> FILE_PATHS = List.of(
+            "src/App.vue", "src/main.js", "src/router/index.js", "src/pages/Home.vue", "src/pages/About.vue", "src/App.vue");
+
+    @Param({"SEQUENTIAL", "PARALLEL", "EAGER", "EAGER_PARALLEL"})
+    private String mode;
+
+    private Assistant assistant;
+
+    interface Assistant {
+
+        TokenStream chat(String userMessage);
+    }
+
+    static class SlowFileTool {
+
+        @Tool("写入文件到指定路径")
+        public String writeFile(@P("文件的相对路径") String relativeFilePath, @P("要写入文件的内容") String content) {
+            sleep(TOOL_LATENCY_MILLIS);
+            return "文件写入成功: " + relativeFilePath;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 最后一条消息为用户消息时返回工具调用，为工具结果时返回文本
+     */
+    static class ToolCallingStreamingChatModel implements StreamingChatModel {
+
+        @Override
+        public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            List<ChatMessage> messages = chatRequest.messages();
+            boolean hasToolResults = messages.get(messages.size() - 1) instanceof ToolExecutionResultMessage;
+            AiMessage aiMessage;
+            if (hasToolResults) {
+                handler.onPartialResponse("生成完成");
+                aiMessage = AiMessage.from("生成完成");
+            } else {
+                List<ToolExecutionRequest> requests = new ArrayList<>();
+                for (int i = 0; i < FILE_PATHS.size(); i++) {
+                    ToolExecutionRequest request = ToolExecutionRequest.builder()
+                            .id("call_" + i)
+                            .name("writeFile")
+                            .arguments(JSONUtil.createObj()
+                                    .set("relativeFilePath", FILE_PATHS.get(i))
+                                    .set("content", "content " + i)
+                                    .toString())
+                            .build();
+                    sleep(ARGUMENTS_STREAMING_MILLIS);
+                    requests.add(request);
+                    handler.onCompleteToolExecutionRequest(i, request);
+                }
+                aiMessage = AiMessage.from(requests);
+            }
+            handler.onCompleteResponse(ChatResponse.builder()
+                    .aiMessage(aiMessage)
+                    .finishReason(hasToolResults ? FinishReason.STOP : FinishReason.TOOL_EXECUTION)
+                    .build());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ToolExecutionOptions.parallel(mode.endsWith("PARALLEL"));
+        ToolExecutionOptions.eager(mode.startsWith("EAGER"));
+        ToolExecutionOptions.conflictKeyResolver(request ->
+                JSONUtil.parseObj(request.arguments()).getStr("relativeFilePath"));
+        assistant = AiServices.builder(Assistant.class)
+                .streamingChatModel(new ToolCallingStreamingChatModel())
+                .chatMemory(MessageWindowChatMemory.withMaxMessages(50))
+                .tools(new SlowFileTool())
+                .build();
+        // 无论是否并行，工具结果都必须按原请求顺序返回
+        List<String> executedIds = new ArrayList<>();
+        chatTurn(execution -> executedIds.add(execution.request().id()));
+        List<String> expectedIds = new ArrayList<>();
+        for (int i = 0; i < FILE_PATHS.size(); i++) {
+            expectedIds.add("call_" + i);
+        }
+        if (!expectedIds.equals(executedIds)) {
+            throw new IllegalStateException("工具结果顺序与请求顺序不一致: " + executedIds);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ToolExecutionOptions.parallel(false);
+        ToolExecutionOptions.eager(false);
+        ToolExecutionOptions.conflictKeyResolver(ToolExecutionRequest::name);
+    }
+
+    @Benchmark
+    public ChatResponse turn() {
+        return chatTurn(execution -> {
+        });
+    }
+
+    private ChatResponse chatTurn(Consumer<ToolExecution> onToolExecuted) {
+        CompletableFuture<ChatResponse> response = new CompletableFuture<>();
+        assistant.chat("生成一个 Vue 项目")
+                .onPartialResponse(partialResponse -> {
+                })
+                .onToolExecuted(onToolExecuted)
+                .onCompleteResponse(response::complete)
+                .onError(response::completeExceptionally)
+                .start();
+        return response.join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ToolExecutionLatencyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,237 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.core.util.RandomUtil;
+import com.feiwu.yikouai.langgraph4j.checkpoint.WorkflowCheckpointCodec;
+import com.feiwu.yikouai.langgraph4j.model.ImageCollectionPlan;
+import com.feiwu.yikouai.langgraph4j.model.ImagePlaceholder;
+import com.feiwu.yikouai.langgraph4j.model.ImageResource;
+import com.feiwu.yikouai.langgraph4j.model.QualityResult;
+import com.feiwu.yikouai.langgraph4j.model.enums.ImageCategoryEnum;
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphInput;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
+import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesStateGraph;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * ClassName:WorkflowCheckpointBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 工作流检查点
+ * 1. 单个检查点的大小与编解码耗时：图默认的 Java 序列化（FileSystemSaver 的格式） vs WorkflowCheckpointCodec（JSON + 压缩）
+ *    上下文模拟代码生成完成后的状态：图片计划 8 个任务、bench.images 张图片、约 4 KB 的增强提示词、质检结果
+ * 2. 中断后继续执行：与 CodeGenWorkflow 相同的节点顺序，节点用计数代替，检查点用 WorkflowCheckpointCodec 编码后保存在内存中
+ *    （与 RedisWorkflowCheckpointSaver 的存储格式相同，不需要 Redis），第一次执行在质检节点抛异常模拟进程崩溃，
+ *    之后按 workflowId 继续执行，统计每个节点一共执行了几次
+ * 运行方式：执行 main 方法，参数通过系统属性设置：-Dbench.images=40 -Dbench.iterations=20000
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/29 11:10
+ * Version: 1.0
+ */
+public class WorkflowCheckpointBenchmark {
+
+    private static final Map<String, AtomicInteger> EXECUTIONS = new ConcurrentHashMap<>();
+
+    private static volatile boolean crash = true;
+
+    public static void main(String[] args) throws Exception {
+        int images = Integer.getInteger("bench.images", 40);
+        int iterations = Integer.getInteger("bench.iterations", 20000);
+        WorkflowCheckpointCodec codec = new WorkflowCheckpointCodec(512);
+        StateSerializer<MessagesState<String>> javaSerializer = new MessagesStateGraph<String>().getStateSerializer();
+
+        Map<String, Object> state = new HashMap<>();
+        state.put(WorkflowContext.WORKFLOW_CONTEXT_KEY, context(images));
+        state.put("messages", List.of());
+        Checkpoint checkpoint = Checkpoint.builder()
+                .id(RandomUtil.randomString(36))
+                .nodeId("code_generator")
+                .nextNodeId("code_quality_check")
+                .state(state)
+                .build();
+
+        byte[] javaBytes = javaSerializer.dataToBytes(checkpoint.getState());
+        byte[] compactBytes = codec.encode(checkpoint);
+        Checkpoint decoded = codec.decode(compactBytes);
+        if (!decoded.getState().get(WorkflowContext.WORKFLOW_CONTEXT_KEY).equals(state.get(WorkflowContext.WORKFLOW_CONTEXT_KEY))) {
+            throw new IllegalStateException("解码后的上下文与原上下文不一致");
+        }
+        System.out.printf("单个检查点大小: Java 序列化 %d 字节，紧凑编码 %d 字节（%.1f%%）%n",
+                javaBytes.length, compactBytes.length, compactBytes.length * 100.0 / javaBytes.length);
+
+        for (int round = 1; round <= 2; round++) {
+            // 第一轮包含预热
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                javaSerializer.dataFromBytes(javaSerializer.dataToBytes(checkpoint.getState()));
+            }
+            long javaNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                codec.decode(codec.encode(checkpoint));
+            }
+            long compactNanos = System.nanoTime() - start;
+            System.out.printf("第 %d 轮 编码+解码: Java 序列化 %.1f us/次，紧凑编码 %.1f us/次%n", round,
+                    javaNanos / 1000.0 / iterations, compactNanos / 1000.0 / iterations);
+        }
+
+        resume(codec);
+    }
+
+    private static void resume(WorkflowCheckpointCodec codec) throws Exception {
+        CodecMemorySaver saver = new CodecMemorySaver(codec);
+        CompiledGraph<MessagesState<String>> workflow = new MessagesStateGraph<String>()
+                .addNode("image_collector", count("image_collector"))
+                .addNode("prompt_enhancer", count("prompt_enhancer"))
+                .addNode("router", count("router"))
+                .addNode("code_generator", count("code_generator"))
+                .addNode("code_quality_check", node_async(state -> {
+                    EXECUTIONS.computeIfAbsent("code_quality_check", key -> new AtomicInteger()).incrementAndGet();
+                    if (crash) {
+                        throw new IllegalStateException("模拟进程崩溃");
+                    }
+                    return WorkflowContext.saveContext(WorkflowContext.getContext(state));
+                }))
+                .addEdge(START, "image_collector")
+                .addEdge("image_collector", "prompt_enhancer")
+                .addEdge("prompt_enhancer", "router")
+                .addEdge("router", "code_generator")
+                .addEdge("code_generator", "code_quality_check")
+                .addEdge("code_quality_check", END)
+                .compile(CompileConfig.builder().checkpointSaver(saver).releaseThread(true).build());
+        WorkflowContext initialContext = WorkflowContext.builder()
+                .workflowId(RandomUtil.randomString(32))
+                .originalPrompt("生成一个个人博客")
+                .build();
+        RunnableConfig config = RunnableConfig.builder().threadId(initialContext.getWorkflowId()).build();
+        try {
+            workflow.invoke(Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext), config);
+        } catch (Exception e) {
+            System.out.println("第一次执行中断: " + e.getMessage());
+        }
+        System.out.println("中断后保存的检查点数: " + saver.list(config).size()
+                + "，最后完成的节点: " + saver.get(config).map(Checkpoint::getNodeId).orElse(null));
+        crash = false;
+        workflow.invoke(GraphInput.resume(), config);
+        System.out.println("继续执行完成后剩余检查点数: " + saver.list(config).size());
+        System.out.println("各节点执行次数: " + new LinkedHashMap<>(EXECUTIONS));
+    }
+
+    private static AsyncNodeAction<MessagesState<String>> count(String node) {
+        return node_async(state -> {
+            EXECUTIONS.computeIfAbsent(node, key -> new AtomicInteger()).incrementAndGet();
+            WorkflowContext context = WorkflowContext.getContext(state);
+            context.setCurrentStep(node);
+            return WorkflowContext.saveContext(context);
+        });
+    }
+
+    /**
+     * 与 RedisWorkflowCheckpointSaver 相同的存储格式（编码后的字节，最新的在最前面），保存在内存中
+     */
+    private static class CodecMemorySaver implements BaseCheckpointSaver {
+
+        private final WorkflowCheckpointCodec codec;
+
+        private final Map<String, LinkedList<byte[]>> threads = new ConcurrentHashMap<>();
+
+        CodecMemorySaver(WorkflowCheckpointCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public Collection<Checkpoint> list(RunnableConfig config) {
+            return threads.getOrDefault(threadId(config), new LinkedList<>()).stream().map(codec::decode).toList();
+        }
+
+        @Override
+        public Optional<Checkpoint> get(RunnableConfig config) {
+            return list(config).stream()
+                    .filter(checkpoint -> config.checkPointId().map(checkpoint.getId()::equals).orElse(true))
+                    .findFirst();
+        }
+
+        @Override
+        public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) {
+            threads.computeIfAbsent(threadId(config), key -> new LinkedList<>()).addFirst(codec.encode(checkpoint));
+            return RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+        }
+
+        @Override
+        public Tag release(RunnableConfig config) {
+            List<Checkpoint> checkpoints = new ArrayList<>(list(config));
+            threads.remove(threadId(config));
+            return new Tag(threadId(config), checkpoints);
+        }
+
+        private static String threadId(RunnableConfig config) {
+            return config.threadId().orElse(THREAD_ID_DEFAULT);
+        }
+    }
+
+    private static WorkflowContext context(int images) {
+        ImageCollectionPlan plan = new ImageCollectionPlan();
+        plan.setContentImageTasks(List.of(new ImageCollectionPlan.ImageSearchTask("technology blog workspace"),
+                new ImageCollectionPlan.ImageSearchTask("coding laptop"), new ImageCollectionPlan.ImageSearchTask("coffee desk")));
+        plan.setIllustrationTasks(List.of(new ImageCollectionPlan.IllustrationTask("developer"),
+                new ImageCollectionPlan.IllustrationTask("reading")));
+        plan.setDiagramTasks(List.of(new ImageCollectionPlan.DiagramTask("graph TD\n  A[浏览器] --> B[博客前端]\n  B --> C[内容 API]",
+                "博客系统架构")));
+        plan.setLogoTasks(List.of(new ImageCollectionPlan.LogoTask("个人技术博客，简洁现代风格，蓝色主色调"),
+                new ImageCollectionPlan.LogoTask("极简几何风格的字母 F")));
+        List<ImageResource> imageList = new ArrayList<>();
+        ImageCategoryEnum[] categories = ImageCategoryEnum.values();
+        for (int i = 0; i < images; i++) {
+            imageList.add(ImageResource.builder()
+                    .category(categories[i % categories.length])
+                    .description("图片描述 " + RandomUtil.randomString(12))
+                    .url("https://images.pexels.com/photos/" + RandomUtil.randomNumbers(7) + "/pexels-photo-"
+                            + RandomUtil.randomNumbers(7) + ".jpeg?auto=compress&cs=tinysrgb&h=350")
+                    .build());
+        }
+        List<ImagePlaceholder> placeholders = List.of(
+                ImagePlaceholder.builder().key("logo-0").category(ImageCategoryEnum.LOGO).description("个人技术博客 Logo")
+                        .url(imageList.get(0).getUrl()).resolved(true).build(),
+                ImagePlaceholder.builder().key("content-0").category(ImageCategoryEnum.CONTENT).description("coding laptop")
+                        .resolved(true).build());
+        StringBuilder enhancedPrompt = new StringBuilder("生成一个个人技术博客，包含首页、文章列表、文章详情和关于我页面。\n\n## 可用素材资源\n");
+        imageList.forEach(image -> enhancedPrompt.append("- ").append(image.getCategory().getText()).append("：")
+                .append(image.getDescription()).append("（").append(image.getUrl()).append("）\n"));
+        return WorkflowContext.builder()
+                .workflowId(RandomUtil.randomString(32))
+                .currentStep("代码生成")
+                .originalPrompt("生成一个个人技术博客，包含首页、文章列表、文章详情和关于我页面")
+                .imageList(imageList)
+                .enhancedPrompt(enhancedPrompt.toString())
+                .generationType(CodeGenTypeEnum.VUE_PROJECT)
+                .generatedCodeDir("tmp/code_output/vue_project_0")
+                .qualityResult(QualityResult.builder().isValid(false)
+                        .errors(List.of("src/pages/Home.vue 中引用的组件 ArticleCard 不存在"))
+                        .suggestions(List.of("创建 src/components/ArticleCard.vue 或移除引用")).build())
+                .imageCollectionPlan(plan)
+                .imagePlaceholders(placeholders)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.feiwu.yikouai.benchmark;
+
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.feiwu.yikouai.langgraph4j.CodeGenConcurrentWorkflow;
+import com.feiwu.yikouai.langgraph4j.state.WorkflowContext;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphRepresentation;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName:WorkflowStartLatencyBenchmark
+ * Package:com.feiwu.yikouai.benchmark
+ * Description: 并发代码生成工作流的启动耗时：每次执行都编译图、渲染 Mermaid、新建线程池（原实现） vs 复用编译好的图和共享执行器
+ * 启动耗时从调用开始到拿到工作流输出流为止（不消费输出，不执行任何节点），不需要外部服务
+ * 原实现每次执行新建的线程池从不关闭：每次执行模拟 4 个并行收集分支各提交一个空任务，最后统计仍存活的线程数
+ * 运行方式：执行 main 方法，参数通过系统属性设置：-Dbench.iterations=2000 -Dbench.rounds=3
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/27 15:40
+ * Version: 1.0
+ */
+public class WorkflowStartLatencyBenchmark {
+
+    private static final String THREAD_PREFIX = "Parallel-Image-Collect";
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.getInteger("bench.iterations", 2000);
+        int rounds = Integer.getInteger("bench.rounds", 3);
+        CodeGenConcurrentWorkflow workflowFactory = new CodeGenConcurrentWorkflow();
+        CompiledGraph<MessagesState<String>> cached = workflowFactory.createWorkflow();
+        ThreadPoolExecutor shared = new ThreadPoolExecutor(16, 16, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100),
+                ThreadFactoryBuilder.create().setNamePrefix(THREAD_PREFIX + "-shared-").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        for (int round = 1; round <= rounds; round++) {
+            // 第一轮包含类加载和 JIT 预热
+            List<Long> perExecution = new ArrayList<>(iterations);
+            List<ExecutorService> leakedPools = new ArrayList<>();
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                CompiledGraph<MessagesState<String>> workflow = workflowFactory.createWorkflow();
+                workflow.getGraph(GraphRepresentation.Type.MERMAID).content();
+                ExecutorService pool = ExecutorBuilder.create()
+                        .setCorePoolSize(10)
+                        .setMaxPoolSize(20)
+                        .setWorkQueue(new LinkedBlockingQueue<>(100))
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix(THREAD_PREFIX).build())
+                        .build();
+                firstStep(workflow, pool);
+                perExecution.add(System.nanoTime() - start);
+                submitBranches(pool);
+                leakedPools.add(pool);
+            }
+            long leakedThreads = countThreads(THREAD_PREFIX);
+            leakedPools.forEach(ExecutorService::shutdownNow);
+
+            List<Long> reused = new ArrayList<>(iterations);
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                firstStep(cached, shared);
+                reused.add(System.nanoTime() - start);
+                submitBranches(shared);
+            }
+            print(round, "每次编译", perExecution);
+            print(round, "复用编译结果", reused);
+            System.out.printf("第 %d 轮 %d 次执行后: 原实现遗留线程 %d 个，共享执行器线程 %d 个%n",
+                    round, iterations, leakedThreads, shared.getPoolSize());
+        }
+        shared.shutdown();
+    }
+
+    private static void firstStep(CompiledGraph<MessagesState<String>> workflow, ExecutorService pool) {
+        WorkflowContext initialContext = WorkflowContext.builder()
+                .originalPrompt("生成一个个人博客")
+                .currentStep("初始化")
+                .build();
+        RunnableConfig runnableConfig = RunnableConfig.builder()
+                .addParallelNodeExecutor("image_plan", pool)
+                .build();
+        if (workflow.stream(Map.of(WorkflowContext.WORKFLOW_CONTEXT_KEY, initialContext), runnableConfig) == null) {
+            throw new IllegalStateException("工作流未返回输出流");
+        }
+    }
+
+    /**
+     * 模拟 4 个并行收集分支
+     */
+    private static void submitBranches(ExecutorService pool) {
+        for (int i = 0; i < 4; i++) {
+            pool.execute(() -> {
+            });
+        }
+    }
+
+    private static long countThreads(String prefix) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(prefix) && !thread.getName().startsWith(prefix + "-shared-"))
+                .count();
+    }
+
+    private static void print(int round, String name, List<Long> nanos) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        double avg = sorted.stream().mapToLong(Long::longValue).average().orElse(0) / 1000;
+        System.out.printf("第 %d 轮 %s: 启动耗时 平均 %.1f us p50 %.1f us p99 %.1f us%n", round, name, avg,
+                sorted.get(sorted.size() / 2) / 1000.0,
+                sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.99) - 1)) / 1000.0);
+    }
+}
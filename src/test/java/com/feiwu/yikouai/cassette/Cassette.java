@@ -0,0 +1,230 @@
+package com.feiwu.yikouai.cassette;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONConfig;
+import cn.hutool.json.JSONUtil;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassName:Cassette
+ * Package:com.feiwu.yikouai.cassette
+ * Description: 模型调用录制带，保存一个测试场景中按顺序发生的所有模型调用（流式增量及到达时间、工具调用、token 用量）
+ * 录制：-Dcassette.mode=record，模型调用照常访问真实接口，场景结束时写入 src/test/resources/cassettes/{name}.json
+ * 回放（默认）：不访问网络，每个通道（模型 Bean 名称）按录制顺序依次返回，-Dcassette.speed 控制回放倍速，0 表示不等待
+ * 同一时间只能插入一盘录制带，未插入时模型调用直接访问真实接口
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/23 10:15
+ * Version: 1.0
+ */
+@Slf4j
+public class Cassette implements AutoCloseable {
+
+    /**
+     * 录制带目录
+     */
+    public static final Path DIR = Paths.get(System.getProperty("cassette.dir", "src/test/resources/cassettes"));
+
+    private static volatile Cassette current;
+
+    private final String name;
+
+    private final Mode mode;
+
+    private final double speed;
+
+    private final Tape tape;
+
+    private final Map<String, Integer> cursors = new HashMap<>();
+
+    public enum Mode {
+        RECORD,
+        REPLAY
+    }
+
+    /**
+     * 录制带文件内容
+     */
+    @Data
+    public static class Tape {
+
+        private List<Interaction> interactions = new ArrayList<>();
+    }
+
+    /**
+     * 一次模型调用
+     */
+    @Data
+    public static class Interaction {
+
+        /**
+         * 模型 Bean 名称
+         */
+        private String channel;
+
+        /**
+         * 请求中最后一条用户消息（仅用于排查，回放时不参与匹配）
+         */
+        private String request;
+
+        /**
+         * 按到达顺序记录的回调事件，非流式调用只有一个 COMPLETE_RESPONSE 事件
+         */
+        private List<Event> events = new ArrayList<>();
+    }
+
+    /**
+     * 一次回调
+     */
+    @Data
+    public static class Event {
+
+        /**
+         * 距离请求发出的毫秒数
+         */
+        private long offsetMillis;
+
+        /**
+         * PARTIAL_RESPONSE / PARTIAL_TOOL_CALL / COMPLETE_TOOL_CALL / COMPLETE_RESPONSE / ERROR
+         */
+        private String type;
+
+        private String text;
+
+        private Integer index;
+
+        private ToolCall toolCall;
+
+        private List<ToolCall> toolCalls;
+
+        private String finishReason;
+
+        private Integer inputTokens;
+
+        private Integer outputTokens;
+
+        private String responseId;
+
+        private String modelName;
+    }
+
+    @Data
+    public static class ToolCall {
+
+        private String id;
+
+        private String name;
+
+        private String arguments;
+    }
+
+    private Cassette(String name, Mode mode, double speed, Tape tape) {
+        this.name = name;
+        this.mode = mode;
+        this.speed = speed;
+        this.tape = tape;
+    }
+
+    /**
+     * 插入录制带，模式与倍速由系统属性决定
+     *
+     * @param name 场景名称，同时也是文件名
+     * @return 录制带，使用完毕后关闭
+     */
+    public static Cassette insert(String name) {
+        Mode mode = Mode.valueOf(System.getProperty("cassette.mode", "replay").toUpperCase());
+        double speed = Double.parseDouble(System.getProperty("cassette.speed", "1"));
+        Tape tape;
+        if (mode == Mode.REPLAY) {
+            File file = file(name);
+            if (!file.exists()) {
+                throw new IllegalStateException("录制带不存在: " + file + "，请先使用 -Dcassette.mode=record 录制");
+            }
+            tape = JSONUtil.toBean(FileUtil.readString(file, StandardCharsets.UTF_8), Tape.class);
+        } else {
+            tape = new Tape();
+        }
+        Cassette cassette = new Cassette(name, mode, speed, tape);
+        current = cassette;
+        log.info("插入录制带 {}，模式: {}，倍速: {}", name, mode, speed);
+        return cassette;
+    }
+
+    /**
+     * @return 当前插入的录制带，没有时返回 null
+     */
+    public static Cassette current() {
+        return current;
+    }
+
+    public static boolean exists(String name) {
+        return file(name).exists();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 回放时事件间隔的缩放系数，0 表示不等待
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * 回放：取出该通道的下一次调用
+     */
+    public synchronized Interaction next(String channel, String request) {
+        int cursor = cursors.getOrDefault(channel, 0);
+        int seen = 0;
+        for (Interaction interaction : tape.getInteractions()) {
+            if (channel.equals(interaction.getChannel()) && seen++ == cursor) {
+                cursors.put(channel, cursor + 1);
+                if (interaction.getRequest() != null && !interaction.getRequest().equals(request)) {
+                    log.warn("录制带 {} 通道 {} 第 {} 次调用的请求与录制时不同", name, channel, cursor + 1);
+                }
+                return interaction;
+            }
+        }
+        throw new IllegalStateException("录制带 " + name + " 中通道 " + channel + " 只有 " + cursor + " 次调用");
+    }
+
+    /**
+     * 录制：追加一次调用（按完成顺序）
+     */
+    public synchronized void record(Interaction interaction) {
+        tape.getInteractions().add(interaction);
+    }
+
+    @Override
+    public void close() {
+        if (current == this) {
+            current = null;
+        }
+        if (mode == Mode.RECORD) {
+            File file = file(name);
+            FileUtil.writeString(JSONUtil.toJsonPrettyStr(JSONUtil.parse(tape, JSONConfig.create().setIgnoreNullValue(true))),
+                    file, StandardCharsets.UTF_8);
+            log.info("录制带已保存: {}，共 {} 次调用", file, tape.getInteractions().size());
+        }
+    }
+
+    private static File file(String name) {
+        return DIR.resolve(name + ".json").toFile();
+    }
+}
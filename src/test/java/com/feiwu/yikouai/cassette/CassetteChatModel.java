@@ -0,0 +1,75 @@
+package com.feiwu.yikouai.cassette;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ClassName:CassetteChatModel
+ * Package:com.feiwu.yikouai.cassette
+ * Description: 可录制 / 回放的非流式模型，回放时按录制的耗时（除以倍速）返回
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/23 11:00
+ * Version: 1.0
+ */
+public class CassetteChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+
+    private final String channel;
+
+    public CassetteChatModel(ChatModel delegate, String channel) {
+        this.delegate = delegate;
+        this.channel = channel;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        Cassette cassette = Cassette.current();
+        if (cassette == null) {
+            return delegate.chat(chatRequest);
+        }
+        long start = System.nanoTime();
+        String request = CassetteCodec.lastUserMessage(chatRequest);
+        if (cassette.getMode() == Cassette.Mode.REPLAY) {
+            Cassette.Event event = cassette.next(channel, request).getEvents().get(0);
+            CassetteCodec.awaitOffset(start, event.getOffsetMillis(), cassette.getSpeed());
+            return CassetteCodec.chatResponse(event);
+        }
+        ChatResponse response = delegate.chat(chatRequest);
+        Cassette.Interaction interaction = new Cassette.Interaction();
+        interaction.setChannel(channel);
+        interaction.setRequest(request);
+        interaction.getEvents().add(CassetteCodec.completeResponse(start, response));
+        cassette.record(interaction);
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
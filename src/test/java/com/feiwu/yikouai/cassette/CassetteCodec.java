@@ -0,0 +1,109 @@
+package com.feiwu.yikouai.cassette;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ClassName:CassetteCodec
+ * Package:com.feiwu.yikouai.cassette
+ * Description: 模型请求 / 响应与录制带事件之间的转换
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/23 10:40
+ * Version: 1.0
+ */
+final class CassetteCodec {
+
+    private CassetteCodec() {
+    }
+
+    static String lastUserMessage(ChatRequest chatRequest) {
+        List<ChatMessage> messages = chatRequest.messages();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage userMessage && userMessage.hasSingleText()) {
+                return userMessage.singleText();
+            }
+        }
+        return null;
+    }
+
+    static Cassette.Event event(long startNanos, String type) {
+        Cassette.Event event = new Cassette.Event();
+        event.setOffsetMillis((System.nanoTime() - startNanos) / 1_000_000);
+        event.setType(type);
+        return event;
+    }
+
+    static Cassette.ToolCall toolCall(ToolExecutionRequest request) {
+        Cassette.ToolCall toolCall = new Cassette.ToolCall();
+        toolCall.setId(request.id());
+        toolCall.setName(request.name());
+        toolCall.setArguments(request.arguments());
+        return toolCall;
+    }
+
+    static ToolExecutionRequest toolExecutionRequest(Cassette.ToolCall toolCall) {
+        return ToolExecutionRequest.builder()
+                .id(toolCall.getId())
+                .name(toolCall.getName())
+                .arguments(toolCall.getArguments())
+                .build();
+    }
+
+    static Cassette.Event completeResponse(long startNanos, ChatResponse response) {
+        Cassette.Event event = event(startNanos, "COMPLETE_RESPONSE");
+        AiMessage aiMessage = response.aiMessage();
+        event.setText(aiMessage.text());
+        if (aiMessage.hasToolExecutionRequests()) {
+            event.setToolCalls(aiMessage.toolExecutionRequests().stream().map(CassetteCodec::toolCall).toList());
+        }
+        if (response.finishReason() != null) {
+            event.setFinishReason(response.finishReason().name());
+        }
+        TokenUsage tokenUsage = response.tokenUsage();
+        if (tokenUsage != null) {
+            event.setInputTokens(tokenUsage.inputTokenCount());
+            event.setOutputTokens(tokenUsage.outputTokenCount());
+        }
+        event.setResponseId(response.id());
+        event.setModelName(response.modelName());
+        return event;
+    }
+
+    static ChatResponse chatResponse(Cassette.Event event) {
+        AiMessage.Builder aiMessage = AiMessage.builder().text(event.getText());
+        if (event.getToolCalls() != null) {
+            aiMessage.toolExecutionRequests(event.getToolCalls().stream().map(CassetteCodec::toolExecutionRequest).toList());
+        }
+        return ChatResponse.builder()
+                .aiMessage(aiMessage.build())
+                .id(event.getResponseId())
+                .modelName(event.getModelName())
+                .finishReason(event.getFinishReason() == null ? null : FinishReason.valueOf(event.getFinishReason()))
+                .tokenUsage(event.getInputTokens() == null ? null : new TokenUsage(event.getInputTokens(), event.getOutputTokens()))
+                .build();
+    }
+
+    /**
+     * 回放时等待到事件的（缩放后）到达时间
+     */
+    static void awaitOffset(long startNanos, long offsetMillis, double speed) {
+        if (speed <= 0) {
+            return;
+        }
+        long deadline = startNanos + (long) (offsetMillis * 1_000_000L / speed);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
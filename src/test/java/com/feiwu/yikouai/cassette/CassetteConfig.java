@@ -0,0 +1,37 @@
+package com.feiwu.yikouai.cassette;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * ClassName:CassetteConfig
+ * Package:com.feiwu.yikouai.cassette
+ * Description: 测试配置，将容器中所有 ChatModel / StreamingChatModel（包括多例模型）包装为可录制 / 回放的模型，
+ * 通道名称为 Bean 名称；测试类通过 @Import(CassetteConfig.class) 启用
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/23 11:45
+ * Version: 1.0
+ */
+@TestConfiguration
+public class CassetteConfig {
+
+    @Bean
+    public static BeanPostProcessor cassetteModelPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof StreamingChatModel streamingChatModel && !(bean instanceof CassetteStreamingChatModel)) {
+                    return new CassetteStreamingChatModel(streamingChatModel, beanName);
+                }
+                if (bean instanceof ChatModel chatModel && !(bean instanceof CassetteChatModel)) {
+                    return new CassetteChatModel(chatModel, beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.feiwu.yikouai.cassette;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ClassName:CassetteStreamingChatModel
+ * Package:com.feiwu.yikouai.cassette
+ * Description: 可录制 / 回放的流式模型
+ * 录制时记录每个回调（文本增量、工具调用增量、完整工具调用、最终响应及 token 用量）及其距离请求发出的时间；
+ * 回放时在虚拟线程上按录制的时间间隔（除以倍速）依次回调，与真实客户端一样不在调用线程上回调
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/23 11:20
+ * Version: 1.0
+ */
+@Slf4j
+public class CassetteStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+
+    private final String channel;
+
+    public CassetteStreamingChatModel(StreamingChatModel delegate, String channel) {
+        this.delegate = delegate;
+        this.channel = channel;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        Cassette cassette = Cassette.current();
+        if (cassette == null) {
+            delegate.chat(chatRequest, handler);
+            return;
+        }
+        String request = CassetteCodec.lastUserMessage(chatRequest);
+        if (cassette.getMode() == Cassette.Mode.REPLAY) {
+            Cassette.Interaction interaction = cassette.next(channel, request);
+            Thread.ofVirtual().name("cassette-replay-" + channel).start(() -> replay(interaction, cassette.getSpeed(), handler));
+            return;
+        }
+        delegate.chat(chatRequest, new RecordingHandler(cassette, request, handler));
+    }
+
+    private static void replay(Cassette.Interaction interaction, double speed, StreamingChatResponseHandler handler) {
+        long start = System.nanoTime();
+        for (Cassette.Event event : interaction.getEvents()) {
+            CassetteCodec.awaitOffset(start, event.getOffsetMillis(), speed);
+            try {
+                switch (event.getType()) {
+                    case "PARTIAL_RESPONSE" -> handler.onPartialResponse(event.getText());
+                    case "PARTIAL_TOOL_CALL" -> handler.onPartialToolExecutionRequest(event.getIndex(),
+                            CassetteCodec.toolExecutionRequest(event.getToolCall()));
+                    case "COMPLETE_TOOL_CALL" -> handler.onCompleteToolExecutionRequest(event.getIndex(),
+                            CassetteCodec.toolExecutionRequest(event.getToolCall()));
+                    case "COMPLETE_RESPONSE" -> handler.onCompleteResponse(CassetteCodec.chatResponse(event));
+                    case "ERROR" -> handler.onError(new RuntimeException(event.getText()));
+                    default -> log.warn("未知的录制事件类型: {}", event.getType());
+                }
+            } catch (Exception e) {
+                handler.onError(e);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    /**
+     * 录制回调并转发给原处理器
+     */
+    private class RecordingHandler implements StreamingChatResponseHandler {
+
+        private final Cassette cassette;
+
+        private final StreamingChatResponseHandler handler;
+
+        private final Cassette.Interaction interaction = new Cassette.Interaction();
+
+        private final long start = System.nanoTime();
+
+        RecordingHandler(Cassette cassette, String request, StreamingChatResponseHandler handler) {
+            this.cassette = cassette;
+            this.handler = handler;
+            interaction.setChannel(channel);
+            interaction.setRequest(request);
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            Cassette.Event event = CassetteCodec.event(start, "PARTIAL_RESPONSE");
+            event.setText(partialResponse);
+            interaction.getEvents().add(event);
+            handler.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+            interaction.getEvents().add(toolCallEvent("PARTIAL_TOOL_CALL", index, partialToolExecutionRequest));
+            handler.onPartialToolExecutionRequest(index, partialToolExecutionRequest);
+        }
+
+        @Override
+        public void onCompleteToolExecutionRequest(int index, ToolExecutionRequest completeToolExecutionRequest) {
+            interaction.getEvents().add(toolCallEvent("COMPLETE_TOOL_CALL", index, completeToolExecutionRequest));
+            handler.onCompleteToolExecutionRequest(index, completeToolExecutionRequest);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            interaction.getEvents().add(CassetteCodec.completeResponse(start, completeResponse));
+            cassette.record(interaction);
+            handler.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            Cassette.Event event = CassetteCodec.event(start, "ERROR");
+            event.setText(String.valueOf(error.getMessage()));
+            interaction.getEvents().add(event);
+            cassette.record(interaction);
+            handler.onError(error);
+        }
+
+        private Cassette.Event toolCallEvent(String type, int index, ToolExecutionRequest request) {
+            Cassette.Event event = CassetteCodec.event(start, type);
+            event.setIndex(index);
+            event.setToolCall(CassetteCodec.toolCall(request));
+            return event;
+        }
+    }
+}
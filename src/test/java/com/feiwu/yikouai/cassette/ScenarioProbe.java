@@ -0,0 +1,108 @@
+package com.feiwu.yikouai.cassette;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONUtil;
+import com.mybatisflex.core.audit.AuditManager;
+import com.mybatisflex.core.audit.MessageCollector;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ClassName:ScenarioProbe
+ * Package:com.feiwu.yikouai.cassette
+ * Description: 统计一个测试场景的端到端耗时、首个响应耗时、堆分配字节数、SQL 执行次数和 Redis 命令数，
+ * 结果输出到日志并写入 target/cassette-metrics/{scenario}.json，便于 CI 按场景跟踪
+ * SQL 次数来自 MyBatis-Flex 审计；Redis 命令数为服务端 total_commands_processed 的差值，需使用独立的测试 Redis
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/23 14:00
+ * Version: 1.0
+ */
+@Slf4j
+public class ScenarioProbe {
+
+    private final String scenario;
+
+    private final RedissonClient redissonClient;
+
+    private final AtomicLong sqlCount = new AtomicLong();
+
+    private final MessageCollector previousCollector;
+
+    private final boolean previousAuditEnable;
+
+    private final long startNanos;
+
+    private final long startAllocatedBytes;
+
+    private final long startRedisCommands;
+
+    private volatile long firstResponseNanos = -1;
+
+    /**
+     * 场景统计结果
+     */
+    public record ScenarioMetrics(String scenario, double latencyMillis, double firstResponseMillis,
+                                  long allocatedBytes, long sqlCount, long redisCommands) {
+    }
+
+    private ScenarioProbe(String scenario, RedissonClient redissonClient) {
+        this.scenario = scenario;
+        this.redissonClient = redissonClient;
+        this.previousCollector = AuditManager.getMessageCollector();
+        this.previousAuditEnable = AuditManager.isAuditEnable();
+        AuditManager.setMessageCollector(message -> sqlCount.incrementAndGet());
+        AuditManager.setAuditEnable(true);
+        this.startRedisCommands = redisCommands();
+        this.startAllocatedBytes = allocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    public static ScenarioProbe start(String scenario, RedissonClient redissonClient) {
+        return new ScenarioProbe(scenario, redissonClient);
+    }
+
+    /**
+     * 标记收到第一个响应（流式场景中的第一条消息），只记录第一次
+     */
+    public void markFirstResponse() {
+        if (firstResponseNanos < 0) {
+            firstResponseNanos = System.nanoTime();
+        }
+    }
+
+    public ScenarioMetrics stop() {
+        long endNanos = System.nanoTime();
+        long allocated = allocatedBytes() - startAllocatedBytes;
+        AuditManager.setAuditEnable(previousAuditEnable);
+        AuditManager.setMessageCollector(previousCollector);
+        // 减去本次 INFO 命令
+        long redis = redisCommands() - startRedisCommands - 1;
+        ScenarioMetrics metrics = new ScenarioMetrics(scenario,
+                (endNanos - startNanos) / 1e6,
+                firstResponseNanos < 0 ? -1 : (firstResponseNanos - startNanos) / 1e6,
+                allocated, sqlCount.get(), redis);
+        log.info("场景统计 {}", metrics);
+        FileUtil.writeString(JSONUtil.toJsonPrettyStr(metrics),
+                Paths.get("target", "cassette-metrics", scenario + ".json").toFile(), StandardCharsets.UTF_8);
+        return metrics;
+    }
+
+    private long redisCommands() {
+        String value = redissonClient.getRedisNodes(RedisNodes.SINGLE).getInstance()
+                .info(RedisNode.InfoSection.STATS)
+                .get("total_commands_processed");
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+}
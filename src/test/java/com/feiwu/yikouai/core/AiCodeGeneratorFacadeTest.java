@@ -1,33 +1,64 @@
 package com.feiwu.yikouai.core;
 
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
+import com.feiwu.yikouai.cassette.Cassette;
+import com.feiwu.yikouai.cassette.CassetteConfig;
+import com.feiwu.yikouai.cassette.ScenarioProbe;
 import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 
 import java.io.File;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * ClassName:AiCodeGeneratorFacadeTest
  * Package:com.feiwu.yikouai.core
- * Description:
+ * Description: 默认回放 src/test/resources/cassettes 下的录制带，不访问模型接口；
+ * 使用 -Dcassette.mode=record 重新录制，-Dcassette.speed=0 不等待录制的间隔
  *
  * @Author: 绯雾sama
  * @Create:2025/10/7 12:50
  * Version: 1.0
  */
 @SpringBootTest
+@Import(CassetteConfig.class)
 class AiCodeGeneratorFacadeTest {
 
     @Resource
     private AiCodeGeneratorFacade aiCodeGeneratorFacade;
 
+    @Resource
+    private RedissonClient redissonClient;
+
     @Test
     void generateAndSaveCode() {
-        File file = aiCodeGeneratorFacade.generateAndSaveCode("帮我生成一个最多20行代码的登录页面", CodeGenTypeEnum.MULTI_FILE, 1L);
-        Assertions.assertNotNull(file);
+        try (Cassette ignored = Cassette.insert("facade-multi-file")) {
+            ScenarioProbe probe = ScenarioProbe.start("facade-multi-file", redissonClient);
+            File file = aiCodeGeneratorFacade.generateAndSaveCode("帮我生成一个最多20行代码的登录页面", CodeGenTypeEnum.MULTI_FILE, 1L);
+            probe.stop();
+            Assertions.assertNotNull(file);
+        }
+    }
+
+    @Test
+    void generateAndSaveCodeStream() {
+        try (Cassette ignored = Cassette.insert("facade-html-stream")) {
+            ScenarioProbe probe = ScenarioProbe.start("facade-html-stream", redissonClient);
+            List<StreamMessage> messages = aiCodeGeneratorFacade
+                    .generateAndSaveCodeStream("帮我生成一个最多20行代码的登录页面", CodeGenTypeEnum.HTML, 1L)
+                    .doOnNext(message -> probe.markFirstResponse())
+                    .collectList()
+                    .block();
+            probe.stop();
+            Assertions.assertNotNull(messages);
+            Assertions.assertFalse(messages.isEmpty());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package com.feiwu.yikouai.core.parse;
+
+import com.feiwu.yikouai.ai.model.MultiFileCodeResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClassName:StreamingCodeFenceParserTest
+ * Package:com.feiwu.yikouai.core.parse
+ * Description: 流式代码块解析器：每个用例按 1 ~ 全长的所有分段长度输入，结果须与 HtmlCodeParser、MultiFileCodeParser 一致
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/18 10:20
+ * Version: 1.0
+ */
+class StreamingCodeFenceParserTest {
+
+    private static final Set<String> MULTI_FILE_LANGUAGES = Set.of("html", "css", "js");
+
+    /**
+     * 解析结果：闭合的代码块（语言 -> 内容）与兜底内容
+     */
+    private record ParseResult(Map<String, String> fences, String fallbackContent) {
+    }
+
+    private static ParseResult parse(String output, int chunkSize, Set<String> languages, String fallbackLanguage) {
+        Map<String, String> fences = new LinkedHashMap<>();
+        StreamingCodeFenceParser parser = new StreamingCodeFenceParser(languages, fallbackLanguage, (language, code) -> {
+            assertFalse(fences.containsKey(language), "同一语言只应回调一次: " + language);
+            fences.put(language, code);
+        });
+        for (int from = 0; from < output.length(); from += chunkSize) {
+            parser.feed(output.substring(from, Math.min(output.length(), from + chunkSize)));
+        }
+        return new ParseResult(fences, parser.getFallbackContent());
+    }
+
+    /**
+     * HTML 模式的最终结果：有有效代码块时取代码块，否则取兜底内容（与 StreamingCodeFileSaver 一致）
+     */
+    private static String streamingHtml(String output, int chunkSize) {
+        ParseResult result = parse(output, chunkSize, Set.of("html"), "html");
+        String html = result.fences().get("html");
+        if (html != null && !html.isBlank()) {
+            assertNull(result.fallbackContent(), "已有完整代码块时不应保留兜底内容");
+            return html.trim();
+        }
+        return result.fallbackContent() == null ? null : result.fallbackContent().trim();
+    }
+
+    private static void assertHtmlMatchesRegexParser(String output) {
+        String expected = new HtmlCodeParser().parseCode(output).getHtmlCode();
+        for (int chunkSize = 1; chunkSize <= output.length(); chunkSize++) {
+            assertEquals(expected, streamingHtml(output, chunkSize), "分段长度: " + chunkSize);
+        }
+    }
+
+    @Test
+    void fenceSplitAcrossChunks() {
+        String output = "好的，页面如下：\n```html\n<div class=\"a\">x``y</div>\n```\n以上。";
+        assertHtmlMatchesRegexParser(output);
+        for (int chunkSize = 1; chunkSize <= output.length(); chunkSize++) {
+            ParseResult result = parse(output, chunkSize, Set.of("html"), "html");
+            assertEquals("<div class=\"a\">x``y</div>\n", result.fences().get("html"), "分段长度: " + chunkSize);
+        }
+    }
+
+    @Test
+    void unterminatedFenceFallsBackToWholeOutput() {
+        String output = "说明文字\n```html\n<html><body>未闭合`` ";
+        assertHtmlMatchesRegexParser(output);
+        for (int chunkSize = 1; chunkSize <= output.length(); chunkSize++) {
+            ParseResult result = parse(output, chunkSize, Set.of("html"), "html");
+            assertTrue(result.fences().isEmpty());
+            assertEquals(output, result.fallbackContent(), "分段长度: " + chunkSize);
+        }
+    }
+
+    @Test
+    void emptyFenceFallsBackToWholeOutput() {
+        List<String> outputs = List.of(
+                "```html\n```",
+                "前言\n```html\n  \n```\n<html><body>正文</body></html>",
+                "```html\n\n```\n然后\n```html\n<p>第二个代码块不使用</p>\n```\n结尾"
+        );
+        for (String output : outputs) {
+            assertHtmlMatchesRegexParser(output);
+            for (int chunkSize = 1; chunkSize <= output.length(); chunkSize++) {
+                ParseResult result = parse(output, chunkSize, Set.of("html"), "html");
+                assertTrue(result.fences().isEmpty(), "空代码块不应回调");
+                assertEquals(output, result.fallbackContent(), "分段长度: " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void noFenceFallsBackToWholeOutput() {
+        assertHtmlMatchesRegexParser("<!DOCTYPE html><html><body>没有代码块</body></html>");
+    }
+
+    @Test
+    void multiFileOutput() {
+        String output = "```HTML\n<html><link href=\"style.css\"></html>\n```\n"
+                + "```css\nbody { color: red; }\n```\n"
+                + "```python\nprint('ignored')\n```\n"
+                + "```javascript\nconsole.log('`');\n```\n"
+                + "```css\n.second { }\n```\n";
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(output);
+        for (int chunkSize = 1; chunkSize <= output.length(); chunkSize++) {
+            ParseResult result = parse(output, chunkSize, MULTI_FILE_LANGUAGES, null);
+            assertNull(result.fallbackContent());
+            assertEquals(Set.of("html", "css", "js"), result.fences().keySet(), "分段长度: " + chunkSize);
+            assertEquals(expected.getHtmlCode(), result.fences().get("html").trim());
+            assertEquals(expected.getCssCode(), result.fences().get("css").trim());
+            assertEquals(expected.getJsCode(), result.fences().get("js").trim());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.feiwu.yikouai.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.feiwu.yikouai.constant.AppConstant;
+import com.feiwu.yikouai.exception.BusinessException;
+import com.feiwu.yikouai.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClassName:StreamingCodeFileSaverTest
+ * Package:com.feiwu.yikouai.core.saver
+ * Description: 流式代码文件保存器：分段输入、未闭合代码块、空代码块、多文件输出，写入 tmp/code_output 下的临时目录，结束后删除
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/18 10:45
+ * Version: 1.0
+ */
+class StreamingCodeFileSaverTest {
+
+    /**
+     * 测试专用的应用 ID，避免覆盖本地调试生成的目录
+     */
+    private static final long APP_ID = 990_000_000_001L;
+
+    private final List<File> createdDirs = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        createdDirs.forEach(FileUtil::del);
+    }
+
+    private File outputDir(CodeGenTypeEnum codeGenType) {
+        File dir = new File(AppConstant.CODE_OUTPUT_ROOT_DIR, StrUtil.format("{}_{}", codeGenType.getValue(), APP_ID));
+        FileUtil.del(dir);
+        createdDirs.add(dir);
+        return dir;
+    }
+
+    private static File save(CodeGenTypeEnum codeGenType, String output, int chunkSize) {
+        StreamingCodeFileSaver saver = new StreamingCodeFileSaver(codeGenType, APP_ID);
+        for (int from = 0; from < output.length(); from += chunkSize) {
+            saver.append(output.substring(from, Math.min(output.length(), from + chunkSize)));
+        }
+        return saver.finish();
+    }
+
+    private static String read(File dir, String fileName) {
+        return FileUtil.readString(new File(dir, fileName), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void htmlFenceSplitAcrossChunks() {
+        File dir = outputDir(CodeGenTypeEnum.HTML);
+        String output = "页面如下：\n```html\n<html><body>你好</body></html>\n```\n说明";
+        for (int chunkSize : new int[]{1, 2, 3, 7, output.length()}) {
+            File savedDir = save(CodeGenTypeEnum.HTML, output, chunkSize);
+            assertEquals(dir.getAbsolutePath(), savedDir.getAbsolutePath());
+            assertEquals("<html><body>你好</body></html>", read(dir, "index.html"), "分段长度: " + chunkSize);
+        }
+    }
+
+    @Test
+    void unterminatedHtmlFenceSavesWholeOutput() {
+        File dir = outputDir(CodeGenTypeEnum.HTML);
+        String output = "页面如下：\n```html\n<html><body>未闭合";
+        save(CodeGenTypeEnum.HTML, output, 4);
+        assertEquals(output, read(dir, "index.html"));
+    }
+
+    @Test
+    void emptyHtmlFenceSavesWholeOutput() {
+        File dir = outputDir(CodeGenTypeEnum.HTML);
+        String output = "```html\n\n```\n<html><body>代码块外的页面</body></html>\n";
+        for (int chunkSize : new int[]{1, 5, output.length()}) {
+            save(CodeGenTypeEnum.HTML, output, chunkSize);
+            assertEquals(output.trim(), read(dir, "index.html"), "分段长度: " + chunkSize);
+        }
+    }
+
+    @Test
+    void multiFileOutput() {
+        File dir = outputDir(CodeGenTypeEnum.MULTI_FILE);
+        String output = "```html\n<html><script src=\"script.js\"></script></html>\n```\n"
+                + "```css\nbody { margin: 0; }\n```\n"
+                + "```js\nconsole.log(`hi`);\n```";
+        save(CodeGenTypeEnum.MULTI_FILE, output, 3);
+        assertEquals("<html><script src=\"script.js\"></script></html>", read(dir, "index.html"));
+        assertEquals("body { margin: 0; }", read(dir, "style.css"));
+        assertEquals("console.log(`hi`);", read(dir, "script.js"));
+    }
+
+    @Test
+    void multiFileOutputWithoutHtmlFails() {
+        outputDir(CodeGenTypeEnum.MULTI_FILE);
+        String output = "```css\nbody { margin: 0; }\n```\n```html\n\n```";
+        assertThrows(BusinessException.class, () -> save(CodeGenTypeEnum.MULTI_FILE, output, 6));
+    }
+}
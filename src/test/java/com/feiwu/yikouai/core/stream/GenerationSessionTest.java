@@ -0,0 +1,142 @@
+package com.feiwu.yikouai.core.stream;
+
+import com.feiwu.yikouai.ai.model.message.StreamMessage;
+import com.feiwu.yikouai.core.AiCodeGeneratorFacade;
+import com.feiwu.yikouai.core.handler.StreamMessageCoalescer;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.tool.ToolExecution;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClassName:GenerationSessionTest
+ * Package:com.feiwu.yikouai.core.stream
+ * Description: 生成任务会话：中断后 TokenStream 的工具循环仍在执行时不能触发 settledCallback（释放应用的生成权），
+ * 开启 / 关闭 SSE 合并时会话都要通过 Reactor Context 传到 AiCodeGeneratorFacade；已取消的订阅不能留在监听者中
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/11/3 10:30
+ * Version: 1.0
+ */
+class GenerationSessionTest {
+
+    private static final long APP_ID = 990_000_000_002L;
+
+    /**
+     * 只保存回调的 TokenStream，start 后不产生任何内容，模拟仍在执行的模型调用与工具循环
+     */
+    private static class PendingTokenStream implements TokenStream {
+
+        private Consumer<Throwable> errorHandler;
+
+        @Override
+        public TokenStream onPartialResponse(Consumer<String> partialResponseHandler) {
+            return this;
+        }
+
+        @Override
+        public TokenStream onPartialToolExecutionRequest(BiConsumer<Integer, ToolExecutionRequest> toolExecutionRequestHandler) {
+            return this;
+        }
+
+        @Override
+        public TokenStream onCompleteToolExecutionRequest(BiConsumer<Integer, ToolExecutionRequest> completedHandler) {
+            return this;
+        }
+
+        @Override
+        public TokenStream onRetrieved(Consumer<List<Content>> contentHandler) {
+            return this;
+        }
+
+        @Override
+        public TokenStream onToolExecuted(Consumer<ToolExecution> toolExecuteHandler) {
+            return this;
+        }
+
+        @Override
+        public TokenStream onCompleteResponse(Consumer<ChatResponse> completeResponseHandler) {
+            return this;
+        }
+
+        @Override
+        public TokenStream onError(Consumer<Throwable> errorHandler) {
+            this.errorHandler = errorHandler;
+            return this;
+        }
+
+        @Override
+        public TokenStream ignoreErrors() {
+            return this;
+        }
+
+        @Override
+        public void start() {
+        }
+    }
+
+    @Test
+    void backgroundWorkDelaysSettleWithAndWithoutCoalescing() {
+        for (boolean coalescing : new boolean[]{false, true}) {
+            StreamMessageCoalescer coalescer = new StreamMessageCoalescer();
+            ReflectionTestUtils.setField(coalescer, "enabled", coalescing);
+            ReflectionTestUtils.setField(coalescer, "windowMillis", 30L);
+            ReflectionTestUtils.setField(coalescer, "maxBytes", 2048);
+            PendingTokenStream tokenStream = new PendingTokenStream();
+            Flux<StreamMessage> messageFlux = ReflectionTestUtils.invokeMethod(new AiCodeGeneratorFacade(),
+                    "processTokenStream", tokenStream, APP_ID);
+            assertNotNull(messageFlux);
+
+            AtomicBoolean settled = new AtomicBoolean(false);
+            GenerationSession session = new GenerationSession(APP_ID, "generation-" + coalescing, 16, entry -> {
+            });
+            session.start(coalescer.coalesce(messageFlux).map(StreamMessage::getType), () -> {
+            }, () -> settled.set(true));
+
+            session.dispose();
+            // 取消时 AiCodeGeneratorFacade 会中断订阅所在的线程（即当前测试线程），清除中断标记
+            Thread.interrupted();
+            assertTrue(session.isFinished());
+            assertFalse(settled.get(), "工具循环结束前不应释放生成权, 合并: " + coalescing);
+            assertFalse(session.isSettled());
+
+            tokenStream.errorHandler.accept(new RuntimeException("工具循环结束"));
+            assertTrue(settled.get(), "工具循环结束后应释放生成权, 合并: " + coalescing);
+            assertTrue(session.isSettled());
+        }
+    }
+
+    @Test
+    void cancelledSubscriberIsNotKeptAsListener() {
+        GenerationSession session = new GenerationSession(APP_ID, "generation-cancel", 16, entry -> {
+        });
+        session.start(Flux.just("a", "b", "c").concatWith(Flux.never()), () -> {
+        }, () -> {
+        });
+        Collection<?> listeners = (Collection<?>) ReflectionTestUtils.getField(session, "listeners");
+        assertNotNull(listeners);
+        // 回放缓冲区时就取消订阅（take 收到第一条后取消），此时尚未加入监听者
+        List<ReplayEntry> received = session.subscribe(0, (afterSeq, firstSeq) -> List.of()).take(1).collectList().block();
+        assertEquals(List.of("a"), received.stream().map(ReplayEntry::data).toList());
+        assertTrue(listeners.isEmpty(), "已取消的订阅不应留在监听者中");
+        // 实时阶段取消订阅
+        Disposable live = session.subscribe(3, (afterSeq, firstSeq) -> List.of()).subscribe();
+        assertEquals(1, listeners.size());
+        live.dispose();
+        assertTrue(listeners.isEmpty());
+        session.dispose();
+    }
+}
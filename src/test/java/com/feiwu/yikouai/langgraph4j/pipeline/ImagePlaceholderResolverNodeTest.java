@@ -0,0 +1,95 @@
+package com.feiwu.yikouai.langgraph4j.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClassName:ImagePlaceholderResolverNodeTest
+ * Package:com.feiwu.yikouai.langgraph4j.pipeline
+ * Description: 图片占位符替换：没有图片的占位符按所在位置去掉 img 标签、CSS 声明（style 块、style 属性、Vue 样式绑定）或标签属性，
+ * 图片地址按原样写入（包括 $ 和 \），同一标签中有图片与没有图片的占位符互不影响
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/11/3 14:10
+ * Version: 1.0
+ */
+class ImagePlaceholderResolverNodeTest {
+
+    private static final String URL = "https://cdn.example.com/hero.png";
+
+    private static final Map<String, String> URLS = Map.of("ok", URL);
+
+    private static String resolve(String content) {
+        return ImagePlaceholderResolverNode.resolvePlaceholders(content, URLS);
+    }
+
+    @Test
+    void missingImgIsRemoved() {
+        assertEquals("<p>前</p><img src=\"" + URL + "\" alt=\"y\"><p>后</p>",
+                resolve("<p>前</p><img class=\"hero\" src=\"{{image:missing}}\" alt=\"x\"><img src=\"{{image:ok}}\" alt=\"y\"><p>后</p>"));
+        assertEquals("<div></div>", resolve("<div><img :src=\"'{{image:missing}}'\" alt=\"x\" /></div>"));
+    }
+
+    @Test
+    void missingUrlDeclarationInStyleBlockIsRemoved() {
+        String content = "<style>\n.hero {\n  color: red;\n  background-image: url('{{image:missing}}');\n}\n"
+                + ".logo { background: #fff url(\"{{image:ok}}\") no-repeat; }\n</style>";
+        assertEquals("<style>\n.hero {\n  color: red;\n  \n}\n"
+                + ".logo { background: #fff url(\"" + URL + "\") no-repeat; }\n</style>", resolve(content));
+    }
+
+    @Test
+    void missingUrlDeclarationInStyleAttributeIsRemoved() {
+        assertEquals("<div style=\"color: red; \">x</div>",
+                resolve("<div style=\"color: red; background: url({{image:missing}}) no-repeat\">x</div>"));
+        // 多层背景整条去掉
+        assertEquals("<div style=\"color: red; \">x</div>",
+                resolve("<div style=\"color: red; background: url({{image:missing}}) center, linear-gradient(#fff, #000)\">x</div>"));
+    }
+
+    @Test
+    void missingUrlDeclarationInVueStyleBindingIsRemoved() {
+        assertEquals("<div :style=\"{ }\">x</div>",
+                resolve("<div :style=\"{ backgroundImage: 'url({{image:missing}})' }\">x</div>"));
+        assertEquals("<div :style=\"{ color: 'red', }\">x</div>",
+                resolve("<div :style=\"{ color: 'red', backgroundImage: `url({{image:missing}})` }\">x</div>"));
+        assertEquals("<div :style=\"{  color: 'red' }\">x</div>",
+                resolve("<div :style=\"{ backgroundImage: 'url({{image:missing}})', color: 'red' }\">x</div>"));
+    }
+
+    @Test
+    void missingAttributeIsRemoved() {
+        assertEquals("<section class=\"a\">x</section>", resolve("<section data-bg=\"{{image:missing}}\" class=\"a\">x</section>"));
+        assertEquals("<a>l</a>", resolve("<a href='{{image:missing}}'>l</a>"));
+        // 不在标签、CSS 声明中的占位符替换为空
+        assertEquals("const hero = '';", resolve("const hero = '{{image:missing}}';"));
+    }
+
+    @Test
+    void resolvedUrlIsWrittenLiterally() {
+        String url = "https://cdn.example.com/a$1b\\c$.png";
+        Map<String, String> urls = Map.of("ok", url);
+        assertEquals("<img src=\"" + url + "\"><div style=\"background: url('" + url + "')\"></div>const a = '" + url + "';",
+                ImagePlaceholderResolverNode.resolvePlaceholders(
+                        "<img src=\"{{image:ok}}\"><div style=\"background: url('{{image:ok}}')\"></div>const a = '{{image:ok}}';",
+                        urls));
+        // 同一标签中还有需要去掉的属性时，整个标签会被重写，地址仍按原样写入
+        assertEquals("<div style=\"background: url('" + url + "')\"></div>",
+                ImagePlaceholderResolverNode.resolvePlaceholders(
+                        "<div style=\"background: url('{{image:ok}}')\" data-fallback=\"{{image:missing}}\"></div>", urls));
+    }
+
+    @Test
+    void resolvedAndMissingPlaceholdersShareOneTag() {
+        assertEquals("<div class=\"card\" style=\"background-image: url('" + URL + "')\">x</div>",
+                resolve("<div class=\"card\" style=\"background-image: url('{{image:ok}}')\" data-fallback=\"{{image:missing}}\">x</div>"));
+        assertEquals("<div style=\"background: url(" + URL + "); \">x</div>",
+                resolve("<div style=\"background: url({{image:ok}}); border-image: url({{image:missing}}) 30\">x</div>"));
+        // img 的 src 有图片时保留标签，只去掉其他属性
+        assertEquals("<img src=\"" + URL + "\" alt=\"a\">",
+                resolve("<img src=\"{{image:ok}}\" data-hover=\"{{image:missing}}\" alt=\"a\">"));
+    }
+}
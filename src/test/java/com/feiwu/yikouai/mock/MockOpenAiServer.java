@@ -0,0 +1,394 @@
+package com.feiwu.yikouai.mock;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ClassName:MockOpenAiServer
+ * Package:com.feiwu.yikouai.mock
+ * Description: 本地 OpenAI 兼容接口桩服务器（POST .../chat/completions），用于离线压测，不依赖 DashScope
+ * 流式请求：请求中带工具且最后一条消息为用户消息时，按脚本流式返回工具调用（writeFile / modifyFile / exit 等），
+ * 否则流式返回一段包含 ```html 代码块的文本；首个 token 前等待 timeToFirstToken，之后按 tokensPerSecond 匀速输出
+ * 非流式请求（应用名称生成、生成类型路由、对话摘要）按相同的速度生成后一次性返回 completionContent
+ * 每个请求按 errorRate 的概率注入错误：返回 429 / 500，或在输出一半时断开连接
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/10/22 14:30
+ * Version: 1.0
+ */
+@Slf4j
+public class MockOpenAiServer implements AutoCloseable {
+
+    /**
+     * 默认工具调用脚本，与 VUE_PROJECT 生成的典型调用相同
+     */
+    public static final List<ScriptedToolCall> DEFAULT_TOOL_SCRIPT = List.of(
+            new ScriptedToolCall("writeFile", Map.of("relativeFilePath", "src/App.vue",
+                    "content", "<template>\n  <div id=\"app\"><router-view /></div>\n</template>\n")),
+            new ScriptedToolCall("writeFile", Map.of("relativeFilePath", "src/main.js",
+                    "content", "import { createApp } from 'vue'\nimport App from './App.vue'\ncreateApp(App).mount('#app')\n")),
+            new ScriptedToolCall("modifyFile", Map.of("relativeFilePath", "src/App.vue",
+                    "oldContent", "<router-view />", "newContent", "<h1>Hello</h1><router-view />")),
+            new ScriptedToolCall("exit", Map.of())
+    );
+
+    private final Options options;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    private final AtomicInteger peakActiveStreams = new AtomicInteger();
+
+    /**
+     * 桩服务器配置
+     */
+    @Data
+    @Builder
+    public static class Options {
+
+        /**
+         * 监听端口，0 表示随机端口
+         */
+        @Builder.Default
+        private int port = 0;
+
+        /**
+         * 首个 token 前的等待时间
+         */
+        @Builder.Default
+        private Duration timeToFirstToken = Duration.ofMillis(500);
+
+        /**
+         * 每秒输出的 token 数
+         */
+        @Builder.Default
+        private double tokensPerSecond = 50;
+
+        /**
+         * 每个 token 的字符数
+         */
+        @Builder.Default
+        private int charsPerToken = 4;
+
+        /**
+         * 文本响应中代码块的大致字符数
+         */
+        @Builder.Default
+        private int responseChars = 4000;
+
+        /**
+         * 工具调用脚本，为空时带工具的请求也返回文本
+         */
+        @Builder.Default
+        private List<ScriptedToolCall> toolCalls = DEFAULT_TOOL_SCRIPT;
+
+        /**
+         * 非流式请求的返回内容，默认值同时可以作为生成类型路由结果
+         */
+        @Builder.Default
+        private String completionContent = "HTML";
+
+        /**
+         * 注入错误的概率（0 ~ 1）
+         */
+        @Builder.Default
+        private double errorRate = 0;
+
+        /**
+         * 注入的错误类型
+         */
+        @Builder.Default
+        private ErrorMode errorMode = ErrorMode.HTTP_500;
+    }
+
+    /**
+     * 脚本中的一次工具调用
+     *
+     * @param name      工具名称
+     * @param arguments 工具参数
+     */
+    public record ScriptedToolCall(String name, Map<String, Object> arguments) {
+    }
+
+    /**
+     * 注入的错误类型
+     */
+    public enum ErrorMode {
+        /**
+         * 返回 429（限流）
+         */
+        HTTP_429,
+        /**
+         * 返回 500
+         */
+        HTTP_500,
+        /**
+         * 流式输出一半后断开连接
+         */
+        DISCONNECT
+    }
+
+    public MockOpenAiServer(Options options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.getPort()), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public MockOpenAiServer start() {
+        server.start();
+        log.info("Mock OpenAI 服务已启动: {}", getBaseUrl());
+        return this;
+    }
+
+    /**
+     * @return 模型配置中使用的 base-url
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    public int getPeakActiveStreams() {
+        return peakActiveStreams.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 正常结束时关闭 exchange；注入断开时直接抛出异常，由 HttpServer 关闭连接（不写结束块）
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+            sendJson(exchange, 404, JSONUtil.createObj().set("error", errorBody("not found")).toString());
+            exchange.close();
+            return;
+        }
+        JSONObject request = JSONUtil.parseObj(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        boolean injectError = options.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < options.getErrorRate();
+        if (injectError && options.getErrorMode() != ErrorMode.DISCONNECT) {
+            injectedErrorCount.incrementAndGet();
+            int status = options.getErrorMode() == ErrorMode.HTTP_429 ? 429 : 500;
+            sendJson(exchange, status, JSONUtil.createObj().set("error", errorBody("injected error")).toString());
+            exchange.close();
+            return;
+        }
+        String model = request.getStr("model", "mock-model");
+        if (!request.getBool("stream", false)) {
+            // 非流式请求在首 token 时间之后按输出速度生成完整内容才返回
+            long tokens = tokenize(options.getCompletionContent()).size();
+            parkUntil(System.nanoTime() + options.getTimeToFirstToken().toNanos()
+                    + (long) (tokens * 1_000_000_000L / options.getTokensPerSecond()));
+            sendJson(exchange, 200, completion(model));
+            exchange.close();
+            return;
+        }
+        List<String> events = shouldCallTools(request) ? toolCallEvents(model) : textEvents(model);
+        stream(exchange, events, injectError);
+        exchange.close();
+    }
+
+    /**
+     * 带工具且最后一条消息为用户消息时返回工具调用；收到工具结果后返回文本
+     */
+    private boolean shouldCallTools(JSONObject request) {
+        JSONArray tools = request.getJSONArray("tools");
+        JSONArray messages = request.getJSONArray("messages");
+        if (tools == null || tools.isEmpty() || messages == null || messages.isEmpty() || options.getToolCalls().isEmpty()) {
+            return false;
+        }
+        return "user".equals(messages.getJSONObject(messages.size() - 1).getStr("role"));
+    }
+
+    private void stream(HttpExchange exchange, List<String> events, boolean disconnect) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        int active = activeStreams.incrementAndGet();
+        peakActiveStreams.accumulateAndGet(active, Math::max);
+        try {
+            OutputStream body = exchange.getResponseBody();
+            long intervalNanos = (long) (1_000_000_000L / options.getTokensPerSecond());
+            long deadline = System.nanoTime() + options.getTimeToFirstToken().toNanos();
+            int disconnectAt = disconnect ? events.size() / 2 : -1;
+            for (int i = 0; i < events.size(); i++) {
+                if (i == disconnectAt) {
+                    injectedErrorCount.incrementAndGet();
+                    // 不写结束块直接关闭连接，客户端读取时出现异常
+                    throw new IllegalStateException("injected disconnect");
+                }
+                parkUntil(deadline);
+                body.write(("data: " + events.get(i) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                deadline += intervalNanos;
+            }
+            body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            body.flush();
+        } finally {
+            activeStreams.decrementAndGet();
+        }
+    }
+
+    private List<String> textEvents(String model) {
+        List<String> events = new ArrayList<>();
+        for (String token : tokenize(responseText())) {
+            events.add(chunk(model, JSONUtil.createObj().set("content", token), null));
+        }
+        events.add(chunk(model, JSONUtil.createObj(), "stop"));
+        events.add(usageChunk(model, events.size()));
+        return events;
+    }
+
+    private List<String> toolCallEvents(String model) {
+        List<String> events = new ArrayList<>();
+        List<ScriptedToolCall> toolCalls = options.getToolCalls();
+        for (int index = 0; index < toolCalls.size(); index++) {
+            ScriptedToolCall toolCall = toolCalls.get(index);
+            String callId = "call_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+            events.add(chunk(model, toolCallDelta(index, callId, toolCall.name(), ""), null));
+            for (String token : tokenize(JSONUtil.toJsonStr(toolCall.arguments()))) {
+                events.add(chunk(model, toolCallDelta(index, null, null, token), null));
+            }
+        }
+        events.add(chunk(model, JSONUtil.createObj(), "tool_calls"));
+        events.add(usageChunk(model, events.size()));
+        return events;
+    }
+
+    private static JSONObject toolCallDelta(int index, String callId, String name, String arguments) {
+        JSONObject function = JSONUtil.createObj().set("arguments", arguments);
+        JSONObject toolCall = JSONUtil.createObj().set("index", index).set("function", function);
+        if (callId != null) {
+            toolCall.set("id", callId).set("type", "function");
+            function.set("name", name);
+        }
+        return JSONUtil.createObj().set("tool_calls", JSONUtil.createArray().set(toolCall));
+    }
+
+    private static String chunk(String model, JSONObject delta, String finishReason) {
+        JSONObject choice = JSONUtil.createObj()
+                .set("index", 0)
+                .set("delta", delta);
+        if (finishReason != null) {
+            choice.set("finish_reason", finishReason);
+        }
+        return JSONUtil.createObj()
+                .set("id", "chatcmpl-mock")
+                .set("object", "chat.completion.chunk")
+                .set("created", System.currentTimeMillis() / 1000)
+                .set("model", model)
+                .set("choices", JSONUtil.createArray().set(choice))
+                .toString();
+    }
+
+    private static String usageChunk(String model, int completionTokens) {
+        return JSONUtil.createObj()
+                .set("id", "chatcmpl-mock")
+                .set("object", "chat.completion.chunk")
+                .set("created", System.currentTimeMillis() / 1000)
+                .set("model", model)
+                .set("choices", JSONUtil.createArray())
+                .set("usage", usage(completionTokens))
+                .toString();
+    }
+
+    private String completion(String model) {
+        JSONObject message = JSONUtil.createObj()
+                .set("role", "assistant")
+                .set("content", options.getCompletionContent());
+        JSONObject choice = JSONUtil.createObj()
+                .set("index", 0)
+                .set("message", message)
+                .set("finish_reason", "stop");
+        return JSONUtil.createObj()
+                .set("id", "chatcmpl-mock")
+                .set("object", "chat.completion")
+                .set("created", System.currentTimeMillis() / 1000)
+                .set("model", model)
+                .set("choices", JSONUtil.createArray().set(choice))
+                .set("usage", usage(options.getCompletionContent().length()))
+                .toString();
+    }
+
+    private static JSONObject usage(int completionTokens) {
+        return JSONUtil.createObj()
+                .set("prompt_tokens", 1000)
+                .set("completion_tokens", completionTokens)
+                .set("total_tokens", 1000 + completionTokens);
+    }
+
+    private static JSONObject errorBody(String message) {
+        return JSONUtil.createObj().set("message", message).set("type", "mock_error");
+    }
+
+    private String responseText() {
+        StringBuilder text = new StringBuilder("好的，下面是根据你的需求生成的页面代码：\n\n```html\n<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<head>\n<meta charset=\"UTF-8\">\n<title>Mock</title>\n</head>\n<body>\n");
+        while (text.length() < options.getResponseChars()) {
+            text.append("  <section class=\"card\"><h2>标题</h2><p>这里是一段由桩服务器生成的介绍文字。</p></section>\n");
+        }
+        text.append("</body>\n</html>\n```\n\n以上代码可以直接在浏览器中打开预览。");
+        return text.toString();
+    }
+
+    private List<String> tokenize(String text) {
+        int size = Math.max(1, options.getCharsPerToken());
+        List<String> tokens = new ArrayList<>(text.length() / size + 1);
+        for (int i = 0; i < text.length(); i += size) {
+            tokens.add(text.substring(i, Math.min(text.length(), i + size)));
+        }
+        return tokens;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.ChatResponseMetadata;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClassName:AiServiceStreamingResponseHandlerTest
+ * Package:dev.langchain4j.service
+ * Description: 工具调用提前执行（ToolExecutionOptions.eager）：流式输出中已执行的调用按 id 或流式序号与完整响应对应，
+ * 两边构造方式不同（如无参数时分别为 "{}" 和 ""）也不会重复执行；完整响应中缺少的已执行调用不再重新执行
+ *
+ * @Author: 绯雾sama
+ * @Create:2025/11/3 11:20
+ * Version: 1.0
+ */
+class AiServiceStreamingResponseHandlerTest {
+
+    interface Assistant {
+
+        TokenStream chat(String message);
+    }
+
+    static class CountingTools {
+
+        private final AtomicInteger exitCalls = new AtomicInteger();
+
+        private final AtomicInteger echoCalls = new AtomicInteger();
+
+        @Tool("退出")
+        public String exit() {
+            exitCalls.incrementAndGet();
+            return "已退出";
+        }
+
+        @Tool("回显")
+        public String echo(String text) {
+            echoCalls.incrementAndGet();
+            return text;
+        }
+    }
+
+    /**
+     * 第一轮按 streamed 逐个回调完整的工具调用，再以 completed 作为完整响应；工具结果返回后第二轮输出文本
+     */
+    private record ScriptedModel(List<ToolExecutionRequest> streamed,
+                                 List<ToolExecutionRequest> completed) implements StreamingChatModel {
+
+        @Override
+        public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            ChatResponseMetadata metadata = ChatResponseMetadata.builder().tokenUsage(new TokenUsage(1, 1)).build();
+            if (chatRequest.messages().stream().anyMatch(ToolExecutionResultMessage.class::isInstance)) {
+                handler.onPartialResponse("完成");
+                handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from("完成")).metadata(metadata).build());
+                return;
+            }
+            for (int i = 0; i < streamed.size(); i++) {
+                handler.onCompleteToolExecutionRequest(i, streamed.get(i));
+            }
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(completed)).metadata(metadata).build());
+        }
+    }
+
+    private boolean eager;
+
+    @BeforeEach
+    void enableEager() {
+        eager = ToolExecutionOptions.eager();
+        ToolExecutionOptions.eager(true);
+    }
+
+    @AfterEach
+    void restoreEager() {
+        ToolExecutionOptions.eager(eager);
+    }
+
+    private static List<String> run(CountingTools tools, ScriptedModel model) throws Exception {
+        Assistant assistant = AiServices.builder(Assistant.class)
+                .streamingChatModel(model)
+                .tools(tools)
+                .build();
+        List<String> executed = new ArrayList<>();
+        CompletableFuture<ChatResponse> done = new CompletableFuture<>();
+        assistant.chat("开始")
+                .onPartialResponse(partialResponse -> {
+                })
+                .onToolExecuted(toolExecution -> executed.add(toolExecution.request().name() + "=" + toolExecution.result()))
+                .onCompleteResponse(done::complete)
+                .onError(done::completeExceptionally)
+                .start();
+        assertEquals("完成", done.get(10, TimeUnit.SECONDS).aiMessage().text());
+        return executed;
+    }
+
+    private static ToolExecutionRequest request(String id, String name, String arguments) {
+        return ToolExecutionRequest.builder().id(id).name(name).arguments(arguments).build();
+    }
+
+    @Test
+    void emptyArgumentsToolCallRunsOnce() throws Exception {
+        CountingTools tools = new CountingTools();
+        List<String> executed = run(tools, new ScriptedModel(
+                List.of(request("call_1", "exit", "{}")),
+                List.of(request("call_1", "exit", ""))));
+        assertEquals(1, tools.exitCalls.get());
+        assertEquals(List.of("exit=已退出"), executed);
+    }
+
+    @Test
+    void toolCallsWithoutIdsMatchByStreamingIndex() throws Exception {
+        CountingTools tools = new CountingTools();
+        List<String> executed = run(tools, new ScriptedModel(
+                List.of(request(null, "exit", "{}"), request(null, "echo", "{\"text\":\"a\"}")),
+                List.of(request(null, "exit", ""), request(null, "echo", "{ \"text\": \"a\" }"))));
+        assertEquals(1, tools.exitCalls.get());
+        assertEquals(1, tools.echoCalls.get());
+        assertEquals(List.of("exit=已退出", "echo=a"), executed);
+    }
+
+    @Test
+    void dispatchedCallMissingFromCompleteResponseIsNotRepeated() throws Exception {
+        CountingTools tools = new CountingTools();
+        List<String> executed = run(tools, new ScriptedModel(
+                List.of(request("call_1", "echo", "{\"text\":\"a\"}"), request("call_2", "exit", "{}")),
+                List.of(request("call_2", "exit", ""), request("call_3", "echo", "{\"text\":\"b\"}"))));
+        // call_1 已执行但不在完整响应中，只记录日志；call_3 未提前执行，补充执行一次
+        assertEquals(1, tools.exitCalls.get());
+        assertEquals(2, tools.echoCalls.get());
+        assertEquals(List.of("exit=已退出", "echo=b"), executed);
+    }
+}
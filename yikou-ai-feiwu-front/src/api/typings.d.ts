@@ -65,6 +65,12 @@ declare namespace API {
     message?: string
   }
 
+  type BaseResponseChatHistoryCursorPageVO = {
+    code?: number
+    data?: ChatHistoryCursorPageVO
+    message?: string
+  }
+
   type BaseResponseLoginUserVO = {
     code?: number
     data?: LoginUserVO
@@ -124,6 +130,13 @@ declare namespace API {
     isDelete?: number
   }
 
+  type ChatHistoryCursorPageVO = {
+    records?: ChatHistory[]
+    hasMore?: boolean
+    nextCreateTime?: string
+    nextId?: number
+  }
+
   type ChatHistoryQueryDto = {
     pageNum?: number
     pageSize?: number
@@ -140,6 +153,7 @@ declare namespace API {
   type chatToGenCodeParams = {
     appId: number
     message: string
+    lastEventId?: string
   }
 
   type DeleteRequest = {
@@ -166,6 +180,13 @@ declare namespace API {
     id: number
   }
 
+  type listAppChatHistoryByCursorParams = {
+    appId: string
+    pageSize?: number
+    lastCreateTime?: string
+    lastId?: number
+  }
+
   type listAppChatHistoryParams = {
     appId: string
     pageSize?: number